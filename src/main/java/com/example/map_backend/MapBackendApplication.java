@@ -2,8 +2,10 @@ package com.example.map_backend;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
+@EnableScheduling
 public class MapBackendApplication {
 
 	public static void main(String[] args) {
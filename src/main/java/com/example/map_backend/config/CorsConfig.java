@@ -13,6 +13,9 @@ public class CorsConfig implements WebMvcConfigurer {
                 .allowedOrigins("*")
                 .allowedMethods("GET", "POST", "PUT", "DELETE")
                 .allowedHeaders("*");
+        registry.addMapping("/tiles/**")
+                .allowedOrigins("*")
+                .allowedMethods("GET");
     }
 }
 
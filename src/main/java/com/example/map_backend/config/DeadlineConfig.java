@@ -0,0 +1,31 @@
+package com.example.map_backend.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class DeadlineConfig implements WebMvcConfigurer {
+
+    private final DeadlineInterceptor deadlineInterceptor;
+
+    public DeadlineConfig(DeadlineInterceptor deadlineInterceptor) {
+        this.deadlineInterceptor = deadlineInterceptor;
+    }
+
+    // Remplace le JdbcTemplate auto-configuré : tous les repositories héritent des timeouts
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new DeadlineJdbcTemplate(dataSource);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // Les imports en masse et l'administration sont des opérations longues, hors budget de requête
+        registry.addInterceptor(deadlineInterceptor).addPathPatterns("/api/**").excludePathPatterns("/api/places/import", "/api/transit/import", "/api/admin/**");
+    }
+}
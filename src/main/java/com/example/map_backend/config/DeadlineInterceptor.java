@@ -0,0 +1,71 @@
+package com.example.map_backend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+/**
+ * Ouvre l'échéance de chaque requête : en-tête X-Request-Timeout (millisecondes, plafonné) ou,
+ * à défaut, budget configuré pour l'endpoint. L'échéance est liée au thread : elle est retirée
+ * quand la requête se termine ou passe en traitement asynchrone (le thread retourne au pool).
+ */
+@Component
+public class DeadlineInterceptor implements AsyncHandlerInterceptor {
+
+    public static final String TIMEOUT_HEADER = "X-Request-Timeout";
+
+    private final long defaultMs;
+    private final long routesMs;
+    private final long placesMs;
+    private final long maxMs;
+
+    public DeadlineInterceptor(@Value("${map.deadline.default-ms:10000}") long defaultMs,
+                               @Value("${map.deadline.routes-ms:8000}") long routesMs,
+                               @Value("${map.deadline.places-ms:5000}") long placesMs,
+                               @Value("${map.deadline.max-ms:30000}") long maxMs) {
+        this.defaultMs = defaultMs;
+        this.routesMs = routesMs;
+        this.placesMs = placesMs;
+        this.maxMs = maxMs;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestDeadline.start(budget(request));
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestDeadline.clear();
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        RequestDeadline.clear();
+    }
+
+    private long budget(HttpServletRequest request) {
+        String header = request.getHeader(TIMEOUT_HEADER);
+        if (header != null) {
+            try {
+                long requested = Long.parseLong(header.trim());
+                if (requested > 0) {
+                    return Math.min(requested, maxMs);
+                }
+            } catch (NumberFormatException e) {
+                // En-tête invalide : budget de l'endpoint
+            }
+        }
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/routes")) {
+            return routesMs;
+        }
+        if (path.startsWith("/api/places")) {
+            return placesMs;
+        }
+        return defaultMs;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.map_backend.config;
+
+import org.postgresql.jdbc.PgStatement;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * JdbcTemplate dont chaque requête reçoit un timeout égal au budget restant de la requête HTTP :
+ * au-delà, PostgreSQL annule la requête en cours au lieu de la laisser finir pour rien.
+ */
+public class DeadlineJdbcTemplate extends JdbcTemplate {
+
+    public DeadlineJdbcTemplate(DataSource dataSource) {
+        super(dataSource);
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement statement) throws SQLException {
+        super.applyStatementSettings(statement);
+        long remaining = RequestDeadline.remainingMillis();
+        if (remaining == Long.MAX_VALUE) {
+            return;
+        }
+        RequestDeadline.check();
+        if (statement.isWrapperFor(PgStatement.class)) {
+            statement.unwrap(PgStatement.class).setQueryTimeoutMs(remaining);
+        } else {
+            statement.setQueryTimeout((int) Math.max(1, (remaining + 999) / 1000));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.map_backend.config;
+
+import java.time.Duration;
+
+/**
+ * Échéance de la requête en cours, portée par le thread qui la traite. Sans échéance (tâches de
+ * fond, préchauffage), les méthodes statiques renvoient un budget illimité.
+ */
+public final class RequestDeadline {
+
+    private static final ThreadLocal<RequestDeadline> CURRENT = new ThreadLocal<>();
+
+    private final long deadlineNanos;
+    private boolean degraded;
+
+    private RequestDeadline(long budgetMs) {
+        this.deadlineNanos = System.nanoTime() + budgetMs * 1_000_000;
+    }
+
+    public static void start(long budgetMs) {
+        CURRENT.set(new RequestDeadline(budgetMs));
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static long remainingMillis() {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline == null ? Long.MAX_VALUE : (deadline.deadlineNanos - System.nanoTime()) / 1_000_000;
+    }
+
+    public static boolean isExpired() {
+        return remainingMillis() <= 0;
+    }
+
+    // Budget restant inférieur à la réserve : il faut renoncer aux étapes facultatives
+    public static boolean isLow(long reserveMs) {
+        return remainingMillis() < reserveMs;
+    }
+
+    public static void check() {
+        if (isExpired()) {
+            throw new DeadlineExceededException("Délai de la requête dépassé");
+        }
+    }
+
+    // Délai d'un appel externe : le plus court entre sa limite propre et le budget restant
+    public static Duration timeout(Duration max) {
+        check();
+        return Duration.ofMillis(Math.min(max.toMillis(), remainingMillis()));
+    }
+
+    // Résultat partiel (moins d'alternatives, étape sautée) : à ne pas mettre en cache
+    public static void markDegraded() {
+        RequestDeadline deadline = CURRENT.get();
+        if (deadline != null) {
+            deadline.degraded = true;
+        }
+    }
+
+    public static boolean isDegraded() {
+        RequestDeadline deadline = CURRENT.get();
+        return deadline != null && deadline.degraded;
+    }
+}
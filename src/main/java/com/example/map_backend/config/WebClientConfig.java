@@ -1,15 +1,164 @@
 package com.example.map_backend.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.ChannelOption;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionPoolMetrics;
+import reactor.netty.resources.ConnectionProvider;
 
+import java.net.SocketAddress;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Un client HTTP par service amont (OSRM, Nominatim), construit une fois : pool Reactor Netty
+ * borné (connexions, file d'attente), éviction des connexions inactives en tâche de fond,
+ * compression négociée (Accept-Encoding: gzip) et taille maximale des corps lus en mémoire.
+ * Réglages sous map.upstream.<nom>.*. Métriques : map.upstream.latency (par service et statut),
+ * map.upstream.pool.* (occupation et attente du pool, par hôte) et reactor.netty.http.client.*.
+ */
 @Configuration
 public class WebClientConfig {
 
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+
+    public WebClientConfig(Environment environment, MeterRegistry meterRegistry) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider osrmConnectionProvider() {
+        return connectionProvider("osrm", 50);
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient osrmWebClient(ConnectionProvider osrmConnectionProvider) {
+        return webClient("osrm", "https://router.project-osrm.org", osrmConnectionProvider, 16 * 1024 * 1024);
+    }
+
+    // Politique d'usage de Nominatim : peu de connexions simultanées
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider nominatimConnectionProvider() {
+        return connectionProvider("nominatim", 4);
+    }
+
+    @Bean
+    public WebClient nominatimWebClient(ConnectionProvider nominatimConnectionProvider) {
+        return webClient("nominatim", "https://nominatim.openstreetmap.org", nominatimConnectionProvider, 1024 * 1024);
+    }
+
+    private ConnectionProvider connectionProvider(String upstream, int defaultMaxConnections) {
+        String prefix = "map.upstream." + upstream + ".";
+        PoolMeters poolMeters = new PoolMeters(upstream);
+        return ConnectionProvider.builder(upstream)
+                .maxConnections(environment.getProperty(prefix + "max-connections", Integer.class, defaultMaxConnections))
+                .pendingAcquireMaxCount(environment.getProperty(prefix + "pending-acquire-max", Integer.class, 256))
+                .pendingAcquireTimeout(Duration.ofMillis(environment.getProperty(prefix + "pending-acquire-timeout-ms", Long.class, 5000L)))
+                .maxIdleTime(Duration.ofMillis(environment.getProperty(prefix + "max-idle-ms", Long.class, 30000L)))
+                .maxLifeTime(Duration.ofMillis(environment.getProperty(prefix + "max-life-ms", Long.class, 300000L)))
+                .evictInBackground(Duration.ofMillis(environment.getProperty(prefix + "evict-interval-ms", Long.class, 30000L)))
+                .metrics(true, () -> poolMeters)
+                .build();
     }
 
-}
\ No newline at end of file
+    private WebClient webClient(String upstream, String defaultBaseUrl, ConnectionProvider provider, int defaultMaxInMemoryBytes) {
+        String prefix = "map.upstream." + upstream + ".";
+        long responseTimeoutMs = environment.getProperty(prefix + "response-timeout-ms", Long.class,
+                environment.getProperty("map.deadline.upstream-timeout-ms", Long.class, 10000L));
+        HttpClient httpClient = HttpClient.create(provider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, environment.getProperty(prefix + "connect-timeout-ms", Integer.class, 2000))
+                .responseTimeout(Duration.ofMillis(responseTimeoutMs))
+                .keepAlive(true)
+                .compress(true)
+                // Gabarit d'URI en étiquette : les coordonnées ne doivent pas multiplier les séries
+                .metrics(true, WebClientConfig::uriTemplate);
+        int maxInMemoryBytes = environment.getProperty(prefix + "max-in-memory-bytes", Integer.class, defaultMaxInMemoryBytes);
+        return WebClient.builder()
+                .baseUrl(environment.getProperty(prefix + "base-url", defaultBaseUrl))
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(maxInMemoryBytes))
+                .defaultHeader(HttpHeaders.USER_AGENT, "map-backend/1.0")
+                .filter(latency(upstream))
+                .build();
+    }
+
+    // Temps jusqu'aux en-têtes de réponse, par service et statut (ou type d'erreur)
+    private ExchangeFilterFunction latency(String upstream) {
+        return (request, next) -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnSuccess(response -> record(upstream, String.valueOf(response.statusCode().value()), start))
+                    .doOnError(error -> record(upstream, error.getClass().getSimpleName(), start));
+        };
+    }
+
+    private void record(String upstream, String status, long startNanos) {
+        Timer.builder("map.upstream.latency").tag("upstream", upstream).tag("status", status)
+                .register(meterRegistry)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Chemin sans requête, limité aux trois premiers segments (/route/v1/car, /search)
+    static String uriTemplate(String uri) {
+        int query = uri.indexOf('?');
+        String path = query >= 0 ? uri.substring(0, query) : uri;
+        int segments = 0;
+        for (int i = 0; i < path.length(); i++) {
+            if (path.charAt(i) == '/' && ++segments > 3) {
+                return path.substring(0, i);
+            }
+        }
+        return path;
+    }
+
+    // Jauges d'occupation du pool, enregistrées par hôte distant à la création de son pool
+    private final class PoolMeters implements ConnectionProvider.MeterRegistrar {
+        private final String upstream;
+        private final Map<String, List<Meter>> meters = new ConcurrentHashMap<>();
+
+        private PoolMeters(String upstream) {
+            this.upstream = upstream;
+        }
+
+        @Override
+        public void registerMetrics(String poolName, String id, SocketAddress remoteAddress, ConnectionPoolMetrics metrics) {
+            String remote = String.valueOf(remoteAddress);
+            meters.put(id + remote, List.of(
+                    gauge("map.upstream.pool.acquired", remote, metrics, ConnectionPoolMetrics::acquiredSize),
+                    gauge("map.upstream.pool.idle", remote, metrics, ConnectionPoolMetrics::idleSize),
+                    gauge("map.upstream.pool.pending", remote, metrics, ConnectionPoolMetrics::pendingAcquireSize),
+                    gauge("map.upstream.pool.saturation", remote, metrics,
+                            m -> m.maxAllocatedSize() > 0 ? (double) m.acquiredSize() / m.maxAllocatedSize() : 0)));
+        }
+
+        @Override
+        public void deRegisterMetrics(String poolName, String id, SocketAddress remoteAddress) {
+            List<Meter> registered = meters.remove(id + remoteAddress);
+            if (registered != null) {
+                registered.forEach(meterRegistry::remove);
+            }
+        }
+
+        private Meter gauge(String name, String remote, ConnectionPoolMetrics metrics,
+                            ToDoubleFunction<ConnectionPoolMetrics> value) {
+            return Gauge.builder(name, metrics, value).strongReference(true)
+                    .tag("upstream", upstream).tag("remote", remote).register(meterRegistry);
+        }
+    }
+}
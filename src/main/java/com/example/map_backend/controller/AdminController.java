@@ -0,0 +1,116 @@
+package com.example.map_backend.controller;
+
+import com.example.map_backend.diagnostics.FlightRecorderService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+// Opérations d'exploitation ; désactivées tant que map.admin.token est vide
+@RestController
+@RequestMapping("/api/admin")
+public class AdminController {
+
+    private final FlightRecorderService flightRecorderService;
+    private final String adminToken;
+
+    public AdminController(FlightRecorderService flightRecorderService, @Value("${map.admin.token:}") String adminToken) {
+        this.flightRecorderService = flightRecorderService;
+        this.adminToken = adminToken;
+    }
+
+    @GetMapping("/jfr")
+    public ResponseEntity<Map<String, Object>> jfrStatus(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return forbidden();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", flightRecorderService.status());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/jfr/start")
+    public ResponseEntity<Map<String, Object>> startJfr(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return forbidden();
+        }
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("data", flightRecorderService.start());
+            return ResponseEntity.ok(response);
+        } catch (Exception e) {
+            response.put("success", false);
+            response.put("error", "Démarrage de l'enregistrement impossible : " + e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping("/jfr/stop")
+    public ResponseEntity<Map<String, Object>> stopJfr(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return forbidden();
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", flightRecorderService.stop());
+        return ResponseEntity.ok(response);
+    }
+
+    // Contenu courant de l'anneau, envoyé en flux puis supprimé du disque
+    @PostMapping("/jfr/dump")
+    public ResponseEntity<?> dumpJfr(@RequestHeader(value = "X-Admin-Token", required = false) String token) {
+        if (!authorized(token)) {
+            return forbidden();
+        }
+        Path file;
+        try {
+            file = flightRecorderService.dump();
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.CONFLICT);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Vidage de l'enregistrement impossible : " + e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+        StreamingResponseBody body = output -> {
+            try {
+                Files.copy(file, output);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + file.getFileName() + "\"")
+                .body(body);
+    }
+
+    // Comparaison à temps constant
+    private boolean authorized(String token) {
+        return !adminToken.isBlank() && token != null
+                && MessageDigest.isEqual(adminToken.getBytes(StandardCharsets.UTF_8), token.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ResponseEntity<Map<String, Object>> forbidden() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", false);
+        response.put("error", "Accès d'administration refusé");
+        return new ResponseEntity<>(response, HttpStatus.FORBIDDEN);
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.map_backend.controller;
+
+import com.example.map_backend.model.BatchMatchRequestBody;
+import com.example.map_backend.model.MatchRequestBody;
+import com.example.map_backend.model.MatchResponse;
+import com.example.map_backend.service.MapMatchingService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/match")
+public class MatchController {
+
+    private final MapMatchingService mapMatchingService;
+
+    public MatchController(MapMatchingService mapMatchingService) {
+        this.mapMatchingService = mapMatchingService;
+    }
+
+    @PostMapping
+    public ResponseEntity<MatchResponse> matchTrace(@RequestBody MatchRequestBody body) {
+        try {
+            MatchResponse response = mapMatchingService.match(body);
+            return new ResponseEntity<>(response, response.getError() != null ? HttpStatus.UNPROCESSABLE_ENTITY : HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            MatchResponse response = new MatchResponse();
+            response.setError(e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            MatchResponse response = new MatchResponse();
+            response.setError(e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            MatchResponse response = new MatchResponse();
+            response.setError("Erreur lors du recalage de la trace");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<Map<String, Object>> matchTraces(@RequestBody BatchMatchRequestBody body) {
+        try {
+            List<MatchResponse> results = mapMatchingService.matchBatch(body.getTraces());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", results);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Erreur serveur");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
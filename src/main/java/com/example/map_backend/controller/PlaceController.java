@@ -1,29 +1,70 @@
 package com.example.map_backend.controller;
 
+import com.example.map_backend.config.DeadlineExceededException;
+import com.example.map_backend.model.CorridorPlace;
+import com.example.map_backend.model.CorridorRequestBody;
 import com.example.map_backend.model.Place;
+import com.example.map_backend.model.PlaceImportReport;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.service.CorridorService;
+import com.example.map_backend.service.PlaceImportService;
 import com.example.map_backend.service.PlaceService;
+import com.example.map_backend.service.ResponseBodyCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/places")
 public class PlaceController {
 
     private final PlaceService placeService;
+    private final ResponseBodyCache responseBodyCache;
+    private final PlaceImportService placeImportService;
+    private final CorridorService corridorService;
 
-    public PlaceController(PlaceService placeService) {
+    public PlaceController(PlaceService placeService, ResponseBodyCache responseBodyCache, PlaceImportService placeImportService,
+                           CorridorService corridorService) {
         this.placeService = placeService;
+        this.responseBodyCache = responseBodyCache;
+        this.placeImportService = placeImportService;
+        this.corridorService = corridorService;
     }
 
+    // Recherche dans la région nommée, sinon dans celle de la position de l'utilisateur, sinon dans la région par défaut
     @GetMapping
-    public ResponseEntity<Map<String, Object>> searchPlaces(@RequestParam String name) {
+    public ResponseEntity<?> searchPlaces(@RequestParam String name,
+                                          @RequestParam(required = false) String region,
+                                          @RequestParam(required = false) Double lat,
+                                          @RequestParam(required = false) Double lng,
+                                          @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Region searchRegion;
         try {
-            List<Place> places = placeService.searchPlaces(name);
+            searchRegion = placeService.resolveRegion(region, lat, lng);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+        Long version = placeService.dataVersion();
+        String etag = version != null ? responseBodyCache.etag("places", name, searchRegion.name(), version) : null;
+        return responseBodyCache.serve(etag, ifNoneMatch, acceptEncoding, () -> doSearchPlaces(name, searchRegion));
+    }
+
+    private ResponseEntity<Map<String, Object>> doSearchPlaces(String name, Region region) {
+        try {
+            List<Place> places = placeService.searchPlaces(name, region);
             if (places.isEmpty()) {
                 Map<String, Object> response = new HashMap<>();
                 response.put("success", false);
@@ -39,6 +80,11 @@ public class PlaceController {
             response.put("success", false);
             response.put("error", e.getMessage());
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (DeadlineExceededException | QueryTimeoutException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Délai de la requête dépassé");
+            return new ResponseEntity<>(response, HttpStatus.GATEWAY_TIMEOUT);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -48,7 +94,15 @@ public class PlaceController {
     }
 
     @GetMapping("/closest")
-    public ResponseEntity<Map<String, Object>> findClosestPlace(@RequestParam double lat, @RequestParam double lng) {
+    public ResponseEntity<?> findClosestPlace(@RequestParam double lat, @RequestParam double lng,
+                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        Long version = placeService.dataVersion();
+        String etag = version != null ? responseBodyCache.etag("closest", lat, lng, version) : null;
+        return responseBodyCache.serve(etag, ifNoneMatch, acceptEncoding, () -> doFindClosestPlace(lat, lng));
+    }
+
+    private ResponseEntity<Map<String, Object>> doFindClosestPlace(double lat, double lng) {
         try {
             Place place = placeService.findClosestPlace(lat, lng);
             if (place == null) {
@@ -66,6 +120,43 @@ public class PlaceController {
             response.put("success", false);
             response.put("error", e.getMessage());
             return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (DeadlineExceededException | QueryTimeoutException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Délai de la requête dépassé");
+            return new ResponseEntity<>(response, HttpStatus.GATEWAY_TIMEOUT);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Erreur serveur");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Lieux à moins de bufferMeters d'un itinéraire (routeKey d'une réponse /api/routes ou géométrie WKT)
+    @PostMapping("/along-route")
+    public ResponseEntity<Map<String, Object>> findPlacesAlongRoute(@RequestBody CorridorRequestBody request) {
+        try {
+            List<CorridorPlace> places = corridorService.placesAlongRoute(request);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("data", places);
+            return new ResponseEntity<>(response, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (NoSuchElementException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        } catch (DeadlineExceededException | QueryTimeoutException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Délai de la requête dépassé");
+            return new ResponseEntity<>(response, HttpStatus.GATEWAY_TIMEOUT);
         } catch (Exception e) {
             Map<String, Object> response = new HashMap<>();
             response.put("success", false);
@@ -73,4 +164,24 @@ public class PlaceController {
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
-}
\ No newline at end of file
+
+    // Corps brut lu en flux (GeoJSON ou CSV), jamais chargé entièrement en mémoire
+    @PostMapping("/import")
+    public ResponseEntity<PlaceImportReport> importPlaces(@RequestParam(defaultValue = "geojson") String format, InputStream body) {
+        try {
+            return new ResponseEntity<>(placeImportService.importPlaces(body, format), HttpStatus.OK);
+        } catch (JsonProcessingException e) {
+            PlaceImportReport report = new PlaceImportReport();
+            report.setError("GeoJSON invalide : " + e.getOriginalMessage());
+            return new ResponseEntity<>(report, HttpStatus.BAD_REQUEST);
+        } catch (IllegalArgumentException e) {
+            PlaceImportReport report = new PlaceImportReport();
+            report.setError(e.getMessage());
+            return new ResponseEntity<>(report, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            PlaceImportReport report = new PlaceImportReport();
+            report.setError("Erreur lors de l'import : " + e.getMessage());
+            return new ResponseEntity<>(report, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.map_backend.controller;
+
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadNetworkService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/regions")
+public class RegionController {
+
+    private final RoadNetworkService roadNetworkService;
+
+    public RegionController(RoadNetworkService roadNetworkService) {
+        this.roadNetworkService = roadNetworkService;
+    }
+
+    // Régions desservies, avec leur emprise et l'état de leur chargement en mémoire
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> listRegions() {
+        List<Map<String, Object>> regions = new ArrayList<>();
+        for (Region region : roadNetworkService.regions().regions()) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("name", region.name());
+            entry.put("label", region.label());
+            entry.put("bbox", List.of(region.minLng(), region.minLat(), region.maxLng(), region.maxLat()));
+            entry.putAll(roadNetworkService.status(region));
+            regions.add(entry);
+        }
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", regions);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,12 +1,23 @@
 
 package com.example.map_backend.controller;
 
+import com.example.map_backend.config.DeadlineExceededException;
+import com.example.map_backend.config.RequestDeadline;
 import com.example.map_backend.model.*;
+import com.example.map_backend.service.RerouteService;
+import com.example.map_backend.service.ResponseBodyCache;
 import com.example.map_backend.service.RouteService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
 
 @RestController
 @RequestMapping("/api/routes")
@@ -15,8 +26,16 @@ public class RouteController {
     @Autowired
     private RouteService routeService;
 
+    @Autowired
+    private ResponseBodyCache responseBodyCache;
+
+    @Autowired
+    private RerouteService rerouteService;
+
     @PostMapping
-    public ResponseEntity<RouteResponse> calculateRoute(@RequestBody RouteRequestBody body) {
+    public ResponseEntity<?> calculateRoute(@RequestBody RouteRequestBody body,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
             if (body.getPoints() == null || body.getPoints().size() != 2) {
                 RouteResponse response = new RouteResponse();
@@ -42,21 +61,86 @@ public class RouteController {
             String startPlaceName = body.getStartPlaceName() != null ? body.getStartPlaceName() : "Unknown Start";
             String endPlaceName = body.getEndPlaceName() != null ? body.getEndPlaceName() : "Unknown Destination";
 
-            RouteResponse response = routeService.routeWithPgRouting(body.getPoints(), mode, startPlaceName, endPlaceName);
+            Long version = routeService.dataVersion();
+            String etag = version == null ? null : responseBodyCache.etag("route", version, mode, startPlaceName, endPlaceName,
+                    body.getPoints().get(0).getLat(), body.getPoints().get(0).getLng(),
+                    body.getPoints().get(1).getLat(), body.getPoints().get(1).getLng());
+            return responseBodyCache.serve(etag, ifNoneMatch, acceptEncoding, () -> {
+                RouteResponse response = routeService.routeWithPgRouting(body.getPoints(), mode, startPlaceName, endPlaceName);
+                if (response.getError() != null) {
+                    return new ResponseEntity<>(response, RequestDeadline.isExpired() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            });
+
+        } catch (Exception e) {
+            RouteResponse response = new RouteResponse();
+            response.setError("Erreur lors du calcul d'itinéraire");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    // Flux progressif : text/event-stream (SSE) ou application/x-ndjson selon l'en-tête Accept
+    @PostMapping(value = "/stream", produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Flux<RouteStreamEvent>> streamRoute(@RequestBody RouteRequestBody body) {
+        if (body.getPoints() == null || body.getPoints().size() != 2) {
+            return ResponseEntity.badRequest().body(Flux.just(RouteStreamEvent.error("Un itinéraire se calcule entre deux points")));
+        }
+        for (Point point : body.getPoints()) {
+            if (point.getLat() < -90 || point.getLat() > 90 || point.getLng() < -180 || point.getLng() > 180) {
+                return ResponseEntity.badRequest().body(Flux.just(RouteStreamEvent.error("Coordonnées géographiques invalides")));
+            }
+        }
+        String mode = body.getMode() != null ? body.getMode() : "driving";
+        if (!mode.equals("driving") && !mode.equals("walking") && !mode.equals("cycling")) {
+            return ResponseEntity.badRequest().body(Flux.just(RouteStreamEvent.error("Mode de transport invalide")));
+        }
+        String startPlaceName = body.getStartPlaceName() != null ? body.getStartPlaceName() : "Unknown Start";
+        String endPlaceName = body.getEndPlaceName() != null ? body.getEndPlaceName() : "Unknown Destination";
+        return ResponseEntity.ok(routeService.streamRoutes(body.getPoints(), mode, startPlaceName, endPlaceName));
+    }
+
+    // Véhicule sorti de l'itinéraire : raccordement depuis la position actuelle à la suite de l'itinéraire suivi
+    @PostMapping("/reroute")
+    public ResponseEntity<RouteResponse> reroute(@RequestBody RerouteRequestBody body) {
+        try {
+            RouteResponse response = rerouteService.reroute(body);
             if (response.getError() != null) {
-                return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+                return new ResponseEntity<>(response, RequestDeadline.isExpired() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.INTERNAL_SERVER_ERROR);
             }
             return new ResponseEntity<>(response, HttpStatus.OK);
-
+        } catch (IllegalArgumentException e) {
+            RouteResponse response = new RouteResponse();
+            response.setError(e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (NoSuchElementException e) {
+            RouteResponse response = new RouteResponse();
+            response.setError(e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        } catch (DeadlineExceededException e) {
+            RouteResponse response = new RouteResponse();
+            response.setError("Délai de la requête dépassé");
+            return new ResponseEntity<>(response, HttpStatus.GATEWAY_TIMEOUT);
         } catch (Exception e) {
             RouteResponse response = new RouteResponse();
-            response.setError("Erreur lors du calcul d'itinéraire");
+            response.setError("Erreur lors du recalcul d'itinéraire");
             return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
         }
     }
 
+    // Statistiques du planificateur : latence attendue, taux de succès et santé par moteur et par mode
+    @GetMapping("/engines")
+    public ResponseEntity<Map<String, Object>> engines() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", routeService.engineStats());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/with-detour")
-    public ResponseEntity<RouteResponse> calculateRouteWithDetour(@RequestBody RouteWithDetourRequestBody body) {
+    public ResponseEntity<?> calculateRouteWithDetour(@RequestBody RouteWithDetourRequestBody body,
+                                                      @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+                                                      @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
         try {
             if (body.getStart() == null || body.getDetour() == null || body.getEnd() == null) {
                 RouteResponse response = new RouteResponse();
@@ -80,19 +164,29 @@ public class RouteController {
                 return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
             }
 
-            RouteResponse response = routeService.routeWithDetour(
-                    body.getStart(),
-                    body.getDetour(),
-                    body.getEnd(),
-                    mode,
-                    body.getStartPlaceName(),
-                    body.getDetourPlaceName(),
-                    body.getEndPlaceName()
-            );
-            if (response.getError() != null) {
-                return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
-            }
-            return new ResponseEntity<>(response, HttpStatus.OK);
+            // Avec les horaires, les heures de passage changent d'une requête à l'autre : pas de réponse conditionnelle ;
+            // pas non plus tant que le réseau n'est pas chargé (aucune version fiable)
+            Long version = routeService.dataVersion();
+            String etag = version == null || routeService.dependsOnDepartureTime(mode) ? null : responseBodyCache.etag("detour", version, mode,
+                    body.getStartPlaceName(), body.getDetourPlaceName(), body.getEndPlaceName(),
+                    body.getStart().getLat(), body.getStart().getLng(),
+                    body.getDetour().getLat(), body.getDetour().getLng(),
+                    body.getEnd().getLat(), body.getEnd().getLng());
+            return responseBodyCache.serve(etag, ifNoneMatch, acceptEncoding, () -> {
+                RouteResponse response = routeService.routeWithDetour(
+                        body.getStart(),
+                        body.getDetour(),
+                        body.getEnd(),
+                        mode,
+                        body.getStartPlaceName(),
+                        body.getDetourPlaceName(),
+                        body.getEndPlaceName()
+                );
+                if (response.getError() != null) {
+                    return new ResponseEntity<>(response, RequestDeadline.isExpired() ? HttpStatus.GATEWAY_TIMEOUT : HttpStatus.INTERNAL_SERVER_ERROR);
+                }
+                return new ResponseEntity<>(response, HttpStatus.OK);
+            });
 
         } catch (Exception e) {
             RouteResponse response = new RouteResponse();
@@ -0,0 +1,107 @@
+package com.example.map_backend.controller;
+
+import com.example.map_backend.model.BatchRouteRequestBody;
+import com.example.map_backend.model.RouteJobStatus;
+import com.example.map_backend.service.RouteJobService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+@RestController
+@RequestMapping("/api/routes/jobs")
+public class RouteJobController {
+
+    private final RouteJobService routeJobService;
+
+    public RouteJobController(RouteJobService routeJobService) {
+        this.routeJobService = routeJobService;
+    }
+
+    @PostMapping
+    public ResponseEntity<Map<String, Object>> submitJob(@RequestBody BatchRouteRequestBody body) {
+        try {
+            String jobId = routeJobService.submit(body);
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("jobId", jobId);
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.TOO_MANY_REQUESTS);
+        }
+    }
+
+    // Progression seule par défaut ; results=true ajoute les résultats déjà disponibles
+    @GetMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> getJob(@PathVariable String jobId,
+                                                      @RequestParam(defaultValue = "true") boolean results) {
+        RouteJobStatus status = routeJobService.status(jobId, results);
+        Map<String, Object> response = new HashMap<>();
+        if (status == null) {
+            response.put("success", false);
+            response.put("error", "Traitement inconnu ou expiré");
+            return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        }
+        response.put("success", true);
+        response.put("data", status);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    // Server-Sent Events : un événement "progress" par paire traitée, puis "done"
+    @GetMapping("/{jobId}/events")
+    public SseEmitter subscribe(@PathVariable String jobId) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Consumer<RouteJobStatus> listener = status -> {
+            try {
+                boolean finished = !"RUNNING".equals(status.getStatus());
+                emitter.send(SseEmitter.event().name(finished ? "done" : "progress").data(status));
+                if (finished) {
+                    emitter.complete();
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        };
+        emitter.onCompletion(() -> routeJobService.unsubscribe(jobId, listener));
+        emitter.onTimeout(() -> routeJobService.unsubscribe(jobId, listener));
+        if (!routeJobService.subscribe(jobId, listener)) {
+            // Lot inconnu ou déjà terminé : on envoie l'état final et on ferme
+            RouteJobStatus status = routeJobService.status(jobId, false);
+            try {
+                if (status != null) {
+                    emitter.send(SseEmitter.event().name("done").data(status));
+                }
+                emitter.complete();
+            } catch (IOException e) {
+                emitter.completeWithError(e);
+            }
+        }
+        return emitter;
+    }
+
+    @DeleteMapping("/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(@PathVariable String jobId) {
+        Map<String, Object> response = new HashMap<>();
+        if (!routeJobService.cancel(jobId)) {
+            response.put("success", false);
+            response.put("error", "Traitement inconnu ou expiré");
+            return new ResponseEntity<>(response, HttpStatus.NOT_FOUND);
+        }
+        response.put("success", true);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.map_backend.controller;
+
+import com.example.map_backend.tiles.VectorTileService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+
+import java.util.concurrent.TimeUnit;
+
+@RestController
+@RequestMapping("/tiles")
+public class TileController {
+
+    private static final MediaType MVT = MediaType.parseMediaType("application/vnd.mapbox-vector-tile");
+
+    private final VectorTileService vectorTileService;
+
+    public TileController(VectorTileService vectorTileService) {
+        this.vectorTileService = vectorTileService;
+    }
+
+    @GetMapping("/{z}/{x}/{y}.mvt")
+    public ResponseEntity<byte[]> getTile(@PathVariable int z, @PathVariable int x, @PathVariable int y, WebRequest request) {
+        String etag = "\"" + vectorTileService.version() + "-" + z + "-" + x + "-" + y + "\"";
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        try {
+            byte[] tile = vectorTileService.tile(z, x, y);
+            if (tile.length == 0) {
+                return ResponseEntity.noContent().eTag(etag).build();
+            }
+            return ResponseEntity.ok()
+                    .contentType(MVT)
+                    .eTag(etag)
+                    .cacheControl(CacheControl.maxAge(60, TimeUnit.SECONDS))
+                    .body(tile);
+        } catch (IllegalArgumentException e) {
+            return new ResponseEntity<>(HttpStatus.BAD_REQUEST);
+        }
+    }
+}
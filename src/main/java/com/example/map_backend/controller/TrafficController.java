@@ -0,0 +1,54 @@
+package com.example.map_backend.controller;
+
+import com.example.map_backend.model.TrafficUpdateRequest;
+import com.example.map_backend.network.TrafficOverlay;
+import com.example.map_backend.service.TrafficService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/traffic")
+public class TrafficController {
+
+    private final TrafficService trafficService;
+
+    public TrafficController(TrafficService trafficService) {
+        this.trafficService = trafficService;
+    }
+
+    @PostMapping("/updates")
+    public ResponseEntity<Map<String, Object>> pushUpdates(@RequestBody TrafficUpdateRequest body) {
+        try {
+            int accepted = trafficService.submit(body.getUpdates());
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", true);
+            response.put("accepted", accepted);
+            return new ResponseEntity<>(response, HttpStatus.ACCEPTED);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (Exception e) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("success", false);
+            response.put("error", "Erreur serveur");
+            return new ResponseEntity<>(response, HttpStatus.INTERNAL_SERVER_ERROR);
+        }
+    }
+
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getOverlay() {
+        TrafficOverlay overlay = trafficService.overlay();
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("version", overlay.getVersion());
+        response.put("edges", overlay.size());
+        response.put("closed", overlay.closedCount());
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.map_backend.controller;
+
+import com.example.map_backend.model.TransitJourney;
+import com.example.map_backend.model.TransitJourneyRequestBody;
+import com.example.map_backend.service.TransitService;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/transit")
+public class TransitController {
+
+    private final TransitService transitService;
+
+    public TransitController(TransitService transitService) {
+        this.transitService = transitService;
+    }
+
+    // Archive GTFS (zip) dans le corps de la requête, lue en flux ; remplace les horaires chargés
+    @PostMapping("/import")
+    public ResponseEntity<Map<String, Object>> importGtfs(InputStream body) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            response.put("success", true);
+            response.put("data", transitService.importGtfs(body));
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | IOException e) {
+            response.put("success", false);
+            response.put("error", "Fichier GTFS invalide : " + e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    @GetMapping("/status")
+    public ResponseEntity<Map<String, Object>> status() {
+        Map<String, Object> response = new HashMap<>();
+        response.put("success", true);
+        response.put("data", transitService.status());
+        return ResponseEntity.ok(response);
+    }
+
+    @PostMapping("/journeys")
+    public ResponseEntity<Map<String, Object>> findJourneys(@RequestBody TransitJourneyRequestBody body) {
+        Map<String, Object> response = new HashMap<>();
+        try {
+            List<TransitJourney> journeys = transitService.findJourneys(body);
+            response.put("success", true);
+            response.put("data", journeys);
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.BAD_REQUEST);
+        } catch (IllegalStateException e) {
+            response.put("success", false);
+            response.put("error", e.getMessage());
+            return new ResponseEntity<>(response, HttpStatus.SERVICE_UNAVAILABLE);
+        }
+    }
+}
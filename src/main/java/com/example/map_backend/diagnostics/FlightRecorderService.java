@@ -0,0 +1,130 @@
+package com.example.map_backend.diagnostics;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Event;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Enregistrement JFR continu en anneau (âge et taille bornés) : les dernières minutes d'activité,
+ * événements de l'application compris, restent disponibles pour un vidage à la demande.
+ * Démarré au lancement si map.jfr.continuous.enabled=true, ou via l'endpoint d'administration.
+ */
+@Service
+public class FlightRecorderService implements ApplicationRunner, DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(FlightRecorderService.class.getName());
+
+    private static final List<Class<? extends Event>> EVENTS = List.of(
+            MapEvents.RouteSnap.class, MapEvents.RouteSearch.class, MapEvents.OsrmCall.class, MapEvents.OsrmParse.class,
+            MapEvents.DetourMerge.class, MapEvents.PlaceSearch.class, MapEvents.NominatimCall.class, MapEvents.PlaceInsert.class);
+
+    private final boolean enabledAtStartup;
+    private final String settings;
+    private final Duration maxAge;
+    private final long maxSizeBytes;
+    private final Duration eventThreshold;
+    private final Path dumpDirectory;
+
+    private Recording recording;
+
+    public FlightRecorderService(@Value("${map.jfr.continuous.enabled:false}") boolean enabledAtStartup,
+                                 @Value("${map.jfr.settings:default}") String settings,
+                                 @Value("${map.jfr.max-age-minutes:30}") long maxAgeMinutes,
+                                 @Value("${map.jfr.max-size-mb:200}") long maxSizeMb,
+                                 @Value("${map.jfr.event-threshold-ms:0}") long eventThresholdMs,
+                                 @Value("${map.jfr.dump-dir:${java.io.tmpdir}}") String dumpDirectory) {
+        this.enabledAtStartup = enabledAtStartup;
+        this.settings = settings;
+        this.maxAge = Duration.ofMinutes(maxAgeMinutes);
+        this.maxSizeBytes = maxSizeMb * 1024 * 1024;
+        this.eventThreshold = Duration.ofMillis(eventThresholdMs);
+        this.dumpDirectory = Path.of(dumpDirectory);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabledAtStartup) {
+            try {
+                start();
+            } catch (Exception e) {
+                LOGGER.warning("Enregistrement JFR continu non démarré : " + e.getMessage());
+            }
+        }
+    }
+
+    // Sans effet si un enregistrement est déjà en cours
+    public synchronized Map<String, Object> start() throws IOException, ParseException {
+        if (!isRunning()) {
+            Recording started = new Recording(Configuration.getConfiguration(settings));
+            for (Class<? extends Event> event : EVENTS) {
+                started.enable(event).withThreshold(eventThreshold);
+            }
+            started.setName("map-backend-continuous");
+            started.setToDisk(true);
+            started.setMaxAge(maxAge);
+            started.setMaxSize(maxSizeBytes);
+            started.start();
+            recording = started;
+            LOGGER.info("Enregistrement JFR continu démarré (" + settings + ", " + maxAge.toMinutes() + " min, " + maxSizeBytes / (1024 * 1024) + " Mo)");
+        }
+        return status();
+    }
+
+    public synchronized Map<String, Object> stop() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            LOGGER.info("Enregistrement JFR continu arrêté");
+        }
+        return status();
+    }
+
+    // Copie du contenu courant de l'anneau dans un fichier .jfr temporaire, à supprimer par l'appelant
+    public synchronized Path dump() throws IOException {
+        if (!isRunning()) {
+            throw new IllegalStateException("Aucun enregistrement JFR en cours");
+        }
+        Files.createDirectories(dumpDirectory);
+        Path file = Files.createTempFile(dumpDirectory, "map-backend-", ".jfr");
+        recording.dump(file);
+        return file;
+    }
+
+    public synchronized Map<String, Object> status() {
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("running", isRunning());
+        if (recording != null) {
+            status.put("settings", settings);
+            status.put("startTime", recording.getStartTime() != null ? recording.getStartTime().toString() : null);
+            status.put("maxAgeMinutes", maxAge.toMinutes());
+            status.put("maxSizeBytes", maxSizeBytes);
+            status.put("sizeBytes", recording.getSize());
+        }
+        return status;
+    }
+
+    private boolean isRunning() {
+        return recording != null && recording.getState() == RecordingState.RUNNING;
+    }
+
+    @Override
+    public void destroy() {
+        stop();
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.map_backend.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Événements JFR de l'application, corrélables avec les pauses GC et les échantillons CPU d'un
+ * enregistrement. Usage : begin() avant l'opération, puis champs et commit() sous shouldCommit() ;
+ * sans enregistrement actif, shouldCommit() est faux et l'événement ne coûte qu'une allocation
+ * que le JIT élimine.
+ */
+public final class MapEvents {
+
+    private MapEvents() {
+    }
+
+    @Name("map.RouteSnap")
+    @Label("Route Snap")
+    @Category({"Map Backend", "Routing"})
+    @Description("Accrochage des extrémités aux sommets du réseau")
+    @StackTrace(false)
+    public static final class RouteSnap extends Event {
+        @Label("Mode")
+        public String mode;
+        @Label("Points")
+        public int points;
+        @Label("Snapped")
+        public boolean snapped;
+    }
+
+    @Name("map.RouteSearch")
+    @Label("Route Search")
+    @Category({"Map Backend", "Routing"})
+    @Description("Calcul d'itinéraires : cache puis moteurs choisis par le planificateur")
+    @StackTrace(false)
+    public static final class RouteSearch extends Event {
+        @Label("Mode")
+        public String mode;
+        @Label("Engine")
+        public String engine;
+        @Label("Routes")
+        public int routes;
+        @Label("Steps")
+        public int steps;
+        @Label("Degraded")
+        public boolean degraded;
+    }
+
+    @Name("map.OsrmCall")
+    @Label("OSRM Call")
+    @Category({"Map Backend", "Upstream"})
+    @Description("Appel HTTP au service OSRM, jusqu'à la réception du corps")
+    @StackTrace(false)
+    public static final class OsrmCall extends Event {
+        @Label("Mode")
+        public String mode;
+        @Label("Points")
+        public int points;
+        @Label("Response Size")
+        @DataAmount
+        public long bytes;
+        @Label("Success")
+        public boolean success;
+    }
+
+    @Name("map.OsrmParse")
+    @Label("OSRM Parse")
+    @Category({"Map Backend", "Upstream"})
+    @Description("Lecture de la réponse OSRM en itinéraires")
+    @StackTrace(false)
+    public static final class OsrmParse extends Event {
+        @Label("Bytes Parsed")
+        @DataAmount
+        public long bytes;
+        @Label("Routes")
+        public int routes;
+        @Label("Steps")
+        public int steps;
+    }
+
+    @Name("map.DetourMerge")
+    @Label("Detour Merge")
+    @Category({"Map Backend", "Routing"})
+    @Description("Assemblage des deux segments d'un itinéraire avec détour")
+    @StackTrace(false)
+    public static final class DetourMerge extends Event {
+        @Label("Mode")
+        public String mode;
+        @Label("Steps")
+        public int steps;
+        @Label("Points")
+        public int points;
+    }
+
+    @Name("map.PlaceSearch")
+    @Label("Place Search")
+    @Category({"Map Backend", "Places"})
+    @Description("Recherche de lieux par nom dans la base")
+    @StackTrace(false)
+    public static final class PlaceSearch extends Event {
+        @Label("Query Length")
+        public int queryLength;
+        @Label("Results")
+        public int results;
+    }
+
+    @Name("map.NominatimCall")
+    @Label("Nominatim Call")
+    @Category({"Map Backend", "Upstream"})
+    @Description("Géocodage d'un nom via Nominatim, réponse lue comprise")
+    @StackTrace(false)
+    public static final class NominatimCall extends Event {
+        @Label("Query Length")
+        public int queryLength;
+        @Label("Found")
+        public boolean found;
+    }
+
+    @Name("map.PlaceInsert")
+    @Label("Place Insert")
+    @Category({"Map Backend", "Places"})
+    @Description("Insertion d'un lieu géocodé dans la base")
+    @StackTrace(false)
+    public static final class PlaceInsert extends Event {
+        @Label("Name Length")
+        public int nameLength;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.map_backend.model;
+
+import java.util.List;
+
+public class BatchMatchRequestBody {
+    private List<MatchRequestBody> traces;
+
+    // Getters et setters
+    public List<MatchRequestBody> getTraces() {
+        return traces;
+    }
+
+    public void setTraces(List<MatchRequestBody> traces) {
+        this.traces = traces;
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.map_backend.model;
+
+import java.util.List;
+
+public class BatchRouteRequestBody {
+    private List<RouteRequestBody> routes;
+    private Integer maxConcurrency;
+    private boolean includeGeometry;
+
+    // Getters et setters
+    public List<RouteRequestBody> getRoutes() {
+        return routes;
+    }
+
+    public void setRoutes(List<RouteRequestBody> routes) {
+        this.routes = routes;
+    }
+
+    public Integer getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public void setMaxConcurrency(Integer maxConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+    }
+
+    public boolean isIncludeGeometry() {
+        return includeGeometry;
+    }
+
+    public void setIncludeGeometry(boolean includeGeometry) {
+        this.includeGeometry = includeGeometry;
+    }
+}
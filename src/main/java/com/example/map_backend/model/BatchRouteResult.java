@@ -0,0 +1,62 @@
+package com.example.map_backend.model;
+
+import com.example.map_backend.network.LineGeometry;
+
+// Résultat compact d'une paire : meilleur itinéraire seulement, géométrie sur demande
+public class BatchRouteResult {
+    private int index;
+    private double distance;
+    private double duration;
+    private int alternatives;
+    private LineGeometry geometry;
+    private String error;
+
+    public BatchRouteResult(int index) {
+        this.index = index;
+    }
+
+    // Getters et setters
+    public int getIndex() {
+        return index;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public void setDuration(double duration) {
+        this.duration = duration;
+    }
+
+    public int getAlternatives() {
+        return alternatives;
+    }
+
+    public void setAlternatives(int alternatives) {
+        this.alternatives = alternatives;
+    }
+
+    public LineGeometry getGeometry() {
+        return geometry;
+    }
+
+    public void setGeometry(LineGeometry geometry) {
+        this.geometry = geometry;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.map_backend.model;
+
+public class CorridorPlace {
+    private long id;
+    private String name;
+    private Coordinates coordinates;
+    private double distanceFromRoute;
+    private double positionAlongRoute;
+    private double detourDistance;
+
+    // Getters et setters
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Coordinates getCoordinates() {
+        return coordinates;
+    }
+
+    public void setCoordinates(Coordinates coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    public double getDistanceFromRoute() {
+        return distanceFromRoute;
+    }
+
+    public void setDistanceFromRoute(double distanceFromRoute) {
+        this.distanceFromRoute = distanceFromRoute;
+    }
+
+    public double getPositionAlongRoute() {
+        return positionAlongRoute;
+    }
+
+    public void setPositionAlongRoute(double positionAlongRoute) {
+        this.positionAlongRoute = positionAlongRoute;
+    }
+
+    public double getDetourDistance() {
+        return detourDistance;
+    }
+
+    public void setDetourDistance(double detourDistance) {
+        this.detourDistance = detourDistance;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.map_backend.model;
+
+public class CorridorRequestBody {
+    private String routeKey; // clé renvoyée avec l'itinéraire
+    private Integer routeIndex; // alternative, 0 par défaut
+    private String geometry; // LINESTRING WKT, si pas de routeKey
+    private Double bufferMeters;
+    private String query; // filtre sur le nom
+    private String orderBy; // position (défaut) ou detour
+    private Integer limit;
+
+    // Getters et setters
+    public String getRouteKey() {
+        return routeKey;
+    }
+
+    public void setRouteKey(String routeKey) {
+        this.routeKey = routeKey;
+    }
+
+    public Integer getRouteIndex() {
+        return routeIndex;
+    }
+
+    public void setRouteIndex(Integer routeIndex) {
+        this.routeIndex = routeIndex;
+    }
+
+    public String getGeometry() {
+        return geometry;
+    }
+
+    public void setGeometry(String geometry) {
+        this.geometry = geometry;
+    }
+
+    public Double getBufferMeters() {
+        return bufferMeters;
+    }
+
+    public void setBufferMeters(Double bufferMeters) {
+        this.bufferMeters = bufferMeters;
+    }
+
+    public String getQuery() {
+        return query;
+    }
+
+    public void setQuery(String query) {
+        this.query = query;
+    }
+
+    public String getOrderBy() {
+        return orderBy;
+    }
+
+    public void setOrderBy(String orderBy) {
+        this.orderBy = orderBy;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public void setLimit(Integer limit) {
+        this.limit = limit;
+    }
+}
@@ -0,0 +1,25 @@
+package com.example.map_backend.model;
+
+import java.util.List;
+
+public class MatchRequestBody {
+    private String traceId;
+    private List<TracePoint> points;
+
+    // Getters et setters
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public List<TracePoint> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<TracePoint> points) {
+        this.points = points;
+    }
+}
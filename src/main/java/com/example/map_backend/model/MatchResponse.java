@@ -0,0 +1,61 @@
+package com.example.map_backend.model;
+
+import java.util.List;
+
+public class MatchResponse {
+    private String traceId;
+    private List<MatchedPoint> points;
+    private List<Long> edgeIds;
+    private double distance;
+    private int unmatchedPoints;
+    private String error;
+
+    // Getters et setters
+    public String getTraceId() {
+        return traceId;
+    }
+
+    public void setTraceId(String traceId) {
+        this.traceId = traceId;
+    }
+
+    public List<MatchedPoint> getPoints() {
+        return points;
+    }
+
+    public void setPoints(List<MatchedPoint> points) {
+        this.points = points;
+    }
+
+    public List<Long> getEdgeIds() {
+        return edgeIds;
+    }
+
+    public void setEdgeIds(List<Long> edgeIds) {
+        this.edgeIds = edgeIds;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    public int getUnmatchedPoints() {
+        return unmatchedPoints;
+    }
+
+    public void setUnmatchedPoints(int unmatchedPoints) {
+        this.unmatchedPoints = unmatchedPoints;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
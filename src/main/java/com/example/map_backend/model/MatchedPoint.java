@@ -0,0 +1,38 @@
+package com.example.map_backend.model;
+
+public class MatchedPoint {
+    private int index;
+    private long edgeId;
+    private double lat;
+    private double lng;
+    private double distanceFromTrace;
+
+    public MatchedPoint(int index, long edgeId, double lat, double lng, double distanceFromTrace) {
+        this.index = index;
+        this.edgeId = edgeId;
+        this.lat = lat;
+        this.lng = lng;
+        this.distanceFromTrace = distanceFromTrace;
+    }
+
+    // Getters
+    public int getIndex() {
+        return index;
+    }
+
+    public long getEdgeId() {
+        return edgeId;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    public double getDistanceFromTrace() {
+        return distanceFromTrace;
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.map_backend.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PlaceImportReport {
+    private String format;
+    private long read;
+    private long inserted;
+    private long rejected;
+    private Map<String, Long> rejectedByReason = new LinkedHashMap<>();
+    private List<String> rejectedSamples = new ArrayList<>();
+    private int chunks;
+    private long elapsedMs;
+    private double rowsPerSecond;
+    private String error;
+
+    // Getters et setters
+    public String getFormat() {
+        return format;
+    }
+
+    public void setFormat(String format) {
+        this.format = format;
+    }
+
+    public long getRead() {
+        return read;
+    }
+
+    public void setRead(long read) {
+        this.read = read;
+    }
+
+    public long getInserted() {
+        return inserted;
+    }
+
+    public void setInserted(long inserted) {
+        this.inserted = inserted;
+    }
+
+    public long getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(long rejected) {
+        this.rejected = rejected;
+    }
+
+    public Map<String, Long> getRejectedByReason() {
+        return rejectedByReason;
+    }
+
+    public void setRejectedByReason(Map<String, Long> rejectedByReason) {
+        this.rejectedByReason = rejectedByReason;
+    }
+
+    public List<String> getRejectedSamples() {
+        return rejectedSamples;
+    }
+
+    public void setRejectedSamples(List<String> rejectedSamples) {
+        this.rejectedSamples = rejectedSamples;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public void setChunks(int chunks) {
+        this.chunks = chunks;
+    }
+
+    public long getElapsedMs() {
+        return elapsedMs;
+    }
+
+    public void setElapsedMs(long elapsedMs) {
+        this.elapsedMs = elapsedMs;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.map_backend.model;
+
+public class RerouteRequestBody {
+    private String routeKey; // clé renvoyée avec l'itinéraire suivi
+    private Integer routeIndex; // alternative suivie, 0 par défaut
+    private Point position; // position actuelle du véhicule
+    private String startPlaceName;
+
+    // Getters et setters
+    public String getRouteKey() {
+        return routeKey;
+    }
+
+    public void setRouteKey(String routeKey) {
+        this.routeKey = routeKey;
+    }
+
+    public Integer getRouteIndex() {
+        return routeIndex;
+    }
+
+    public void setRouteIndex(Integer routeIndex) {
+        this.routeIndex = routeIndex;
+    }
+
+    public Point getPosition() {
+        return position;
+    }
+
+    public void setPosition(Point position) {
+        this.position = position;
+    }
+
+    public String getStartPlaceName() {
+        return startPlaceName;
+    }
+
+    public void setStartPlaceName(String startPlaceName) {
+        this.startPlaceName = startPlaceName;
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.map_backend.model;
 
+import com.example.map_backend.network.LineGeometry;
+
 import java.util.List;
 
 public class Route {
@@ -8,7 +10,7 @@ public class Route {
     private List<RouteStep> steps;
     private String startPlaceName;
     private String endPlaceName;
-    private String geometry;
+    private LineGeometry geometry;
 
     // Getters et setters
     public double getDistance() {
@@ -51,11 +53,11 @@ public class Route {
         this.endPlaceName = endPlaceName;
     }
 
-    public String getGeometry() {
+    public LineGeometry getGeometry() {
         return geometry;
     }
 
-    public void setGeometry(String geometry) {
+    public void setGeometry(LineGeometry geometry) {
         this.geometry = geometry;
     }
 }
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.example.map_backend.model;
+
+import java.util.List;
+
+public class RouteJobStatus {
+    private String jobId;
+    private String status;
+    private int total;
+    private int completed;
+    private int failed;
+    private long createdAt;
+    private Long finishedAt;
+    private List<BatchRouteResult> results;
+
+    // Getters et setters
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getCompleted() {
+        return completed;
+    }
+
+    public void setCompleted(int completed) {
+        this.completed = completed;
+    }
+
+    public int getFailed() {
+        return failed;
+    }
+
+    public void setFailed(int failed) {
+        this.failed = failed;
+    }
+
+    public long getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(long createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+
+    public List<BatchRouteResult> getResults() {
+        return results;
+    }
+
+    public void setResults(List<BatchRouteResult> results) {
+        this.results = results;
+    }
+}
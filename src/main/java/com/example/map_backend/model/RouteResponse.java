@@ -6,6 +6,8 @@ public class RouteResponse {
 
     private List<Route> routes;
     private String error;
+    private boolean degraded;
+    private String routeKey; // référence de l'itinéraire en cache (recherche le long du trajet)
 
     // Getters et setters
 
@@ -25,4 +27,20 @@ public class RouteResponse {
     public void setError(String error) {
         this.error = error;
     }
-}
\ No newline at end of file
+
+    public boolean isDegraded() {
+        return degraded;
+    }
+
+    public void setDegraded(boolean degraded) {
+        this.degraded = degraded;
+    }
+
+    public String getRouteKey() {
+        return routeKey;
+    }
+
+    public void setRouteKey(String routeKey) {
+        this.routeKey = routeKey;
+    }
+}
@@ -1,18 +1,21 @@
 package com.example.map_backend.model;
 
+import com.example.map_backend.network.LineGeometry;
+
 public class RouteStep {
-    private String geometry;
+    private LineGeometry geometry;
     private String source;
     private String target;
     private double distance;
     private double duration;
+    private String instruction;
 
     // Getters et setters
-    public String getGeometry() {
+    public LineGeometry getGeometry() {
         return geometry;
     }
 
-    public void setGeometry(String geometry) {
+    public void setGeometry(LineGeometry geometry) {
         this.geometry = geometry;
     }
 
@@ -47,4 +50,12 @@ public class RouteStep {
     public void setDuration(double duration) {
         this.duration = duration;
     }
-}
\ No newline at end of file
+
+    public String getInstruction() {
+        return instruction;
+    }
+
+    public void setInstruction(String instruction) {
+        this.instruction = instruction;
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.map_backend.model;
+
+import java.util.List;
+
+// Élément d'un flux d'itinéraires : "route" (résumé sans étapes), "steps", "done" ou "error"
+public class RouteStreamEvent {
+    private String type;
+    private Integer index;
+    private Route route;
+    private List<RouteStep> steps;
+    private String error;
+
+    public static RouteStreamEvent route(int index, Route route) {
+        RouteStreamEvent event = new RouteStreamEvent();
+        event.type = "route";
+        event.index = index;
+        event.route = route;
+        return event;
+    }
+
+    public static RouteStreamEvent steps(int index, List<RouteStep> steps) {
+        RouteStreamEvent event = new RouteStreamEvent();
+        event.type = "steps";
+        event.index = index;
+        event.steps = steps;
+        return event;
+    }
+
+    public static RouteStreamEvent done() {
+        RouteStreamEvent event = new RouteStreamEvent();
+        event.type = "done";
+        return event;
+    }
+
+    public static RouteStreamEvent error(String error) {
+        RouteStreamEvent event = new RouteStreamEvent();
+        event.type = "error";
+        event.error = error;
+        return event;
+    }
+
+    // Getters
+    public String getType() {
+        return type;
+    }
+
+    public Integer getIndex() {
+        return index;
+    }
+
+    public Route getRoute() {
+        return route;
+    }
+
+    public List<RouteStep> getSteps() {
+        return steps;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.map_backend.model;
+
+public class TracePoint {
+    private double lat;
+    private double lng;
+    private Long timestamp;
+
+    // Getters et setters
+    public double getLat() {
+        return lat;
+    }
+
+    public void setLat(double lat) {
+        this.lat = lat;
+    }
+
+    public double getLng() {
+        return lng;
+    }
+
+    public void setLng(double lng) {
+        this.lng = lng;
+    }
+
+    public Long getTimestamp() {
+        return timestamp;
+    }
+
+    public void setTimestamp(Long timestamp) {
+        this.timestamp = timestamp;
+    }
+}
@@ -0,0 +1,42 @@
+package com.example.map_backend.model;
+
+public class TrafficUpdate {
+    private Long edgeId;
+    // Multiplicateur de vitesse : 1 = normal, 0.5 = deux fois plus lent, 0 = route fermée
+    private Double speedFactor;
+    private boolean closed;
+    private Integer ttlSeconds;
+
+    // Getters et setters
+    public Long getEdgeId() {
+        return edgeId;
+    }
+
+    public void setEdgeId(Long edgeId) {
+        this.edgeId = edgeId;
+    }
+
+    public Double getSpeedFactor() {
+        return speedFactor;
+    }
+
+    public void setSpeedFactor(Double speedFactor) {
+        this.speedFactor = speedFactor;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public void setClosed(boolean closed) {
+        this.closed = closed;
+    }
+
+    public Integer getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public void setTtlSeconds(Integer ttlSeconds) {
+        this.ttlSeconds = ttlSeconds;
+    }
+}
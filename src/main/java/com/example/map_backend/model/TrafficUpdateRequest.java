@@ -0,0 +1,16 @@
+package com.example.map_backend.model;
+
+import java.util.List;
+
+public class TrafficUpdateRequest {
+    private List<TrafficUpdate> updates;
+
+    // Getters et setters
+    public List<TrafficUpdate> getUpdates() {
+        return updates;
+    }
+
+    public void setUpdates(List<TrafficUpdate> updates) {
+        this.updates = updates;
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.map_backend.model;
+
+import com.example.map_backend.network.LineGeometry;
+
+import java.util.List;
+
+public class TransitJourney {
+    private String departureTime;
+    private String arrivalTime;
+    private double duration;
+    private int transfers;
+    private double walkDistance;
+    private List<TransitLeg> legs;
+    private LineGeometry geometry;
+
+    // Getters et setters
+    public String getDepartureTime() {
+        return departureTime;
+    }
+
+    public void setDepartureTime(String departureTime) {
+        this.departureTime = departureTime;
+    }
+
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public void setArrivalTime(String arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public void setDuration(double duration) {
+        this.duration = duration;
+    }
+
+    public int getTransfers() {
+        return transfers;
+    }
+
+    public void setTransfers(int transfers) {
+        this.transfers = transfers;
+    }
+
+    public double getWalkDistance() {
+        return walkDistance;
+    }
+
+    public void setWalkDistance(double walkDistance) {
+        this.walkDistance = walkDistance;
+    }
+
+    public List<TransitLeg> getLegs() {
+        return legs;
+    }
+
+    public void setLegs(List<TransitLeg> legs) {
+        this.legs = legs;
+    }
+
+    public LineGeometry getGeometry() {
+        return geometry;
+    }
+
+    public void setGeometry(LineGeometry geometry) {
+        this.geometry = geometry;
+    }
+}
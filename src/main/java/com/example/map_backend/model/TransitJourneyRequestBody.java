@@ -0,0 +1,50 @@
+package com.example.map_backend.model;
+
+public class TransitJourneyRequestBody {
+    private Point from;
+    private Point to;
+    private String departureTime; // HH:mm, heure courante si absent
+    private Integer windowMinutes;
+    private Integer maxTransfers;
+
+    // Getters et setters
+    public Point getFrom() {
+        return from;
+    }
+
+    public void setFrom(Point from) {
+        this.from = from;
+    }
+
+    public Point getTo() {
+        return to;
+    }
+
+    public void setTo(Point to) {
+        this.to = to;
+    }
+
+    public String getDepartureTime() {
+        return departureTime;
+    }
+
+    public void setDepartureTime(String departureTime) {
+        this.departureTime = departureTime;
+    }
+
+    public Integer getWindowMinutes() {
+        return windowMinutes;
+    }
+
+    public void setWindowMinutes(Integer windowMinutes) {
+        this.windowMinutes = windowMinutes;
+    }
+
+    public Integer getMaxTransfers() {
+        return maxTransfers;
+    }
+
+    public void setMaxTransfers(Integer maxTransfers) {
+        this.maxTransfers = maxTransfers;
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.map_backend.model;
+
+import com.example.map_backend.network.LineGeometry;
+
+public class TransitLeg {
+    private String mode; // WALK ou BUS
+    private String line;
+    private String tripId;
+    private String from;
+    private String to;
+    private String departureTime;
+    private String arrivalTime;
+    private double distance;
+    private double duration;
+    private int stops;
+    private LineGeometry geometry;
+
+    // Getters et setters
+    public String getMode() {
+        return mode;
+    }
+
+    public void setMode(String mode) {
+        this.mode = mode;
+    }
+
+    public String getLine() {
+        return line;
+    }
+
+    public void setLine(String line) {
+        this.line = line;
+    }
+
+    public String getTripId() {
+        return tripId;
+    }
+
+    public void setTripId(String tripId) {
+        this.tripId = tripId;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public void setFrom(String from) {
+        this.from = from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public void setTo(String to) {
+        this.to = to;
+    }
+
+    public String getDepartureTime() {
+        return departureTime;
+    }
+
+    public void setDepartureTime(String departureTime) {
+        this.departureTime = departureTime;
+    }
+
+    public String getArrivalTime() {
+        return arrivalTime;
+    }
+
+    public void setArrivalTime(String arrivalTime) {
+        this.arrivalTime = arrivalTime;
+    }
+
+    public double getDistance() {
+        return distance;
+    }
+
+    public void setDistance(double distance) {
+        this.distance = distance;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public void setDuration(double duration) {
+        this.duration = duration;
+    }
+
+    public int getStops() {
+        return stops;
+    }
+
+    public void setStops(int stops) {
+        this.stops = stops;
+    }
+
+    public LineGeometry getGeometry() {
+        return geometry;
+    }
+
+    public void setGeometry(LineGeometry geometry) {
+        this.geometry = geometry;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.config.RequestDeadline;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Alternatives par pénalités : après chaque chemin trouvé, le coût de ses arêtes est multiplié
+ * et une nouvelle recherche A* est lancée. Les candidats trop proches (recouvrement) ou trop longs
+ * (allongement) sont écartés. Le nombre de recherches est borné par max-queries.
+ */
+@Component
+public class AlternativeRouteFinder {
+
+    private final int defaultCount;
+    private final double maxOverlap;
+    private final double maxStretch;
+    private final double penaltyFactor;
+    private final int maxQueries;
+    private final long deadlineReserveMs;
+
+    public AlternativeRouteFinder(@Value("${map.routing.alternatives.count:3}") int defaultCount,
+                                  @Value("${map.routing.alternatives.max-overlap:0.7}") double maxOverlap,
+                                  @Value("${map.routing.alternatives.max-stretch:1.4}") double maxStretch,
+                                  @Value("${map.routing.alternatives.penalty-factor:1.5}") double penaltyFactor,
+                                  @Value("${map.routing.alternatives.max-queries:8}") int maxQueries,
+                                  @Value("${map.deadline.reserve-ms:300}") long deadlineReserveMs) {
+        this.defaultCount = defaultCount;
+        this.maxOverlap = maxOverlap;
+        this.maxStretch = maxStretch;
+        this.penaltyFactor = penaltyFactor;
+        this.maxQueries = maxQueries;
+        this.deadlineReserveMs = deadlineReserveMs;
+    }
+
+    public int getDefaultCount() {
+        return defaultCount;
+    }
+
+    public AlternativeSelector newSelector(int count) {
+        return new AlternativeSelector(count, maxOverlap, maxStretch);
+    }
+
+    public List<NetworkPath> findAlternatives(RoadNetwork network, TrafficOverlay overlay, int source, int target, int count) {
+        return findAlternatives(network, overlay, source, target, count, path -> true);
+    }
+
+    // onAccepted est appelé dès qu'un chemin est retenu (le plus court d'abord) ; false interrompt la recherche
+    public List<NetworkPath> findAlternatives(RoadNetwork network, TrafficOverlay overlay, int source, int target, int count,
+                                              Predicate<NetworkPath> onAccepted) {
+        double[] weights = overlay.arcWeights(network);
+        double heuristicScale = network.costPerMeterLowerBound() / overlay.maxFactor();
+        AlternativeSelector selector = newSelector(count);
+        List<NetworkPath> accepted = new ArrayList<>();
+
+        NetworkPath path = PathFinder.shortestPath(network, weights, null, source, target, heuristicScale);
+        if (path == null || path.isEmpty()) {
+            return accepted;
+        }
+        selector.offer(edgeLengths(network, path), path.cost());
+        accepted.add(path);
+        boolean proceed = onAccepted.test(path);
+
+        double[] penalties = null;
+        for (int query = 1; proceed && query < maxQueries && !selector.isFull(); query++) {
+            // Budget presque épuisé : on rend les alternatives déjà trouvées
+            if (RequestDeadline.isLow(deadlineReserveMs)) {
+                RequestDeadline.markDegraded();
+                break;
+            }
+            if (penalties == null) {
+                penalties = new double[network.edgeCount()];
+                Arrays.fill(penalties, 1.0);
+            }
+            for (int arc : path.arcs()) {
+                penalties[network.arcEdge(arc)] *= penaltyFactor;
+            }
+            NetworkPath candidate = PathFinder.shortestPath(network, weights, penalties, source, target, heuristicScale);
+            if (candidate == null) {
+                break;
+            }
+            // Le coût renvoyé est déjà le coût réel (sans pénalité)
+            if (selector.offer(edgeLengths(network, candidate), candidate.cost())) {
+                accepted.add(candidate);
+                proceed = onAccepted.test(candidate);
+            }
+            path = candidate;
+        }
+
+        accepted.sort(Comparator.comparingDouble(NetworkPath::cost));
+        return accepted;
+    }
+
+    public static Map<Long, Double> edgeLengths(RoadNetwork network, NetworkPath path) {
+        Map<Long, Double> lengths = new LinkedHashMap<>();
+        for (int arc : path.arcs()) {
+            lengths.put(network.edgeAt(network.arcEdge(arc)).id(), network.arcCost(arc));
+        }
+        return lengths;
+    }
+}
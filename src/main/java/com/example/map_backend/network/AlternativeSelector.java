@@ -0,0 +1,64 @@
+package com.example.map_backend.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Retient les itinéraires candidats suffisamment différents du meilleur et des alternatives déjà
+ * retenues : recouvrement (longueur partagée / longueur du candidat) et allongement bornés.
+ */
+public final class AlternativeSelector {
+
+    private final int maxCount;
+    private final double maxOverlap;
+    private final double maxStretch;
+    private final List<Map<Long, Double>> accepted = new ArrayList<>();
+    private double bestCost = Double.NaN;
+
+    public AlternativeSelector(int maxCount, double maxOverlap, double maxStretch) {
+        this.maxCount = maxCount;
+        this.maxOverlap = maxOverlap;
+        this.maxStretch = maxStretch;
+    }
+
+    // edgeLengths : id d'arête -> longueur parcourue ; cost : coût pondéré du candidat
+    public boolean offer(Map<Long, Double> edgeLengths, double cost) {
+        if (isFull() || edgeLengths.isEmpty()) {
+            return false;
+        }
+        if (accepted.isEmpty()) {
+            bestCost = cost;
+            accepted.add(edgeLengths);
+            return true;
+        }
+        if (cost > bestCost * maxStretch) {
+            return false;
+        }
+        double total = 0;
+        for (double length : edgeLengths.values()) {
+            total += length;
+        }
+        for (Map<Long, Double> other : accepted) {
+            double shared = 0;
+            for (Map.Entry<Long, Double> edge : edgeLengths.entrySet()) {
+                if (other.containsKey(edge.getKey())) {
+                    shared += edge.getValue();
+                }
+            }
+            if (total > 0 && shared / total > maxOverlap) {
+                return false;
+            }
+        }
+        accepted.add(edgeLengths);
+        return true;
+    }
+
+    public boolean isFull() {
+        return accepted.size() >= maxCount;
+    }
+
+    public int size() {
+        return accepted.size();
+    }
+}
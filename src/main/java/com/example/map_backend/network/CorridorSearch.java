@@ -0,0 +1,111 @@
+package com.example.map_backend.network;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * Lieux situés dans un couloir autour d'une ligne d'itinéraire, sur l'instantané des lieux en
+ * mémoire. Les segments consécutifs sont regroupés en tronçons d'environ chunkMeters dont l'emprise
+ * élargie du tampon est interrogée une fois dans la grille ; la distance exacte n'est calculée que
+ * pour les segments du tronçon dont la boîte contient le lieu.
+ */
+public final class CorridorSearch {
+
+    private static final double METERS_PER_DEGREE = Math.toRadians(GeoUtils.EARTH_RADIUS_METERS);
+
+    /**
+     * Lieu trouvé : offset = distance à la ligne, position = abscisse curviligne du point le plus
+     * proche, detour = aller-retour estimé depuis la ligne (mètres).
+     */
+    public record Hit(IndexedPlace place, double offsetMeters, double positionMeters, double detourMeters) {
+    }
+
+    private CorridorSearch() {
+    }
+
+    public static List<Hit> search(PlaceIndex places, LineGeometry line, double bufferMeters, double detourFactor,
+                                   Predicate<IndexedPlace> filter) {
+        int points = line.pointCount();
+        if (points == 0 || places.size() == 0) {
+            return List.of();
+        }
+        double metersPerLng = METERS_PER_DEGREE * Math.cos(Math.toRadians(line.lat(0)));
+        double bufferLat = bufferMeters / METERS_PER_DEGREE;
+        double bufferLng = bufferMeters / metersPerLng;
+        double chunkMeters = Math.max(200, bufferMeters * 4);
+        SpatialGrid grid = places.grid();
+
+        // Abscisse curviligne de chaque sommet
+        double[] cumulative = new double[points];
+        for (int i = 1; i < points; i++) {
+            cumulative[i] = cumulative[i - 1] + GeoUtils.distanceMeters(line.lng(i - 1), line.lat(i - 1), line.lng(i), line.lat(i));
+        }
+
+        Map<Integer, Hit> best = new HashMap<>();
+        int first = 0;
+        while (true) {
+            int last = first + 1;
+            while (last < points - 1 && cumulative[last] - cumulative[first] < chunkMeters) {
+                last++;
+            }
+            last = Math.min(last, points - 1);
+            double minLng = Double.POSITIVE_INFINITY;
+            double minLat = Double.POSITIVE_INFINITY;
+            double maxLng = Double.NEGATIVE_INFINITY;
+            double maxLat = Double.NEGATIVE_INFINITY;
+            for (int i = first; i <= last; i++) {
+                minLng = Math.min(minLng, line.lng(i));
+                minLat = Math.min(minLat, line.lat(i));
+                maxLng = Math.max(maxLng, line.lng(i));
+                maxLat = Math.max(maxLat, line.lat(i));
+            }
+            for (int index : grid.query(minLng - bufferLng, minLat - bufferLat, maxLng + bufferLng, maxLat + bufferLat)) {
+                IndexedPlace place = places.placeAt(index);
+                for (int s = first; s < Math.max(first + 1, last); s++) {
+                    int e = Math.min(s + 1, points - 1);
+                    // Boîte du segment élargie du tampon : élimine la plupart des segments sans calcul
+                    if (place.lng() < Math.min(line.lng(s), line.lng(e)) - bufferLng
+                            || place.lng() > Math.max(line.lng(s), line.lng(e)) + bufferLng
+                            || place.lat() < Math.min(line.lat(s), line.lat(e)) - bufferLat
+                            || place.lat() > Math.max(line.lat(s), line.lat(e)) + bufferLat) {
+                        continue;
+                    }
+                    double ax = line.lng(s) * metersPerLng;
+                    double ay = line.lat(s) * METERS_PER_DEGREE;
+                    double dx = line.lng(e) * metersPerLng - ax;
+                    double dy = line.lat(e) * METERS_PER_DEGREE - ay;
+                    double px = place.lng() * metersPerLng - ax;
+                    double py = place.lat() * METERS_PER_DEGREE - ay;
+                    double length2 = dx * dx + dy * dy;
+                    double t = length2 > 0 ? Math.max(0, Math.min(1, (px * dx + py * dy) / length2)) : 0;
+                    double offset = Math.hypot(px - t * dx, py - t * dy);
+                    if (offset > bufferMeters) {
+                        continue;
+                    }
+                    Hit current = best.get(index);
+                    if (current == null || offset < current.offsetMeters()) {
+                        double position = cumulative[s] + t * (cumulative[e] - cumulative[s]);
+                        best.put(index, new Hit(place, offset, position, 2 * offset * detourFactor));
+                    }
+                }
+            }
+            if (last >= points - 1) {
+                break;
+            }
+            first = last;
+        }
+
+        List<Hit> hits = new ArrayList<>(best.size());
+        for (Hit hit : best.values()) {
+            if (filter == null || filter.test(hit.place())) {
+                hits.add(hit);
+            }
+        }
+        hits.sort(Comparator.comparingDouble(Hit::positionMeters).thenComparingDouble(Hit::detourMeters));
+        return hits;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.map_backend.network;
+
+public final class GeoUtils {
+
+    public static final double EARTH_RADIUS_METERS = 6_371_008.8;
+
+    private GeoUtils() {
+    }
+
+    public static double distanceMeters(double lng1, double lat1, double lng2, double lat2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dPhi = phi2 - phi1;
+        double dLambda = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dPhi / 2) * Math.sin(dPhi / 2)
+                + Math.cos(phi1) * Math.cos(phi2) * Math.sin(dLambda / 2) * Math.sin(dLambda / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public static double lengthMeters(double[] coordinates) {
+        double length = 0;
+        for (int i = 2; i + 1 < coordinates.length; i += 2) {
+            length += distanceMeters(coordinates[i - 2], coordinates[i - 1], coordinates[i], coordinates[i + 1]);
+        }
+        return length;
+    }
+}
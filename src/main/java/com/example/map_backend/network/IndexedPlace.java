@@ -0,0 +1,11 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.model.Coordinates;
+import com.example.map_backend.model.Place;
+
+public record IndexedPlace(long id, String name, double lat, double lng) {
+
+    public Place toPlace() {
+        return new Place(id, name, new Coordinates(lat, lng));
+    }
+}
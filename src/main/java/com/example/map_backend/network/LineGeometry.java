@@ -0,0 +1,205 @@
+package com.example.map_backend.network;
+
+import com.fasterxml.jackson.annotation.JsonValue;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Polyligne immuable en tableau packé {lng0, lat0, lng1, lat1, ...} : c'est la forme interne de
+ * toutes les géométries d'itinéraire (OSRM, graphe en mémoire, pgRouting, transport en commun).
+ * Fusion, simplification et mesure se font sans passer par le texte ; le WKT n'est produit qu'à la
+ * sérialisation JSON.
+ */
+public final class LineGeometry {
+
+    public static final LineGeometry EMPTY = new LineGeometry(new double[0]);
+
+    private final double[] coordinates;
+
+    private LineGeometry(double[] coordinates) {
+        this.coordinates = coordinates;
+    }
+
+    // Le tableau est adopté sans copie : il ne doit plus être modifié par l'appelant
+    public static LineGeometry of(double[] coordinates) {
+        return coordinates.length == 0 ? EMPTY : new LineGeometry(coordinates);
+    }
+
+    // Sens inverse copié ; sens direct partagé (géométries d'arêtes d'un instantané immuable)
+    public static LineGeometry of(double[] coordinates, boolean reversed) {
+        if (!reversed) {
+            return of(coordinates);
+        }
+        int points = coordinates.length / 2;
+        double[] copy = new double[points * 2];
+        for (int i = 0; i < points; i++) {
+            copy[i * 2] = coordinates[(points - 1 - i) * 2];
+            copy[i * 2 + 1] = coordinates[(points - 1 - i) * 2 + 1];
+        }
+        return of(copy);
+    }
+
+    public static LineGeometry fromWkb(byte[] wkb, boolean reversed) {
+        return of(WkbReader.readLineCoordinates(wkb), reversed);
+    }
+
+    // Concaténation en une seule ligne ; le point de jonction commun à deux parties n'est gardé qu'une fois
+    public static LineGeometry concat(List<LineGeometry> parts) {
+        int length = 0;
+        for (LineGeometry part : parts) {
+            if (part != null) {
+                length += part.coordinates.length;
+            }
+        }
+        double[] merged = new double[length];
+        int size = 0;
+        for (LineGeometry part : parts) {
+            if (part == null || part.coordinates.length == 0) {
+                continue;
+            }
+            double[] c = part.coordinates;
+            int skip = size >= 2 && merged[size - 2] == c[0] && merged[size - 1] == c[1] ? 2 : 0;
+            System.arraycopy(c, skip, merged, size, c.length - skip);
+            size += c.length - skip;
+        }
+        return of(size == merged.length ? merged : Arrays.copyOf(merged, size));
+    }
+
+    // Lecture d'un LINESTRING WKT reçu d'un client (seul endroit où le texte est analysé)
+    public static LineGeometry parseWkt(String wkt) {
+        String text = wkt.trim();
+        int open = text.indexOf('(');
+        int close = text.lastIndexOf(')');
+        if (!text.regionMatches(true, 0, "LINESTRING", 0, "LINESTRING".length()) || open < 0 || close < open) {
+            throw new IllegalArgumentException("Géométrie invalide : LINESTRING WKT attendu");
+        }
+        String[] pairs = text.substring(open + 1, close).split(",");
+        double[] coordinates = new double[pairs.length * 2];
+        try {
+            for (int i = 0; i < pairs.length; i++) {
+                String[] parts = pairs[i].trim().split("\\s+");
+                coordinates[i * 2] = Double.parseDouble(parts[0]);
+                coordinates[i * 2 + 1] = Double.parseDouble(parts[1]);
+            }
+        } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Géométrie invalide : coordonnées illisibles");
+        }
+        return of(coordinates);
+    }
+
+    public boolean isEmpty() {
+        return coordinates.length == 0;
+    }
+
+    public int pointCount() {
+        return coordinates.length / 2;
+    }
+
+    public double lng(int point) {
+        return coordinates[point * 2];
+    }
+
+    public double lat(int point) {
+        return coordinates[point * 2 + 1];
+    }
+
+    // Tableau interne, en lecture seule
+    public double[] coordinates() {
+        return coordinates;
+    }
+
+    public double lengthMeters() {
+        return GeoUtils.lengthMeters(coordinates);
+    }
+
+    /**
+     * Douglas-Peucker avec une tolérance en mètres (projection équirectangulaire locale, suffisante
+     * à l'échelle d'un itinéraire urbain). Les extrémités sont toujours conservées.
+     */
+    public LineGeometry simplify(double toleranceMeters) {
+        int points = pointCount();
+        if (points <= 2 || toleranceMeters <= 0) {
+            return this;
+        }
+        double metersPerLat = Math.toRadians(GeoUtils.EARTH_RADIUS_METERS);
+        double metersPerLng = metersPerLat * Math.cos(Math.toRadians(lat(0)));
+        boolean[] keep = new boolean[points];
+        keep[0] = true;
+        keep[points - 1] = true;
+        int[] stack = new int[points * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = points - 1;
+        double tolerance2 = toleranceMeters * toleranceMeters;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double ax = lng(first) * metersPerLng;
+            double ay = lat(first) * metersPerLat;
+            double dx = lng(last) * metersPerLng - ax;
+            double dy = lat(last) * metersPerLat - ay;
+            double segment2 = dx * dx + dy * dy;
+            double worst = -1;
+            int worstIndex = -1;
+            for (int i = first + 1; i < last; i++) {
+                double px = lng(i) * metersPerLng - ax;
+                double py = lat(i) * metersPerLat - ay;
+                double t = segment2 > 0 ? Math.max(0, Math.min(1, (px * dx + py * dy) / segment2)) : 0;
+                double ex = px - t * dx;
+                double ey = py - t * dy;
+                double distance2 = ex * ex + ey * ey;
+                if (distance2 > worst) {
+                    worst = distance2;
+                    worstIndex = i;
+                }
+            }
+            if (worstIndex >= 0 && worst > tolerance2) {
+                keep[worstIndex] = true;
+                stack[top++] = first;
+                stack[top++] = worstIndex;
+                stack[top++] = worstIndex;
+                stack[top++] = last;
+            }
+        }
+        int kept = 0;
+        for (boolean k : keep) {
+            if (k) {
+                kept++;
+            }
+        }
+        if (kept == points) {
+            return this;
+        }
+        double[] simplified = new double[kept * 2];
+        int size = 0;
+        for (int i = 0; i < points; i++) {
+            if (keep[i]) {
+                simplified[size++] = lng(i);
+                simplified[size++] = lat(i);
+            }
+        }
+        return new LineGeometry(simplified);
+    }
+
+    // Géométrie vide sérialisée en chaîne vide, comme avant le passage au tableau packé
+    @JsonValue
+    public String toWkt() {
+        if (coordinates.length == 0) {
+            return "";
+        }
+        StringBuilder wkt = new StringBuilder(12 + coordinates.length * 12).append("LINESTRING(");
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            if (i > 0) {
+                wkt.append(", ");
+            }
+            wkt.append(coordinates[i]).append(' ').append(coordinates[i + 1]);
+        }
+        return wkt.append(')').toString();
+    }
+
+    @Override
+    public String toString() {
+        return toWkt();
+    }
+}
@@ -0,0 +1,339 @@
+package com.example.map_backend.network;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Recalage de traces GPS sur le graphe (HMM + Viterbi, d'après Newson &amp; Krumm) :
+ * émission gaussienne sur la distance point-arête, transition exponentielle sur l'écart entre
+ * distance sur le réseau et distance à vol d'oiseau. Les candidats viennent de l'index spatial
+ * des arêtes ; les distances réseau d'une recherche de Dijkstra bornée, sur un espace de travail
+ * réutilisé d'un pas à l'autre. Une instance ne doit pas être partagée entre threads.
+ */
+public final class MapMatcher {
+
+    private final RoadNetwork network;
+    private final double sigma;
+    private final double beta;
+    private final double searchRadius;
+    private final int maxCandidates;
+
+    private final double[] dist;
+    private final int[] stamp;
+    private final int[] prevArc;
+    private final MinHeap heap = new MinHeap(256);
+    private int generation;
+
+    public MapMatcher(RoadNetwork network, double sigma, double beta, double searchRadius, int maxCandidates) {
+        this.network = network;
+        this.sigma = sigma;
+        this.beta = beta;
+        this.searchRadius = searchRadius;
+        this.maxCandidates = maxCandidates;
+        this.dist = new double[network.nodeCount()];
+        this.stamp = new int[network.nodeCount()];
+        this.prevArc = new int[network.nodeCount()];
+    }
+
+    public record Snap(int pointIndex, int edgeIndex, double lat, double lng, double distance) {
+    }
+
+    public record Result(List<Snap> snaps, long[] edgeIds, double distance, int unmatched) {
+    }
+
+    private record Candidate(int edge, double offset, double lng, double lat, double distance) {
+    }
+
+    public Result match(double[] lats, double[] lngs) {
+        List<Integer> steps = new ArrayList<>();
+        List<Candidate[]> candidates = new ArrayList<>();
+        int unmatched = 0;
+        int lastKept = -1;
+        for (int i = 0; i < lats.length; i++) {
+            // Sous-échantillonnage : un point trop proche du précédent n'apporte que du bruit
+            if (lastKept >= 0 && i < lats.length - 1
+                    && GeoUtils.distanceMeters(lngs[lastKept], lats[lastKept], lngs[i], lats[i]) < 2 * sigma) {
+                continue;
+            }
+            Candidate[] found = findCandidates(lats[i], lngs[i]);
+            if (found.length == 0) {
+                unmatched++;
+                continue;
+            }
+            steps.add(i);
+            candidates.add(found);
+            lastKept = i;
+        }
+        if (steps.isEmpty()) {
+            return new Result(List.of(), new long[0], 0, unmatched);
+        }
+
+        int stepCount = steps.size();
+        double[][] score = new double[stepCount][];
+        int[][] back = new int[stepCount][];
+        score[0] = emissions(candidates.get(0));
+        back[0] = new int[candidates.get(0).length];
+        Arrays.fill(back[0], -1);
+
+        for (int t = 1; t < stepCount; t++) {
+            Candidate[] previous = candidates.get(t - 1);
+            Candidate[] current = candidates.get(t);
+            int pi = steps.get(t - 1);
+            int ci = steps.get(t);
+            double straight = GeoUtils.distanceMeters(lngs[pi], lats[pi], lngs[ci], lats[ci]);
+            double limit = Math.max(straight * 3, straight + 4 * searchRadius) + 500;
+            double[][] routes = routeDistances(previous, current, limit);
+            double[] emission = emissions(current);
+
+            score[t] = new double[current.length];
+            back[t] = new int[current.length];
+            Arrays.fill(score[t], Double.NEGATIVE_INFINITY);
+            Arrays.fill(back[t], -1);
+            boolean reachable = false;
+            for (int b = 0; b < current.length; b++) {
+                for (int a = 0; a < previous.length; a++) {
+                    if (Double.isInfinite(routes[a][b]) || Double.isInfinite(score[t - 1][a])) {
+                        continue;
+                    }
+                    double value = score[t - 1][a] - Math.abs(routes[a][b] - straight) / beta + emission[b];
+                    if (value > score[t][b]) {
+                        score[t][b] = value;
+                        back[t][b] = a;
+                        reachable = true;
+                    }
+                }
+            }
+            // Rupture de la chaîne (zone non couverte, saut GPS) : on repart de ce point
+            if (!reachable) {
+                score[t] = emission;
+                Arrays.fill(back[t], -1);
+            }
+        }
+
+        int[] chosen = new int[stepCount];
+        int best = 0;
+        for (int b = 1; b < score[stepCount - 1].length; b++) {
+            if (score[stepCount - 1][b] > score[stepCount - 1][best]) best = b;
+        }
+        for (int t = stepCount - 1; t >= 0; t--) {
+            chosen[t] = best;
+            if (t > 0) {
+                int previous = back[t][best];
+                if (previous < 0) {
+                    previous = argMax(score[t - 1]);
+                }
+                best = previous;
+            }
+        }
+
+        List<Snap> snaps = new ArrayList<>(stepCount);
+        List<Long> edgeIds = new ArrayList<>();
+        double total = 0;
+        for (int t = 0; t < stepCount; t++) {
+            Candidate c = candidates.get(t)[chosen[t]];
+            snaps.add(new Snap(steps.get(t), c.edge(), c.lat(), c.lng(), c.distance()));
+            if (t == 0 || back[t][chosen[t]] < 0) {
+                appendEdge(edgeIds, c.edge());
+                continue;
+            }
+            Candidate p = candidates.get(t - 1)[chosen[t - 1]];
+            total += appendPath(p, c, edgeIds);
+        }
+        return new Result(snaps, edgeIds.stream().mapToLong(Long::longValue).toArray(), total, unmatched);
+    }
+
+    private Candidate[] findCandidates(double lat, double lng) {
+        double dLat = searchRadius / 111_320.0;
+        double dLng = dLat / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        int[] edges = network.edgeGrid().query(lng - dLng, lat - dLat, lng + dLng, lat + dLat);
+        List<Candidate> found = new ArrayList<>();
+        for (int e : edges) {
+            Candidate candidate = project(e, lat, lng);
+            if (candidate != null && candidate.distance() <= searchRadius) {
+                found.add(candidate);
+            }
+        }
+        found.sort((x, y) -> Double.compare(x.distance(), y.distance()));
+        return found.subList(0, Math.min(maxCandidates, found.size())).toArray(new Candidate[0]);
+    }
+
+    // Projection sur la polyligne en repère local équirectangulaire (mètres)
+    private Candidate project(int edge, double lat, double lng) {
+        double[] coords = network.edgeAt(edge).coordinates();
+        if (coords.length < 4) {
+            return null;
+        }
+        double kx = Math.cos(Math.toRadians(lat)) * 111_320.0;
+        double ky = 111_320.0;
+        double bestDistance = Double.POSITIVE_INFINITY;
+        double bestAlong = 0;
+        double bestLng = 0;
+        double bestLat = 0;
+        double along = 0;
+        for (int i = 0; i + 3 < coords.length; i += 2) {
+            double ax = (coords[i] - lng) * kx, ay = (coords[i + 1] - lat) * ky;
+            double bx = (coords[i + 2] - lng) * kx, by = (coords[i + 3] - lat) * ky;
+            double dx = bx - ax, dy = by - ay;
+            double segment = Math.sqrt(dx * dx + dy * dy);
+            double t = segment == 0 ? 0 : Math.max(0, Math.min(1, -(ax * dx + ay * dy) / (segment * segment)));
+            double px = ax + t * dx, py = ay + t * dy;
+            double d = Math.sqrt(px * px + py * py);
+            if (d < bestDistance) {
+                bestDistance = d;
+                bestAlong = along + t * segment;
+                bestLng = coords[i] + t * (coords[i + 2] - coords[i]);
+                bestLat = coords[i + 1] + t * (coords[i + 3] - coords[i + 1]);
+            }
+            along += segment;
+        }
+        double offset = along > 0 ? bestAlong / along * network.edgeLengthMeters(edge) : 0;
+        return new Candidate(edge, offset, bestLng, bestLat, bestDistance);
+    }
+
+    private double[] emissions(Candidate[] candidates) {
+        double[] result = new double[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            double z = candidates[i].distance() / sigma;
+            result[i] = -0.5 * z * z;
+        }
+        return result;
+    }
+
+    private double[][] routeDistances(Candidate[] previous, Candidate[] current, double limit) {
+        double[][] routes = new double[previous.length][current.length];
+        for (int a = 0; a < previous.length; a++) {
+            Arrays.fill(routes[a], Double.POSITIVE_INFINITY);
+            search(previous[a], current, limit);
+            for (int b = 0; b < current.length; b++) {
+                routes[a][b] = Math.min(sameEdgeDistance(previous[a], current[b]), entryDistance(current[b]));
+            }
+        }
+        return routes;
+    }
+
+    private double sameEdgeDistance(Candidate from, Candidate to) {
+        if (from.edge() != to.edge()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        RoadEdge edge = network.edgeAt(from.edge());
+        if (to.offset() >= from.offset() && edge.isForwardOpen()) {
+            return to.offset() - from.offset();
+        }
+        if (to.offset() <= from.offset() && edge.isReverseOpen()) {
+            return from.offset() - to.offset();
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    // Distance réseau jusqu'au candidat, à partir des distances aux nœuds calculées par search()
+    private double entryDistance(Candidate to) {
+        RoadEdge edge = network.edgeAt(to.edge());
+        double length = network.edgeLengthMeters(to.edge());
+        double best = Double.POSITIVE_INFINITY;
+        if (edge.isForwardOpen()) {
+            best = Math.min(best, distance(network.nodeIndex(edge.source())) + to.offset());
+        }
+        if (edge.isReverseOpen()) {
+            best = Math.min(best, distance(network.nodeIndex(edge.target())) + length - to.offset());
+        }
+        return best;
+    }
+
+    // Dijkstra borné sur les longueurs, depuis les deux sorties possibles de l'arête du candidat
+    private void search(Candidate from, Candidate[] targets, double limit) {
+        generation++;
+        heap.clear();
+        RoadEdge edge = network.edgeAt(from.edge());
+        double length = network.edgeLengthMeters(from.edge());
+        if (edge.isForwardOpen()) {
+            relax(network.nodeIndex(edge.target()), length - from.offset(), -1);
+        }
+        if (edge.isReverseOpen()) {
+            relax(network.nodeIndex(edge.source()), from.offset(), -1);
+        }
+        int[] targetNodes = new int[targets.length * 2];
+        for (int i = 0; i < targets.length; i++) {
+            RoadEdge t = network.edgeAt(targets[i].edge());
+            targetNodes[i * 2] = network.nodeIndex(t.source());
+            targetNodes[i * 2 + 1] = network.nodeIndex(t.target());
+        }
+        int remaining = targetNodes.length;
+        while (!heap.isEmpty() && remaining > 0) {
+            double key = heap.peekKey();
+            int node = heap.pop();
+            if (key > distance(node) || key > limit) {
+                if (key > limit) break;
+                continue;
+            }
+            for (int targetNode : targetNodes) {
+                if (targetNode == node) remaining--;
+            }
+            for (int arc = network.arcStart(node); arc < network.arcEnd(node); arc++) {
+                relax(network.arcHead(arc), key + network.edgeLengthMeters(network.arcEdge(arc)), arc);
+            }
+        }
+    }
+
+    private void relax(int node, double value, int arc) {
+        if (node < 0) {
+            return;
+        }
+        if (value < distance(node)) {
+            stamp[node] = generation;
+            dist[node] = value;
+            prevArc[node] = arc;
+            heap.push(value, node);
+        }
+    }
+
+    private double distance(int node) {
+        return node >= 0 && stamp[node] == generation ? dist[node] : Double.POSITIVE_INFINITY;
+    }
+
+    // Ajoute les arêtes parcourues de "from" à "to" et renvoie la distance réseau
+    private double appendPath(Candidate from, Candidate to, List<Long> edgeIds) {
+        double direct = sameEdgeDistance(from, to);
+        search(from, new Candidate[]{to}, Double.POSITIVE_INFINITY);
+        double viaNetwork = entryDistance(to);
+        if (direct <= viaNetwork) {
+            appendEdge(edgeIds, from.edge());
+            return direct;
+        }
+        RoadEdge edge = network.edgeAt(to.edge());
+        int entry;
+        if (edge.isForwardOpen() && distance(network.nodeIndex(edge.source())) + to.offset() == viaNetwork) {
+            entry = network.nodeIndex(edge.source());
+        } else {
+            entry = network.nodeIndex(edge.target());
+        }
+        List<Integer> arcs = new ArrayList<>();
+        for (int node = entry; node >= 0 && prevArc[node] >= 0; ) {
+            int arc = prevArc[node];
+            arcs.add(arc);
+            RoadEdge arcEdge = network.edgeAt(network.arcEdge(arc));
+            node = network.nodeIndex(network.arcForward(arc) ? arcEdge.source() : arcEdge.target());
+        }
+        appendEdge(edgeIds, from.edge());
+        for (int i = arcs.size() - 1; i >= 0; i--) {
+            appendEdge(edgeIds, network.arcEdge(arcs.get(i)));
+        }
+        appendEdge(edgeIds, to.edge());
+        return viaNetwork;
+    }
+
+    private void appendEdge(List<Long> edgeIds, int edge) {
+        long id = network.edgeAt(edge).id();
+        if (edgeIds.isEmpty() || edgeIds.get(edgeIds.size() - 1) != id) {
+            edgeIds.add(id);
+        }
+    }
+
+    private static int argMax(double[] values) {
+        int best = 0;
+        for (int i = 1; i < values.length; i++) {
+            if (values[i] > values[best]) best = i;
+        }
+        return best;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.map_backend.network;
+
+import java.util.Arrays;
+
+// Tas binaire à clés primitives, avec doublons (suppression paresseuse via settled)
+public final class MinHeap {
+    private double[] keys;
+    private int[] values;
+    private int size;
+
+    public MinHeap(int capacity) {
+        keys = new double[capacity];
+        values = new int[capacity];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public double peekKey() {
+        return keys[0];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void push(double key, int value) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            values = Arrays.copyOf(values, size * 2);
+        }
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (keys[parent] <= key) {
+                break;
+            }
+            keys[i] = keys[parent];
+            values[i] = values[parent];
+            i = parent;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+    public int pop() {
+        int result = values[0];
+        double key = keys[--size];
+        int value = values[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && keys[child + 1] < keys[child]) {
+                child++;
+            }
+            if (keys[child] >= key) {
+                break;
+            }
+            keys[i] = keys[child];
+            values[i] = values[child];
+            i = child;
+        }
+        keys[i] = key;
+        values[i] = value;
+        return result;
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.map_backend.network;
+
+import java.util.Set;
+
+/**
+ * Publié après l'application d'un delta (ou d'un rechargement complet) sur les instantanés en mémoire.
+ * {@code nodeIds} contient les extrémités des arêtes modifiées, avant et après modification.
+ * {@code bounds} ({minLng, minLat, maxLng, maxLat}) couvre les géométries modifiées connues, avant et
+ * après modification (emprise vide, min > max, si aucune n'est connue) ; null pour un rechargement complet.
+ */
+public record NetworkChangeEvent(long version, Set<Long> edgeIds, Set<Long> nodeIds, Set<Long> placeIds,
+                                 double[] bounds, boolean fullReload) {
+
+    public static NetworkChangeEvent fullReload(long version) {
+        return new NetworkChangeEvent(version, Set.of(), Set.of(), Set.of(), null, true);
+    }
+}
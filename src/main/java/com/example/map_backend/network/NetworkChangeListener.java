@@ -0,0 +1,176 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.repository.RoadNetworkRepository;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.Statement;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Abonné LISTEN/NOTIFY : installe les triggers sur {@code routes} et {@code lieux}, charge les
+ * instantanés une fois puis applique uniquement les deltas notifiés. Après une reconnexion, les
+ * notifications perdues imposent un rechargement complet. L'écoute occupe sa propre connexion, ouverte
+ * hors du pool : elle reste ouverte en permanence et ne prive pas les requêtes d'une connexion.
+ */
+@Component
+@Order(0)
+public class NetworkChangeListener implements ApplicationRunner, DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(NetworkChangeListener.class.getName());
+
+    private final DataSourceProperties dataSourceProperties;
+    private final RoadNetworkRepository repository;
+    private final RoadNetworkService networkService;
+    private final boolean enabled;
+    private final int batchWindowMs;
+    private final int maxBatchSize;
+    private final long initialLoadTimeoutMs;
+
+    private final CountDownLatch initialLoad = new CountDownLatch(1);
+    private volatile boolean running;
+    private Thread worker;
+
+    public NetworkChangeListener(DataSourceProperties dataSourceProperties,
+                                 RoadNetworkRepository repository,
+                                 RoadNetworkService networkService,
+                                 @Value("${map.network.enabled:true}") boolean enabled,
+                                 @Value("${map.network.batch-window-ms:200}") int batchWindowMs,
+                                 @Value("${map.network.max-batch-size:5000}") int maxBatchSize,
+                                 @Value("${map.network.initial-load-timeout-ms:60000}") long initialLoadTimeoutMs) {
+        this.dataSourceProperties = dataSourceProperties;
+        this.repository = repository;
+        this.networkService = networkService;
+        this.enabled = enabled;
+        this.batchWindowMs = batchWindowMs;
+        this.maxBatchSize = maxBatchSize;
+        this.initialLoadTimeoutMs = initialLoadTimeoutMs;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        // La table des sommets sert aussi au moteur SQL, même sans réseau en mémoire
+        try {
+            repository.installVertexTable();
+        } catch (Exception e) {
+            LOGGER.warning("Impossible d'installer la table des sommets : " + e.getMessage());
+        }
+        // Sans la fonction (pgRouting absent, droits insuffisants), le moteur SQL garde ses requêtes séparées
+        try {
+            repository.installRoutingFunction();
+        } catch (Exception e) {
+            LOGGER.warning("Impossible d'installer la fonction " + RoadNetworkRepository.ROUTING_FUNCTION + " : " + e.getMessage());
+        }
+        if (!enabled) {
+            LOGGER.info("Réseau en mémoire désactivé (map.network.enabled=false)");
+            return;
+        }
+        try {
+            repository.installChangeTriggers();
+        } catch (Exception e) {
+            LOGGER.warning("Impossible d'installer les triggers de notification : " + e.getMessage());
+        }
+        running = true;
+        worker = new Thread(this::listenLoop, "network-change-listener");
+        worker.setDaemon(true);
+        worker.start();
+        if (!initialLoad.await(initialLoadTimeoutMs, TimeUnit.MILLISECONDS)) {
+            LOGGER.warning("Chargement initial du réseau non terminé après " + initialLoadTimeoutMs + " ms, démarrage sans réseau en mémoire");
+        }
+    }
+
+    private void listenLoop() {
+        long backoffMs = 1000;
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + RoadNetworkRepository.CHANGE_CHANNEL);
+                }
+                // Écoute active avant le chargement : aucun changement ne peut passer entre les deux
+                networkService.reloadAll();
+                initialLoad.countDown();
+                backoffMs = 1000;
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(1000);
+                    if (notifications == null || notifications.length == 0) {
+                        continue;
+                    }
+                    Set<Long> edgeIds = new HashSet<>();
+                    Set<Long> placeIds = new HashSet<>();
+                    collect(notifications, edgeIds, placeIds);
+                    // Regroupe les rafales (imports, éditions en masse) en un seul delta
+                    long deadline = System.currentTimeMillis() + batchWindowMs;
+                    while (edgeIds.size() + placeIds.size() < maxBatchSize && System.currentTimeMillis() < deadline) {
+                        PGNotification[] more = pgConnection.getNotifications(Math.max(1, (int) (deadline - System.currentTimeMillis())));
+                        if (more == null || more.length == 0) {
+                            break;
+                        }
+                        collect(more, edgeIds, placeIds);
+                    }
+                    networkService.applyChanges(edgeIds, placeIds);
+                }
+            } catch (Exception e) {
+                if (!running) {
+                    break;
+                }
+                LOGGER.log(Level.WARNING, "Flux de changements interrompu, reconnexion dans " + backoffMs + " ms : " + e.getMessage());
+                sleepQuietly(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, 30_000);
+            }
+        }
+    }
+
+    private void collect(PGNotification[] notifications, Set<Long> edgeIds, Set<Long> placeIds) {
+        for (PGNotification notification : notifications) {
+            String payload = notification.getParameter();
+            int separator = payload.indexOf(':');
+            if (separator < 0) {
+                continue;
+            }
+            try {
+                long id = Long.parseLong(payload.substring(separator + 1));
+                String table = payload.substring(0, separator);
+                if (table.equals("routes")) {
+                    edgeIds.add(id);
+                } else if (table.equals("lieux")) {
+                    placeIds.add(id);
+                }
+            } catch (NumberFormatException e) {
+                LOGGER.warning("Notification ignorée : " + payload);
+            }
+        }
+    }
+
+    private void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+}
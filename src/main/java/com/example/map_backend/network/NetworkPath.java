@@ -0,0 +1,11 @@
+package com.example.map_backend.network;
+
+/**
+ * Chemin dans un instantané {@link RoadNetwork} : suite d'indices d'arcs et coût pondéré total.
+ */
+public record NetworkPath(int[] arcs, double cost) {
+
+    public boolean isEmpty() {
+        return arcs.length == 0;
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.map_backend.network;
+
+import java.util.Arrays;
+
+/**
+ * Recherche A* sur un instantané {@link RoadNetwork}, avec poids d'arcs (surcouche trafic incluse)
+ * et pénalités multiplicatives optionnelles par arête.
+ */
+public final class PathFinder {
+
+    private PathFinder() {
+    }
+
+    // heuristicScale : coût minimal par mètre de ligne droite (0 = Dijkstra)
+    public static NetworkPath shortestPath(RoadNetwork network, double[] weights, double[] edgePenalty,
+                                           int source, int target, double heuristicScale) {
+        int nodeCount = network.nodeCount();
+        if (source < 0 || target < 0 || source >= nodeCount || target >= nodeCount) {
+            return null;
+        }
+        double[] dist = new double[nodeCount];
+        int[] prevArc = new int[nodeCount];
+        int[] prevNode = new int[nodeCount];
+        boolean[] settled = new boolean[nodeCount];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        Arrays.fill(prevArc, -1);
+
+        double targetLng = network.nodeLng(target);
+        double targetLat = network.nodeLat(target);
+        MinHeap heap = new MinHeap(64);
+        dist[source] = 0;
+        heap.push(heuristic(network, source, targetLng, targetLat, heuristicScale), source);
+
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (settled[node]) {
+                continue;
+            }
+            settled[node] = true;
+            if (node == target) {
+                break;
+            }
+            for (int arc = network.arcStart(node); arc < network.arcEnd(node); arc++) {
+                double weight = weights[arc];
+                if (Double.isInfinite(weight)) {
+                    continue;
+                }
+                if (edgePenalty != null) {
+                    weight *= edgePenalty[network.arcEdge(arc)];
+                }
+                int head = network.arcHead(arc);
+                double candidate = dist[node] + weight;
+                if (candidate < dist[head]) {
+                    dist[head] = candidate;
+                    prevArc[head] = arc;
+                    prevNode[head] = node;
+                    heap.push(candidate + heuristic(network, head, targetLng, targetLat, heuristicScale), head);
+                }
+            }
+        }
+
+        if (!settled[target]) {
+            return null;
+        }
+        int length = 0;
+        for (int node = target; node != source; node = prevNode[node]) {
+            length++;
+        }
+        int[] arcs = new int[length];
+        double cost = 0;
+        int node = target;
+        for (int i = length - 1; i >= 0; i--) {
+            arcs[i] = prevArc[node];
+            cost += weights[arcs[i]];
+            node = prevNode[node];
+        }
+        return new NetworkPath(arcs, cost);
+    }
+
+    private static double heuristic(RoadNetwork network, int node, double targetLng, double targetLat, double scale) {
+        if (scale <= 0) {
+            return 0;
+        }
+        return scale * GeoUtils.distanceMeters(network.nodeLng(node), network.nodeLat(node), targetLng, targetLat);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.map_backend.network;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instantané immuable des lieux de la table {@code lieux}, remplacé en bloc à chaque modification.
+ */
+public final class PlaceIndex {
+
+    private static final PlaceIndex EMPTY = new PlaceIndex(0, Collections.emptyMap());
+
+    private final long version;
+    private final Map<Long, IndexedPlace> placesById;
+    private final IndexedPlace[] placeArray;
+
+    private volatile SpatialGrid grid;
+
+    private PlaceIndex(long version, Map<Long, IndexedPlace> placesById) {
+        this.version = version;
+        this.placesById = Collections.unmodifiableMap(placesById);
+        this.placeArray = placesById.values().toArray(new IndexedPlace[0]);
+    }
+
+    public static PlaceIndex empty() {
+        return EMPTY;
+    }
+
+    public static PlaceIndex of(long version, Collection<IndexedPlace> places) {
+        Map<Long, IndexedPlace> byId = new LinkedHashMap<>(places.size() * 2);
+        for (IndexedPlace place : places) {
+            byId.put(place.id(), place);
+        }
+        return new PlaceIndex(version, byId);
+    }
+
+    public PlaceIndex withChanges(long newVersion, Collection<IndexedPlace> upserts, Collection<Long> deletedIds) {
+        Map<Long, IndexedPlace> byId = new LinkedHashMap<>(placesById);
+        for (Long id : deletedIds) {
+            byId.remove(id);
+        }
+        for (IndexedPlace place : upserts) {
+            byId.put(place.id(), place);
+        }
+        return new PlaceIndex(newVersion, byId);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Ordre de grandeur de l'occupation mémoire, pour le budget des régions
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (IndexedPlace place : placeArray) {
+            bytes += 136 + (place.name() != null ? 2L * place.name().length() : 0);
+        }
+        return bytes;
+    }
+
+    public int size() {
+        return placesById.size();
+    }
+
+    public IndexedPlace place(long id) {
+        return placesById.get(id);
+    }
+
+    public String name(long id) {
+        IndexedPlace place = placesById.get(id);
+        return place != null ? place.name() : null;
+    }
+
+    public IndexedPlace placeAt(int index) {
+        return placeArray[index];
+    }
+
+    // Index spatial sur les indices de placeAt(), construit au premier usage
+    public SpatialGrid grid() {
+        SpatialGrid current = grid;
+        if (current == null) {
+            double[] lng = new double[placeArray.length];
+            double[] lat = new double[placeArray.length];
+            for (int i = 0; i < placeArray.length; i++) {
+                lng[i] = placeArray[i].lng();
+                lat[i] = placeArray[i].lat();
+            }
+            current = SpatialGrid.build(lng, lat, lng, lat, RoadNetwork.GRID_CELL_DEGREES);
+            grid = current;
+        }
+        return current;
+    }
+
+    public Collection<IndexedPlace> places() {
+        return placesById.values();
+    }
+}
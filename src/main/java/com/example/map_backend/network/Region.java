@@ -0,0 +1,45 @@
+package com.example.map_backend.network;
+
+import java.util.Locale;
+
+// Ville desservie : emprise (degrés WGS84) et libellé utilisé pour le géocodage
+public record Region(String name, String label, double minLng, double minLat, double maxLng, double maxLat) {
+
+    public boolean contains(double lat, double lng) {
+        return lat >= minLat && lat <= maxLat && lng >= minLng && lng <= maxLng;
+    }
+
+    public boolean intersects(double west, double south, double east, double north) {
+        return west <= maxLng && east >= minLng && south <= maxLat && north >= minLat;
+    }
+
+    // Même règle que l'opérateur && de PostGIS au chargement : l'emprise de la ligne touche celle de la région
+    public boolean intersects(double[] coordinates) {
+        if (coordinates.length < 2) {
+            return false;
+        }
+        double west = Double.MAX_VALUE;
+        double south = Double.MAX_VALUE;
+        double east = -Double.MAX_VALUE;
+        double north = -Double.MAX_VALUE;
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            west = Math.min(west, coordinates[i]);
+            east = Math.max(east, coordinates[i]);
+            south = Math.min(south, coordinates[i + 1]);
+            north = Math.max(north, coordinates[i + 1]);
+        }
+        return intersects(west, south, east, north);
+    }
+
+    // Écart en degrés au bord de l'emprise, nul à l'intérieur
+    public double distanceDegrees(double lat, double lng) {
+        double dLng = Math.max(0, Math.max(minLng - lng, lng - maxLng));
+        double dLat = Math.max(0, Math.max(minLat - lat, lat - maxLat));
+        return Math.hypot(dLng, dLat);
+    }
+
+    // Paramètre viewbox de Nominatim : gauche, haut, droite, bas
+    public String viewbox() {
+        return String.format(Locale.ROOT, "%s,%s,%s,%s", minLng, maxLat, maxLng, minLat);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.map_backend.network;
+
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Régions desservies, déclarées par map.regions.names puis map.regions.<nom>.* (label, min-lng,
+ * min-lat, max-lng, max-lat). La première est la région par défaut. Les requêtes sont aiguillées
+ * vers la région qui contient leurs coordonnées.
+ */
+@Component
+public class RegionRegistry {
+
+    private static final Logger LOGGER = Logger.getLogger(RegionRegistry.class.getName());
+
+    private final List<Region> regions;
+
+    public RegionRegistry(Environment environment) {
+        List<Region> declared = new ArrayList<>();
+        for (String name : environment.getProperty("map.regions.names", "yaounde").split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+            String prefix = "map.regions." + name + ".";
+            Double minLng = environment.getProperty(prefix + "min-lng", Double.class);
+            Double minLat = environment.getProperty(prefix + "min-lat", Double.class);
+            Double maxLng = environment.getProperty(prefix + "max-lng", Double.class);
+            Double maxLat = environment.getProperty(prefix + "max-lat", Double.class);
+            if (minLng == null || minLat == null || maxLng == null || maxLat == null || minLng >= maxLng || minLat >= maxLat) {
+                throw new IllegalStateException("Emprise absente ou invalide pour la région " + name);
+            }
+            declared.add(new Region(name, environment.getProperty(prefix + "label", name), minLng, minLat, maxLng, maxLat));
+        }
+        if (declared.isEmpty()) {
+            throw new IllegalStateException("Aucune région déclarée (map.regions.names)");
+        }
+        this.regions = Collections.unmodifiableList(declared);
+        LOGGER.info("Régions desservies : " + regions.stream().map(Region::name).toList());
+    }
+
+    public List<Region> regions() {
+        return regions;
+    }
+
+    public Region defaultRegion() {
+        return regions.get(0);
+    }
+
+    // null si le nom est inconnu
+    public Region byName(String name) {
+        for (Region region : regions) {
+            if (region.name().equalsIgnoreCase(name)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    // Région qui contient le point, null hors de toute emprise
+    public Region locate(double lat, double lng) {
+        for (Region region : regions) {
+            if (region.contains(lat, lng)) {
+                return region;
+            }
+        }
+        return null;
+    }
+
+    // Région la plus proche du point (celle qui le contient s'il y en a une)
+    public Region nearest(double lat, double lng) {
+        Region nearest = regions.get(0);
+        double best = Double.MAX_VALUE;
+        for (Region region : regions) {
+            double distance = region.distanceDegrees(lat, lng);
+            if (distance < best) {
+                best = distance;
+                nearest = region;
+            }
+        }
+        return nearest;
+    }
+
+    public boolean contains(double lat, double lng) {
+        return locate(lat, lng) != null;
+    }
+
+    // Régions touchées par l'emprise (une tuile à faible zoom peut en couvrir plusieurs)
+    public List<Region> intersecting(double west, double south, double east, double north) {
+        List<Region> touched = new ArrayList<>();
+        for (Region region : regions) {
+            if (region.intersects(west, south, east, north)) {
+                touched.add(region);
+            }
+        }
+        return touched;
+    }
+}
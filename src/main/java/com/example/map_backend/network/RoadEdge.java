@@ -0,0 +1,20 @@
+package com.example.map_backend.network;
+
+/**
+ * Arête immuable du réseau routier telle que chargée depuis la table {@code routes}.
+ * Les coordonnées sont stockées à plat : lng0, lat0, lng1, lat1, ...
+ */
+public record RoadEdge(long id, long source, long target, double cost, double reverseCost, double[] coordinates) {
+
+    public boolean isForwardOpen() {
+        return cost > 0;
+    }
+
+    public boolean isReverseOpen() {
+        return reverseCost > 0;
+    }
+
+    public int pointCount() {
+        return coordinates.length / 2;
+    }
+}
@@ -0,0 +1,295 @@
+package com.example.map_backend.network;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Instantané immuable du graphe routier. Une modification produit un nouvel instantané
+ * (copie sur écriture) : les lecteurs gardent leur référence et ne sont jamais bloqués.
+ * Les arcs sortants sont rangés en CSR : pour le nœud i, les arcs [arcStart[i], arcStart[i + 1]).
+ */
+public final class RoadNetwork {
+
+    static final double GRID_CELL_DEGREES = 0.005;
+
+    private static final RoadNetwork EMPTY = new RoadNetwork(0, Collections.emptyMap());
+
+    private final long version;
+    private final Map<Long, RoadEdge> edgesById;
+    private final RoadEdge[] edges;
+
+    private final long[] nodeIds;
+    private final Map<Long, Integer> nodeIndex;
+    private final double[] nodeLng;
+    private final double[] nodeLat;
+
+    private final int[] arcStart;
+    private final int[] arcEdge;
+    private final int[] arcHead;
+    private final double[] arcCost;
+    private final boolean[] arcForward;
+
+    private volatile double costPerMeterLowerBound = Double.NaN;
+    private volatile SpatialGrid edgeGrid;
+    private volatile double[] edgeLengths;
+    // Poids des arcs sous une surcouche trafic, calculés par TrafficOverlay ; libérés avec l'instantané
+    private volatile TrafficWeights trafficWeights;
+
+    private RoadNetwork(long version, Map<Long, RoadEdge> edgesById) {
+        this.version = version;
+        this.edgesById = Collections.unmodifiableMap(edgesById);
+        this.edges = edgesById.values().toArray(new RoadEdge[0]);
+
+        Map<Long, Integer> index = new HashMap<>(edges.length * 2);
+        double[] lng = new double[edges.length * 2];
+        double[] lat = new double[edges.length * 2];
+        long[] ids = new long[edges.length * 2];
+        int[] outDegree = new int[edges.length * 2 + 1];
+        int[] edgeSource = new int[edges.length];
+        int[] edgeTarget = new int[edges.length];
+
+        for (int e = 0; e < edges.length; e++) {
+            RoadEdge edge = edges[e];
+            double[] coords = edge.coordinates();
+            int n = coords.length;
+            edgeSource[e] = registerNode(index, ids, lng, lat, edge.source(), n >= 2 ? coords[0] : Double.NaN, n >= 2 ? coords[1] : Double.NaN);
+            edgeTarget[e] = registerNode(index, ids, lng, lat, edge.target(), n >= 2 ? coords[n - 2] : Double.NaN, n >= 2 ? coords[n - 1] : Double.NaN);
+            if (edge.isForwardOpen()) outDegree[edgeSource[e]]++;
+            if (edge.isReverseOpen()) outDegree[edgeTarget[e]]++;
+        }
+
+        int nodeCount = index.size();
+        this.nodeIndex = Collections.unmodifiableMap(index);
+        this.nodeIds = Arrays.copyOf(ids, nodeCount);
+        this.nodeLng = Arrays.copyOf(lng, nodeCount);
+        this.nodeLat = Arrays.copyOf(lat, nodeCount);
+
+        this.arcStart = new int[nodeCount + 1];
+        for (int i = 0; i < nodeCount; i++) {
+            arcStart[i + 1] = arcStart[i] + outDegree[i];
+        }
+        int arcCount = arcStart[nodeCount];
+        this.arcEdge = new int[arcCount];
+        this.arcHead = new int[arcCount];
+        this.arcCost = new double[arcCount];
+        this.arcForward = new boolean[arcCount];
+
+        int[] cursor = Arrays.copyOf(arcStart, nodeCount);
+        for (int e = 0; e < edges.length; e++) {
+            RoadEdge edge = edges[e];
+            if (edge.isForwardOpen()) {
+                int k = cursor[edgeSource[e]]++;
+                arcEdge[k] = e;
+                arcHead[k] = edgeTarget[e];
+                arcCost[k] = edge.cost();
+                arcForward[k] = true;
+            }
+            if (edge.isReverseOpen()) {
+                int k = cursor[edgeTarget[e]]++;
+                arcEdge[k] = e;
+                arcHead[k] = edgeSource[e];
+                arcCost[k] = edge.reverseCost();
+                arcForward[k] = false;
+            }
+        }
+    }
+
+    private static int registerNode(Map<Long, Integer> index, long[] ids, double[] lng, double[] lat,
+                                    long nodeId, double x, double y) {
+        Integer existing = index.get(nodeId);
+        if (existing != null) {
+            return existing;
+        }
+        int i = index.size();
+        index.put(nodeId, i);
+        ids[i] = nodeId;
+        lng[i] = x;
+        lat[i] = y;
+        return i;
+    }
+
+    public static RoadNetwork empty() {
+        return EMPTY;
+    }
+
+    public static RoadNetwork of(long version, Collection<RoadEdge> edges) {
+        Map<Long, RoadEdge> byId = new LinkedHashMap<>(edges.size() * 2);
+        for (RoadEdge edge : edges) {
+            byId.put(edge.id(), edge);
+        }
+        return new RoadNetwork(version, byId);
+    }
+
+    // Les arêtes inchangées sont partagées avec l'instantané précédent
+    public RoadNetwork withChanges(long newVersion, Collection<RoadEdge> upserts, Collection<Long> deletedIds) {
+        Map<Long, RoadEdge> byId = new LinkedHashMap<>(edgesById);
+        for (Long id : deletedIds) {
+            byId.remove(id);
+        }
+        for (RoadEdge edge : upserts) {
+            byId.put(edge.id(), edge);
+        }
+        return new RoadNetwork(newVersion, byId);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    // Ordre de grandeur de l'occupation mémoire (arêtes et géométries, nœuds, CSR, grille), pour le budget des régions
+    public long estimatedBytes() {
+        long bytes = 0;
+        for (RoadEdge edge : edges) {
+            bytes += 160 + 8L * edge.coordinates().length;
+        }
+        // 8 octets par arc en plus pour les poids de la surcouche trafic
+        bytes += nodeIds.length * 88L + 4L * arcStart.length + 25L * arcEdge.length;
+        return bytes;
+    }
+
+    public boolean isEmpty() {
+        return edges.length == 0;
+    }
+
+    public int edgeCount() {
+        return edges.length;
+    }
+
+    public int nodeCount() {
+        return nodeIds.length;
+    }
+
+    public RoadEdge edge(long id) {
+        return edgesById.get(id);
+    }
+
+    public RoadEdge edgeAt(int index) {
+        return edges[index];
+    }
+
+    public Collection<RoadEdge> edges() {
+        return edgesById.values();
+    }
+
+    public int nodeIndex(long nodeId) {
+        Integer index = nodeIndex.get(nodeId);
+        return index != null ? index : -1;
+    }
+
+    public long nodeId(int index) {
+        return nodeIds[index];
+    }
+
+    public double nodeLng(int index) {
+        return nodeLng[index];
+    }
+
+    public double nodeLat(int index) {
+        return nodeLat[index];
+    }
+
+    // Plus petit rapport coût / longueur géométrique : rend l'heuristique A* admissible quelle que soit l'unité de cost
+    public double costPerMeterLowerBound() {
+        double bound = costPerMeterLowerBound;
+        if (Double.isNaN(bound)) {
+            bound = Double.POSITIVE_INFINITY;
+            for (RoadEdge edge : edges) {
+                double length = GeoUtils.lengthMeters(edge.coordinates());
+                if (length <= 0) {
+                    continue;
+                }
+                if (edge.isForwardOpen()) bound = Math.min(bound, edge.cost() / length);
+                if (edge.isReverseOpen()) bound = Math.min(bound, edge.reverseCost() / length);
+            }
+            bound = Double.isInfinite(bound) ? 0 : bound * 0.99;
+            costPerMeterLowerBound = bound;
+        }
+        return bound;
+    }
+
+    // Longueur géométrique (mètres) de chaque arête, indices denses
+    public double edgeLengthMeters(int index) {
+        double[] lengths = edgeLengths;
+        if (lengths == null) {
+            lengths = new double[edges.length];
+            for (int e = 0; e < edges.length; e++) {
+                lengths[e] = GeoUtils.lengthMeters(edges[e].coordinates());
+            }
+            edgeLengths = lengths;
+        }
+        return lengths[index];
+    }
+
+    // Index spatial des arêtes (indices denses), construit au premier usage puis partagé par les lecteurs
+    public SpatialGrid edgeGrid() {
+        SpatialGrid grid = edgeGrid;
+        if (grid == null) {
+            double[] minLng = new double[edges.length];
+            double[] minLat = new double[edges.length];
+            double[] maxLng = new double[edges.length];
+            double[] maxLat = new double[edges.length];
+            for (int e = 0; e < edges.length; e++) {
+                double[] coords = edges[e].coordinates();
+                minLng[e] = minLat[e] = Double.POSITIVE_INFINITY;
+                maxLng[e] = maxLat[e] = Double.NEGATIVE_INFINITY;
+                for (int i = 0; i + 1 < coords.length; i += 2) {
+                    minLng[e] = Math.min(minLng[e], coords[i]);
+                    maxLng[e] = Math.max(maxLng[e], coords[i]);
+                    minLat[e] = Math.min(minLat[e], coords[i + 1]);
+                    maxLat[e] = Math.max(maxLat[e], coords[i + 1]);
+                }
+                if (coords.length < 2) {
+                    minLng[e] = minLat[e] = maxLng[e] = maxLat[e] = Double.NaN;
+                }
+            }
+            grid = SpatialGrid.build(minLng, minLat, maxLng, maxLat, GRID_CELL_DEGREES);
+            edgeGrid = grid;
+        }
+        return grid;
+    }
+
+    public int arcCount() {
+        return arcEdge.length;
+    }
+
+    public int arcStart(int node) {
+        return arcStart[node];
+    }
+
+    public int arcEnd(int node) {
+        return arcStart[node + 1];
+    }
+
+    public int arcEdge(int arc) {
+        return arcEdge[arc];
+    }
+
+    public int arcHead(int arc) {
+        return arcHead[arc];
+    }
+
+    public double arcCost(int arc) {
+        return arcCost[arc];
+    }
+
+    public boolean arcForward(int arc) {
+        return arcForward[arc];
+    }
+
+    // null si les poids en place ont été calculés pour une autre version de la surcouche
+    double[] trafficWeights(long overlayVersion) {
+        TrafficWeights cached = trafficWeights;
+        return cached != null && cached.overlayVersion() == overlayVersion ? cached.weights() : null;
+    }
+
+    void storeTrafficWeights(long overlayVersion, double[] weights) {
+        trafficWeights = new TrafficWeights(overlayVersion, weights);
+    }
+
+    private record TrafficWeights(long overlayVersion, double[] weights) {
+    }
+}
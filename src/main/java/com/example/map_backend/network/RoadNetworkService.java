@@ -0,0 +1,340 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.repository.RoadNetworkRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Logger;
+
+/**
+ * Détient, par région, les instantanés courants du graphe routier et des lieux. Les lectures sont de
+ * simples lectures de map ; seules les écritures (chargements, flux de changements) sont sérialisées.
+ * Une région est chargée en tâche de fond à sa première consultation (les appelants retombent sur les
+ * moteurs SQL en attendant), puis évincée par ancienneté d'usage au-delà de map.regions.memory-budget-mb.
+ * La région par défaut est chargée au démarrage et jamais évincée.
+ */
+@Service
+public class RoadNetworkService implements DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(RoadNetworkService.class.getName());
+
+    private final RoadNetworkRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RegionRegistry regions;
+    private final MeterRegistry meterRegistry;
+    private final long memoryBudgetBytes;
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final Map<String, RegionData> loaded = new ConcurrentHashMap<>();
+    private final Set<String> pendingLoads = ConcurrentHashMap.newKeySet();
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "region-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Vrai dès le premier chargement complet : le flux de changements écoute, une région chargée reste à jour
+    private volatile boolean tracking;
+
+    public RoadNetworkService(RoadNetworkRepository repository, ApplicationEventPublisher eventPublisher,
+                              RegionRegistry regions, MeterRegistry meterRegistry,
+                              @Value("${map.regions.memory-budget-mb:512}") long memoryBudgetMb) {
+        this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.regions = regions;
+        this.meterRegistry = meterRegistry;
+        this.memoryBudgetBytes = memoryBudgetMb * 1024 * 1024;
+        Gauge.builder("map.regions.loaded", loaded, Map::size)
+                .description("Régions dont le graphe est en mémoire").register(meterRegistry);
+        Gauge.builder("map.regions.memory", this, RoadNetworkService::loadedBytes).baseUnit("bytes")
+                .description("Occupation estimée des régions chargées").register(meterRegistry);
+    }
+
+    public RegionRegistry regions() {
+        return regions;
+    }
+
+    // Région par défaut : appelants sans coordonnées (horaires de transport, réchauffage)
+    public RoadNetwork network() {
+        return network(regions.defaultRegion());
+    }
+
+    public PlaceIndex places() {
+        return places(regions.defaultRegion());
+    }
+
+    public boolean isLoaded() {
+        return isLoaded(regions.defaultRegion());
+    }
+
+    // Instantané vide tant que la région n'est pas chargée ; la première consultation déclenche le chargement
+    public RoadNetwork network(Region region) {
+        RegionData data = touch(region);
+        return data != null ? data.network : RoadNetwork.empty();
+    }
+
+    public PlaceIndex places(Region region) {
+        RegionData data = touch(region);
+        return data != null ? data.places : PlaceIndex.empty();
+    }
+
+    public boolean isLoaded(Region region) {
+        return region != null && touch(region) != null;
+    }
+
+    // Arête d'une région déjà en mémoire, sans déclencher de chargement ; null si aucune ne la contient
+    public RoadEdge loadedEdge(long id) {
+        for (RegionData data : loaded.values()) {
+            RoadEdge edge = data.network.edge(id);
+            if (edge != null) {
+                return edge;
+            }
+        }
+        return null;
+    }
+
+    // Version du dernier chargement complet de la région, conservée par les deltas ; -1 si elle n'est pas en mémoire
+    public long loadVersion(Region region) {
+        RegionData data = loaded.get(region.name());
+        return data != null ? data.loadVersion : -1;
+    }
+
+    // Version globale : change à chaque chargement et à chaque delta appliqué, sur les routes comme sur les lieux
+    public long version() {
+        return versionSequence.get();
+    }
+
+    public Map<String, Object> status(Region region) {
+        RegionData data = loaded.get(region.name());
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("loaded", data != null);
+        status.put("loading", pendingLoads.contains(region.name()));
+        if (data != null) {
+            status.put("edges", data.network.edgeCount());
+            status.put("places", data.places.size());
+            status.put("estimatedBytes", data.bytes);
+            status.put("lastAccess", data.lastAccess);
+        }
+        return status;
+    }
+
+    // Région par défaut et régions déjà en mémoire, relues entièrement (démarrage, reconnexion du flux)
+    public synchronized void reloadAll() {
+        Set<Region> toLoad = new LinkedHashSet<>();
+        toLoad.add(regions.defaultRegion());
+        loaded.values().forEach(data -> toLoad.add(data.region));
+        for (Region region : toLoad) {
+            load(region);
+        }
+        tracking = true;
+        evictOverBudget(null);
+        eventPublisher.publishEvent(NetworkChangeEvent.fullReload(versionSequence.get()));
+    }
+
+    public synchronized void applyChanges(Collection<Long> edgeIds, Collection<Long> placeIds) {
+        if (edgeIds.isEmpty() && placeIds.isEmpty()) {
+            return;
+        }
+        List<RoadEdge> edgeUpserts = edgeIds.isEmpty() ? List.of() : repository.findEdgesByIds(edgeIds);
+        List<IndexedPlace> placeUpserts = placeIds.isEmpty() ? List.of() : repository.findPlacesByIds(placeIds);
+
+        Set<Long> affectedNodes = new HashSet<>();
+        double[] bounds = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (RoadEdge edge : edgeUpserts) {
+            affectedNodes.add(edge.source());
+            affectedNodes.add(edge.target());
+            extend(bounds, edge.coordinates());
+        }
+        for (IndexedPlace place : placeUpserts) {
+            extend(bounds, new double[]{place.lng(), place.lat()});
+        }
+        for (RegionData data : loaded.values()) {
+            Region region = data.region;
+            RoadNetwork network = data.network;
+            PlaceIndex places = data.places;
+            // Chaque région ne garde que ce qui touche son emprise ; une ligne sortie de l'emprise y est supprimée
+            if (!edgeIds.isEmpty()) {
+                List<RoadEdge> upserts = new ArrayList<>();
+                Set<Long> deleted = new HashSet<>();
+                for (Long id : edgeIds) {
+                    RoadEdge previous = network.edge(id);
+                    if (previous != null) {
+                        deleted.add(id);
+                        affectedNodes.add(previous.source());
+                        affectedNodes.add(previous.target());
+                        extend(bounds, previous.coordinates());
+                    }
+                }
+                for (RoadEdge edge : edgeUpserts) {
+                    if (region.intersects(edge.coordinates())) {
+                        upserts.add(edge);
+                        deleted.remove(edge.id());
+                    }
+                }
+                if (!upserts.isEmpty() || !deleted.isEmpty()) {
+                    network = network.withChanges(versionSequence.incrementAndGet(), upserts, deleted);
+                }
+            }
+            if (!placeIds.isEmpty()) {
+                List<IndexedPlace> upserts = new ArrayList<>();
+                Set<Long> deleted = new HashSet<>();
+                for (Long id : placeIds) {
+                    IndexedPlace previous = places.place(id);
+                    if (previous != null) {
+                        deleted.add(id);
+                        extend(bounds, new double[]{previous.lng(), previous.lat()});
+                    }
+                }
+                for (IndexedPlace place : placeUpserts) {
+                    if (region.contains(place.lat(), place.lng())) {
+                        upserts.add(place);
+                        deleted.remove(place.id());
+                    }
+                }
+                if (!upserts.isEmpty() || !deleted.isEmpty()) {
+                    places = places.withChanges(versionSequence.incrementAndGet(), upserts, deleted);
+                }
+            }
+            if (network != data.network || places != data.places) {
+                loaded.put(region.name(), new RegionData(region, network, places, data.loadVersion, data.lastAccess));
+            }
+        }
+        // Version publiée avec le delta, distincte de celles des instantanés qu'il a produits
+        long version = versionSequence.incrementAndGet();
+
+        LOGGER.info("Delta appliqué (version " + version + ") : " + edgeIds.size() + " arêtes, " + placeIds.size() + " lieux");
+        eventPublisher.publishEvent(new NetworkChangeEvent(version, Set.copyOf(edgeIds), Set.copyOf(affectedNodes),
+                Set.copyOf(placeIds), bounds, false));
+    }
+
+    private static void extend(double[] box, double[] coordinates) {
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            box[0] = Math.min(box[0], coordinates[i]);
+            box[1] = Math.min(box[1], coordinates[i + 1]);
+            box[2] = Math.max(box[2], coordinates[i]);
+            box[3] = Math.max(box[3], coordinates[i + 1]);
+        }
+    }
+
+    private RegionData touch(Region region) {
+        RegionData data = loaded.get(region.name());
+        if (data != null) {
+            data.lastAccess = System.currentTimeMillis();
+            return data;
+        }
+        requestLoad(region);
+        return null;
+    }
+
+    // Avant le premier chargement complet, le flux de changements n'écoute pas encore : rien n'est chargé
+    private void requestLoad(Region region) {
+        if (!tracking || !pendingLoads.add(region.name())) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                synchronized (this) {
+                    if (!loaded.containsKey(region.name())) {
+                        load(region);
+                        evictOverBudget(region);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.warning("Chargement de la région " + region.name() + " impossible : " + e.getMessage());
+            } finally {
+                pendingLoads.remove(region.name());
+            }
+        });
+    }
+
+    // Appelé sous le moniteur : un delta ne peut pas s'intercaler entre la lecture et la publication
+    private void load(Region region) {
+        long start = System.nanoTime();
+        List<RoadEdge> edges = repository.findEdgesInBox(region.minLng(), region.minLat(), region.maxLng(), region.maxLat());
+        List<IndexedPlace> regionPlaces = repository.findPlacesInBox(region.minLng(), region.minLat(), region.maxLng(), region.maxLat());
+        long version = versionSequence.incrementAndGet();
+        RoadNetwork network = RoadNetwork.of(version, edges);
+        PlaceIndex places = PlaceIndex.of(version, regionPlaces);
+        RegionData previous = loaded.get(region.name());
+        loaded.put(region.name(), new RegionData(region, network, places, version,
+                previous != null ? previous.lastAccess : System.currentTimeMillis()));
+        Counter.builder("map.regions.loads").tag("region", region.name()).register(meterRegistry).increment();
+        LOGGER.info("Région " + region.name() + " chargée : " + network.edgeCount() + " arêtes, " + network.nodeCount()
+                + " nœuds, " + places.size() + " lieux en " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    // Évince les régions les moins récemment consultées jusqu'à revenir sous le budget ; la région
+    // par défaut et celle qui vient d'être chargée sont conservées
+    private void evictOverBudget(Region justLoaded) {
+        long total = loadedBytes();
+        if (total <= memoryBudgetBytes) {
+            return;
+        }
+        List<RegionData> candidates = new ArrayList<>(loaded.values());
+        candidates.sort(Comparator.comparingLong(data -> data.lastAccess));
+        for (RegionData data : candidates) {
+            if (total <= memoryBudgetBytes) {
+                break;
+            }
+            if (data.region.equals(regions.defaultRegion()) || data.region.equals(justLoaded)) {
+                continue;
+            }
+            loaded.remove(data.region.name());
+            total -= data.bytes;
+            Counter.builder("map.regions.evictions").tag("region", data.region.name()).register(meterRegistry).increment();
+            LOGGER.info("Région " + data.region.name() + " évincée (" + data.bytes / (1024 * 1024) + " Mo estimés)");
+        }
+        if (total > memoryBudgetBytes) {
+            LOGGER.warning("Budget mémoire des régions dépassé : " + total / (1024 * 1024) + " Mo estimés pour "
+                    + memoryBudgetBytes / (1024 * 1024) + " Mo");
+        }
+    }
+
+    private long loadedBytes() {
+        long total = 0;
+        for (RegionData data : loaded.values()) {
+            total += data.bytes;
+        }
+        return total;
+    }
+
+    @Override
+    public void destroy() {
+        loader.shutdownNow();
+    }
+
+    private static final class RegionData {
+        private final Region region;
+        private final RoadNetwork network;
+        private final PlaceIndex places;
+        private final long loadVersion;
+        private final long bytes;
+        private volatile long lastAccess;
+
+        private RegionData(Region region, RoadNetwork network, PlaceIndex places, long loadVersion, long lastAccess) {
+            this.region = region;
+            this.network = network;
+            this.places = places;
+            this.loadVersion = loadVersion;
+            this.bytes = network.estimatedBytes() + places.estimatedBytes();
+            this.lastAccess = lastAccess;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.map_backend.network;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Raccordement d'une position écartée à un itinéraire déjà calculé : Dijkstra borné depuis le nœud
+ * de la position, arrêté dès qu'aucun nœud de l'ancien itinéraire ne peut plus améliorer
+ * coût(position → nœud) + coût restant de l'itinéraire depuis ce nœud. Les nœuds de l'itinéraire sont
+ * retrouvés par leurs coordonnées (chaque sommet du graphe traversé est un point de sa géométrie),
+ * à JOIN_TOLERANCE_DEGREES près (géométries arrondies par OSRM ou relues depuis PostGIS), sans
+ * reconstruire son chemin ; le coût restant est réparti au prorata de la longueur restante.
+ */
+public final class RouteRejoin {
+
+    /**
+     * Raccordement trouvé : chemin de la position au point de jonction (vide si la position est déjà
+     * sur l'itinéraire) et indice du point de jonction dans la géométrie de l'itinéraire.
+     */
+    public record Result(NetworkPath connection, int joinPoint) {
+    }
+
+    // Environ 1 m : absorbe les arrondis de coordonnées sans confondre deux carrefours
+    static final double JOIN_TOLERANCE_DEGREES = 1e-5;
+
+    private record Key(long x, long y) {
+    }
+
+    private RouteRejoin() {
+    }
+
+    // null si aucun point de l'itinéraire n'est atteint dans les bornes (coût de raccordement, nœuds visités)
+    public static Result rejoin(RoadNetwork network, double[] weights, int source, LineGeometry route, double routeCost,
+                                double maxConnectionCost, int maxSettled) {
+        int points = route.pointCount();
+        if (source < 0 || source >= network.nodeCount() || points < 2) {
+            return null;
+        }
+        double[] cumulative = new double[points];
+        for (int i = 1; i < points; i++) {
+            cumulative[i] = cumulative[i - 1] + GeoUtils.distanceMeters(route.lng(i - 1), route.lat(i - 1), route.lng(i), route.lat(i));
+        }
+        double total = cumulative[points - 1];
+        // Points indexés par cellule de la taille de la tolérance ; dernière occurrence retenue : sur
+        // une boucle, la jonction la plus avancée
+        Map<Key, Integer> routePoints = new HashMap<>(points * 2);
+        for (int i = 0; i < points; i++) {
+            routePoints.put(cell(route.lng(i), route.lat(i)), i);
+        }
+
+        int nodeCount = network.nodeCount();
+        double[] dist = new double[nodeCount];
+        int[] prevArc = new int[nodeCount];
+        int[] prevNode = new int[nodeCount];
+        boolean[] settled = new boolean[nodeCount];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        MinHeap heap = new MinHeap(64);
+        dist[source] = 0;
+        heap.push(0, source);
+
+        double best = Double.POSITIVE_INFINITY;
+        int bestNode = -1;
+        int bestPoint = -1;
+        int settledCount = 0;
+        while (!heap.isEmpty()) {
+            int node = heap.pop();
+            if (settled[node]) {
+                continue;
+            }
+            settled[node] = true;
+            // Le coût restant est positif : au-delà de la meilleure jonction, plus rien ne l'améliore
+            if (dist[node] >= best || dist[node] > maxConnectionCost || ++settledCount > maxSettled) {
+                break;
+            }
+            int point = routePoint(routePoints, route, network.nodeLng(node), network.nodeLat(node));
+            if (point >= 0) {
+                double remaining = total > 0 ? routeCost * (1 - cumulative[point] / total) : 0;
+                if (dist[node] + remaining < best) {
+                    best = dist[node] + remaining;
+                    bestNode = node;
+                    bestPoint = point;
+                }
+            }
+            for (int arc = network.arcStart(node); arc < network.arcEnd(node); arc++) {
+                double weight = weights[arc];
+                if (Double.isInfinite(weight)) {
+                    continue;
+                }
+                int head = network.arcHead(arc);
+                double candidate = dist[node] + weight;
+                if (candidate < dist[head]) {
+                    dist[head] = candidate;
+                    prevArc[head] = arc;
+                    prevNode[head] = node;
+                    heap.push(candidate, head);
+                }
+            }
+        }
+        if (bestNode < 0) {
+            return null;
+        }
+
+        int length = 0;
+        for (int node = bestNode; node != source; node = prevNode[node]) {
+            length++;
+        }
+        int[] arcs = new int[length];
+        int node = bestNode;
+        for (int i = length - 1; i >= 0; i--) {
+            arcs[i] = prevArc[node];
+            node = prevNode[node];
+        }
+        return new Result(new NetworkPath(arcs, dist[bestNode]), bestPoint);
+    }
+
+    // Point de l'itinéraire le plus avancé à moins de la tolérance du nœud, -1 si aucun (cellule et voisines)
+    private static int routePoint(Map<Key, Integer> routePoints, LineGeometry route, double lng, double lat) {
+        Key center = cell(lng, lat);
+        int best = -1;
+        for (long dx = -1; dx <= 1; dx++) {
+            for (long dy = -1; dy <= 1; dy++) {
+                Integer point = routePoints.get(new Key(center.x() + dx, center.y() + dy));
+                if (point != null && point > best
+                        && Math.abs(route.lng(point) - lng) <= JOIN_TOLERANCE_DEGREES
+                        && Math.abs(route.lat(point) - lat) <= JOIN_TOLERANCE_DEGREES) {
+                    best = point;
+                }
+            }
+        }
+        return best;
+    }
+
+    private static Key cell(double lng, double lat) {
+        return new Key(Math.round(lng / JOIN_TOLERANCE_DEGREES), Math.round(lat / JOIN_TOLERANCE_DEGREES));
+    }
+}
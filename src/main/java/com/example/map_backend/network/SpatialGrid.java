@@ -0,0 +1,135 @@
+package com.example.map_backend.network;
+
+import java.util.Arrays;
+
+/**
+ * Grille régulière immuable sur des boîtes englobantes (lng/lat). Chaque élément est rangé dans
+ * toutes les cellules que sa boîte recouvre ; la requête renvoie les indices candidats sans doublon.
+ */
+public final class SpatialGrid {
+
+    private static final int MAX_CELLS_PER_AXIS = 4096;
+
+    private final double originLng;
+    private final double originLat;
+    private final double cellSize;
+    private final int cols;
+    private final int rows;
+    private final int[] cellStart;
+    private final int[] items;
+
+    private SpatialGrid(double originLng, double originLat, double cellSize, int cols, int rows, int[] cellStart, int[] items) {
+        this.originLng = originLng;
+        this.originLat = originLat;
+        this.cellSize = cellSize;
+        this.cols = cols;
+        this.rows = rows;
+        this.cellStart = cellStart;
+        this.items = items;
+    }
+
+    public static SpatialGrid build(double[] minLng, double[] minLat, double[] maxLng, double[] maxLat, double cellSize) {
+        int count = minLng.length;
+        double originLng = Double.POSITIVE_INFINITY;
+        double originLat = Double.POSITIVE_INFINITY;
+        double endLng = Double.NEGATIVE_INFINITY;
+        double endLat = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            if (Double.isNaN(minLng[i]) || Double.isNaN(minLat[i])) {
+                continue;
+            }
+            originLng = Math.min(originLng, minLng[i]);
+            originLat = Math.min(originLat, minLat[i]);
+            endLng = Math.max(endLng, maxLng[i]);
+            endLat = Math.max(endLat, maxLat[i]);
+        }
+        if (Double.isInfinite(originLng)) {
+            return new SpatialGrid(0, 0, cellSize, 1, 1, new int[2], new int[0]);
+        }
+        double size = Math.max(cellSize, Math.max(endLng - originLng, endLat - originLat) / MAX_CELLS_PER_AXIS);
+        int cols = (int) ((endLng - originLng) / size) + 1;
+        int rows = (int) ((endLat - originLat) / size) + 1;
+
+        int[] cellCount = new int[cols * rows + 1];
+        for (int i = 0; i < count; i++) {
+            if (Double.isNaN(minLng[i]) || Double.isNaN(minLat[i])) {
+                continue;
+            }
+            int c0 = clamp((int) ((minLng[i] - originLng) / size), cols);
+            int c1 = clamp((int) ((maxLng[i] - originLng) / size), cols);
+            int r0 = clamp((int) ((minLat[i] - originLat) / size), rows);
+            int r1 = clamp((int) ((maxLat[i] - originLat) / size), rows);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    cellCount[r * cols + c + 1]++;
+                }
+            }
+        }
+        for (int cell = 0; cell < cols * rows; cell++) {
+            cellCount[cell + 1] += cellCount[cell];
+        }
+        int[] cellStart = cellCount;
+        int[] items = new int[cellStart[cols * rows]];
+        int[] cursor = Arrays.copyOf(cellStart, cols * rows);
+        for (int i = 0; i < count; i++) {
+            if (Double.isNaN(minLng[i]) || Double.isNaN(minLat[i])) {
+                continue;
+            }
+            int c0 = clamp((int) ((minLng[i] - originLng) / size), cols);
+            int c1 = clamp((int) ((maxLng[i] - originLng) / size), cols);
+            int r0 = clamp((int) ((minLat[i] - originLat) / size), rows);
+            int r1 = clamp((int) ((maxLat[i] - originLat) / size), rows);
+            for (int r = r0; r <= r1; r++) {
+                for (int c = c0; c <= c1; c++) {
+                    items[cursor[r * cols + c]++] = i;
+                }
+            }
+        }
+        return new SpatialGrid(originLng, originLat, size, cols, rows, cellStart, items);
+    }
+
+    private static int clamp(int value, int size) {
+        return Math.max(0, Math.min(size - 1, value));
+    }
+
+    public int[] query(double minLng, double minLat, double maxLng, double maxLat) {
+        if (items.length == 0) {
+            return new int[0];
+        }
+        int c0 = (int) Math.floor((minLng - originLng) / cellSize);
+        int c1 = (int) Math.floor((maxLng - originLng) / cellSize);
+        int r0 = (int) Math.floor((minLat - originLat) / cellSize);
+        int r1 = (int) Math.floor((maxLat - originLat) / cellSize);
+        if (c1 < 0 || r1 < 0 || c0 >= cols || r0 >= rows) {
+            return new int[0];
+        }
+        c0 = Math.max(0, c0);
+        r0 = Math.max(0, r0);
+        c1 = Math.min(cols - 1, c1);
+        r1 = Math.min(rows - 1, r1);
+
+        int total = 0;
+        for (int r = r0; r <= r1; r++) {
+            total += cellStart[r * cols + c1 + 1] - cellStart[r * cols + c0];
+        }
+        int[] found = new int[total];
+        int n = 0;
+        for (int r = r0; r <= r1; r++) {
+            int from = cellStart[r * cols + c0];
+            int to = cellStart[r * cols + c1 + 1];
+            System.arraycopy(items, from, found, n, to - from);
+            n += to - from;
+        }
+        if (c0 == c1 && r0 == r1) {
+            return found;
+        }
+        Arrays.sort(found);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || found[i] != found[i - 1]) {
+                found[unique++] = found[i];
+            }
+        }
+        return Arrays.copyOf(found, unique);
+    }
+}
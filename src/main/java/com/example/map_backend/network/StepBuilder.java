@@ -0,0 +1,171 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.model.Route;
+import com.example.map_backend.model.RouteStep;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongFunction;
+
+/**
+ * Regroupe les arêtes successives d'un chemin en manœuvres : tant que l'angle de virage au nœud
+ * de jonction reste sous le seuil, l'arête prolonge l'étape courante. Chaque étape reçoit une
+ * consigne ("Tournez à gauche vers ...") calculée à partir de la géométrie, et les noms viennent
+ * d'un dictionnaire id -> nom en mémoire. Un constructeur par itinéraire.
+ */
+public final class StepBuilder {
+
+    private final double turnThresholdDegrees;
+    private final LongFunction<String> names;
+    private final List<RouteStep> steps = new ArrayList<>();
+
+    private final List<LineGeometry> geometries = new ArrayList<>();
+    private long startNode;
+    private long endNode;
+    private double distance;
+    private double duration;
+    private double turn = Double.NaN;
+    private double lastBearing = Double.NaN;
+
+    public StepBuilder(double turnThresholdDegrees, LongFunction<String> names) {
+        this.turnThresholdDegrees = turnThresholdDegrees;
+        this.names = names;
+    }
+
+    // Arête du chemin, dans le sens de parcours (géométrie déjà orientée de fromNode vers toNode)
+    public StepBuilder add(long fromNode, long toNode, LineGeometry geometry, double edgeDistance, double edgeDuration) {
+        double inBearing = initialBearing(geometry);
+        double angle = Double.isNaN(lastBearing) || Double.isNaN(inBearing) ? 0 : normalize(inBearing - lastBearing);
+        if (geometries.isEmpty() || Math.abs(angle) >= turnThresholdDegrees) {
+            flush();
+            startNode = fromNode;
+            turn = steps.isEmpty() ? Double.NaN : angle;
+        }
+        geometries.add(geometry);
+        endNode = toNode;
+        distance += edgeDistance;
+        duration += edgeDuration;
+        double outBearing = finalBearing(geometry);
+        if (!Double.isNaN(outBearing)) {
+            lastBearing = outBearing;
+        }
+        return this;
+    }
+
+    public List<RouteStep> build() {
+        flush();
+        if (!steps.isEmpty()) {
+            RouteStep last = steps.get(steps.size() - 1);
+            String name = names.apply(endNode);
+            boolean named = name != null && last.getInstruction().endsWith(name);
+            last.setInstruction(last.getInstruction() + ", puis arrivée" + (named ? "" : suffix(" à ", name)));
+        }
+        return steps;
+    }
+
+    // Tronçon raccordé à la suite d'un autre itinéraire : pas de consigne d'arrivée
+    public List<RouteStep> buildPartial() {
+        flush();
+        return steps;
+    }
+
+    // Itinéraire complet : totaux et géométrie recomposés à partir des étapes
+    public Route buildRoute(String startPlaceName, String endPlaceName) {
+        List<RouteStep> built = build();
+        Route route = new Route();
+        route.setDistance(built.stream().mapToDouble(RouteStep::getDistance).sum());
+        route.setDuration(built.stream().mapToDouble(RouteStep::getDuration).sum());
+        route.setSteps(built);
+        route.setStartPlaceName(startPlaceName);
+        route.setEndPlaceName(endPlaceName);
+        route.setGeometry(LineGeometry.concat(built.stream()
+                .map(RouteStep::getGeometry)
+                .toList()));
+        return route;
+    }
+
+    private void flush() {
+        if (geometries.isEmpty()) {
+            return;
+        }
+        RouteStep step = new RouteStep();
+        step.setGeometry(LineGeometry.concat(geometries));
+        step.setSource(nodeName(startNode));
+        step.setTarget(nodeName(endNode));
+        step.setDistance(distance);
+        step.setDuration(duration);
+        step.setInstruction(instruction(turn, names.apply(endNode), names.apply(startNode)));
+        steps.add(step);
+        geometries.clear();
+        distance = 0;
+        duration = 0;
+    }
+
+    private String nodeName(long nodeId) {
+        String name = names.apply(nodeId);
+        return name != null ? name : "Node " + nodeId;
+    }
+
+    private static String instruction(double angle, String toName, String fromName) {
+        if (Double.isNaN(angle)) {
+            return "Départ" + suffix(" de ", fromName) + suffix(" en direction de ", toName);
+        }
+        double magnitude = Math.abs(angle);
+        String side = angle > 0 ? "droite" : "gauche";
+        String maneuver;
+        if (magnitude >= 170) {
+            maneuver = "Faites demi-tour";
+        } else if (magnitude >= 120) {
+            maneuver = "Tournez franchement à " + side;
+        } else if (magnitude >= 45) {
+            maneuver = "Tournez à " + side;
+        } else {
+            maneuver = "Tournez légèrement à " + side;
+        }
+        return maneuver + suffix(" vers ", toName);
+    }
+
+    private static String suffix(String prefix, String name) {
+        return name != null && !name.isBlank() ? prefix + name : "";
+    }
+
+    // Cap du premier segment non dégénéré, en degrés depuis le nord (sens horaire)
+    private static double initialBearing(LineGeometry geometry) {
+        for (int i = 1; i < geometry.pointCount(); i++) {
+            if (geometry.lng(i) != geometry.lng(0) || geometry.lat(i) != geometry.lat(0)) {
+                return bearing(geometry.lng(0), geometry.lat(0), geometry.lng(i), geometry.lat(i));
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double finalBearing(LineGeometry geometry) {
+        int last = geometry.pointCount() - 1;
+        for (int i = last - 1; i >= 0; i--) {
+            if (geometry.lng(i) != geometry.lng(last) || geometry.lat(i) != geometry.lat(last)) {
+                return bearing(geometry.lng(i), geometry.lat(i), geometry.lng(last), geometry.lat(last));
+            }
+        }
+        return Double.NaN;
+    }
+
+    private static double bearing(double lng1, double lat1, double lng2, double lat2) {
+        double phi1 = Math.toRadians(lat1);
+        double phi2 = Math.toRadians(lat2);
+        double dLambda = Math.toRadians(lng2 - lng1);
+        double y = Math.sin(dLambda) * Math.cos(phi2);
+        double x = Math.cos(phi1) * Math.sin(phi2) - Math.sin(phi1) * Math.cos(phi2) * Math.cos(dLambda);
+        return Math.toDegrees(Math.atan2(y, x));
+    }
+
+    // Angle ramené dans ]-180, 180] : positif à droite, négatif à gauche
+    private static double normalize(double angle) {
+        double a = angle % 360;
+        if (a > 180) {
+            a -= 360;
+        } else if (a <= -180) {
+            a += 360;
+        }
+        return a;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.map_backend.network;
+
+import java.util.Set;
+
+/**
+ * Arêtes dont le facteur de vitesse a changé ; improvedEdgeIds : celles devenues plus rapides ou
+ * rouvertes, qui peuvent rendre meilleur un chemin qui les évitait jusque-là.
+ */
+public record TrafficChangeEvent(long version, Set<Long> edgeIds, Set<Long> improvedEdgeIds) {
+}
@@ -0,0 +1,149 @@
+package com.example.map_backend.network;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Surcouche immuable de facteurs de vitesse par arête (0 = fermée), triée par id d'arête.
+ * Remplacée en bloc à chaque lot de mises à jour ; les requêtes lisent donc toujours un état cohérent.
+ */
+public final class TrafficOverlay {
+
+    private static final TrafficOverlay EMPTY = new TrafficOverlay(0, new long[0], new float[0], new long[0]);
+
+    private final long version;
+    private final long[] edgeIds;
+    private final float[] factors;
+    private final long[] expiresAt;
+
+    private volatile String sqlValues;
+
+    private TrafficOverlay(long version, long[] edgeIds, float[] factors, long[] expiresAt) {
+        this.version = version;
+        this.edgeIds = edgeIds;
+        this.factors = factors;
+        this.expiresAt = expiresAt;
+    }
+
+    public static TrafficOverlay empty() {
+        return EMPTY;
+    }
+
+    public record Entry(float factor, long expiresAt) {
+    }
+
+    // Fusionne un lot (factor = 1 efface l'entrée) et purge les entrées expirées
+    public TrafficOverlay merge(long newVersion, Map<Long, Entry> updates, long now) {
+        TreeMap<Long, Entry> merged = new TreeMap<>();
+        for (int i = 0; i < edgeIds.length; i++) {
+            if (expiresAt[i] > now) {
+                merged.put(edgeIds[i], new Entry(factors[i], expiresAt[i]));
+            }
+        }
+        updates.forEach((edgeId, entry) -> {
+            if (entry.factor() == 1f) {
+                merged.remove(edgeId);
+            } else {
+                merged.put(edgeId, entry);
+            }
+        });
+
+        long[] ids = new long[merged.size()];
+        float[] values = new float[merged.size()];
+        long[] expiries = new long[merged.size()];
+        int i = 0;
+        for (Map.Entry<Long, Entry> e : merged.entrySet()) {
+            ids[i] = e.getKey();
+            values[i] = e.getValue().factor();
+            expiries[i] = e.getValue().expiresAt();
+            i++;
+        }
+        return new TrafficOverlay(newVersion, ids, values, expiries);
+    }
+
+    public boolean hasExpired(long now) {
+        for (long expiry : expiresAt) {
+            if (expiry <= now) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return edgeIds.length;
+    }
+
+    public int closedCount() {
+        int closed = 0;
+        for (float factor : factors) {
+            if (factor <= 0) closed++;
+        }
+        return closed;
+    }
+
+    public double maxFactor() {
+        double max = 1.0;
+        for (float factor : factors) {
+            max = Math.max(max, factor);
+        }
+        return max;
+    }
+
+    public long edgeIdAt(int index) {
+        return edgeIds[index];
+    }
+
+    public double factor(long edgeId) {
+        int i = Arrays.binarySearch(edgeIds, edgeId);
+        return i >= 0 ? factors[i] : 1.0;
+    }
+
+    public boolean isEmpty() {
+        return edgeIds.length == 0;
+    }
+
+    // Liste VALUES (id, facteur) injectée dans le SQL des arêtes de pgRouting ; uniquement des nombres
+    public String sqlValues() {
+        String values = sqlValues;
+        if (values == null) {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < edgeIds.length; i++) {
+                if (i > 0) sb.append(", ");
+                sb.append('(').append(edgeIds[i]).append(", ").append(factors[i]).append(')');
+            }
+            values = sb.toString();
+            sqlValues = values;
+        }
+        return values;
+    }
+
+    // Poids des arcs du graphe en mémoire, recalculés une seule fois par couple (surcouche, réseau) ;
+    // gardés sur l'instantané, donc un jeu par région chargée
+    public double[] arcWeights(RoadNetwork network) {
+        double[] cached = network.trafficWeights(version);
+        if (cached != null) {
+            return cached;
+        }
+        int arcCount = network.arcCount();
+        double[] weights = new double[arcCount];
+        for (int arc = 0; arc < arcCount; arc++) {
+            weights[arc] = network.arcCost(arc);
+        }
+        if (!isEmpty()) {
+            for (int arc = 0; arc < arcCount; arc++) {
+                double factor = factor(network.edgeAt(network.arcEdge(arc)).id());
+                if (factor != 1.0) {
+                    weights[arc] = factor <= 0 ? Double.POSITIVE_INFINITY : weights[arc] / factor;
+                }
+            }
+        }
+        network.storeTrafficWeights(version, weights);
+        return weights;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.map_backend.network;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Lecture minimale du WKB renvoyé par {@code ST_AsBinary} pour les LineString et MultiLineString.
+ */
+public final class WkbReader {
+
+    private static final int LINESTRING = 2;
+    private static final int MULTILINESTRING = 5;
+
+    private WkbReader() {
+    }
+
+    public static double[] readLineCoordinates(byte[] wkb) {
+        if (wkb == null || wkb.length == 0) {
+            return new double[0];
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(wkb);
+        return readGeometry(buffer);
+    }
+
+    private static double[] readGeometry(ByteBuffer buffer) {
+        buffer.order(buffer.get() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN);
+        int rawType = buffer.getInt();
+        boolean hasSrid = (rawType & 0x20000000) != 0;
+        int dimensions = 2;
+        if ((rawType & 0x80000000) != 0) dimensions++;
+        if ((rawType & 0x40000000) != 0) dimensions++;
+        int type = rawType & 0x0FFFFFFF;
+        // Variante ISO : 1000 = Z, 2000 = M, 3000 = ZM
+        if (type > 1000) {
+            dimensions = type >= 3000 ? 4 : 3;
+            type = type % 1000;
+        }
+        if (hasSrid) {
+            buffer.getInt();
+        }
+
+        if (type == LINESTRING) {
+            int count = buffer.getInt();
+            double[] coordinates = new double[count * 2];
+            for (int i = 0; i < count; i++) {
+                coordinates[i * 2] = buffer.getDouble();
+                coordinates[i * 2 + 1] = buffer.getDouble();
+                for (int d = 2; d < dimensions; d++) {
+                    buffer.getDouble();
+                }
+            }
+            return coordinates;
+        }
+        if (type == MULTILINESTRING) {
+            int parts = buffer.getInt();
+            double[] merged = new double[0];
+            for (int p = 0; p < parts; p++) {
+                double[] part = readGeometry(buffer);
+                merged = appendSkippingJoint(merged, part);
+            }
+            return merged;
+        }
+        throw new IllegalArgumentException("Type WKB non supporté : " + type);
+    }
+
+    private static double[] appendSkippingJoint(double[] head, double[] tail) {
+        int skip = head.length >= 2 && tail.length >= 2
+                && head[head.length - 2] == tail[0] && head[head.length - 1] == tail[1] ? 2 : 0;
+        double[] result = new double[head.length + tail.length - skip];
+        System.arraycopy(head, 0, result, 0, head.length);
+        System.arraycopy(tail, skip, result, head.length, tail.length - skip);
+        return result;
+    }
+}
@@ -1,11 +1,22 @@
 package com.example.map_backend.repository;
 
 import com.example.map_backend.model.Coordinates;
+import com.example.map_backend.model.CorridorPlace;
 import com.example.map_backend.model.Place;
+import com.example.map_backend.network.Region;
 
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.List;
 
 @Repository
@@ -17,24 +28,26 @@ public class PlaceRepository {
         this.jdbcTemplate = jdbcTemplate;
     }
 
-    public List<Place> findByNameContaining(String name) {
+    public List<Place> findByNameContaining(String name, Region region) {
         String sql = "SELECT id, nom, ST_X(geom) as lng, ST_Y(geom) as lat FROM lieux " +
                 "WHERE lower(nom) ILIKE ? " +
-                "AND ST_Contains(ST_SetSRID(ST_MakeBox2D(ST_Point(11.4, 3.75), ST_Point(11.6, 3.95)), 4326), geom) " +
+                "AND ST_Contains(ST_MakeEnvelope(?, ?, ?, ?, 4326), geom) " +
                 "LIMIT 10";
-        return jdbcTemplate.query(sql, new Object[]{"%" + name + "%"}, (rs, rowNum) -> {
+        return jdbcTemplate.query(sql, new Object[]{"%" + name + "%",
+                region.minLng(), region.minLat(), region.maxLng(), region.maxLat()}, (rs, rowNum) -> {
             Place place = new Place(rs.getLong("id"), rs.getString("nom"), null);
             place.setCoordinates(new Coordinates(rs.getDouble("lat"), rs.getDouble("lng")));
             return place;
         });
     }
 
-    public Place findPlaceByExactName(String name) {
+    public Place findPlaceByExactName(String name, Region region) {
         String sql = "SELECT id, nom, ST_X(geom) as lng, ST_Y(geom) as lat FROM lieux " +
                 "WHERE lower(nom) = ? " +
-                "AND ST_Contains(ST_SetSRID(ST_MakeBox2D(ST_Point(11.4, 3.75), ST_Point(11.6, 3.95)), 4326), geom)";
+                "AND ST_Contains(ST_MakeEnvelope(?, ?, ?, ?, 4326), geom)";
         try {
-            return jdbcTemplate.queryForObject(sql, new Object[]{name}, (rs, rowNum) -> {
+            return jdbcTemplate.queryForObject(sql, new Object[]{name,
+                    region.minLng(), region.minLat(), region.maxLng(), region.maxLat()}, (rs, rowNum) -> {
                 Place place = new Place(rs.getLong("id"), rs.getString("nom"), null);
                 place.setCoordinates(new Coordinates(rs.getDouble("lat"), rs.getDouble("lng")));
                 return place;
@@ -44,24 +57,112 @@ public class PlaceRepository {
         }
     }
 
-    public Place findClosestPlace(double lat, double lng) {
-        String sql = "SELECT id, nom, ST_X(geom) as lng, ST_Y(geom) as lat " +
-                "FROM lieux " +
-                "WHERE ST_Contains(ST_SetSRID(ST_MakeBox2D(ST_Point(11.4, 3.75), ST_Point(11.6, 3.95)), 4326), geom) " +
-                "ORDER BY geom <-> ST_SetSRID(ST_MakePoint(?, ?), 4326) LIMIT 1";
-        try {
-            return jdbcTemplate.queryForObject(sql, new Object[]{lng, lat}, (rs, rowNum) -> {
-                Place place = new Place(rs.getLong("id"), rs.getString("nom"), null);
-                place.setCoordinates(new Coordinates(rs.getDouble("lat"), rs.getDouble("lng")));
-                return place;
-            });
-        } catch (Exception e) {
-            return null; // Lieu non trouvé
+    // Lieu le plus proche de chaque point dans la région associée (KNN latéral sur les points dépliés,
+    // une emprise par point) ; null aux positions sans résultat
+    public List<Place> findClosestPlaces(List<Coordinates> points, List<Region> regions) {
+        int n = points.size();
+        Double[][] columns = new Double[6][n];
+        for (int i = 0; i < n; i++) {
+            Region region = regions.get(i);
+            columns[0][i] = points.get(i).getLng();
+            columns[1][i] = points.get(i).getLat();
+            columns[2][i] = region.minLng();
+            columns[3][i] = region.minLat();
+            columns[4][i] = region.maxLng();
+            columns[5][i] = region.maxLat();
+        }
+        String sql = "SELECT q.i, l.id, l.nom, ST_X(l.geom) as lng, ST_Y(l.geom) as lat " +
+                "FROM unnest(?::float8[], ?::float8[], ?::float8[], ?::float8[], ?::float8[], ?::float8[]) " +
+                "WITH ORDINALITY AS q(lng, lat, min_lng, min_lat, max_lng, max_lat, i) " +
+                "CROSS JOIN LATERAL (SELECT id, nom, geom FROM lieux " +
+                "WHERE ST_Contains(ST_MakeEnvelope(q.min_lng, q.min_lat, q.max_lng, q.max_lat, 4326), geom) " +
+                "ORDER BY geom <-> ST_SetSRID(ST_MakePoint(q.lng, q.lat), 4326) LIMIT 1) l";
+        Place[] places = new Place[n];
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            for (int c = 0; c < columns.length; c++) {
+                statement.setArray(c + 1, connection.createArrayOf("float8", columns[c]));
+            }
+            return statement;
+        }, rs -> {
+            Place place = new Place(rs.getLong("id"), rs.getString("nom"), null);
+            place.setCoordinates(new Coordinates(rs.getDouble("lat"), rs.getDouble("lng")));
+            places[rs.getInt("i") - 1] = place;
+        });
+        return Arrays.asList(places);
+    }
+
+    // Repli SQL du couloir (instantané des lieux non chargé) : une requête sur la ligne entière, ordonnée
+    // par position le long du trajet (fraction de ST_LineLocatePoint rapportée à lineLengthMeters)
+    public List<CorridorPlace> findAlongLine(double[] coordinates, double lineLengthMeters, double bufferMeters, String namePattern, int limit) {
+        Double[] lngs = new Double[coordinates.length / 2];
+        Double[] lats = new Double[coordinates.length / 2];
+        for (int i = 0; i < lngs.length; i++) {
+            lngs[i] = coordinates[i * 2];
+            lats[i] = coordinates[i * 2 + 1];
         }
+        String sql = "WITH ligne AS (SELECT ST_MakeLine(ARRAY(SELECT ST_SetSRID(ST_MakePoint(x, y), 4326) " +
+                "FROM unnest(?::float8[], ?::float8[]) WITH ORDINALITY AS p(x, y, i) ORDER BY i)) AS geom) " +
+                "SELECT l.id, l.nom, ST_X(l.geom) as lng, ST_Y(l.geom) as lat, " +
+                "ST_Distance(l.geom::geography, ligne.geom::geography) as distance, " +
+                "ST_LineLocatePoint(ligne.geom, l.geom) as fraction " +
+                "FROM lieux l, ligne " +
+                "WHERE ST_DWithin(l.geom::geography, ligne.geom::geography, ?) " +
+                "AND (?::text IS NULL OR lower(l.nom) LIKE ?) " +
+                "ORDER BY fraction LIMIT ?";
+        return jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("float8", lngs));
+            statement.setArray(2, connection.createArrayOf("float8", lats));
+            statement.setDouble(3, bufferMeters);
+            statement.setString(4, namePattern);
+            statement.setString(5, namePattern);
+            statement.setInt(6, limit);
+            return statement;
+        }, (rs, rowNum) -> {
+            CorridorPlace place = new CorridorPlace();
+            place.setId(rs.getLong("id"));
+            place.setName(rs.getString("nom"));
+            place.setCoordinates(new Coordinates(rs.getDouble("lat"), rs.getDouble("lng")));
+            place.setDistanceFromRoute(rs.getDouble("distance"));
+            place.setPositionAlongRoute(rs.getDouble("fraction") * lineLengthMeters);
+            return place;
+        });
     }
 
     public void savePlace(Place place) {
         String sql = "INSERT INTO lieux (nom, geom) VALUES (?, ST_SetSRID(ST_MakePoint(?, ?), 4326))";
         jdbcTemplate.update(sql, place.getName(), place.getCoordinates().getLng(), place.getCoordinates().getLat());
     }
-}
\ No newline at end of file
+
+    // Import en masse : COPY dans une table temporaire de session, puis insertion des seules
+    // lignes absentes de lieux (même nom à moins de duplicateToleranceDegrees). Renvoie le nombre inséré.
+    public int copyPlaces(List<Place> chunk, double duplicateToleranceDegrees) {
+        StringBuilder csv = new StringBuilder(chunk.size() * 48);
+        for (Place place : chunk) {
+            csv.append('"').append(place.getName().replace("\"", "\"\"")).append('"').append(',')
+                    .append(place.getCoordinates().getLng()).append(',')
+                    .append(place.getCoordinates().getLat()).append('\n');
+        }
+        return jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE TEMP TABLE IF NOT EXISTS lieux_import (nom text, lng double precision, lat double precision)");
+                statement.execute("TRUNCATE lieux_import");
+            }
+            CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+            try {
+                copyManager.copyIn("COPY lieux_import (nom, lng, lat) FROM STDIN WITH (FORMAT csv)", new StringReader(csv.toString()));
+            } catch (IOException e) {
+                throw new SQLException("Échec du COPY vers lieux_import", e);
+            }
+            String sql = "INSERT INTO lieux (nom, geom) " +
+                    "SELECT s.nom, ST_SetSRID(ST_MakePoint(s.lng, s.lat), 4326) FROM lieux_import s " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM lieux l WHERE lower(l.nom) = s.nom " +
+                    "AND ST_DWithin(l.geom, ST_SetSRID(ST_MakePoint(s.lng, s.lat), 4326), ?))";
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setDouble(1, duplicateToleranceDegrees);
+                return statement.executeUpdate();
+            }
+        });
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.map_backend.repository;
+
+import com.example.map_backend.service.PopularRouteSketch;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public class PopularRouteRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PopularRouteRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void createTableIfMissing() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS route_popular_pairs (" +
+                "mode text NOT NULL, source bigint NOT NULL, target bigint NOT NULL, hits bigint NOT NULL, " +
+                "updated_at timestamptz NOT NULL DEFAULT now(), PRIMARY KEY (mode, source, target))");
+    }
+
+    public List<PopularRouteSketch.Pair> findTop(int limit) {
+        return jdbcTemplate.query("SELECT mode, source, target, hits FROM route_popular_pairs ORDER BY hits DESC LIMIT ?",
+                (rs, rowNum) -> new PopularRouteSketch.Pair(rs.getString("mode"), rs.getLong("source"),
+                        rs.getLong("target"), rs.getLong("hits")),
+                limit);
+    }
+
+    // Upsert des paires courantes ; les paires non revues depuis retentionDays sont oubliées
+    public void save(List<PopularRouteSketch.Pair> pairs, int retentionDays) {
+        jdbcTemplate.batchUpdate("INSERT INTO route_popular_pairs (mode, source, target, hits) VALUES (?, ?, ?, ?) " +
+                        "ON CONFLICT (mode, source, target) DO UPDATE SET hits = EXCLUDED.hits, updated_at = now()",
+                pairs, 500, (ps, pair) -> {
+                    ps.setString(1, pair.mode());
+                    ps.setLong(2, pair.source());
+                    ps.setLong(3, pair.target());
+                    ps.setLong(4, pair.hits());
+                });
+        jdbcTemplate.update("DELETE FROM route_popular_pairs WHERE updated_at < now() - make_interval(days => ?)", retentionDays);
+    }
+}
@@ -0,0 +1,332 @@
+package com.example.map_backend.repository;
+
+import com.example.map_backend.network.IndexedPlace;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.WkbReader;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class RoadNetworkRepository {
+
+    public static final String CHANGE_CHANNEL = "map_changes";
+
+    // Fonction de calcul côté serveur : le suffixe de version change avec sa signature ou son résultat
+    public static final String ROUTING_FUNCTION = "map_route_v2";
+
+    private static final String EDGE_COLUMNS = "SELECT id, source, target, cost, reverse_cost, ST_AsBinary(geom) AS wkb FROM routes ";
+    private static final String PLACE_COLUMNS = "SELECT id, nom, ST_X(geom) AS lng, ST_Y(geom) AS lat FROM lieux ";
+
+    private static final RowMapper<RoadEdge> EDGE_MAPPER = (rs, rowNum) -> new RoadEdge(
+            rs.getLong("id"),
+            rs.getLong("source"),
+            rs.getLong("target"),
+            rs.getDouble("cost"),
+            rs.getDouble("reverse_cost"),
+            WkbReader.readLineCoordinates(rs.getBytes("wkb"))
+    );
+
+    private static final RowMapper<IndexedPlace> PLACE_MAPPER = (rs, rowNum) -> new IndexedPlace(
+            rs.getLong("id"),
+            rs.getString("nom"),
+            rs.getDouble("lat"),
+            rs.getDouble("lng")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+    private volatile boolean routingFunctionInstalled;
+
+    public RoadNetworkRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public List<RoadEdge> findEdgesByIds(Collection<Long> ids) {
+        return jdbcTemplate.query(EDGE_COLUMNS +
+                        "WHERE id = ANY(?) AND source IS NOT NULL AND target IS NOT NULL AND geom IS NOT NULL",
+                EDGE_MAPPER, (Object) ids.toArray(new Long[0]));
+    }
+
+    // Arêtes dont l'emprise touche celle de la région (index GiST de routes.geom)
+    public List<RoadEdge> findEdgesInBox(double minLng, double minLat, double maxLng, double maxLat) {
+        return jdbcTemplate.query(EDGE_COLUMNS +
+                        "WHERE source IS NOT NULL AND target IS NOT NULL AND geom IS NOT NULL " +
+                        "AND geom && ST_MakeEnvelope(?, ?, ?, ?, 4326)",
+                EDGE_MAPPER, minLng, minLat, maxLng, maxLat);
+    }
+
+    public List<IndexedPlace> findPlacesInBox(double minLng, double minLat, double maxLng, double maxLat) {
+        return jdbcTemplate.query(PLACE_COLUMNS + "WHERE geom IS NOT NULL AND geom && ST_MakeEnvelope(?, ?, ?, ?, 4326)",
+                PLACE_MAPPER, minLng, minLat, maxLng, maxLat);
+    }
+
+    public List<IndexedPlace> findPlacesByIds(Collection<Long> ids) {
+        return jdbcTemplate.query(PLACE_COLUMNS + "WHERE id = ANY(?) AND geom IS NOT NULL",
+                PLACE_MAPPER, (Object) ids.toArray(new Long[0]));
+    }
+
+    // Sommet le plus proche de chaque point en une requête : KNN indexé (<->) sur routes_vertices, puis
+    // distance géographique exacte sur les candidates plus proches ; -1 aux positions sans sommet
+    public long[] findNearestVertices(double[] lngs, double[] lats, int candidates) {
+        String sql = """
+            SELECT DISTINCT ON (q.i) q.i, v.id
+            FROM unnest(?::float8[], ?::float8[]) WITH ORDINALITY AS q(lng, lat, i)
+            CROSS JOIN LATERAL (
+                SELECT id, geom FROM routes_vertices
+                ORDER BY geom <-> ST_SetSRID(ST_MakePoint(q.lng, q.lat), 4326)
+                LIMIT ?
+            ) v
+            ORDER BY q.i, ST_Distance(v.geom::geography, ST_SetSRID(ST_MakePoint(q.lng, q.lat), 4326)::geography)
+        """;
+        long[] nodes = new long[lngs.length];
+        Arrays.fill(nodes, -1);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql);
+            statement.setArray(1, connection.createArrayOf("float8", boxed(lngs)));
+            statement.setArray(2, connection.createArrayOf("float8", boxed(lats)));
+            statement.setInt(3, candidates);
+            return statement;
+        }, rs -> {
+            nodes[rs.getInt("i") - 1] = rs.getLong("id");
+        });
+        return nodes;
+    }
+
+    private static Double[] boxed(double[] values) {
+        Double[] boxed = new Double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            boxed[i] = values[i];
+        }
+        return boxed;
+    }
+
+    // Triggers de notification : payload "table:id", une notification par ligne modifiée
+    public void installChangeTriggers() {
+        jdbcTemplate.execute("""
+            CREATE OR REPLACE FUNCTION map_notify_change() RETURNS trigger AS $$
+            BEGIN
+                IF TG_OP <> 'INSERT' THEN
+                    PERFORM pg_notify('%1$s', TG_TABLE_NAME || ':' || OLD.id);
+                END IF;
+                IF TG_OP = 'INSERT' OR (TG_OP = 'UPDATE' AND NEW.id IS DISTINCT FROM OLD.id) THEN
+                    PERFORM pg_notify('%1$s', TG_TABLE_NAME || ':' || NEW.id);
+                END IF;
+                RETURN NULL;
+            END;
+            $$ LANGUAGE plpgsql
+        """.formatted(CHANGE_CHANNEL));
+        for (String table : List.of("routes", "lieux")) {
+            createTriggerIfMissing("map_" + table + "_change", table, "map_notify_change");
+        }
+    }
+
+    // Trigger créé seulement s'il n'existe pas : pas de DROP/CREATE (verrou ACCESS EXCLUSIVE sur la table)
+    // à chaque démarrage. La fonction, remplacée par CREATE OR REPLACE, est reprise sans toucher au trigger ;
+    // deux instances qui démarrent ensemble ne se gênent pas (duplicate_object ignoré)
+    private void createTriggerIfMissing(String trigger, String table, String function) {
+        jdbcTemplate.execute("""
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_trigger WHERE tgname = '%1$s' AND tgrelid = '%2$s'::regclass) THEN
+                    CREATE TRIGGER %1$s AFTER INSERT OR UPDATE OR DELETE ON %2$s
+                        FOR EACH ROW EXECUTE FUNCTION %3$s();
+                END IF;
+            EXCEPTION WHEN duplicate_object THEN
+                NULL;
+            END
+            $$
+        """.formatted(trigger, table, function));
+    }
+
+    // Table des sommets (id, point) indexée GiST, tenue à jour par trigger : l'accrochage SQL
+    // devient une recherche KNN indexée au lieu d'un parcours complet de routes
+    public void installVertexTable() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS routes_vertices (id bigint PRIMARY KEY, geom geometry(Point, 4326) NOT NULL)");
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS routes_vertices_geom_idx ON routes_vertices USING gist (geom)");
+        // Index spatial de routes.geom (filtre d'emprise du moteur SQL), seulement s'il n'en existe aucun
+        jdbcTemplate.execute("""
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_indexes WHERE tablename = 'routes' AND indexdef ILIKE '%USING gist (geom)%') THEN
+                    CREATE INDEX routes_geom_idx ON routes USING gist (geom);
+                END IF;
+            END
+            $$
+        """);
+        jdbcTemplate.execute("""
+            CREATE OR REPLACE FUNCTION map_sync_vertices() RETURNS trigger AS $$
+            BEGIN
+                IF TG_OP <> 'DELETE' AND NEW.geom IS NOT NULL THEN
+                    IF NEW.source IS NOT NULL THEN
+                        INSERT INTO routes_vertices (id, geom) VALUES (NEW.source, ST_PointN(ST_GeometryN(NEW.geom, 1), 1))
+                        ON CONFLICT (id) DO UPDATE SET geom = EXCLUDED.geom;
+                    END IF;
+                    IF NEW.target IS NOT NULL THEN
+                        INSERT INTO routes_vertices (id, geom) VALUES (NEW.target, ST_PointN(ST_GeometryN(NEW.geom, ST_NumGeometries(NEW.geom)), -1))
+                        ON CONFLICT (id) DO UPDATE SET geom = EXCLUDED.geom;
+                    END IF;
+                END IF;
+                IF TG_OP <> 'INSERT' THEN
+                    DELETE FROM routes_vertices v WHERE v.id IN (OLD.source, OLD.target)
+                        AND NOT EXISTS (SELECT 1 FROM routes r WHERE r.source = v.id OR r.target = v.id);
+                END IF;
+                RETURN NULL;
+            END;
+            $$ LANGUAGE plpgsql
+        """);
+        createTriggerIfMissing("map_routes_vertices", "routes", "map_sync_vertices");
+        jdbcTemplate.execute("""
+            INSERT INTO routes_vertices (id, geom)
+            SELECT DISTINCT ON (id) id, geom FROM (
+                SELECT source AS id, ST_PointN(ST_GeometryN(geom, 1), 1) AS geom FROM routes
+                WHERE source IS NOT NULL AND geom IS NOT NULL
+                UNION ALL
+                SELECT target, ST_PointN(ST_GeometryN(geom, ST_NumGeometries(geom)), -1) FROM routes
+                WHERE target IS NOT NULL AND geom IS NOT NULL
+            ) endpoints
+            WHERE geom IS NOT NULL
+            ON CONFLICT (id) DO UPDATE SET geom = EXCLUDED.geom
+        """);
+        jdbcTemplate.execute("DELETE FROM routes_vertices v WHERE NOT EXISTS " +
+                "(SELECT 1 FROM routes r WHERE r.source = v.id OR r.target = v.id)");
+    }
+
+    public boolean isRoutingFunctionInstalled() {
+        return routingFunctionInstalled;
+    }
+
+    // Accrochage (si source/cible < 0), validation des sommets, pgr_ksp sur une emprise élargie tant
+    // qu'aucun chemin n'est trouvé (réseau complet en dernier) et noms des nœuds, en un seul appel.
+    // Lignes : arêtes des chemins (path_id > 0), puis une ligne path_id = 0 portant les sommets
+    // accrochés, degraded (élargissement arrêté par p_budget_ms), le nombre de tentatives prévues et
+    // la durée en ms de chacune des tentatives faites. Les versions précédentes restent en place pour
+    // les instances pas encore mises à jour
+    public void installRoutingFunction() {
+        jdbcTemplate.execute("""
+            CREATE OR REPLACE FUNCTION %s(
+                p_lngs float8[], p_lats float8[], p_source bigint, p_target bigint, p_candidates int, p_k int,
+                p_overlay_ids bigint[], p_overlay_factors float8[],
+                p_min_margin float8, p_margin_factor float8, p_expansion float8, p_max_expansions int,
+                p_budget_ms float8, p_names boolean)
+            RETURNS TABLE (path_id int, path_seq int, edge bigint, source_id bigint, target_id bigint, wkb bytea,
+                           forward boolean, distance float8, weighted_cost float8, from_name text, to_name text,
+                           degraded boolean, attempts int, attempt_ms float8[]) AS $$
+            #variable_conflict use_column
+            DECLARE
+                v_started timestamptz := clock_timestamp();
+                v_source bigint := p_source;
+                v_target bigint := p_target;
+                v_from geometry;
+                v_to geometry;
+                v_edges text;
+                v_area text := '';
+                v_margin float8;
+                v_margin_lat float8;
+                v_margin_lng float8;
+                v_attempts int := 1;
+                v_rows bigint;
+                v_degraded boolean := false;
+                v_step_started timestamptz;
+                v_attempt_ms float8[] := '{}';
+            BEGIN
+                -- Accrochage comme dans l'application : KNN indexé, distance exacte sur les candidats, lieux en repli
+                IF v_source IS NULL OR v_source < 0 THEN
+                    SELECT c.id INTO v_source FROM (
+                        SELECT v.id, v.geom FROM routes_vertices v
+                        ORDER BY v.geom <-> ST_SetSRID(ST_MakePoint(p_lngs[1], p_lats[1]), 4326) LIMIT p_candidates
+                    ) c
+                    ORDER BY ST_Distance(c.geom::geography, ST_SetSRID(ST_MakePoint(p_lngs[1], p_lats[1]), 4326)::geography)
+                    LIMIT 1;
+                    IF v_source IS NULL THEN
+                        SELECT l.id INTO v_source FROM lieux l WHERE l.geom IS NOT NULL
+                        ORDER BY l.geom <-> ST_SetSRID(ST_MakePoint(p_lngs[1], p_lats[1]), 4326) LIMIT 1;
+                    END IF;
+                END IF;
+                IF v_target IS NULL OR v_target < 0 THEN
+                    SELECT c.id INTO v_target FROM (
+                        SELECT v.id, v.geom FROM routes_vertices v
+                        ORDER BY v.geom <-> ST_SetSRID(ST_MakePoint(p_lngs[2], p_lats[2]), 4326) LIMIT p_candidates
+                    ) c
+                    ORDER BY ST_Distance(c.geom::geography, ST_SetSRID(ST_MakePoint(p_lngs[2], p_lats[2]), 4326)::geography)
+                    LIMIT 1;
+                    IF v_target IS NULL THEN
+                        SELECT l.id INTO v_target FROM lieux l WHERE l.geom IS NOT NULL
+                        ORDER BY l.geom <-> ST_SetSRID(ST_MakePoint(p_lngs[2], p_lats[2]), 4326) LIMIT 1;
+                    END IF;
+                END IF;
+                IF v_source IS NULL OR v_target IS NULL THEN
+                    RAISE EXCEPTION 'No node found near the provided coordinates';
+                END IF;
+
+                IF v_source <> v_target THEN
+                    SELECT v.geom INTO v_from FROM routes_vertices v WHERE v.id = v_source;
+                    SELECT v.geom INTO v_to FROM routes_vertices v WHERE v.id = v_target;
+                    -- Sommets absents de routes_vertices : existence vérifiée sur routes, réseau complet seulement
+                    IF v_from IS NULL OR v_to IS NULL THEN
+                        IF NOT EXISTS (SELECT 1 FROM routes r WHERE r.source IN (v_source, v_target) OR r.target IN (v_source, v_target)) THEN
+                            RAISE EXCEPTION 'Nodes not found in road network';
+                        END IF;
+                    ELSE
+                        v_attempts := p_max_expansions + 2;
+                        v_margin := greatest(p_min_margin, ST_Distance(v_from::geography, v_to::geography) * p_margin_factor);
+                    END IF;
+
+                    -- Coût divisé par le facteur de vitesse de la surcouche trafic, -1 (arête absente) si fermée
+                    IF cardinality(p_overlay_ids) > 0 THEN
+                        v_edges := format('SELECT r.id, r.source, r.target, '
+                            'CASE WHEN o.f IS NULL THEN r.cost WHEN o.f <= 0 THEN -1 ELSE r.cost / o.f END AS cost, '
+                            'CASE WHEN o.f IS NULL OR r.reverse_cost <= 0 THEN r.reverse_cost WHEN o.f <= 0 THEN -1 ELSE r.reverse_cost / o.f END AS reverse_cost '
+                            'FROM routes r LEFT JOIN unnest(%%L::bigint[], %%L::float8[]) AS o(id, f) ON o.id = r.id '
+                            'WHERE r.cost IS NOT NULL AND r.cost > 0', p_overlay_ids, p_overlay_factors);
+                    ELSE
+                        v_edges := 'SELECT r.id, r.source, r.target, r.cost, r.reverse_cost FROM routes r WHERE r.cost IS NOT NULL AND r.cost > 0';
+                    END IF;
+
+                    FOR v_attempt IN 0..v_attempts - 1 LOOP
+                        IF v_attempt > 0 AND p_budget_ms IS NOT NULL
+                                AND extract(epoch FROM clock_timestamp() - v_started) * 1000 > p_budget_ms THEN
+                            v_degraded := true;
+                            EXIT;
+                        END IF;
+                        v_area := '';
+                        IF v_attempt < v_attempts - 1 THEN
+                            v_margin_lat := v_margin / 111320.0;
+                            v_margin_lng := v_margin / (111320.0 * greatest(0.01, cos(radians((ST_Y(v_from) + ST_Y(v_to)) / 2))));
+                            v_area := format(' AND r.geom && ST_MakeEnvelope(%%s, %%s, %%s, %%s, 4326)',
+                                least(ST_X(v_from), ST_X(v_to)) - v_margin_lng, least(ST_Y(v_from), ST_Y(v_to)) - v_margin_lat,
+                                greatest(ST_X(v_from), ST_X(v_to)) + v_margin_lng, greatest(ST_Y(v_from), ST_Y(v_to)) + v_margin_lat);
+                        END IF;
+                        v_step_started := clock_timestamp();
+                        RETURN QUERY
+                            SELECT c.path_id::int, c.path_seq::int, c.edge::bigint, r.source::bigint, r.target::bigint,
+                                ST_AsBinary(r.geom), c.node = r.source,
+                                (CASE WHEN c.node = r.source THEN r.cost ELSE r.reverse_cost END)::float8, c.cost::float8,
+                                CASE WHEN p_names THEN (SELECT l.nom FROM lieux l WHERE l.id = c.node) END,
+                                CASE WHEN p_names THEN (SELECT l.nom FROM lieux l
+                                    WHERE l.id = CASE WHEN c.node = r.source THEN r.target ELSE r.source END) END,
+                                NULL::boolean, NULL::int, NULL::float8[]
+                            FROM pgr_ksp(v_edges || v_area, v_source, v_target, p_k, false) c
+                            JOIN routes r ON c.edge = r.id
+                            WHERE c.edge > 0
+                            ORDER BY c.path_id, c.path_seq;
+                        GET DIAGNOSTICS v_rows = ROW_COUNT;
+                        v_attempt_ms := v_attempt_ms || extract(epoch FROM clock_timestamp() - v_step_started)::float8 * 1000;
+                        EXIT WHEN v_rows > 0;
+                        v_margin := v_margin * p_expansion;
+                    END LOOP;
+                END IF;
+
+                RETURN QUERY SELECT 0, 0, NULL::bigint, v_source, v_target, NULL::bytea, NULL::boolean,
+                    NULL::float8, NULL::float8, NULL::text, NULL::text, v_degraded,
+                    v_attempts, v_attempt_ms;
+            END;
+            $$ LANGUAGE plpgsql
+        """.formatted(ROUTING_FUNCTION));
+        routingFunctionInstalled = true;
+    }
+}
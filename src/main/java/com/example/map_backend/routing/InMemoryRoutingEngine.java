@@ -0,0 +1,127 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.model.Route;
+import com.example.map_backend.network.AlternativeRouteFinder;
+import com.example.map_backend.network.LineGeometry;
+import com.example.map_backend.network.NetworkPath;
+import com.example.map_backend.network.PlaceIndex;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.RoadNetworkService;
+import com.example.map_backend.network.StepBuilder;
+import com.example.map_backend.network.TrafficOverlay;
+import com.example.map_backend.service.TrafficService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Alternatives calculées sur l'instantané du réseau en mémoire (A* et pénalités), surcouche trafic
+ * comprise. Activé par map.routing.engine=memory, dès que le graphe de la région est chargé.
+ */
+@Component
+public class InMemoryRoutingEngine implements RoutingEngine {
+
+    private final RoadNetworkService roadNetworkService;
+    private final TrafficService trafficService;
+    private final AlternativeRouteFinder alternativeRouteFinder;
+    private final String routingEngine;
+    private final double turnThresholdDegrees;
+    private final double priorLatencyMs;
+
+    public InMemoryRoutingEngine(RoadNetworkService roadNetworkService, TrafficService trafficService,
+                                 AlternativeRouteFinder alternativeRouteFinder,
+                                 @Value("${map.routing.engine:memory}") String routingEngine,
+                                 @Value("${map.routing.steps.turn-threshold-degrees:30}") double turnThresholdDegrees,
+                                 @Value("${map.routing.planner.prior-latency-ms.memory:20}") double priorLatencyMs) {
+        this.roadNetworkService = roadNetworkService;
+        this.trafficService = trafficService;
+        this.alternativeRouteFinder = alternativeRouteFinder;
+        this.routingEngine = routingEngine;
+        this.turnThresholdDegrees = turnThresholdDegrees;
+        this.priorLatencyMs = priorLatencyMs;
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean isAvailable(RoutingRequest request) {
+        return "memory".equals(routingEngine) && roadNetworkService.isLoaded(request.region());
+    }
+
+    @Override
+    public double priorLatencyMs() {
+        return priorLatencyMs;
+    }
+
+    @Override
+    public RoutingResult route(RoutingRequest request) throws Exception {
+        return route(request, route -> true);
+    }
+
+    // Chaque alternative est convertie et transmise dès qu'AlternativeRouteFinder la retient (ordre de
+    // découverte) ; le résultat final les reprend par coût croissant
+    @Override
+    public RoutingResult route(RoutingRequest request, Predicate<Route> onRoute) throws Exception {
+        RoadNetwork network = roadNetworkService.network(request.region());
+        PlaceIndex places = roadNetworkService.places(request.region());
+        TrafficOverlay overlay = trafficService.overlay();
+        int sourceIndex = network.nodeIndex(request.source());
+        int targetIndex = network.nodeIndex(request.target());
+        if (sourceIndex < 0 || targetIndex < 0) {
+            throw new Exception("Nodes not found in road network");
+        }
+
+        double vitesse = request.speed();
+        double[] weights = overlay.arcWeights(network);
+        Set<Long> usedEdges = new HashSet<>();
+        Set<Long> usedNodes = new HashSet<>();
+        Map<NetworkPath, Route> converted = new IdentityHashMap<>();
+        boolean[] interrupted = {false};
+        List<NetworkPath> paths = alternativeRouteFinder.findAlternatives(network, overlay, sourceIndex, targetIndex,
+                alternativeRouteFinder.getDefaultCount(), path -> {
+            Route route = toRoute(network, places, weights, path, vitesse, request.startPlaceName(), request.endPlaceName(), usedEdges, usedNodes);
+            converted.put(path, route);
+            if (!onRoute.test(route)) {
+                interrupted[0] = true;
+                return false;
+            }
+            return true;
+        });
+        List<Route> routes = new ArrayList<>(paths.size());
+        for (NetworkPath path : paths) {
+            routes.add(converted.get(path));
+        }
+        return RoutingResult.local(name(), routes, usedEdges, usedNodes, !interrupted[0]);
+    }
+
+    private Route toRoute(RoadNetwork network, PlaceIndex places, double[] weights, NetworkPath path, double vitesse,
+                          String startPlaceName, String endPlaceName, Set<Long> usedEdges, Set<Long> usedNodes) {
+        StepBuilder steps = new StepBuilder(turnThresholdDegrees, places::name);
+        for (int arc : path.arcs()) {
+            RoadEdge edge = network.edgeAt(network.arcEdge(arc));
+            boolean forward = network.arcForward(arc);
+            usedEdges.add(edge.id());
+            usedNodes.add(edge.source());
+            usedNodes.add(edge.target());
+            steps.add(forward ? edge.source() : edge.target(), forward ? edge.target() : edge.source(),
+                    LineGeometry.of(edge.coordinates(), !forward), network.arcCost(arc), weights[arc] / vitesse);
+        }
+        return steps.buildRoute(startPlaceName, endPlaceName);
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.config.RequestDeadline;
+import com.example.map_backend.diagnostics.MapEvents;
+import com.example.map_backend.model.Point;
+import com.example.map_backend.model.Route;
+import com.example.map_backend.model.RouteStep;
+import com.example.map_backend.network.LineGeometry;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Service OSRM externe (HTTP) : ne dépend pas du réseau local, accepte des coordonnées brutes.
+ * Ses résultats ne sont pas mis en cache faute d'arêtes locales pour les invalider.
+ */
+@Component
+public class OsrmRoutingEngine implements RoutingEngine {
+
+    private final WebClient osrmWebClient;
+    private final long upstreamTimeoutMs;
+    private final double priorLatencyMs;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    public OsrmRoutingEngine(@Qualifier("osrmWebClient") WebClient osrmWebClient,
+                             @Value("${map.deadline.upstream-timeout-ms:10000}") long upstreamTimeoutMs,
+                             @Value("${map.routing.planner.prior-latency-ms.osrm:800}") double priorLatencyMs) {
+        this.osrmWebClient = osrmWebClient;
+        this.upstreamTimeoutMs = upstreamTimeoutMs;
+        this.priorLatencyMs = priorLatencyMs;
+    }
+
+    @Override
+    public String name() {
+        return "osrm";
+    }
+
+    @Override
+    public boolean isLocal() {
+        return false;
+    }
+
+    @Override
+    public boolean isAvailable(RoutingRequest request) {
+        return true;
+    }
+
+    @Override
+    public double priorLatencyMs() {
+        return priorLatencyMs;
+    }
+
+    @Override
+    public RoutingResult route(RoutingRequest request) throws Exception {
+        List<Point> points = request.points();
+        String mode = request.mode();
+        String startPlaceName = request.startPlaceName();
+        String endPlaceName = request.endPlaceName();
+        String profile = mode.equals("walking") ? "foot" : mode.equals("cycling") ? "bike" : "car";
+        String coordinates = points.stream()
+                .map(p -> p.getLng() + "," + p.getLat())
+                .reduce((a, b) -> a + ";" + b)
+                .orElse("");
+
+        // Client partagé (pool borné, compression) ; base map.upstream.osrm.base-url
+        String url = "/route/v1/" + profile + "/" + coordinates + "?steps=true&geometries=geojson&alternatives=3";
+
+        Mono<String> response = osrmWebClient
+                .get()
+                .uri(url)
+                .retrieve()
+                .bodyToMono(String.class)
+                .timeout(RequestDeadline.timeout(Duration.ofMillis(upstreamTimeoutMs)));
+
+        // Le dépassement annule la souscription, donc la requête HTTP en cours
+        MapEvents.OsrmCall call = new MapEvents.OsrmCall();
+        call.begin();
+        String jsonResponse = null;
+        try {
+            jsonResponse = response.block();
+        } finally {
+            if (call.shouldCommit()) {
+                call.mode = mode;
+                call.points = points.size();
+                call.bytes = jsonResponse != null ? utf8Length(jsonResponse) : 0;
+                call.success = jsonResponse != null;
+                call.commit();
+            }
+        }
+        if (jsonResponse == null || jsonResponse.trim().isEmpty()) {
+            throw new Exception("Empty response from OSRM");
+        }
+
+        MapEvents.OsrmParse parse = new MapEvents.OsrmParse();
+        parse.begin();
+        JsonNode data = objectMapper.readTree(jsonResponse);
+
+        if (data.has("code") && !"Ok".equals(data.get("code").asText())) {
+            throw new Exception("OSRM error: " + data.get("message").asText("Unknown error"));
+        }
+
+        List<Route> routes = new ArrayList<>();
+        if (data.has("routes") && data.get("routes").isArray()) {
+            for (JsonNode routeNode : data.get("routes")) {
+                List<RouteStep> steps = new ArrayList<>();
+                LineGeometry routeGeometry = geoJsonLine(routeNode.get("geometry"));
+
+                if (routeNode.has("legs") && routeNode.get("legs").isArray()) {
+                    for (JsonNode leg : routeNode.get("legs")) {
+                        if (leg.has("steps") && leg.get("steps").isArray()) {
+                            for (JsonNode step : leg.get("steps")) {
+                                RouteStep routeStep = new RouteStep();
+                                routeStep.setGeometry(geoJsonLine(step.get("geometry")));
+
+                                String instruction = "Step";
+                                if (step.has("maneuver") && step.get("maneuver").has("instruction")) {
+                                    instruction = step.get("maneuver").get("instruction").asText("Step");
+                                }
+                                routeStep.setSource(instruction);
+                                routeStep.setTarget(instruction);
+                                routeStep.setInstruction(instruction);
+
+                                routeStep.setDistance(step.has("distance") ? step.get("distance").asDouble() : 0.0);
+                                routeStep.setDuration(step.has("duration") ? step.get("duration").asDouble() : 0.0);
+                                steps.add(routeStep);
+                            }
+                        }
+                    }
+                }
+
+                if (steps.isEmpty() && !routeGeometry.isEmpty()) {
+                    RouteStep defaultStep = new RouteStep();
+                    defaultStep.setGeometry(routeGeometry);
+                    defaultStep.setSource("Start");
+                    defaultStep.setTarget("End");
+                    defaultStep.setDistance(routeNode.has("distance") ? routeNode.get("distance").asDouble() : 0.0);
+                    defaultStep.setDuration(routeNode.has("duration") ? routeNode.get("duration").asDouble() : 0.0);
+                    steps.add(defaultStep);
+                }
+
+                Route resultRoute = new Route();
+                resultRoute.setDistance(routeNode.has("distance") ? routeNode.get("distance").asDouble() : 0.0); // Corrigé : "distance" au lieu de "距離"
+                resultRoute.setDuration(routeNode.has("duration") ? routeNode.get("duration").asDouble() : 0.0);
+                resultRoute.setSteps(steps);
+                resultRoute.setStartPlaceName(startPlaceName);
+                resultRoute.setEndPlaceName(endPlaceName);
+                resultRoute.setGeometry(routeGeometry);
+                routes.add(resultRoute);
+            }
+        }
+
+        if (parse.shouldCommit()) {
+            parse.bytes = utf8Length(jsonResponse);
+            parse.routes = routes.size();
+            parse.steps = routes.stream().mapToInt(route -> route.getSteps().size()).sum();
+            parse.commit();
+        }
+        return RoutingResult.external(name(), routes);
+    }
+
+    // Taille du corps reçu, calculée seulement pour un événement enregistré
+    private static long utf8Length(String text) {
+        return text.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    // Géométrie GeoJSON OSRM ([[lng, lat], ...]) lue directement en tableau packé
+    private static LineGeometry geoJsonLine(JsonNode geometry) {
+        if (geometry == null || !geometry.has("coordinates") || !geometry.get("coordinates").isArray()) {
+            return LineGeometry.EMPTY;
+        }
+        JsonNode coordinatesNode = geometry.get("coordinates");
+        double[] coordinates = new double[coordinatesNode.size() * 2];
+        int size = 0;
+        for (JsonNode coord : coordinatesNode) {
+            if (coord.isArray() && coord.size() >= 2) {
+                coordinates[size++] = coord.get(0).asDouble();
+                coordinates[size++] = coord.get(1).asDouble();
+            }
+        }
+        return LineGeometry.of(size == coordinates.length ? coordinates : Arrays.copyOf(coordinates, size));
+    }
+}
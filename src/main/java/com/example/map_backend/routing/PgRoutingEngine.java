@@ -0,0 +1,482 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.config.RequestDeadline;
+import com.example.map_backend.model.Point;
+import com.example.map_backend.model.Route;
+import com.example.map_backend.network.AlternativeRouteFinder;
+import com.example.map_backend.network.AlternativeSelector;
+import com.example.map_backend.network.GeoUtils;
+import com.example.map_backend.network.LineGeometry;
+import com.example.map_backend.network.PlaceIndex;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadNetworkService;
+import com.example.map_backend.network.StepBuilder;
+import com.example.map_backend.network.TrafficOverlay;
+import com.example.map_backend.repository.RoadNetworkRepository;
+import com.example.map_backend.service.TrafficService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.stereotype.Component;
+
+import java.sql.Array;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Alternatives calculées par pgr_ksp sur la table routes, surcouche trafic injectée dans le SQL des
+ * arêtes. Toujours disponible tant que la base répond ; sert de repli au graphe en mémoire.
+ * Fonction {@link RoadNetworkRepository#ROUTING_FUNCTION} installée : accrochage, validation, pgr_ksp
+ * et noms en un seul aller-retour ; sinon une requête par étape.
+ * Métriques par tentative d'élargissement de l'emprise : map.routing.engine.sql-area.attempt (durée)
+ * et map.routing.engine.sql-area.found (chemin trouvé), étiquetées par numéro de tentative et réseau
+ * (restricted ou full), pour régler les marges.
+ */
+@Component
+public class PgRoutingEngine implements RoutingEngine {
+
+    private static final Logger LOGGER = Logger.getLogger(PgRoutingEngine.class.getName());
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TrafficService trafficService;
+    private final RoadNetworkService roadNetworkService;
+    private final AlternativeRouteFinder alternativeRouteFinder;
+    private final RoadNetworkRepository roadNetworkRepository;
+    private final MeterRegistry registry;
+    private final boolean sqlFunctionEnabled;
+    private final int snapCandidates;
+    private final long deadlineReserveMs;
+    private final double turnThresholdDegrees;
+    private final double sqlAreaMinMarginMeters;
+    private final double sqlAreaMarginFactor;
+    private final double sqlAreaExpansionFactor;
+    private final int sqlAreaMaxExpansions;
+    private final double priorLatencyMs;
+
+    public PgRoutingEngine(JdbcTemplate jdbcTemplate, TrafficService trafficService, RoadNetworkService roadNetworkService,
+                           AlternativeRouteFinder alternativeRouteFinder, RoadNetworkRepository roadNetworkRepository,
+                           MeterRegistry registry,
+                           @Value("${map.routing.sql-function.enabled:true}") boolean sqlFunctionEnabled,
+                           @Value("${map.routing.snap-candidates:8}") int snapCandidates,
+                           @Value("${map.deadline.reserve-ms:300}") long deadlineReserveMs,
+                           @Value("${map.routing.steps.turn-threshold-degrees:30}") double turnThresholdDegrees,
+                           @Value("${map.routing.sql-area.min-margin-meters:500}") double sqlAreaMinMarginMeters,
+                           @Value("${map.routing.sql-area.margin-factor:0.3}") double sqlAreaMarginFactor,
+                           @Value("${map.routing.sql-area.expansion-factor:2}") double sqlAreaExpansionFactor,
+                           @Value("${map.routing.sql-area.max-expansions:3}") int sqlAreaMaxExpansions,
+                           @Value("${map.routing.planner.prior-latency-ms.pgrouting:300}") double priorLatencyMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.trafficService = trafficService;
+        this.roadNetworkService = roadNetworkService;
+        this.alternativeRouteFinder = alternativeRouteFinder;
+        this.roadNetworkRepository = roadNetworkRepository;
+        this.registry = registry;
+        this.sqlFunctionEnabled = sqlFunctionEnabled;
+        this.snapCandidates = snapCandidates;
+        this.deadlineReserveMs = deadlineReserveMs;
+        this.turnThresholdDegrees = turnThresholdDegrees;
+        this.sqlAreaMinMarginMeters = sqlAreaMinMarginMeters;
+        this.sqlAreaMarginFactor = sqlAreaMarginFactor;
+        this.sqlAreaExpansionFactor = sqlAreaExpansionFactor;
+        this.sqlAreaMaxExpansions = sqlAreaMaxExpansions;
+        this.priorLatencyMs = priorLatencyMs;
+    }
+
+    @Override
+    public String name() {
+        return "pgrouting";
+    }
+
+    @Override
+    public boolean isLocal() {
+        return true;
+    }
+
+    @Override
+    public boolean isAvailable(RoutingRequest request) {
+        return true;
+    }
+
+    @Override
+    public boolean snapsOnServer(RoutingRequest request) {
+        return usesFunction() && request.points().size() == 2;
+    }
+
+    @Override
+    public double priorLatencyMs() {
+        return priorLatencyMs;
+    }
+
+    @Override
+    public RoutingResult route(RoutingRequest request) throws Exception {
+        if (usesFunction()) {
+            return routeWithFunction(request);
+        }
+        long source = request.source();
+        long target = request.target();
+        double vitesse = request.speed();
+        Set<Long> usedEdges = new HashSet<>();
+        Set<Long> usedNodes = new HashSet<>();
+        double[] endpoints = vertexCoordinates(source, target);
+        TrafficOverlay overlay = trafficService.overlay();
+
+        // Sous-graphe restreint à une emprise autour du trajet, élargie tant qu'aucun chemin n'est trouvé ;
+        // la dernière tentative porte sur le réseau complet
+        Map<Integer, SqlPath> candidates = new LinkedHashMap<>();
+        double margin = 0;
+        if (endpoints != null) {
+            double straight = GeoUtils.distanceMeters(endpoints[0], endpoints[1], endpoints[2], endpoints[3]);
+            margin = Math.max(sqlAreaMinMarginMeters, straight * sqlAreaMarginFactor);
+        }
+        int attempts = endpoints != null ? sqlAreaMaxExpansions + 2 : 1;
+        for (int attempt = 0; attempt < attempts && candidates.isEmpty(); attempt++) {
+            if (attempt > 0 && RequestDeadline.isLow(deadlineReserveMs)) {
+                RequestDeadline.markDegraded();
+                break;
+            }
+            boolean restricted = attempt < attempts - 1;
+            long start = System.nanoTime();
+            candidates = kspPaths(edgesSql(overlay, restricted ? areaFilter(endpoints, margin) : ""), source, target, vitesse);
+            long elapsed = System.nanoTime() - start;
+            recordAttempt(attempt, restricted, elapsed, !candidates.isEmpty());
+            LOGGER.fine("pgr_ksp step " + attempt + " (" + (restricted ? "margin " + Math.round(margin) + " m" : "full network")
+                    + "): " + candidates.size() + " paths in " + elapsed / 1_000_000 + " ms");
+            margin *= sqlAreaExpansionFactor;
+        }
+
+        int count = alternativeRouteFinder.getDefaultCount();
+        AlternativeSelector selector = alternativeRouteFinder.newSelector(count);
+        List<SqlPath> selected = new ArrayList<>();
+        for (SqlPath path : candidates.values()) {
+            if (selector.offer(path.edgeLengths, path.cost)) {
+                usedEdges.addAll(path.edgeLengths.keySet());
+                usedNodes.addAll(path.nodeIds);
+                selected.add(path);
+            }
+        }
+
+        // Noms des nœuds résolus en une fois pour tous les chemins retenus
+        Map<Long, String> names = nodeNames(usedNodes, request.region());
+        return RoutingResult.local(name(), buildRoutes(selected, names, request), usedEdges, usedNodes, true);
+    }
+
+    private void recordAttempt(int attempt, boolean restricted, long elapsedNanos, boolean found) {
+        String network = restricted ? "restricted" : "full";
+        Timer.builder("map.routing.engine.sql-area.attempt")
+                .tag("engine", name()).tag("attempt", String.valueOf(attempt)).tag("network", network)
+                .description("Durée d'une tentative pgr_ksp sur une emprise donnée").register(registry)
+                .record(elapsedNanos, TimeUnit.NANOSECONDS);
+        if (found) {
+            Counter.builder("map.routing.engine.sql-area.found")
+                    .tag("engine", name()).tag("attempt", String.valueOf(attempt)).tag("network", network)
+                    .description("Chemins trouvés à cette tentative").register(registry).increment();
+        }
+    }
+
+    private boolean usesFunction() {
+        return sqlFunctionEnabled && roadNetworkRepository.isRoutingFunctionInstalled();
+    }
+
+    // Un seul appel préparé : la fonction accroche les points si la requête ne l'est pas, élargit
+    // l'emprise côté serveur et ne résout les noms que si l'instantané des lieux de la région manque
+    private RoutingResult routeWithFunction(RoutingRequest request) {
+        double vitesse = request.speed();
+        TrafficOverlay overlay = trafficService.overlay();
+        int count = alternativeRouteFinder.getDefaultCount();
+        int k = count * 2;
+        if (RequestDeadline.isLow(deadlineReserveMs * 2)) {
+            RequestDeadline.markDegraded();
+            k = 1;
+        }
+        long remaining = RequestDeadline.remainingMillis();
+        Double budgetMs = remaining == Long.MAX_VALUE ? null : (double) (remaining - deadlineReserveMs);
+        boolean loadedNames = request.region() != null && roadNetworkService.isLoaded(request.region());
+
+        Long[] overlayIds = new Long[overlay.size()];
+        Double[] overlayFactors = new Double[overlay.size()];
+        for (int i = 0; i < overlayIds.length; i++) {
+            overlayIds[i] = overlay.edgeIdAt(i);
+            overlayFactors[i] = overlay.factor(overlayIds[i]);
+        }
+        List<Point> points = request.points();
+        Double[] lngs = points.size() == 2 ? new Double[]{points.get(0).getLng(), points.get(1).getLng()} : new Double[0];
+        Double[] lats = points.size() == 2 ? new Double[]{points.get(0).getLat(), points.get(1).getLat()} : new Double[0];
+        int kspCount = k;
+        PreparedStatementCreator call = connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT * FROM " + RoadNetworkRepository.ROUTING_FUNCTION + "(?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)");
+            statement.setArray(1, connection.createArrayOf("float8", lngs));
+            statement.setArray(2, connection.createArrayOf("float8", lats));
+            statement.setLong(3, request.source());
+            statement.setLong(4, request.target());
+            statement.setInt(5, snapCandidates);
+            statement.setInt(6, kspCount);
+            statement.setArray(7, connection.createArrayOf("bigint", overlayIds));
+            statement.setArray(8, connection.createArrayOf("float8", overlayFactors));
+            statement.setDouble(9, sqlAreaMinMarginMeters);
+            statement.setDouble(10, sqlAreaMarginFactor);
+            statement.setDouble(11, sqlAreaExpansionFactor);
+            statement.setInt(12, sqlAreaMaxExpansions);
+            statement.setObject(13, budgetMs, Types.DOUBLE);
+            statement.setBoolean(14, !loadedNames);
+            return statement;
+        };
+
+        Map<Integer, SqlPath> candidates = new LinkedHashMap<>();
+        Map<Long, String> sqlNames = new HashMap<>();
+        long[] snapped = {request.source(), request.target()};
+        int[] plannedAttempts = {0};
+        List<Double> attemptMs = new ArrayList<>();
+        long start = System.nanoTime();
+        jdbcTemplate.query(call, rs -> {
+            int pathId = rs.getInt("path_id");
+            long sourceId = rs.getLong("source_id");
+            long targetId = rs.getLong("target_id");
+            // Ligne de fin : sommets accrochés, élargissement interrompu faute de budget et durées des tentatives
+            if (pathId == 0) {
+                snapped[0] = sourceId;
+                snapped[1] = targetId;
+                if (rs.getBoolean("degraded")) {
+                    RequestDeadline.markDegraded();
+                }
+                plannedAttempts[0] = rs.getInt("attempts");
+                Array durations = rs.getArray("attempt_ms");
+                if (durations != null) {
+                    Collections.addAll(attemptMs, (Double[]) durations.getArray());
+                }
+                return;
+            }
+            boolean forward = rs.getBoolean("forward");
+            SqlEdge edge = new SqlEdge();
+            edge.fromNode = forward ? sourceId : targetId;
+            edge.toNode = forward ? targetId : sourceId;
+            edge.geometry = LineGeometry.fromWkb(rs.getBytes("wkb"), !forward);
+            edge.distance = rs.getDouble("distance");
+            edge.duration = rs.getDouble("weighted_cost") / vitesse;
+            String fromName = rs.getString("from_name");
+            if (fromName != null) {
+                sqlNames.put(edge.fromNode, fromName);
+            }
+            String toName = rs.getString("to_name");
+            if (toName != null) {
+                sqlNames.put(edge.toNode, toName);
+            }
+
+            SqlPath path = candidates.computeIfAbsent(pathId, id -> new SqlPath());
+            path.edges.add(edge);
+            path.edgeLengths.put(rs.getLong("edge"), edge.distance);
+            path.nodeIds.add(sourceId);
+            path.nodeIds.add(targetId);
+            path.cost += rs.getDouble("weighted_cost");
+        });
+        LOGGER.fine(RoadNetworkRepository.ROUTING_FUNCTION + ": " + candidates.size() + " paths in "
+                + (System.nanoTime() - start) / 1_000_000 + " ms, steps " + attemptMs);
+        // Mêmes métriques que la boucle multi-requêtes : seule la dernière tentative faite peut avoir trouvé
+        for (int attempt = 0; attempt < attemptMs.size(); attempt++) {
+            boolean last = attempt == attemptMs.size() - 1;
+            recordAttempt(attempt, attempt < plannedAttempts[0] - 1, Math.round(attemptMs.get(attempt) * 1_000_000),
+                    last && !candidates.isEmpty());
+        }
+
+        Set<Long> usedEdges = new HashSet<>();
+        Set<Long> usedNodes = new HashSet<>();
+        AlternativeSelector selector = alternativeRouteFinder.newSelector(count);
+        List<SqlPath> selected = new ArrayList<>();
+        for (SqlPath path : candidates.values()) {
+            if (selector.offer(path.edgeLengths, path.cost)) {
+                usedEdges.addAll(path.edgeLengths.keySet());
+                usedNodes.addAll(path.nodeIds);
+                selected.add(path);
+            }
+        }
+        Map<Long, String> names = loadedNames ? nodeNames(usedNodes, request.region()) : sqlNames;
+        return RoutingResult.snapped(name(), buildRoutes(selected, names, request), usedEdges, usedNodes, true,
+                snapped[0], snapped[1]);
+    }
+
+    private List<Route> buildRoutes(List<SqlPath> paths, Map<Long, String> names, RoutingRequest request) {
+        List<Route> routes = new ArrayList<>();
+        for (SqlPath path : paths) {
+            StepBuilder steps = new StepBuilder(turnThresholdDegrees, names::get);
+            for (SqlEdge edge : path.edges) {
+                steps.add(edge.fromNode, edge.toNode, edge.geometry, edge.distance, edge.duration);
+            }
+            routes.add(steps.buildRoute(request.startPlaceName(), request.endPlaceName()));
+        }
+        return routes;
+    }
+
+    // Coordonnées {lngSource, latSource, lngCible, latCible} depuis routes_vertices, null si l'un des
+    // nœuds en est absent (l'existence est alors vérifiée sur routes et le réseau complet est utilisé)
+    private double[] vertexCoordinates(long source, long target) throws Exception {
+        try {
+            double[] endpoints = new double[4];
+            int[] found = new int[1];
+            jdbcTemplate.query("SELECT id, ST_X(geom) AS lng, ST_Y(geom) AS lat FROM routes_vertices WHERE id IN (?, ?)", rs -> {
+                int offset = rs.getLong("id") == source ? 0 : 2;
+                endpoints[offset] = rs.getDouble("lng");
+                endpoints[offset + 1] = rs.getDouble("lat");
+                found[0]++;
+            }, source, target);
+            if (found[0] == 2) {
+                return endpoints;
+            }
+        } catch (Exception e) {
+            LOGGER.warning("Vertex lookup failed, routing on full network: " + e.getMessage());
+        }
+
+        String nodeValidationQuery = """
+                SELECT COUNT(*) as count FROM (
+                    SELECT source as node FROM routes WHERE source = ? OR target = ?
+                    UNION
+                    SELECT target as node FROM routes WHERE source = ? OR target = ?
+                ) nodes
+            """;
+
+        Integer nodeCount = jdbcTemplate.queryForObject(nodeValidationQuery, Integer.class,
+                source, source, target, target);
+
+        if (nodeCount == null || nodeCount == 0) {
+            throw new Exception("Nodes not found in road network");
+        }
+        return null;
+    }
+
+    private Map<Integer, SqlPath> kspPaths(String edgesSql, long source, long target, double vitesse) {
+        String query = """
+                WITH chemins AS (
+                    SELECT path_id, path_seq, node, edge, cost, agg_cost
+                    FROM pgr_ksp(?, ?, ?, ?, false)
+                )
+                SELECT
+                    c.path_id,
+                    c.path_seq,
+                    c.edge,
+                    r.source as source_id,
+                    r.target as target_id,
+                    ST_AsBinary(r.geom) as wkb,
+                    c.node = r.source as forward,
+                    CASE WHEN c.node = r.source THEN r.cost ELSE r.reverse_cost END as distance,
+                    c.cost as weighted_cost
+                FROM chemins c
+                JOIN routes r ON c.edge = r.id
+                WHERE c.edge > 0
+                ORDER BY c.path_id, c.path_seq
+            """;
+
+        // pgr_ksp renvoie des chemins souvent quasi identiques : on en demande plus que nécessaire puis on filtre,
+        // sauf si le budget restant est faible (résultat dégradé)
+        int count = alternativeRouteFinder.getDefaultCount();
+        int k = count * 2;
+        if (RequestDeadline.isLow(deadlineReserveMs * 2)) {
+            RequestDeadline.markDegraded();
+            k = 1;
+        }
+        return jdbcTemplate.query(query, rs -> {
+            Map<Integer, SqlPath> candidates = new LinkedHashMap<>();
+            while (rs.next()) {
+                boolean forward = rs.getBoolean("forward");
+                long sourceId = rs.getLong("source_id");
+                long targetId = rs.getLong("target_id");
+                SqlEdge edge = new SqlEdge();
+                edge.fromNode = forward ? sourceId : targetId;
+                edge.toNode = forward ? targetId : sourceId;
+                // Arête parcourue à contresens : géométrie inversée pour suivre le trajet
+                edge.geometry = LineGeometry.fromWkb(rs.getBytes("wkb"), !forward);
+                edge.distance = rs.getDouble("distance");
+                // Le coût pondéré intègre le facteur de vitesse de la surcouche trafic
+                edge.duration = rs.getDouble("weighted_cost") / vitesse;
+
+                SqlPath path = candidates.computeIfAbsent(rs.getInt("path_id"), id -> new SqlPath());
+                path.edges.add(edge);
+                path.edgeLengths.put(rs.getLong("edge"), edge.distance);
+                path.nodeIds.add(sourceId);
+                path.nodeIds.add(targetId);
+                path.cost += rs.getDouble("weighted_cost");
+            }
+            return candidates;
+        }, edgesSql, source, target, k);
+    }
+
+    // Dictionnaire id -> nom : instantané des lieux de la région s'il est chargé, sinon une seule requête
+    // pour tous les nœuds du chemin (au lieu de deux jointures sur lieux par arête)
+    private Map<Long, String> nodeNames(Set<Long> nodeIds, Region region) {
+        Map<Long, String> names = new HashMap<>();
+        if (nodeIds.isEmpty()) {
+            return names;
+        }
+        if (roadNetworkService.isLoaded(region)) {
+            PlaceIndex places = roadNetworkService.places(region);
+            for (Long id : nodeIds) {
+                String name = places.name(id);
+                if (name != null) {
+                    names.put(id, name);
+                }
+            }
+            return names;
+        }
+        Long[] ids = nodeIds.toArray(new Long[0]);
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT id, nom FROM lieux WHERE id = ANY(?) AND nom IS NOT NULL");
+            statement.setArray(1, connection.createArrayOf("bigint", ids));
+            return statement;
+        }, rs -> {
+            names.put(rs.getLong("id"), rs.getString("nom"));
+        });
+        return names;
+    }
+
+    private static class SqlEdge {
+        private long fromNode;
+        private long toNode;
+        private LineGeometry geometry;
+        private double distance;
+        private double duration;
+    }
+
+    private static class SqlPath {
+        private final List<SqlEdge> edges = new ArrayList<>();
+        private final Map<Long, Double> edgeLengths = new LinkedHashMap<>();
+        private final Set<Long> nodeIds = new HashSet<>();
+        private double cost;
+    }
+
+    // SQL des arêtes passé à pgRouting : coût divisé par le facteur de vitesse, -1 (arête absente) si fermée.
+    // areaFilter restreint le sous-graphe (condition sur r.geom), vide pour le réseau complet
+    private String edgesSql(TrafficOverlay overlay, String areaFilter) {
+        if (overlay.isEmpty()) {
+            return "SELECT r.id, r.source, r.target, r.cost, r.reverse_cost FROM routes r WHERE r.cost IS NOT NULL AND r.cost > 0" + areaFilter;
+        }
+        return "SELECT r.id, r.source, r.target, " +
+                "CASE WHEN o.f IS NULL THEN r.cost WHEN o.f <= 0 THEN -1 ELSE r.cost / o.f END AS cost, " +
+                "CASE WHEN o.f IS NULL OR r.reverse_cost <= 0 THEN r.reverse_cost WHEN o.f <= 0 THEN -1 ELSE r.reverse_cost / o.f END AS reverse_cost " +
+                "FROM routes r LEFT JOIN (VALUES " + overlay.sqlValues() + ") AS o(id, f) ON o.id = r.id " +
+                "WHERE r.cost IS NOT NULL AND r.cost > 0" + areaFilter;
+    }
+
+    // Emprise autour de la source et de la cible élargie de marginMeters ; && utilise l'index GiST de routes.geom
+    private static String areaFilter(double[] endpoints, double marginMeters) {
+        double minLng = Math.min(endpoints[0], endpoints[2]);
+        double maxLng = Math.max(endpoints[0], endpoints[2]);
+        double minLat = Math.min(endpoints[1], endpoints[3]);
+        double maxLat = Math.max(endpoints[1], endpoints[3]);
+        double marginLat = marginMeters / 111_320.0;
+        double marginLng = marginMeters / (111_320.0 * Math.max(0.01, Math.cos(Math.toRadians((minLat + maxLat) / 2))));
+        return String.format(Locale.ROOT, " AND r.geom && ST_MakeEnvelope(%.7f, %.7f, %.7f, %.7f, 4326)",
+                minLng - marginLng, minLat - marginLat, maxLng + marginLng, maxLat + marginLat);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.model.Route;
+
+import java.util.function.Predicate;
+
+/**
+ * Moteur de calcul d'itinéraires branché sur le planificateur (graphe en mémoire, pgRouting, OSRM...).
+ * Un moteur signale un échec par une exception et l'absence de chemin par une liste vide ; le
+ * planificateur mesure les deux pour choisir le moteur de la requête suivante.
+ */
+public interface RoutingEngine {
+
+    // Nom stable, utilisé dans les métriques et les journaux
+    String name();
+
+    // Calcul sur le réseau local : extrémités accrochées à des sommets, résultat mis en cache
+    boolean isLocal();
+
+    default boolean supports(String mode) {
+        return true;
+    }
+
+    // Accroche lui-même les points bruts d'une requête locale non accrochée, dans le même aller-retour que le calcul
+    default boolean snapsOnServer(RoutingRequest request) {
+        return false;
+    }
+
+    // Prêt à calculer cette requête (graphe de sa région chargé, moteur activé)
+    boolean isAvailable(RoutingRequest request);
+
+    // Latence attendue tant qu'aucune mesure n'est disponible (ms)
+    double priorLatencyMs();
+
+    RoutingResult route(RoutingRequest request) throws Exception;
+
+    // Variante progressive : onRoute reçoit chaque alternative dès qu'elle est trouvée, false interrompt le calcul
+    default RoutingResult route(RoutingRequest request, Predicate<Route> onRoute) throws Exception {
+        RoutingResult result = route(request);
+        for (Route route : result.routes()) {
+            if (!onRoute.test(route)) {
+                break;
+            }
+        }
+        return result;
+    }
+}
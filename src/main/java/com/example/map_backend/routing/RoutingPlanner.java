@@ -0,0 +1,262 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.config.DeadlineExceededException;
+import com.example.map_backend.config.RequestDeadline;
+import com.example.map_backend.model.Route;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.logging.Logger;
+
+/**
+ * Choisit, pour chaque requête, l'ordre d'essai des moteurs : latence moyenne mesurée (moyenne
+ * mobile exponentielle, par moteur et par mode) divisée par le taux de succès, les moteurs externes
+ * étant pénalisés. Un moteur en échec répété est écarté pendant cooldown-ms puis retesté ; un moteur
+ * dont la latence attendue dépasse le budget restant n'est tenté qu'en dernier recours.
+ * Métriques : map.routing.engine.* (latence, succès, santé) et map.routing.planner.* (décisions).
+ */
+@Component
+public class RoutingPlanner {
+
+    private static final Logger LOGGER = Logger.getLogger(RoutingPlanner.class.getName());
+
+    private final List<RoutingEngine> engines;
+    private final MeterRegistry registry;
+    private final double alpha;
+    private final int failureThreshold;
+    private final long cooldownMs;
+    private final double externalPenalty;
+    private final LongSupplier nanoClock;
+    private final Map<String, EngineStats> stats = new ConcurrentHashMap<>();
+
+    @Autowired
+    public RoutingPlanner(List<RoutingEngine> engines, MeterRegistry registry,
+                          @Value("${map.routing.planner.ewma-alpha:0.2}") double alpha,
+                          @Value("${map.routing.planner.failure-threshold:3}") int failureThreshold,
+                          @Value("${map.routing.planner.cooldown-ms:30000}") long cooldownMs,
+                          @Value("${map.routing.planner.external-penalty:4}") double externalPenalty) {
+        this(engines, registry, alpha, failureThreshold, cooldownMs, externalPenalty, System::nanoTime);
+    }
+
+    // Horloge injectable (nanosecondes) pour les tests de latence et de refroidissement
+    RoutingPlanner(List<RoutingEngine> engines, MeterRegistry registry, double alpha, int failureThreshold,
+                   long cooldownMs, double externalPenalty, LongSupplier nanoClock) {
+        this.engines = List.copyOf(engines);
+        this.registry = registry;
+        this.alpha = alpha;
+        this.failureThreshold = Math.max(1, failureThreshold);
+        this.cooldownMs = cooldownMs;
+        this.externalPenalty = externalPenalty;
+        this.nanoClock = nanoClock;
+        LOGGER.info("Moteurs de calcul : " + this.engines.stream().map(RoutingEngine::name).toList());
+    }
+
+    public RoutingResult route(RoutingRequest request) throws Exception {
+        return route(request, route -> true);
+    }
+
+    // Essaie les moteurs dans l'ordre du plan jusqu'au premier résultat non vide
+    public RoutingResult route(RoutingRequest request, Predicate<Route> onRoute) throws Exception {
+        List<RoutingEngine> plan = plan(request);
+        boolean[] emitted = {false};
+        Predicate<Route> tracked = route -> {
+            emitted[0] = true;
+            return onRoute.test(route);
+        };
+        Exception lastError = null;
+        for (int rank = 0; rank < plan.size(); rank++) {
+            RoutingEngine engine = plan.get(rank);
+            if (rank > 0 && RequestDeadline.isExpired()) {
+                break;
+            }
+            EngineStats engineStats = stats(engine, request.mode());
+            counter("map.routing.planner.decisions", engine, request.mode(), "choice", rank == 0 ? "first" : "fallback").increment();
+            long start = nanoClock.getAsLong();
+            try {
+                RoutingResult result = engine.route(request, tracked);
+                long elapsed = nanoClock.getAsLong() - start;
+                boolean found = !result.routes().isEmpty();
+                engineStats.record(elapsed, found);
+                timer(engine, request.mode(), found ? "success" : "empty").record(elapsed, TimeUnit.NANOSECONDS);
+                if (found || emitted[0]) {
+                    return result;
+                }
+            } catch (DeadlineExceededException e) {
+                // Budget de la requête épuisé : ni la santé du moteur ni un repli n'y changeraient rien
+                timer(engine, request.mode(), "deadline").record(nanoClock.getAsLong() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            } catch (Exception e) {
+                long elapsed = nanoClock.getAsLong() - start;
+                engineStats.recordFailure(elapsed);
+                timer(engine, request.mode(), "failure").record(elapsed, TimeUnit.NANOSECONDS);
+                LOGGER.warning("Moteur " + engine.name() + " en échec (" + request.mode() + ") : " + e.getMessage());
+                // Des alternatives déjà transmises au client ne peuvent pas être complétées par un autre moteur
+                if (emitted[0]) {
+                    throw e;
+                }
+                lastError = e;
+            }
+        }
+        if (lastError != null && RequestDeadline.isExpired()) {
+            throw lastError;
+        }
+        return RoutingResult.empty();
+    }
+
+    // Moteurs applicables, du moins coûteux au plus coûteux ; les moteurs écartés (santé, budget) restent en fin de plan
+    List<RoutingEngine> plan(RoutingRequest request) {
+        long now = nanoClock.getAsLong();
+        long remaining = RequestDeadline.remainingMillis();
+        List<RoutingEngine> preferred = new ArrayList<>();
+        List<RoutingEngine> deferred = new ArrayList<>();
+        for (RoutingEngine engine : engines) {
+            if (!engine.supports(request.mode()) || !engine.isAvailable(request)) {
+                continue;
+            }
+            if (engine.isLocal() ? !request.isSnapped() && !engine.snapsOnServer(request) : !request.externalAllowed()) {
+                continue;
+            }
+            EngineStats engineStats = stats(engine, request.mode());
+            if (!engineStats.isHealthy(now)) {
+                counter("map.routing.planner.skipped", engine, request.mode(), "reason", "unhealthy").increment();
+                deferred.add(engine);
+            } else if (remaining != Long.MAX_VALUE && engineStats.expectedLatencyMs() > remaining) {
+                counter("map.routing.planner.skipped", engine, request.mode(), "reason", "budget").increment();
+                deferred.add(engine);
+            } else {
+                preferred.add(engine);
+            }
+        }
+        Comparator<RoutingEngine> byScore = Comparator.comparingDouble(engine -> score(engine, request.mode()));
+        preferred.sort(byScore);
+        deferred.sort(byScore);
+        preferred.addAll(deferred);
+        return preferred;
+    }
+
+    // Faux si les seuls moteurs locaux applicables accrochent eux-mêmes les points : l'accrochage
+    // préalable serait un aller-retour de plus
+    public boolean needsSnapping(RoutingRequest request) {
+        boolean serverSnapping = false;
+        for (RoutingEngine engine : engines) {
+            if (!engine.isLocal() || !engine.supports(request.mode()) || !engine.isAvailable(request)) {
+                continue;
+            }
+            if (!engine.snapsOnServer(request)) {
+                return true;
+            }
+            serverSnapping = true;
+        }
+        return !serverSnapping;
+    }
+
+    // Instantané des statistiques, clé "moteur/mode"
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> snapshot = new LinkedHashMap<>();
+        long now = nanoClock.getAsLong();
+        stats.forEach((key, engineStats) -> snapshot.put(key, engineStats.describe(now)));
+        return snapshot;
+    }
+
+    private double score(RoutingEngine engine, String mode) {
+        EngineStats engineStats = stats(engine, mode);
+        double cost = engineStats.expectedLatencyMs() / Math.max(0.05, engineStats.successRate());
+        return engine.isLocal() ? cost : cost * externalPenalty;
+    }
+
+    private EngineStats stats(RoutingEngine engine, String mode) {
+        return stats.computeIfAbsent(engine.name() + "/" + mode, key -> {
+            EngineStats engineStats = new EngineStats(engine.priorLatencyMs());
+            Gauge.builder("map.routing.engine.expected-latency", engineStats, EngineStats::expectedLatencyMs)
+                    .tag("engine", engine.name()).tag("mode", mode).baseUnit("milliseconds")
+                    .description("Latence moyenne mobile utilisée par le planificateur").register(registry);
+            Gauge.builder("map.routing.engine.success-rate", engineStats, EngineStats::successRate)
+                    .tag("engine", engine.name()).tag("mode", mode).register(registry);
+            Gauge.builder("map.routing.engine.healthy", engineStats, s -> s.isHealthy(nanoClock.getAsLong()) ? 1 : 0)
+                    .tag("engine", engine.name()).tag("mode", mode).register(registry);
+            return engineStats;
+        });
+    }
+
+    private Timer timer(RoutingEngine engine, String mode, String outcome) {
+        return Timer.builder("map.routing.engine.latency")
+                .tag("engine", engine.name()).tag("mode", mode).tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private Counter counter(String name, RoutingEngine engine, String mode, String tag, String value) {
+        return Counter.builder(name).tag("engine", engine.name()).tag("mode", mode).tag(tag, value).register(registry);
+    }
+
+    // Statistiques d'un couple moteur/mode ; mises à jour concurrentes sérialisées par le moniteur
+    private final class EngineStats {
+        private double latencyMs;
+        private double successRate = 1;
+        private long samples;
+        private int consecutiveFailures;
+        private long openUntilNanos;
+
+        private EngineStats(double priorLatencyMs) {
+            this.latencyMs = priorLatencyMs;
+        }
+
+        synchronized void record(long elapsedNanos, boolean found) {
+            update(elapsedNanos, found ? 1 : 0);
+            consecutiveFailures = 0;
+        }
+
+        synchronized void recordFailure(long elapsedNanos) {
+            update(elapsedNanos, 0);
+            consecutiveFailures++;
+            if (consecutiveFailures >= failureThreshold) {
+                // Écarté pendant le refroidissement, puis de nouveau tenté : un succès le rétablit
+                openUntilNanos = nanoClock.getAsLong() + TimeUnit.MILLISECONDS.toNanos(cooldownMs);
+            }
+        }
+
+        private void update(long elapsedNanos, double success) {
+            double elapsedMs = elapsedNanos / 1_000_000.0;
+            // Premières mesures prises telles quelles, puis moyenne mobile
+            double weight = samples < 5 ? 1.0 / (samples + 1) : alpha;
+            latencyMs += weight * (elapsedMs - latencyMs);
+            successRate += weight * (success - successRate);
+            samples++;
+        }
+
+        synchronized boolean isHealthy(long now) {
+            return consecutiveFailures < failureThreshold || now - openUntilNanos >= 0;
+        }
+
+        synchronized double expectedLatencyMs() {
+            return latencyMs;
+        }
+
+        synchronized double successRate() {
+            return successRate;
+        }
+
+        synchronized Map<String, Object> describe(long now) {
+            Map<String, Object> description = new LinkedHashMap<>();
+            description.put("expectedLatencyMs", Math.round(latencyMs * 10) / 10.0);
+            description.put("successRate", Math.round(successRate * 1000) / 1000.0);
+            description.put("samples", samples);
+            description.put("consecutiveFailures", consecutiveFailures);
+            description.put("healthy", isHealthy(now));
+            return description;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.model.Point;
+import com.example.map_backend.network.Region;
+
+import java.util.List;
+
+/**
+ * Requête passée aux moteurs : points bruts (moteurs externes) et sommets accrochés (moteurs
+ * locaux, -1 si l'accrochage a échoué). region : région qui contient les deux extrémités, null si
+ * elles sont hors de toute région ou dans deux régions différentes. externalAllowed = false limite
+ * le calcul au réseau local.
+ */
+public record RoutingRequest(List<Point> points, String mode, String startPlaceName, String endPlaceName,
+                             long source, long target, Region region, boolean externalAllowed) {
+
+    // Extrémités accrochées à deux sommets distincts : condition des moteurs locaux
+    public boolean isSnapped() {
+        return source >= 0 && target >= 0 && source != target;
+    }
+
+    // Vitesse moyenne du mode (m/s), convertit le coût des arêtes en durée
+    public double speed() {
+        return speed(mode);
+    }
+
+    public static double speed(String mode) {
+        return mode.equals("driving") ? 25 : mode.equals("walking") ? 2 : 8;
+    }
+}
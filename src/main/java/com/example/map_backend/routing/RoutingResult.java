@@ -0,0 +1,47 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.model.Route;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Itinéraires produits par un moteur. Les calculs locaux portent les arêtes et nœuds utilisés,
+ * nécessaires à l'invalidation du cache ; complete = false si le calcul a été interrompu. source et
+ * target : sommets accrochés par le moteur lui-même (requête non accrochée), -1 sinon.
+ */
+public record RoutingResult(String engine, List<Route> routes, Set<Long> usedEdges, Set<Long> usedNodes, boolean complete,
+                            long source, long target) {
+
+    public static final String CACHE = "cache";
+
+    public static RoutingResult local(String engine, List<Route> routes, Set<Long> usedEdges, Set<Long> usedNodes, boolean complete) {
+        return new RoutingResult(engine, routes, usedEdges, usedNodes, complete, -1, -1);
+    }
+
+    public static RoutingResult snapped(String engine, List<Route> routes, Set<Long> usedEdges, Set<Long> usedNodes, boolean complete,
+                                        long source, long target) {
+        return new RoutingResult(engine, routes, usedEdges, usedNodes, complete, source, target);
+    }
+
+    public static RoutingResult external(String engine, List<Route> routes) {
+        return new RoutingResult(engine, routes, null, null, true, -1, -1);
+    }
+
+    public static RoutingResult cached(List<Route> routes) {
+        return new RoutingResult(CACHE, routes, null, null, true, -1, -1);
+    }
+
+    public static RoutingResult empty() {
+        return new RoutingResult(null, List.of(), null, null, true, -1, -1);
+    }
+
+    public boolean fromCache() {
+        return CACHE.equals(engine);
+    }
+
+    // Résultat local complet, pouvant entrer dans le cache d'itinéraires
+    public boolean cacheable() {
+        return usedEdges != null && complete && !routes.isEmpty();
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.Coordinates;
+import com.example.map_backend.model.CorridorPlace;
+import com.example.map_backend.model.CorridorRequestBody;
+import com.example.map_backend.model.Route;
+import com.example.map_backend.network.CorridorSearch;
+import com.example.map_backend.network.LineGeometry;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadNetworkService;
+import com.example.map_backend.repository.PlaceRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Lieux le long d'un itinéraire (stations, pharmacies, marchés...) : couloir de bufferMeters autour
+ * de la ligne, calculé sur l'instantané des lieux en mémoire, avec repli sur une requête SQL unique
+ * tant que l'instantané n'est pas chargé.
+ */
+@Service
+public class CorridorService {
+
+    private final RouteCache routeCache;
+    private final RoadNetworkService roadNetworkService;
+    private final PlaceRepository placeRepository;
+    private final double defaultBufferMeters;
+    private final double maxBufferMeters;
+    private final int defaultLimit;
+    private final int maxLimit;
+    private final double detourFactor;
+
+    public CorridorService(RouteCache routeCache, RoadNetworkService roadNetworkService, PlaceRepository placeRepository,
+                           @Value("${map.corridor.default-buffer-meters:200}") double defaultBufferMeters,
+                           @Value("${map.corridor.max-buffer-meters:2000}") double maxBufferMeters,
+                           @Value("${map.corridor.default-limit:50}") int defaultLimit,
+                           @Value("${map.corridor.max-limit:500}") int maxLimit,
+                           @Value("${map.corridor.detour-factor:1.3}") double detourFactor) {
+        this.routeCache = routeCache;
+        this.roadNetworkService = roadNetworkService;
+        this.placeRepository = placeRepository;
+        this.defaultBufferMeters = defaultBufferMeters;
+        this.maxBufferMeters = maxBufferMeters;
+        this.defaultLimit = defaultLimit;
+        this.maxLimit = maxLimit;
+        this.detourFactor = detourFactor;
+    }
+
+    // NoSuchElementException si la clé d'itinéraire est inconnue ou expirée
+    public List<CorridorPlace> placesAlongRoute(CorridorRequestBody request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Corps de requête requis");
+        }
+        LineGeometry line = resolveLine(request);
+        if (line.isEmpty()) {
+            throw new IllegalArgumentException("Itinéraire sans géométrie");
+        }
+        double buffer = request.getBufferMeters() != null
+                ? Math.max(1, Math.min(maxBufferMeters, request.getBufferMeters()))
+                : defaultBufferMeters;
+        int limit = request.getLimit() != null ? Math.max(1, Math.min(maxLimit, request.getLimit())) : defaultLimit;
+        String query = request.getQuery() != null && !request.getQuery().isBlank()
+                ? PlaceService.normalizeName(request.getQuery())
+                : null;
+        boolean byDetour = "detour".equalsIgnoreCase(request.getOrderBy());
+
+        // Lieux en mémoire de la région du point de départ ; trajet hors région ou région en chargement : repli SQL
+        double[] coordinates = line.coordinates();
+        Region region = roadNetworkService.regions().locate(coordinates[1], coordinates[0]);
+        List<CorridorPlace> places;
+        if (region != null && roadNetworkService.isLoaded(region)) {
+            places = new ArrayList<>();
+            for (CorridorSearch.Hit hit : CorridorSearch.search(roadNetworkService.places(region), line, buffer, detourFactor,
+                    place -> query == null || PlaceService.normalizeName(place.name()).contains(query))) {
+                places.add(toCorridorPlace(hit));
+            }
+        } else {
+            places = placeRepository.findAlongLine(coordinates, line.lengthMeters(), buffer,
+                    query != null ? "%" + query + "%" : null, byDetour ? maxLimit : limit);
+            places.forEach(place -> place.setDetourDistance(2 * place.getDistanceFromRoute() * detourFactor));
+        }
+        if (byDetour) {
+            places.sort(Comparator.comparingDouble(CorridorPlace::getDetourDistance)
+                    .thenComparingDouble(CorridorPlace::getPositionAlongRoute));
+        }
+        return places.size() > limit ? new ArrayList<>(places.subList(0, limit)) : places;
+    }
+
+    private LineGeometry resolveLine(CorridorRequestBody request) {
+        if (request.getRouteKey() != null && !request.getRouteKey().isBlank()) {
+            List<Route> routes = routeCache.get(request.getRouteKey());
+            int index = request.getRouteIndex() != null ? request.getRouteIndex() : 0;
+            if (routes == null || index < 0 || index >= routes.size()) {
+                throw new NoSuchElementException("Itinéraire inconnu ou expiré, renvoyez sa géométrie");
+            }
+            LineGeometry geometry = routes.get(index).getGeometry();
+            return geometry != null ? geometry : LineGeometry.EMPTY;
+        }
+        if (request.getGeometry() != null && !request.getGeometry().isBlank()) {
+            return LineGeometry.parseWkt(request.getGeometry());
+        }
+        throw new IllegalArgumentException("routeKey ou geometry requis");
+    }
+
+    private static CorridorPlace toCorridorPlace(CorridorSearch.Hit hit) {
+        CorridorPlace place = new CorridorPlace();
+        place.setId(hit.place().id());
+        place.setName(hit.place().name());
+        place.setCoordinates(new Coordinates(hit.place().lat(), hit.place().lng()));
+        place.setDistanceFromRoute(hit.offsetMeters());
+        place.setPositionAlongRoute(hit.positionMeters());
+        place.setDetourDistance(hit.detourMeters());
+        return place;
+    }
+}
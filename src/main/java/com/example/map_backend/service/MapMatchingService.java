@@ -0,0 +1,128 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.MatchRequestBody;
+import com.example.map_backend.model.MatchResponse;
+import com.example.map_backend.model.MatchedPoint;
+import com.example.map_backend.model.TracePoint;
+import com.example.map_backend.network.MapMatcher;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.RoadNetworkService;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.logging.Logger;
+import java.util.stream.IntStream;
+
+@Service
+public class MapMatchingService implements DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(MapMatchingService.class.getName());
+
+    private final RoadNetworkService networkService;
+    private final double sigma;
+    private final double beta;
+    private final double searchRadius;
+    private final int maxCandidates;
+    private final int maxPoints;
+    private final ForkJoinPool pool;
+
+    public MapMatchingService(RoadNetworkService networkService,
+                              @Value("${map.matching.sigma-meters:10}") double sigma,
+                              @Value("${map.matching.beta-meters:10}") double beta,
+                              @Value("${map.matching.search-radius-meters:50}") double searchRadius,
+                              @Value("${map.matching.max-candidates:8}") int maxCandidates,
+                              @Value("${map.matching.max-points:20000}") int maxPoints,
+                              @Value("${map.matching.parallelism:0}") int parallelism) {
+        this.networkService = networkService;
+        this.sigma = sigma;
+        this.beta = beta;
+        this.searchRadius = searchRadius;
+        this.maxCandidates = maxCandidates;
+        this.maxPoints = maxPoints;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public MatchResponse match(MatchRequestBody trace) {
+        return match(networkFor(trace), trace);
+    }
+
+    // Les traces d'un lot sont recalées en parallèle, chacune avec son propre espace de travail et le graphe de sa région
+    public List<MatchResponse> matchBatch(List<MatchRequestBody> traces) throws InterruptedException, ExecutionException {
+        if (traces == null || traces.isEmpty()) {
+            throw new IllegalArgumentException("Aucune trace fournie");
+        }
+        List<RoadNetwork> networks = traces.stream().map(this::networkFor).toList();
+        return pool.submit(() -> IntStream.range(0, traces.size()).parallel()
+                .mapToObj(i -> match(networks.get(i), traces.get(i))).toList()).get();
+    }
+
+    // Graphe de la région qui contient le premier point de la trace
+    private RoadNetwork networkFor(MatchRequestBody trace) {
+        if (trace == null || trace.getPoints() == null || trace.getPoints().size() < 2) {
+            throw new IllegalArgumentException("Une trace doit contenir au moins deux points");
+        }
+        if (trace.getPoints().size() > maxPoints) {
+            throw new IllegalArgumentException("Trace trop longue (maximum " + maxPoints + " points)");
+        }
+        TracePoint first = trace.getPoints().get(0);
+        Region region = networkService.regions().locate(first.getLat(), first.getLng());
+        if (region == null) {
+            throw new IllegalArgumentException("Trace hors des régions desservies");
+        }
+        if (!networkService.isLoaded(region)) {
+            throw new IllegalStateException("Réseau routier de la région " + region.name() + " non chargé");
+        }
+        return networkService.network(region);
+    }
+
+    private MatchResponse match(RoadNetwork network, MatchRequestBody trace) {
+        long start = System.nanoTime();
+        List<TracePoint> points = trace.getPoints();
+        // Ordre chronologique pour le recalage ; order[i] = indice dans la trace reçue du i-ème point recalé
+        Integer[] order = new Integer[points.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        if (points.stream().allMatch(p -> p.getTimestamp() != null)) {
+            Arrays.sort(order, (a, b) -> Long.compare(points.get(a).getTimestamp(), points.get(b).getTimestamp()));
+        }
+        double[] lats = new double[points.size()];
+        double[] lngs = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            lats[i] = points.get(order[i]).getLat();
+            lngs[i] = points.get(order[i]).getLng();
+        }
+
+        MapMatcher.Result result = new MapMatcher(network, sigma, beta, searchRadius, maxCandidates).match(lats, lngs);
+
+        List<MatchedPoint> matched = new ArrayList<>(result.snaps().size());
+        for (MapMatcher.Snap snap : result.snaps()) {
+            matched.add(new MatchedPoint(order[snap.pointIndex()], network.edgeAt(snap.edgeIndex()).id(),
+                    snap.lat(), snap.lng(), snap.distance()));
+        }
+        MatchResponse response = new MatchResponse();
+        response.setTraceId(trace.getTraceId());
+        response.setPoints(matched);
+        response.setEdgeIds(Arrays.stream(result.edgeIds()).boxed().toList());
+        response.setDistance(result.distance());
+        response.setUnmatchedPoints(result.unmatched());
+        if (matched.isEmpty()) {
+            response.setError("Aucun point de la trace n'est proche du réseau routier");
+        }
+        LOGGER.fine("Trace " + trace.getTraceId() + " : " + points.size() + " points recalés en "
+                + (System.nanoTime() - start) / 1_000 + " µs");
+        return response;
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,202 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.config.DeadlineExceededException;
+import com.example.map_backend.config.RequestDeadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.logging.Logger;
+
+/**
+ * Regroupe les recherches concurrentes arrivées dans une courte fenêtre (ou jusqu'à maxBatchSize)
+ * en un seul appel au chargeur, exécuté sur un pool dédié ; chaque appelant attend sa propre
+ * réponse dans la limite de son échéance. Le chargeur renvoie une réponse par requête, dans l'ordre.
+ */
+public final class MicroBatcher<Q, R> implements AutoCloseable {
+
+    private static final Logger LOGGER = Logger.getLogger(MicroBatcher.class.getName());
+
+    private final String name;
+    private final long windowMicros;
+    private final int maxBatchSize;
+    private final Function<List<Q>, List<R>> loader;
+    private final ScheduledExecutorService timer;
+    private final ExecutorService workers;
+
+    private final DistributionSummary batchSize;
+    private final DistributionSummary batchFill;
+    private final Timer waitTimer;
+    private final Timer queryTimer;
+    private final Counter failures;
+
+    private final Object lock = new Object();
+    private List<Pending<Q, R>> pending = new ArrayList<>();
+    private long generation;
+
+    public MicroBatcher(String name, long windowMicros, int maxBatchSize, int threads,
+                        Function<List<Q>, List<R>> loader, MeterRegistry registry) {
+        this.name = name;
+        this.windowMicros = windowMicros;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.loader = loader;
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> daemon(runnable, "batch-" + name + "-timer"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> daemon(runnable, "batch-" + name));
+        this.batchSize = DistributionSummary.builder("map.batch.size").tag("batcher", name)
+                .description("Requêtes regroupées par lot").register(registry);
+        this.batchFill = DistributionSummary.builder("map.batch.fill").tag("batcher", name)
+                .description("Remplissage du lot (taille / taille maximale)").register(registry);
+        this.waitTimer = Timer.builder("map.batch.wait").tag("batcher", name)
+                .description("Latence ajoutée par la fenêtre de regroupement").register(registry);
+        this.queryTimer = Timer.builder("map.batch.query").tag("batcher", name)
+                .description("Durée de la requête groupée").register(registry);
+        this.failures = Counter.builder("map.batch.failures").tag("batcher", name).register(registry);
+    }
+
+    // Réponse à une requête, éventuellement groupée avec d'autres ; bloque au plus jusqu'à l'échéance
+    public R get(Q query) {
+        return getAll(List.of(query)).get(0);
+    }
+
+    // Plusieurs requêtes du même appelant, placées dans le même lot quand la fenêtre le permet
+    public List<R> getAll(List<Q> queries) {
+        if (windowMicros <= 0) {
+            return loader.apply(queries);
+        }
+        long budget = RequestDeadline.remainingMillis();
+        List<Pending<Q, R>> items = new ArrayList<>(queries.size());
+        for (Q query : queries) {
+            Pending<Q, R> item = new Pending<>(query, budget);
+            items.add(item);
+            submit(item);
+        }
+        List<R> results = new ArrayList<>(items.size());
+        try {
+            for (Pending<Q, R> item : items) {
+                long remaining = RequestDeadline.remainingMillis();
+                results.add(remaining == Long.MAX_VALUE
+                        ? item.future.get()
+                        : item.future.get(Math.max(0, remaining), TimeUnit.MILLISECONDS));
+            }
+            return results;
+        } catch (TimeoutException e) {
+            throw new DeadlineExceededException("Délai de la requête dépassé");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recherche interrompue", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof RuntimeException runtime ? runtime : new IllegalStateException(cause);
+        }
+    }
+
+    private void submit(Pending<Q, R> item) {
+        List<Pending<Q, R>> full = null;
+        synchronized (lock) {
+            pending.add(item);
+            if (pending.size() >= maxBatchSize) {
+                full = takeBatch();
+            } else if (pending.size() == 1) {
+                long batch = generation;
+                timer.schedule(() -> flush(batch), windowMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+        if (full != null) {
+            dispatch(full);
+        }
+    }
+
+    // Fin de fenêtre : ignorée si le lot est déjà parti parce qu'il était plein
+    private void flush(long batch) {
+        List<Pending<Q, R>> items;
+        synchronized (lock) {
+            if (batch != generation || pending.isEmpty()) {
+                return;
+            }
+            items = takeBatch();
+        }
+        dispatch(items);
+    }
+
+    private List<Pending<Q, R>> takeBatch() {
+        List<Pending<Q, R>> items = pending;
+        pending = new ArrayList<>();
+        generation++;
+        return items;
+    }
+
+    private void dispatch(List<Pending<Q, R>> items) {
+        try {
+            workers.execute(() -> run(items));
+        } catch (RuntimeException e) {
+            items.forEach(item -> item.future.completeExceptionally(e));
+        }
+    }
+
+    private void run(List<Pending<Q, R>> items) {
+        long start = System.nanoTime();
+        long budget = Long.MIN_VALUE;
+        List<Q> queries = new ArrayList<>(items.size());
+        for (Pending<Q, R> item : items) {
+            waitTimer.record(start - item.submittedNanos, TimeUnit.NANOSECONDS);
+            queries.add(item.query);
+            budget = item.budgetMs == Long.MAX_VALUE ? Long.MAX_VALUE
+                    : Math.max(budget, item.budgetMs - (start - item.submittedNanos) / 1_000_000);
+        }
+        batchSize.record(items.size());
+        batchFill.record((double) items.size() / maxBatchSize);
+        // Le lot hérite de l'échéance la plus lointaine de ses appelants (timeouts JDBC) : un appelant presque
+        // à court de budget n'annule pas la requête des autres, il cesse seulement d'attendre (getAll)
+        if (budget != Long.MAX_VALUE) {
+            RequestDeadline.start(Math.max(1, budget));
+        }
+        try {
+            List<R> results = loader.apply(queries);
+            for (int i = 0; i < items.size(); i++) {
+                items.get(i).future.complete(i < results.size() ? results.get(i) : null);
+            }
+        } catch (RuntimeException e) {
+            failures.increment();
+            LOGGER.warning("Lot " + name + " de " + items.size() + " requêtes en échec : " + e.getMessage());
+            items.forEach(item -> item.future.completeExceptionally(e));
+        } finally {
+            RequestDeadline.clear();
+            queryTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    public void close() {
+        timer.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static final class Pending<Q, R> {
+        private final Q query;
+        private final long budgetMs;
+        private final long submittedNanos = System.nanoTime();
+        private final CompletableFuture<R> future = new CompletableFuture<>();
+
+        private Pending(Q query, long budgetMs) {
+            this.query = query;
+            this.budgetMs = budgetMs;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.Coordinates;
+import com.example.map_backend.model.Place;
+import com.example.map_backend.model.Point;
+import com.example.map_backend.network.RegionRegistry;
+import com.example.map_backend.repository.PlaceRepository;
+import com.example.map_backend.repository.RoadNetworkRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Recherches de proximité (sommet routier le plus proche, lieu le plus proche) regroupées par
+ * micro-lots : sous charge, les recherches concurrentes partent en une seule requête SQL au lieu
+ * d'un aller-retour chacune. Fenêtre nulle = une requête par appel, sans regroupement.
+ */
+@Service
+public class NearestLookupService implements DisposableBean {
+
+    private final MicroBatcher<double[], Long> vertexBatcher;
+    private final MicroBatcher<Coordinates, Place> placeBatcher;
+
+    public NearestLookupService(RoadNetworkRepository roadNetworkRepository, PlaceRepository placeRepository,
+                                RegionRegistry regionRegistry, MeterRegistry meterRegistry,
+                                @Value("${map.batching.window-micros:2000}") long windowMicros,
+                                @Value("${map.batching.max-batch-size:64}") int maxBatchSize,
+                                @Value("${map.batching.threads:4}") int threads,
+                                @Value("${map.routing.snap-candidates:8}") int snapCandidates) {
+        this.vertexBatcher = new MicroBatcher<>("vertices", windowMicros, maxBatchSize, threads, points -> {
+            double[] lngs = new double[points.size()];
+            double[] lats = new double[points.size()];
+            for (int i = 0; i < points.size(); i++) {
+                lngs[i] = points.get(i)[0];
+                lats[i] = points.get(i)[1];
+            }
+            long[] nodes = roadNetworkRepository.findNearestVertices(lngs, lats, snapCandidates);
+            List<Long> result = new ArrayList<>(nodes.length);
+            for (long node : nodes) {
+                result.add(node);
+            }
+            return result;
+        }, meterRegistry);
+        // Chaque point est cherché dans la région la plus proche, comme avant dans l'emprise unique
+        this.placeBatcher = new MicroBatcher<>("places", windowMicros, maxBatchSize, threads,
+                points -> placeRepository.findClosestPlaces(points,
+                        points.stream().map(point -> regionRegistry.nearest(point.getLat(), point.getLng())).toList()),
+                meterRegistry);
+    }
+
+    // Sommets de routes_vertices les plus proches, -1 pour un point sans sommet
+    public long[] nearestVertices(Point... points) {
+        List<double[]> queries = new ArrayList<>(points.length);
+        for (Point point : points) {
+            queries.add(new double[]{point.getLng(), point.getLat()});
+        }
+        List<Long> nodes = vertexBatcher.getAll(queries);
+        long[] result = new long[nodes.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = nodes.get(i) != null ? nodes.get(i) : -1;
+        }
+        return result;
+    }
+
+    // null si aucun lieu dans la région la plus proche
+    public Place closestPlace(double lat, double lng) {
+        return placeBatcher.get(new Coordinates(lat, lng));
+    }
+
+    @Override
+    public void destroy() {
+        vertexBatcher.close();
+        placeBatcher.close();
+    }
+}
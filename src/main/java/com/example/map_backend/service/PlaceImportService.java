@@ -0,0 +1,275 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.Coordinates;
+import com.example.map_backend.model.Place;
+import com.example.map_backend.model.PlaceImportReport;
+import com.example.map_backend.repository.PlaceRepository;
+import com.example.map_backend.network.RegionRegistry;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Import en masse de lieux depuis un export GeoJSON (FeatureCollection de points) ou CSV.
+ * L'entrée est lue en flux et écrite par blocs bornés via COPY ; seuls le bloc courant et les
+ * clés de dédoublonnage (nom normalisé + position arrondie) restent en mémoire.
+ */
+@Service
+public class PlaceImportService {
+
+    private static final Logger LOGGER = Logger.getLogger(PlaceImportService.class.getName());
+    private static final int MAX_SAMPLES = 20;
+
+    private final PlaceRepository placeRepository;
+    private final RegionRegistry regionRegistry;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+    private final double duplicateToleranceDegrees;
+
+    public PlaceImportService(PlaceRepository placeRepository,
+                              RegionRegistry regionRegistry,
+                              ObjectMapper objectMapper,
+                              @Value("${map.import.chunk-size:5000}") int chunkSize,
+                              @Value("${map.import.duplicate-tolerance-degrees:0.0002}") double duplicateToleranceDegrees) {
+        this.placeRepository = placeRepository;
+        this.regionRegistry = regionRegistry;
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+        this.duplicateToleranceDegrees = duplicateToleranceDegrees;
+    }
+
+    public PlaceImportReport importPlaces(InputStream input, String format) throws IOException {
+        String normalizedFormat = format == null ? "" : format.trim().toLowerCase(Locale.ROOT);
+        if (!normalizedFormat.equals("geojson") && !normalizedFormat.equals("csv")) {
+            throw new IllegalArgumentException("Format d'import non supporté : " + format + " (geojson ou csv)");
+        }
+        Batch batch = new Batch(normalizedFormat);
+        if (normalizedFormat.equals("geojson")) {
+            readGeoJson(input, batch);
+        } else {
+            readCsv(input, batch);
+        }
+        return batch.finish();
+    }
+
+    private void readGeoJson(InputStream input, Batch batch) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken token = parser.nextToken();
+            if (token == JsonToken.START_OBJECT) {
+                // Avancer jusqu'au tableau "features" sans charger le reste du document
+                while ((token = parser.nextToken()) != null && token != JsonToken.END_OBJECT) {
+                    if (token == JsonToken.FIELD_NAME && "features".equals(parser.currentName())) {
+                        parser.nextToken();
+                        break;
+                    }
+                    parser.nextToken();
+                    parser.skipChildren();
+                }
+            }
+            if (parser.currentToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("GeoJSON invalide : tableau \"features\" introuvable");
+            }
+            long index = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                index++;
+                JsonNode feature = objectMapper.readTree(parser);
+                JsonNode geometry = feature.path("geometry");
+                if (!"Point".equals(geometry.path("type").asText())) {
+                    batch.skip(index, "géométrie non ponctuelle");
+                    continue;
+                }
+                JsonNode coordinates = geometry.path("coordinates");
+                JsonNode properties = feature.path("properties");
+                String name = firstText(properties, "name", "nom", "name:fr");
+                Double lng = coordinates.size() >= 2 && coordinates.get(0).isNumber() ? coordinates.get(0).asDouble() : null;
+                Double lat = coordinates.size() >= 2 && coordinates.get(1).isNumber() ? coordinates.get(1).asDouble() : null;
+                batch.accept(index, name, lat, lng);
+            }
+        }
+    }
+
+    private static String firstText(JsonNode properties, String... fields) {
+        for (String field : fields) {
+            JsonNode value = properties.get(field);
+            if (value != null && value.isTextual() && !value.asText().isBlank()) {
+                return value.asText();
+            }
+        }
+        return null;
+    }
+
+    // CSV avec en-tête (nom|name, lat|latitude, lng|lon|longitude), séparateur ',' ou ';'
+    private void readCsv(InputStream input, Batch batch) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IllegalArgumentException("Fichier CSV vide");
+        }
+        if (header.startsWith("\uFEFF")) {
+            header = header.substring(1);
+        }
+        char separator = header.indexOf(';') >= 0 && header.indexOf(',') < 0 ? ';' : ',';
+        List<String> columns = splitCsv(header, separator);
+        int nameColumn = findColumn(columns, "nom", "name");
+        int latColumn = findColumn(columns, "lat", "latitude", "y");
+        int lngColumn = findColumn(columns, "lng", "lon", "longitude", "x");
+        if (nameColumn < 0 || latColumn < 0 || lngColumn < 0) {
+            throw new IllegalArgumentException("En-tête CSV invalide : colonnes nom, lat et lng attendues");
+        }
+        String line;
+        long index = 1;
+        while ((line = reader.readLine()) != null) {
+            index++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsv(line, separator);
+            int needed = Math.max(nameColumn, Math.max(latColumn, lngColumn));
+            if (fields.size() <= needed) {
+                batch.skip(index, "nombre de colonnes insuffisant");
+                continue;
+            }
+            batch.accept(index, fields.get(nameColumn), parseDouble(fields.get(latColumn)), parseDouble(fields.get(lngColumn)));
+        }
+    }
+
+    private static int findColumn(List<String> columns, String... names) {
+        for (int i = 0; i < columns.size(); i++) {
+            String column = columns.get(i).trim().toLowerCase(Locale.ROOT);
+            for (String name : names) {
+                if (column.equals(name)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static List<String> splitCsv(String line, char separator) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == separator) {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static Double parseDouble(String value) {
+        try {
+            return Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    // État d'un import : bloc courant, clés déjà vues et compteurs du rapport
+    private class Batch {
+        private final PlaceImportReport report = new PlaceImportReport();
+        private final List<Place> chunk = new ArrayList<>(chunkSize);
+        private final Set<String> seen = new HashSet<>();
+        private final long start = System.nanoTime();
+
+        Batch(String format) {
+            report.setFormat(format);
+        }
+
+        void accept(long index, String rawName, Double lat, Double lng) {
+            report.setRead(report.getRead() + 1);
+            String name = PlaceService.normalizeName(rawName);
+            if (name.isEmpty()) {
+                reject(index, "nom manquant");
+                return;
+            }
+            if (lat == null || lng == null || lat.isNaN() || lng.isNaN() || lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+                reject(index, "coordonnées invalides");
+                return;
+            }
+            if (!regionRegistry.contains(lat, lng)) {
+                reject(index, "hors des régions desservies");
+                return;
+            }
+            if (!seen.add(name + '|' + Math.round(lat / duplicateToleranceDegrees) + '|' + Math.round(lng / duplicateToleranceDegrees))) {
+                reject(index, "doublon dans le fichier");
+                return;
+            }
+            chunk.add(new Place(null, name, new Coordinates(lat, lng)));
+            if (chunk.size() >= chunkSize) {
+                flush();
+            }
+        }
+
+        // Élément illisible : compté comme lu puis rejeté
+        void skip(long index, String reason) {
+            report.setRead(report.getRead() + 1);
+            reject(index, reason);
+        }
+
+        private void reject(long index, String reason) {
+            report.setRejected(report.getRejected() + 1);
+            report.getRejectedByReason().merge(reason, 1L, Long::sum);
+            if (report.getRejectedSamples().size() < MAX_SAMPLES) {
+                report.getRejectedSamples().add("élément " + index + " : " + reason);
+            }
+        }
+
+        private void flush() {
+            if (chunk.isEmpty()) {
+                return;
+            }
+            int inserted = placeRepository.copyPlaces(chunk, duplicateToleranceDegrees);
+            int existing = chunk.size() - inserted;
+            report.setInserted(report.getInserted() + inserted);
+            if (existing > 0) {
+                report.setRejected(report.getRejected() + existing);
+                report.getRejectedByReason().merge("déjà présent en base", (long) existing, Long::sum);
+            }
+            report.setChunks(report.getChunks() + 1);
+            chunk.clear();
+        }
+
+        PlaceImportReport finish() {
+            flush();
+            long elapsedNanos = System.nanoTime() - start;
+            report.setElapsedMs(elapsedNanos / 1_000_000);
+            report.setRowsPerSecond(elapsedNanos > 0 ? report.getRead() * 1e9 / elapsedNanos : 0);
+            LOGGER.info("Import " + report.getFormat() + " : " + report.getRead() + " lus, " + report.getInserted()
+                    + " insérés, " + report.getRejected() + " rejetés en " + report.getElapsedMs() + " ms ("
+                    + Math.round(report.getRowsPerSecond()) + " lignes/s)");
+            return report;
+        }
+    }
+}
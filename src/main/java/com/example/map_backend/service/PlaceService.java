@@ -1,13 +1,22 @@
 package com.example.map_backend.service;
 
+import com.example.map_backend.config.RequestDeadline;
+import com.example.map_backend.diagnostics.MapEvents;
 import com.example.map_backend.model.Coordinates;
 import com.example.map_backend.model.Place;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadNetworkService;
 import com.example.map_backend.repository.PlaceRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.text.Normalizer;
+import java.time.Duration;
 import java.util.List;
 import java.util.logging.Logger;
 
@@ -17,31 +26,72 @@ public class PlaceService {
     private static final Logger LOGGER = Logger.getLogger(PlaceService.class.getName());
 
     private final PlaceRepository placeRepository;
+    private final RoadNetworkService roadNetworkService;
+    private final NearestLookupService nearestLookupService;
     private final WebClient webClient;
+    private final long upstreamTimeoutMs;
 
-    public PlaceService(PlaceRepository placeRepository, WebClient.Builder webClientBuilder) {
+    public PlaceService(PlaceRepository placeRepository, RoadNetworkService roadNetworkService,
+                        NearestLookupService nearestLookupService, @Qualifier("nominatimWebClient") WebClient nominatimWebClient,
+                        @Value("${map.deadline.upstream-timeout-ms:10000}") long upstreamTimeoutMs) {
         this.placeRepository = placeRepository;
-        this.webClient = webClientBuilder.baseUrl("https://nominatim.openstreetmap.org").build();
+        this.roadNetworkService = roadNetworkService;
+        this.nearestLookupService = nearestLookupService;
+        this.upstreamTimeoutMs = upstreamTimeoutMs;
+        this.webClient = nominatimWebClient;
     }
 
-    public List<Place> searchPlaces(String name) {
+    // Version des lieux suivie par le flux de changements, null si elle n'est pas fiable
+    public Long dataVersion() {
+        return roadNetworkService.isLoaded() ? roadNetworkService.version() : null;
+    }
+
+    // Région nommée, sinon celle de la position fournie (la plus proche), sinon la région par défaut
+    public Region resolveRegion(String regionName, Double lat, Double lng) {
+        if (regionName != null && !regionName.isBlank()) {
+            Region region = roadNetworkService.regions().byName(regionName.trim());
+            if (region == null) {
+                throw new IllegalArgumentException("Région inconnue : " + regionName);
+            }
+            return region;
+        }
+        if (lat != null && lng != null) {
+            return roadNetworkService.regions().nearest(lat, lng);
+        }
+        return roadNetworkService.regions().defaultRegion();
+    }
+
+    public List<Place> searchPlaces(String name, Region region) {
         if (name == null || name.trim().isEmpty()) {
             throw new IllegalArgumentException("Le paramètre name est requis");
         }
         String normalizedName = normalizeName(name);
-        LOGGER.info("Recherche dans la base pour : " + normalizedName + " (original: " + name + ")");
-        List<Place> places = placeRepository.findByNameContaining(normalizedName);
+        LOGGER.info("Recherche dans la base pour : " + normalizedName + " (original: " + name + ", région : " + region.name() + ")");
+        List<Place> places = findByName(normalizedName, region);
         if (places.isEmpty()) {
             LOGGER.info("Aucun lieu trouvé dans la base, recherche dans OSM pour : " + name);
-            Place osmPlace = searchPlaceInOSM(name).block(); // Blocking pour simplicité
+            MapEvents.NominatimCall call = new MapEvents.NominatimCall();
+            call.begin();
+            Place osmPlace = searchPlaceInOSM(name, region).block(); // Blocking pour simplicité
+            if (call.shouldCommit()) {
+                call.queryLength = name.length();
+                call.found = osmPlace != null;
+                call.commit();
+            }
             if (osmPlace != null) {
                 LOGGER.info("Lieu OSM trouvé : " + osmPlace.getName() + " (" + osmPlace.getCoordinates().getLat() + ", " + osmPlace.getCoordinates().getLng() + ")");
-                if (isWithinYaounde(osmPlace.getCoordinates().getLat(), osmPlace.getCoordinates().getLng())) {
+                if (region.contains(osmPlace.getCoordinates().getLat(), osmPlace.getCoordinates().getLng())) {
+                    MapEvents.PlaceInsert insert = new MapEvents.PlaceInsert();
+                    insert.begin();
                     placeRepository.savePlace(osmPlace);
+                    if (insert.shouldCommit()) {
+                        insert.nameLength = osmPlace.getName().length();
+                        insert.commit();
+                    }
                     LOGGER.info("Lieu inséré dans la base, re-recherche pour : " + normalizedName);
-                    places = placeRepository.findByNameContaining(normalizedName);
+                    places = findByName(normalizedName, region);
                 } else {
-                    LOGGER.warning("Lieu hors de Yaoundé : " + osmPlace.getName());
+                    LOGGER.warning("Lieu hors de la région " + region.name() + " : " + osmPlace.getName());
                 }
             } else {
                 LOGGER.info("Aucun lieu trouvé dans OSM pour : " + name);
@@ -52,33 +102,53 @@ public class PlaceService {
         return places;
     }
 
+    private List<Place> findByName(String normalizedName, Region region) {
+        MapEvents.PlaceSearch event = new MapEvents.PlaceSearch();
+        event.begin();
+        List<Place> places = placeRepository.findByNameContaining(normalizedName, region);
+        if (event.shouldCommit()) {
+            event.queryLength = normalizedName.length();
+            event.results = places.size();
+            event.commit();
+        }
+        return places;
+    }
+
     public Place findClosestPlace(double lat, double lng) {
         if (Double.isNaN(lat) || Double.isNaN(lng) || lat < -90 || lat > 90 || lng < -180 || lng > 180) {
             throw new IllegalArgumentException("Coordonnées invalides : latitude doit être entre -90 et 90, longitude entre -180 et 180");
         }
-        return placeRepository.findClosestPlace(lat, lng);
+        try {
+            return nearestLookupService.closestPlace(lat, lng);
+        } catch (QueryTimeoutException e) {
+            throw e;
+        } catch (DataAccessException e) {
+            LOGGER.warning("Recherche du lieu le plus proche en échec : " + e.getMessage());
+            return null;
+        }
     }
 
-    private Mono<Place> searchPlaceInOSM(String name) {
+    private Mono<Place> searchPlaceInOSM(String name, Region region) {
         return webClient.get()
                 .uri(uriBuilder -> {
                     java.net.URI uri = uriBuilder
                             .path("/search")
-                            .queryParam("q", name + ", Yaoundé")
+                            .queryParam("q", name + ", " + region.label())
                             .queryParam("format", "json")
                             .queryParam("limit", 1)
                             .queryParam("bounded", 1)
-                            .queryParam("viewbox", "11.4,3.95,11.6,3.75")
+                            .queryParam("viewbox", region.viewbox())
                             .queryParam("accept-language", "fr")
                             .build();
                     LOGGER.info("URL OSM : " + uri.toString());
                     return uri;
                 })
-                .header("User-Agent", "map-backend/1.0")
                 .retrieve()
                 .bodyToFlux(OsmPlace.class)
                 .doOnNext(osmPlace -> LOGGER.info("Réponse OSM brute : lat=" + osmPlace.getLat() + ", lon=" + osmPlace.getLon() + ", name=" + osmPlace.getName() + ", display_name=" + osmPlace.getDisplayName()))
                 .next()
+                // Borné par le budget de la requête ; l'expiration annule l'appel et retombe sur onErrorResume
+                .timeout(RequestDeadline.timeout(Duration.ofMillis(upstreamTimeoutMs)))
                 .map(osmPlace -> {
                     String formattedName = normalizeName(osmPlace.getName()); // Normaliser avant insertion
                     LOGGER.info("Nom formaté : " + formattedName);
@@ -93,13 +163,8 @@ public class PlaceService {
                 });
     }
 
-    private boolean isWithinYaounde(double lat, double lng) {
-        boolean within = lat >= 3.75 && lat <= 3.95 && lng >= 11.4 && lng <= 11.6;
-        LOGGER.info("Validation Yaoundé : lat=" + lat + ", lng=" + lng + ", dans Yaoundé=" + within);
-        return within;
-    }
-
-    private String normalizeName(String name) {
+    // Partagée avec l'import en masse pour que les noms stockés suivent les mêmes règles
+    public static String normalizeName(String name) {
         // Normaliser : supprimer les accents et convertir en minuscules
         if (name == null) return "";
         String normalized = Normalizer.normalize(name, Normalizer.Form.NFD);
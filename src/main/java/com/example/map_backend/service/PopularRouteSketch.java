@@ -0,0 +1,164 @@
+package com.example.map_backend.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Paires origine/destination les plus demandées, sur les nœuds déjà accrochés au réseau (aucune
+ * coordonnée brute n'est conservée). Count-min sketch pour les fréquences et tas des K premières
+ * paires ; les compteurs sont divisés par deux périodiquement pour suivre l'activité récente.
+ * Chemin d'enregistrement sans verrou : compteurs atomiques, et le tas n'est touché que lorsqu'une
+ * paire absente du classement dépasse son minimum. Les scores du tas sont mis à jour paresseusement
+ * (un score périmé est corrigé quand il remonte au sommet).
+ */
+@Component
+public class PopularRouteSketch {
+
+    public record Pair(String mode, long source, long target, long hits) {
+    }
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L
+    };
+
+    private final int width;
+    private final int topK;
+    private final AtomicLongArray counters;
+    private final Map<String, Entry> top = new ConcurrentHashMap<>();
+    // Un créneau par entrée du classement, avec le score qu'elle avait à son insertion dans le tas
+    private final PriorityQueue<Slot> heap = new PriorityQueue<>(Comparator.comparingLong(Slot::hits));
+    // Minorant du plus petit score du classement (les scores ne font que croître entre deux décroissances)
+    private volatile long threshold;
+
+    public PopularRouteSketch(@Value("${map.warmup.sketch-width:4096}") int width,
+                              @Value("${map.warmup.top-k:200}") int topK) {
+        this.width = width;
+        this.topK = topK;
+        this.counters = new AtomicLongArray(SEEDS.length * width);
+    }
+
+    public void record(String mode, long source, long target) {
+        add(mode, source, target, 1);
+    }
+
+    // Réinjecte les paires persistées par l'instance précédente
+    public void seed(List<Pair> pairs) {
+        for (Pair pair : pairs) {
+            add(pair.mode(), pair.source(), pair.target(), pair.hits());
+        }
+    }
+
+    public List<Pair> top(int limit) {
+        List<Pair> pairs = new ArrayList<>(top.size());
+        for (Entry entry : top.values()) {
+            pairs.add(new Pair(entry.mode, entry.source, entry.target, entry.hits.get()));
+        }
+        pairs.sort(Comparator.comparingLong(Pair::hits).reversed());
+        return new ArrayList<>(pairs.subList(0, Math.min(limit, pairs.size())));
+    }
+
+    @Scheduled(fixedDelayString = "${map.warmup.decay-interval-ms:3600000}",
+            initialDelayString = "${map.warmup.decay-interval-ms:3600000}")
+    // Un enregistrement concurrent peut échapper à la division : sans importance pour une estimation
+    public synchronized void decay() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.updateAndGet(i, value -> value >> 1);
+        }
+        heap.clear();
+        top.values().removeIf(entry -> entry.hits.updateAndGet(value -> value >> 1) == 0);
+        for (Entry entry : top.values()) {
+            heap.add(new Slot(entry, entry.hits.get()));
+        }
+        threshold = heap.isEmpty() ? 0 : heap.peek().hits();
+    }
+
+    private void add(String mode, long source, long target, long hits) {
+        long hash = hash(mode, source, target);
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int column = (int) Long.remainderUnsigned(mix(hash ^ SEEDS[row]), width);
+            estimate = Math.min(estimate, counters.addAndGet(row * width + column, hits));
+        }
+
+        String key = RouteCache.key(mode, source, target);
+        Entry entry = top.get(key);
+        if (entry != null) {
+            entry.hits.accumulateAndGet(estimate, Math::max);
+        } else if (top.size() < topK || estimate > threshold) {
+            admit(key, mode, source, target, estimate);
+        }
+    }
+
+    // Entrée dans le classement, éventuellement à la place du plus petit score
+    private synchronized void admit(String key, String mode, long source, long target, long estimate) {
+        Entry existing = top.get(key);
+        if (existing != null) {
+            existing.hits.accumulateAndGet(estimate, Math::max);
+            return;
+        }
+        if (top.size() >= topK) {
+            Slot min = minimum();
+            if (min == null || min.hits() >= estimate) {
+                threshold = min != null ? min.hits() : 0;
+                return;
+            }
+            heap.poll();
+            top.remove(RouteCache.key(min.entry().mode, min.entry().source, min.entry().target));
+        }
+        Entry entry = new Entry(mode, source, target, estimate);
+        top.put(key, entry);
+        heap.add(new Slot(entry, estimate));
+        threshold = top.size() < topK ? 0 : heap.peek().hits();
+    }
+
+    // Sommet du tas une fois son score à jour : les créneaux périmés sont réinsérés avec le score courant
+    private Slot minimum() {
+        while (!heap.isEmpty()) {
+            Slot slot = heap.peek();
+            long current = slot.entry().hits.get();
+            if (current == slot.hits()) {
+                return slot;
+            }
+            heap.poll();
+            heap.add(new Slot(slot.entry(), current));
+        }
+        return null;
+    }
+
+    private static long hash(String mode, long source, long target) {
+        return mix(mix(source * 31 + target) ^ mode.hashCode());
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static final class Entry {
+        private final String mode;
+        private final long source;
+        private final long target;
+        private final AtomicLong hits;
+
+        private Entry(String mode, long source, long target, long hits) {
+            this.mode = mode;
+            this.source = source;
+            this.target = target;
+            this.hits = new AtomicLong(hits);
+        }
+    }
+
+    private record Slot(Entry entry, long hits) {
+    }
+}
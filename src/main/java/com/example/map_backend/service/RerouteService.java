@@ -0,0 +1,243 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.Point;
+import com.example.map_backend.model.RerouteRequestBody;
+import com.example.map_backend.model.Route;
+import com.example.map_backend.model.RouteResponse;
+import com.example.map_backend.model.RouteStep;
+import com.example.map_backend.network.GeoUtils;
+import com.example.map_backend.network.LineGeometry;
+import com.example.map_backend.network.PlaceIndex;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.RoadNetworkService;
+import com.example.map_backend.network.RouteRejoin;
+import com.example.map_backend.network.StepBuilder;
+import com.example.map_backend.routing.RoutingRequest;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Recalcul d'itinéraire pour un véhicule sorti du trajet suggéré : la suite de l'ancien itinéraire
+ * (en cache sous sa routeKey) est conservée et seul le raccordement depuis la position actuelle est
+ * cherché, par un Dijkstra borné sur le graphe en mémoire de la région, sans accrochage SQL. Sans
+ * jonction dans les bornes ou sans graphe chargé, repli sur un calcul complet vers la même destination.
+ */
+@Service
+public class RerouteService {
+
+    private static final Logger LOGGER = Logger.getLogger(RerouteService.class.getName());
+
+    private final RouteCache routeCache;
+    private final RoadNetworkService roadNetworkService;
+    private final TrafficService trafficService;
+    private final RouteService routeService;
+    private final MeterRegistry meterRegistry;
+    private final double snapRadiusMeters;
+    private final double maxConnectionMeters;
+    private final int maxSettledNodes;
+    private final double turnThresholdDegrees;
+
+    public RerouteService(RouteCache routeCache, RoadNetworkService roadNetworkService, TrafficService trafficService,
+                          RouteService routeService, MeterRegistry meterRegistry,
+                          @Value("${map.reroute.snap-radius-meters:250}") double snapRadiusMeters,
+                          @Value("${map.reroute.max-connection-meters:3000}") double maxConnectionMeters,
+                          @Value("${map.reroute.max-settled-nodes:20000}") int maxSettledNodes,
+                          @Value("${map.routing.steps.turn-threshold-degrees:30}") double turnThresholdDegrees) {
+        this.routeCache = routeCache;
+        this.roadNetworkService = roadNetworkService;
+        this.trafficService = trafficService;
+        this.routeService = routeService;
+        this.meterRegistry = meterRegistry;
+        this.snapRadiusMeters = snapRadiusMeters;
+        this.maxConnectionMeters = maxConnectionMeters;
+        this.maxSettledNodes = maxSettledNodes;
+        this.turnThresholdDegrees = turnThresholdDegrees;
+    }
+
+    // NoSuchElementException si la clé d'itinéraire est inconnue ou expirée
+    public RouteResponse reroute(RerouteRequestBody request) {
+        if (request == null || request.getRouteKey() == null || request.getRouteKey().isBlank()) {
+            throw new IllegalArgumentException("routeKey requis");
+        }
+        Point position = request.getPosition();
+        if (position == null || position.getLat() < -90 || position.getLat() > 90 || position.getLng() < -180 || position.getLng() > 180) {
+            throw new IllegalArgumentException("Position actuelle absente ou invalide");
+        }
+        // mode:source:target, suivi de ":r" pour un itinéraire déjà recalculé
+        String[] keyParts = request.getRouteKey().split(":");
+        if (keyParts.length < 3) {
+            throw new IllegalArgumentException("routeKey invalide");
+        }
+        String mode = keyParts[0];
+        long target = Long.parseLong(keyParts[2]);
+        List<Route> routes = routeCache.get(request.getRouteKey());
+        int index = request.getRouteIndex() != null ? request.getRouteIndex() : 0;
+        if (routes == null || index < 0 || index >= routes.size()) {
+            throw new NoSuchElementException("Itinéraire inconnu ou expiré, recalculez-le depuis la position actuelle");
+        }
+        Route previous = routes.get(index);
+        LineGeometry line = previous.getGeometry();
+        if (line == null || line.pointCount() < 2 || previous.getSteps() == null) {
+            throw new IllegalArgumentException("Itinéraire sans géométrie");
+        }
+        String startPlaceName = request.getStartPlaceName() != null ? request.getStartPlaceName() : "Position actuelle";
+
+        long start = System.nanoTime();
+        RouteResponse response = rejoin(request.getRouteKey(), previous, position, mode, target, startPlaceName);
+        String outcome = "rejoined";
+        if (response == null) {
+            outcome = "full";
+            Point destination = new Point();
+            destination.setLat(line.lat(line.pointCount() - 1));
+            destination.setLng(line.lng(line.pointCount() - 1));
+            response = routeService.routeWithPgRouting(List.of(position, destination), mode, startPlaceName, previous.getEndPlaceName());
+        }
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("map.reroute.latency").tag("mode", mode).tag("outcome", outcome)
+                .register(meterRegistry).record(elapsed, TimeUnit.NANOSECONDS);
+        LOGGER.fine("Recalcul " + outcome + " (" + mode + ") en " + elapsed / 1_000 + " µs");
+        return response;
+    }
+
+    // null si le raccordement n'est pas possible en mémoire : l'appelant repart d'un calcul complet
+    private RouteResponse rejoin(String routeKey, Route previous, Point position, String mode, long target, String startPlaceName) {
+        Region region = roadNetworkService.regions().locate(position.getLat(), position.getLng());
+        if (region == null || !roadNetworkService.isLoaded(region)) {
+            return null;
+        }
+        long stateVersion = routeCache.stateVersion();
+        RoadNetwork network = roadNetworkService.network(region);
+        int source = nearestNode(network, position.getLat(), position.getLng());
+        if (source < 0) {
+            return null;
+        }
+        double speed = RoutingRequest.speed(mode);
+        double[] weights = trafficService.overlay().arcWeights(network);
+        RouteRejoin.Result result = RouteRejoin.rejoin(network, weights, source, previous.getGeometry(),
+                previous.getDuration() * speed, maxConnectionMeters, maxSettledNodes);
+        if (result == null) {
+            return null;
+        }
+
+        PlaceIndex places = roadNetworkService.places(region);
+        StepBuilder builder = new StepBuilder(turnThresholdDegrees, places::name);
+        Set<Long> usedEdges = new HashSet<>();
+        Set<Long> usedNodes = new HashSet<>();
+        long joinNode = network.nodeId(source);
+        for (int arc : result.connection().arcs()) {
+            RoadEdge edge = network.edgeAt(network.arcEdge(arc));
+            boolean forward = network.arcForward(arc);
+            usedEdges.add(edge.id());
+            usedNodes.add(edge.source());
+            usedNodes.add(edge.target());
+            joinNode = forward ? edge.target() : edge.source();
+            builder.add(forward ? edge.source() : edge.target(), joinNode,
+                    LineGeometry.of(edge.coordinates(), !forward), network.arcCost(arc), weights[arc] / speed);
+        }
+        String joinName = places.name(joinNode);
+        List<RouteStep> suffix = suffixSteps(previous, result.joinPoint(), joinName != null ? joinName : "Node " + joinNode);
+        List<RouteStep> steps = new ArrayList<>(suffix.isEmpty() ? builder.build() : builder.buildPartial());
+        steps.addAll(suffix);
+        if (steps.isEmpty()) {
+            return null;
+        }
+
+        Route route = new Route();
+        route.setDistance(steps.stream().mapToDouble(RouteStep::getDistance).sum());
+        route.setDuration(steps.stream().mapToDouble(RouteStep::getDuration).sum());
+        route.setSteps(steps);
+        route.setStartPlaceName(startPlaceName);
+        route.setEndPlaceName(previous.getEndPlaceName());
+        route.setGeometry(LineGeometry.concat(steps.stream().map(RouteStep::getGeometry).toList()));
+
+        // Clé propre à l'itinéraire recalculé : un nouvel écart repart de lui
+        String key = RouteCache.key(mode, network.nodeId(source), target) + ":r";
+        routeCache.putDerived(key, routeKey, stateVersion, List.of(route), usedEdges, usedNodes);
+        RouteResponse response = new RouteResponse();
+        response.setRoutes(List.of(route));
+        if (routeCache.get(key) != null) {
+            response.setRouteKey(key);
+        }
+        return response;
+    }
+
+    // Nœud le plus proche dans le rayon d'accrochage, parmi les extrémités des arêtes voisines ; -1 sinon
+    private int nearestNode(RoadNetwork network, double lat, double lng) {
+        double dLat = Math.toDegrees(snapRadiusMeters / GeoUtils.EARTH_RADIUS_METERS);
+        double dLng = dLat / Math.max(0.01, Math.cos(Math.toRadians(lat)));
+        int best = -1;
+        double bestDistance = snapRadiusMeters;
+        for (int index : network.edgeGrid().query(lng - dLng, lat - dLat, lng + dLng, lat + dLat)) {
+            RoadEdge edge = network.edgeAt(index);
+            for (long nodeId : new long[]{edge.source(), edge.target()}) {
+                int node = network.nodeIndex(nodeId);
+                if (node < 0) {
+                    continue;
+                }
+                double distance = GeoUtils.distanceMeters(lng, lat, network.nodeLng(node), network.nodeLat(node));
+                if (distance <= bestDistance) {
+                    best = node;
+                    bestDistance = distance;
+                }
+            }
+        }
+        return best;
+    }
+
+    // Étapes de l'itinéraire à partir du point joinPoint de sa géométrie ; l'étape coupée garde la part
+    // de distance et de durée de sa portion restante
+    private static List<RouteStep> suffixSteps(Route route, int joinPoint, String joinName) {
+        List<RouteStep> suffix = new ArrayList<>();
+        int start = 0;
+        LineGeometry previousGeometry = null;
+        for (RouteStep step : route.getSteps()) {
+            LineGeometry geometry = step.getGeometry();
+            if (geometry == null || geometry.isEmpty()) {
+                continue;
+            }
+            // Même règle que LineGeometry.concat : le point commun à deux étapes n'est compté qu'une fois
+            if (previousGeometry != null) {
+                int last = previousGeometry.pointCount() - 1;
+                boolean shared = previousGeometry.lng(last) == geometry.lng(0) && previousGeometry.lat(last) == geometry.lat(0);
+                start += shared ? last : last + 1;
+            }
+            previousGeometry = geometry;
+            int end = start + geometry.pointCount() - 1;
+            if (end <= joinPoint) {
+                continue;
+            }
+            if (joinPoint <= start) {
+                suffix.add(step);
+                continue;
+            }
+            double[] coordinates = geometry.coordinates();
+            LineGeometry rest = LineGeometry.of(Arrays.copyOfRange(coordinates, (joinPoint - start) * 2, coordinates.length));
+            double fraction = geometry.lengthMeters() > 0 ? rest.lengthMeters() / geometry.lengthMeters() : 0;
+            RouteStep cut = new RouteStep();
+            cut.setGeometry(rest);
+            cut.setSource(joinName);
+            cut.setTarget(step.getTarget());
+            cut.setDistance(step.getDistance() * fraction);
+            cut.setDuration(step.getDuration() * fraction);
+            // La consigne d'arrivée de la dernière étape est conservée
+            String instruction = step.getInstruction() != null ? step.getInstruction() : "";
+            int arrival = instruction.indexOf(", puis arrivée");
+            cut.setInstruction("Continuez vers " + step.getTarget() + (arrival >= 0 ? instruction.substring(arrival) : ""));
+            suffix.add(cut);
+        }
+        return suffix;
+    }
+}
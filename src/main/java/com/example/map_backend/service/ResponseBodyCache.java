@@ -0,0 +1,170 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.config.RequestDeadline;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Réponses conditionnelles (ETag / If-None-Match) et cache borné des corps déjà sérialisés et
+ * compressés : une requête répétée ne refait ni le calcul ni la sérialisation Jackson.
+ */
+@Component
+public class ResponseBodyCache {
+
+    private static final int GZIP_MIN_BYTES = 1024;
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, CachedBody> cache;
+
+    public ResponseBodyCache(ObjectMapper objectMapper,
+                             @Value("${map.response-cache.max-bytes:67108864}") long maxBytes) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((String key, CachedBody body) -> body.weight())
+                .build();
+    }
+
+    // ETag fort dérivé des entrées de la requête et de la version des données
+    public String etag(Object... parts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object part : parts) {
+                digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0);
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Seules les réponses 200 complètes (non dégradées) sont mises en cache ; etag null = pas de version fiable, on calcule directement
+    public ResponseEntity<?> serve(String etag, String ifNoneMatch, String acceptEncoding,
+                                   Supplier<? extends ResponseEntity<?>> compute) {
+        if (etag == null) {
+            return compute.get();
+        }
+        String matched = matches(ifNoneMatch, etag) ? etag : matches(ifNoneMatch, gzipEtag(etag)) ? gzipEtag(etag) : null;
+        if (matched != null) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(matched).build();
+        }
+        CachedBody cached = cache.getIfPresent(etag);
+        if (cached == null) {
+            ResponseEntity<?> computed = compute.get();
+            if (computed.getStatusCode() != HttpStatus.OK || computed.getBody() == null || RequestDeadline.isDegraded()) {
+                return computed;
+            }
+            try {
+                cached = serialize(computed.getBody());
+            } catch (IOException e) {
+                return computed;
+            }
+            cache.put(etag, cached);
+        }
+        return toResponse(etag, cached, acceptEncoding);
+    }
+
+    private CachedBody serialize(Object body) throws IOException {
+        byte[] json = objectMapper.writeValueAsBytes(body);
+        byte[] gzip = null;
+        if (json.length >= GZIP_MIN_BYTES) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+                gz.write(json);
+            }
+            gzip = out.toByteArray();
+        }
+        return new CachedBody(json, gzip);
+    }
+
+    private ResponseEntity<byte[]> toResponse(String etag, CachedBody body, String acceptEncoding) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (body.gzip() != null && acceptsGzip(acceptEncoding)) {
+            headers.setETag(gzipEtag(etag));
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            return new ResponseEntity<>(body.gzip(), headers, HttpStatus.OK);
+        }
+        headers.setETag(etag);
+        return new ResponseEntity<>(body.json(), headers, HttpStatus.OK);
+    }
+
+    // Un ETag fort identifie une représentation : le corps compressé a le sien
+    private static String gzipEtag(String etag) {
+        return etag.substring(0, etag.length() - 1) + "-gzip\"";
+    }
+
+    // Accept-Encoding avec q-values : gzip (ou x-gzip) explicite prime sur *, q=0 signifie refusé
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String token : acceptEncoding.split(",")) {
+            String[] params = token.split(";");
+            String coding = params[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < params.length; i++) {
+                String param = params[i].trim();
+                if (param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = gzip == null ? q : Math.max(gzip, q);
+            } else if (coding.equals("*")) {
+                any = q;
+            }
+        }
+        if (gzip != null) {
+            return gzip > 0;
+        }
+        return any != null && any > 0;
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals(etag) || value.equals("*")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private record CachedBody(byte[] json, byte[] gzip) {
+        int weight() {
+            return json.length + (gzip != null ? gzip.length : 0);
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.Route;
+import com.example.map_backend.network.LineGeometry;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.NetworkChangeEvent;
+import com.example.map_backend.network.RoadNetworkService;
+import com.example.map_backend.network.TrafficChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Cache des itinéraires calculés localement, indexé par arête et par nœud pour n'invalider
+ * que les entrées touchées par un changement du réseau. Une arête qui devient plus rapide invalide
+ * aussi les itinéraires dont l'emprise la couvre, qui ont pu la contourner ; expire-after-write
+ * borne la durée de vie de ce que cette approximation laisserait passer.
+ */
+@Component
+public class RouteCache {
+
+    private static final Logger LOGGER = Logger.getLogger(RouteCache.class.getName());
+
+    private final RoadNetworkService networkService;
+    private final TrafficService trafficService;
+    private final Cache<String, Entry> cache;
+    private final Map<Long, Set<String>> keysByEdge = new ConcurrentHashMap<>();
+    private final Map<Long, Set<String>> keysByNode = new ConcurrentHashMap<>();
+
+    public RouteCache(RoadNetworkService networkService,
+                      TrafficService trafficService,
+                      @Value("${map.route-cache.max-size:5000}") long maxSize,
+                      @Value("${map.route-cache.expire-after-write-minutes:30}") long expireAfterWriteMinutes) {
+        this.networkService = networkService;
+        this.trafficService = trafficService;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWriteMinutes, TimeUnit.MINUTES)
+                .executor(Runnable::run)
+                .removalListener((String key, Entry entry, RemovalCause cause) -> {
+                    // REPLACED : la nouvelle entrée a déjà réindexé la même clé
+                    if (key != null && entry != null && cause != RemovalCause.REPLACED) {
+                        unindex(key, entry);
+                    }
+                })
+                .build();
+    }
+
+    public static String key(String mode, long source, long target) {
+        return mode + ":" + source + ":" + target;
+    }
+
+    // Change dès que le réseau ou la surcouche trafic change (les deux versions sont croissantes)
+    public long stateVersion() {
+        return networkService.version() + trafficService.version();
+    }
+
+    public List<Route> get(String key) {
+        Entry entry = cache.getIfPresent(key);
+        return entry != null ? entry.routes() : null;
+    }
+
+    // computedAtVersion : stateVersion() lue avant le calcul, pour ne pas mettre en cache un résultat déjà périmé
+    public void put(String key, long computedAtVersion, List<Route> routes, Collection<Long> edgeIds, Collection<Long> nodeIds) {
+        if (computedAtVersion != stateVersion()) {
+            return;
+        }
+        Entry entry = new Entry(List.copyOf(routes), Set.copyOf(edgeIds), Set.copyOf(nodeIds), bounds(routes));
+        entry.edgeIds().forEach(id -> keysByEdge.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(key));
+        entry.nodeIds().forEach(id -> keysByNode.computeIfAbsent(id, k -> ConcurrentHashMap.newKeySet()).add(key));
+        cache.put(key, entry);
+        if (computedAtVersion != stateVersion()) {
+            cache.invalidate(key);
+        }
+    }
+
+    // Entrée dérivée d'une autre (itinéraire recalculé) : invalidée aussi par tout ce qui invaliderait l'entrée
+    // d'origine, dont elle réutilise une partie ; ignorée si l'origine a déjà disparu
+    public void putDerived(String key, String fromKey, long computedAtVersion, List<Route> routes,
+                           Collection<Long> edgeIds, Collection<Long> nodeIds) {
+        Entry origin = cache.getIfPresent(fromKey);
+        if (origin == null) {
+            return;
+        }
+        Set<Long> edges = new HashSet<>(origin.edgeIds());
+        edges.addAll(edgeIds);
+        Set<Long> nodes = new HashSet<>(origin.nodeIds());
+        nodes.addAll(nodeIds);
+        put(key, computedAtVersion, routes, edges, nodes);
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @EventListener
+    public void onNetworkChange(NetworkChangeEvent event) {
+        if (event.fullReload()) {
+            invalidateAll();
+            return;
+        }
+        long before = cache.estimatedSize();
+        event.edgeIds().forEach(id -> invalidateIndexed(keysByEdge, id));
+        event.nodeIds().forEach(id -> invalidateIndexed(keysByNode, id));
+        // Les noms d'étapes viennent de lieux dont l'id correspond à un nœud
+        event.placeIds().forEach(id -> invalidateIndexed(keysByNode, id));
+        LOGGER.fine("Itinéraires invalidés : " + (before - cache.estimatedSize()));
+    }
+
+    @EventListener
+    public void onTrafficChange(TrafficChangeEvent event) {
+        event.edgeIds().forEach(id -> invalidateIndexed(keysByEdge, id));
+        if (event.improvedEdgeIds().isEmpty()) {
+            return;
+        }
+        // Emprises des arêtes améliorées ; une arête hors des régions en mémoire impose de tout invalider
+        List<double[]> boxes = new ArrayList<>();
+        for (Long id : event.improvedEdgeIds()) {
+            RoadEdge edge = networkService.loadedEdge(id);
+            if (edge == null) {
+                invalidateAll();
+                return;
+            }
+            boxes.add(bounds(edge.coordinates()));
+        }
+        List<String> stale = new ArrayList<>();
+        cache.asMap().forEach((key, entry) -> {
+            for (double[] box : boxes) {
+                if (entry.bounds() == null || intersects(entry.bounds(), box)) {
+                    stale.add(key);
+                    return;
+                }
+            }
+        });
+        cache.invalidateAll(stale);
+    }
+
+    // {minLng, minLat, maxLng, maxLat} des géométries, null si l'une manque
+    private static double[] bounds(List<Route> routes) {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (Route route : routes) {
+            LineGeometry geometry = route.getGeometry();
+            if (geometry == null) {
+                return null;
+            }
+            for (int i = 0; i < geometry.pointCount(); i++) {
+                extend(box, geometry.lng(i), geometry.lat(i));
+            }
+        }
+        return box;
+    }
+
+    private static double[] bounds(double[] coordinates) {
+        double[] box = {Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        for (int i = 0; i + 1 < coordinates.length; i += 2) {
+            extend(box, coordinates[i], coordinates[i + 1]);
+        }
+        return box;
+    }
+
+    private static void extend(double[] box, double lng, double lat) {
+        box[0] = Math.min(box[0], lng);
+        box[1] = Math.min(box[1], lat);
+        box[2] = Math.max(box[2], lng);
+        box[3] = Math.max(box[3], lat);
+    }
+
+    private static boolean intersects(double[] a, double[] b) {
+        return a[0] <= b[2] && b[0] <= a[2] && a[1] <= b[3] && b[1] <= a[3];
+    }
+
+    private void invalidateIndexed(Map<Long, Set<String>> index, Long id) {
+        Set<String> keys = index.remove(id);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    private void unindex(String key, Entry entry) {
+        entry.edgeIds().forEach(id -> removeKey(keysByEdge, id, key));
+        entry.nodeIds().forEach(id -> removeKey(keysByNode, id, key));
+    }
+
+    private void removeKey(Map<Long, Set<String>> index, Long id, String key) {
+        index.computeIfPresent(id, (k, keys) -> {
+            keys.remove(key);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private record Entry(List<Route> routes, Set<Long> edgeIds, Set<Long> nodeIds, double[] bounds) {
+    }
+}
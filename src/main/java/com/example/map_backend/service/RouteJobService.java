@@ -0,0 +1,295 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.config.RequestDeadline;
+import com.example.map_backend.model.BatchRouteRequestBody;
+import com.example.map_backend.model.BatchRouteResult;
+import com.example.map_backend.model.Point;
+import com.example.map_backend.model.Route;
+import com.example.map_backend.model.RouteJobStatus;
+import com.example.map_backend.model.RouteRequestBody;
+import com.example.map_backend.model.RouteResponse;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+import java.util.logging.Logger;
+
+/**
+ * Calculs d'itinéraires par lots, asynchrones : chaque paire est une tâche du pool à vol de
+ * travail partagé, et un lot n'a jamais plus de maxConcurrency tâches en vol, pour qu'un gros lot
+ * ne monopolise pas le pool. Les résultats compacts sont conservés jusqu'à expiration.
+ */
+@Service
+public class RouteJobService implements DisposableBean {
+
+    private static final Logger LOGGER = Logger.getLogger(RouteJobService.class.getName());
+
+    public enum Status { RUNNING, DONE, CANCELLED }
+
+    private final RouteService routeService;
+    private final ForkJoinPool pool;
+    private final int maxPairs;
+    private final int maxActiveJobs;
+    private final int defaultConcurrency;
+    private final int maxConcurrency;
+    private final long pairTimeoutMs;
+    private final long resultTtlMs;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+    // Lots en cours : réservé avant la création du lot, libéré une seule fois à sa fin (tryFinish)
+    private final AtomicInteger activeJobs = new AtomicInteger();
+
+    public RouteJobService(RouteService routeService,
+                           @Value("${map.jobs.parallelism:0}") int parallelism,
+                           @Value("${map.jobs.max-pairs:1000}") int maxPairs,
+                           @Value("${map.jobs.max-active-jobs:20}") int maxActiveJobs,
+                           @Value("${map.jobs.default-concurrency:4}") int defaultConcurrency,
+                           @Value("${map.jobs.max-concurrency:16}") int maxConcurrency,
+                           @Value("${map.jobs.pair-timeout-ms:10000}") long pairTimeoutMs,
+                           @Value("${map.jobs.result-ttl-ms:900000}") long resultTtlMs) {
+        this.routeService = routeService;
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.maxPairs = maxPairs;
+        this.maxActiveJobs = maxActiveJobs;
+        this.defaultConcurrency = defaultConcurrency;
+        this.maxConcurrency = maxConcurrency;
+        this.pairTimeoutMs = pairTimeoutMs;
+        this.resultTtlMs = resultTtlMs;
+    }
+
+    public String submit(BatchRouteRequestBody body) {
+        if (body == null || body.getRoutes() == null || body.getRoutes().isEmpty()) {
+            throw new IllegalArgumentException("Aucun itinéraire à calculer");
+        }
+        if (body.getRoutes().size() > maxPairs) {
+            throw new IllegalArgumentException("Lot trop volumineux (maximum " + maxPairs + " itinéraires)");
+        }
+        int active;
+        do {
+            active = activeJobs.get();
+            if (active >= maxActiveJobs) {
+                throw new IllegalStateException("Trop de traitements en cours, réessayez plus tard");
+            }
+        } while (!activeJobs.compareAndSet(active, active + 1));
+        int concurrency = body.getMaxConcurrency() != null
+                ? Math.max(1, Math.min(maxConcurrency, body.getMaxConcurrency()))
+                : defaultConcurrency;
+        Job job = new Job(UUID.randomUUID().toString(), new ArrayList<>(body.getRoutes()), concurrency, body.isIncludeGeometry());
+        jobs.put(job.id, job);
+        dispatch(job);
+        return job.id;
+    }
+
+    // null si le lot est inconnu ou expiré
+    public RouteJobStatus status(String jobId, boolean withResults) {
+        Job job = jobs.get(jobId);
+        return job == null ? null : job.snapshot(withResults);
+    }
+
+    public boolean cancel(String jobId) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.cancelled = true;
+        tryFinish(job);
+        return true;
+    }
+
+    // Abonnement à la progression ; false si le lot est inconnu ou déjà terminé
+    public boolean subscribe(String jobId, Consumer<RouteJobStatus> listener) {
+        Job job = jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+        job.listeners.add(listener);
+        if (job.finished.get()) {
+            job.listeners.remove(listener);
+            return false;
+        }
+        return true;
+    }
+
+    public void unsubscribe(String jobId, Consumer<RouteJobStatus> listener) {
+        Job job = jobs.get(jobId);
+        if (job != null) {
+            job.listeners.remove(listener);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${map.jobs.cleanup-interval-ms:60000}")
+    public void evictExpired() {
+        long limit = System.currentTimeMillis() - resultTtlMs;
+        jobs.values().removeIf(job -> job.finishedAt != null && job.finishedAt < limit);
+    }
+
+    // Lance des tâches tant que le plafond du lot n'est pas atteint ; chaque tâche terminée relance la suivante
+    private void dispatch(Job job) {
+        while (!job.cancelled) {
+            int running = job.running.get();
+            if (running >= job.concurrency || job.next.get() >= job.requests.size()) {
+                return;
+            }
+            if (!job.running.compareAndSet(running, running + 1)) {
+                continue;
+            }
+            int index = job.next.getAndIncrement();
+            if (index >= job.requests.size()) {
+                job.running.decrementAndGet();
+                return;
+            }
+            pool.execute(() -> runPair(job, index));
+        }
+    }
+
+    private void runPair(Job job, int index) {
+        BatchRouteResult result = new BatchRouteResult(index);
+        try {
+            if (job.cancelled) {
+                result.setError("Annulé");
+            } else {
+                compute(job, index, result);
+            }
+        } catch (Exception e) {
+            result.setError("Erreur lors du calcul d'itinéraire");
+        } finally {
+            job.results.set(index, result);
+            if (result.getError() != null) {
+                job.failed.incrementAndGet();
+            }
+            job.completed.incrementAndGet();
+            job.running.decrementAndGet();
+        }
+        if (!tryFinish(job)) {
+            notifyListeners(job);
+            dispatch(job);
+        }
+    }
+
+    private void compute(Job job, int index, BatchRouteResult result) {
+        RouteRequestBody request = job.requests.get(index);
+        List<Point> points = request.getPoints();
+        String mode = request.getMode() != null ? request.getMode() : "driving";
+        if (points == null || points.size() != 2) {
+            result.setError("Un itinéraire se calcule entre deux points");
+            return;
+        }
+        if (!mode.equals("driving") && !mode.equals("walking") && !mode.equals("cycling")) {
+            result.setError("Mode de transport invalide");
+            return;
+        }
+        // Chaque paire a son propre budget : timeouts JDBC et appels externes bornés comme une requête HTTP
+        RequestDeadline.start(pairTimeoutMs);
+        try {
+            RouteResponse response = routeService.routeForBatch(points, mode, request.getStartPlaceName(), request.getEndPlaceName());
+            if (response.getError() != null || response.getRoutes() == null || response.getRoutes().isEmpty()) {
+                result.setError(response.getError() != null ? response.getError() : "Aucun itinéraire trouvé");
+                return;
+            }
+            Route best = response.getRoutes().get(0);
+            result.setDistance(best.getDistance());
+            result.setDuration(best.getDuration());
+            result.setAlternatives(response.getRoutes().size());
+            if (job.includeGeometry) {
+                result.setGeometry(best.getGeometry());
+            }
+        } finally {
+            RequestDeadline.clear();
+        }
+    }
+
+    // Termine le lot une seule fois : toutes les paires traitées, ou annulé sans tâche en vol
+    private boolean tryFinish(Job job) {
+        boolean complete = job.completed.get() >= job.requests.size();
+        boolean stopped = job.cancelled && job.running.get() == 0;
+        if ((!complete && !stopped) || !job.finished.compareAndSet(false, true)) {
+            return job.finished.get();
+        }
+        job.status = complete && !job.cancelled ? Status.DONE : Status.CANCELLED;
+        job.finishedAt = System.currentTimeMillis();
+        activeJobs.decrementAndGet();
+        LOGGER.info("Lot " + job.id + " " + job.status + " : " + job.completed.get() + "/" + job.requests.size()
+                + " itinéraires (" + job.failed.get() + " en échec) en " + (job.finishedAt - job.createdAt) + " ms");
+        notifyListeners(job);
+        job.listeners.clear();
+        return true;
+    }
+
+    private void notifyListeners(Job job) {
+        if (job.listeners.isEmpty()) {
+            return;
+        }
+        RouteJobStatus status = job.snapshot(false);
+        for (Consumer<RouteJobStatus> listener : job.listeners) {
+            try {
+                listener.accept(status);
+            } catch (Exception e) {
+                job.listeners.remove(listener);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        pool.shutdownNow();
+    }
+
+    private static final class Job {
+        private final String id;
+        private final List<RouteRequestBody> requests;
+        private final int concurrency;
+        private final boolean includeGeometry;
+        private final AtomicReferenceArray<BatchRouteResult> results;
+        private final long createdAt = System.currentTimeMillis();
+        private final AtomicInteger next = new AtomicInteger();
+        private final AtomicInteger running = new AtomicInteger();
+        private final AtomicInteger completed = new AtomicInteger();
+        private final AtomicInteger failed = new AtomicInteger();
+        private final AtomicBoolean finished = new AtomicBoolean();
+        private final List<Consumer<RouteJobStatus>> listeners = new CopyOnWriteArrayList<>();
+        private volatile boolean cancelled;
+        private volatile Status status = Status.RUNNING;
+        private volatile Long finishedAt;
+
+        private Job(String id, List<RouteRequestBody> requests, int concurrency, boolean includeGeometry) {
+            this.id = id;
+            this.requests = requests;
+            this.concurrency = concurrency;
+            this.includeGeometry = includeGeometry;
+            this.results = new AtomicReferenceArray<>(requests.size());
+        }
+
+        private RouteJobStatus snapshot(boolean withResults) {
+            RouteJobStatus snapshot = new RouteJobStatus();
+            snapshot.setJobId(id);
+            snapshot.setStatus(status.name());
+            snapshot.setTotal(requests.size());
+            snapshot.setCompleted(completed.get());
+            snapshot.setFailed(failed.get());
+            snapshot.setCreatedAt(createdAt);
+            snapshot.setFinishedAt(finishedAt);
+            if (withResults) {
+                List<BatchRouteResult> available = new ArrayList<>(results.length());
+                for (int i = 0; i < results.length(); i++) {
+                    BatchRouteResult result = results.get(i);
+                    if (result != null) {
+                        available.add(result);
+                    }
+                }
+                snapshot.setResults(available);
+            }
+            return snapshot;
+        }
+    }
+}
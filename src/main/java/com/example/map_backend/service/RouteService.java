@@ -1,63 +1,80 @@
 package com.example.map_backend.service;
 
+import com.example.map_backend.config.DeadlineExceededException;
+import com.example.map_backend.config.RequestDeadline;
+import com.example.map_backend.diagnostics.MapEvents;
 import com.example.map_backend.model.*;
-import com.example.map_backend.repository.PlaceRepository;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.example.map_backend.network.LineGeometry;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.RoadNetworkService;
+import com.example.map_backend.routing.RoutingPlanner;
+import com.example.map_backend.routing.RoutingRequest;
+import com.example.map_backend.routing.RoutingResult;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+import reactor.core.scheduler.Schedulers;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 @Service
 public class RouteService {
 
+    private static final Logger LOGGER = Logger.getLogger(RouteService.class.getName());
+
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
     @Autowired
-    private PlaceRepository placeRepository;
+    private RouteCache routeCache;
 
     @Autowired
-    private WebClient.Builder webClientBuilder;
-
-    private final ObjectMapper objectMapper = new ObjectMapper();
-
-    private long findNearestNode(Point point) throws Exception {
-        String roadNodeQuery = """
-            SELECT DISTINCT source as id, ST_Distance(
-                ST_Transform(geom, 3857),
-                ST_Transform(ST_SetSRID(ST_Point(?, ?), 4326), 3857)
-            ) as distance
-            FROM routes
-            WHERE source IS NOT NULL
-            UNION
-            SELECT DISTINCT target as id, ST_Distance(
-                ST_Transform(geom, 3857),
-                ST_Transform(ST_SetSRID(ST_Point(?, ?), 4326), 3857)
-            ) as distance
-            FROM routes
-            WHERE target IS NOT NULL
-            ORDER BY distance
-            LIMIT 1
-        """;
+    private RoadNetworkService roadNetworkService;
+
+    @Autowired
+    private PopularRouteSketch popularRouteSketch;
+
+    @Autowired
+    private TransitService transitService;
 
+    @Autowired
+    private NearestLookupService nearestLookupService;
+
+    @Autowired
+    private RoutingPlanner routingPlanner;
+
+    @Autowired
+    private SnapMemo snapMemo;
+
+    // Accrochage des deux extrémités en une requête (regroupée avec les accrochages concurrents) : KNN
+    // indexé (<->) sur routes_vertices, puis distance géographique exacte sur les plus proches candidats
+    private long[] findNearestNodes(Point start, Point end) throws Exception {
+        long[] nodes = {-1, -1};
         try {
-            List<Long> roadResult = jdbcTemplate.query(roadNodeQuery,
-                    (rs, rowNum) -> rs.getLong("id"),
-                    point.getLng(), point.getLat(), point.getLng(), point.getLat()
-            );
-            if (!roadResult.isEmpty()) {
-                return roadResult.get(0);
-            }
+            nodes = nearestLookupService.nearestVertices(start, end);
+        } catch (DeadlineExceededException e) {
+            throw e;
         } catch (Exception e) {
-            System.err.println("Road node search failed, trying places: " + e.getMessage());
+            LOGGER.warning("Road node search failed, trying places: " + e.getMessage());
         }
+        if (nodes[0] < 0) {
+            nodes[0] = findNearestPlaceNode(start);
+        }
+        if (nodes[1] < 0) {
+            nodes[1] = findNearestPlaceNode(end);
+        }
+        return nodes;
+    }
 
+    private long findNearestPlaceNode(Point point) throws Exception {
         String placeQuery = """
             SELECT id
             FROM lieux
@@ -76,335 +93,307 @@ public class RouteService {
         return result.get(0);
     }
 
-    private List<Route> getRouteFromOSRM(List<Point> points, String mode, String startPlaceName, String endPlaceName) {
-        try {
-            String profile = mode.equals("walking") ? "foot" : mode.equals("cycling") ? "bike" : "car";
-            String coordinates = points.stream()
-                    .map(p -> p.getLng() + "," + p.getLat())
-                    .reduce((a, b) -> a + ";" + b)
-                    .orElse("");
-
-            String url = "https://router.project-osrm.org/route/v1/" + profile + "/" + coordinates + "?steps=true&geometries=geojson&alternatives=3";
-
-            Mono<String> response = webClientBuilder.build()
-                    .get()
-                    .uri(url)
-                    .retrieve()
-                    .bodyToMono(String.class);
-
-            String jsonResponse = response.block();
-            if (jsonResponse == null || jsonResponse.trim().isEmpty()) {
-                throw new Exception("Empty response from OSRM");
-            }
+    // null tant que le réseau n'est pas suivi par le flux de changements : pas de version fiable pour les ETags
+    public Long dataVersion() {
+        return roadNetworkService.isLoaded() ? routeCache.stateVersion() : null;
+    }
 
-            JsonNode data = objectMapper.readTree(jsonResponse);
+    // Vrai si le résultat dépend de l'heure de départ (horaires de transport chargés) : ni ETag ni corps en cache
+    public boolean dependsOnDepartureTime(String mode) {
+        return (mode.equals("bus") || mode.equals("taxi")) && transitService.isLoaded();
+    }
 
-            if (data.has("code") && !"Ok".equals(data.get("code").asText())) {
-                throw new Exception("OSRM error: " + data.get("message").asText("Unknown error"));
-            }
+    // Statistiques du planificateur par moteur et par mode
+    public Map<String, Map<String, Object>> engineStats() {
+        return routingPlanner.snapshot();
+    }
 
-            List<Route> routes = new ArrayList<>();
-            if (data.has("routes") && data.get("routes").isArray()) {
-                for (JsonNode routeNode : data.get("routes")) {
-                    List<RouteStep> steps = new ArrayList<>();
-                    String routeGeometry = "";
-
-                    if (routeNode.has("geometry") && routeNode.get("geometry").has("coordinates")) {
-                        JsonNode coordinatesNode = routeNode.get("geometry").get("coordinates");
-                        if (coordinatesNode.isArray() && coordinatesNode.size() > 0) {
-                            StringBuilder geom = new StringBuilder("LINESTRING(");
-                            for (JsonNode coord : coordinatesNode) {
-                                if (coord.isArray() && coord.size() >= 2) {
-                                    geom.append(coord.get(0).asDouble()).append(" ")
-                                            .append(coord.get(1).asDouble()).append(", ");
-                                }
-                            }
-                            if (geom.length() > 11) {
-                                geom.setLength(geom.length() - 2);
-                                geom.append(")");
-                                routeGeometry = geom.toString();
-                            }
-                        }
-                    }
-
-                    if (routeNode.has("legs") && routeNode.get("legs").isArray()) {
-                        for (JsonNode leg : routeNode.get("legs")) {
-                            if (leg.has("steps") && leg.get("steps").isArray()) {
-                                for (JsonNode step : leg.get("steps")) {
-                                    String stepGeometry = "";
-                                    if (step.has("geometry") && step.get("geometry").has("coordinates")) {
-                                        JsonNode coordinatesNode = step.get("geometry").get("coordinates");
-                                        if (coordinatesNode.isArray() && coordinatesNode.size() > 0) {
-                                            StringBuilder geom = new StringBuilder("LINESTRING(");
-                                            for (JsonNode coord : coordinatesNode) {
-                                                if (coord.isArray() && coord.size() >= 2) {
-                                                    geom.append(coord.get(0).asDouble()).append(" ")
-                                                            .append(coord.get(1).asDouble()).append(", ");
-                                                }
-                                            }
-                                            if (geom.length() > 11) {
-                                                geom.setLength(geom.length() - 2);
-                                                geom.append(")");
-                                                stepGeometry = geom.toString();
-                                            }
-                                        }
-                                    }
-
-                                    RouteStep routeStep = new RouteStep();
-                                    routeStep.setGeometry(stepGeometry);
-
-                                    String instruction = "Step";
-                                    if (step.has("maneuver") && step.get("maneuver").has("instruction")) {
-                                        instruction = step.get("maneuver").get("instruction").asText("Step");
-                                    }
-                                    routeStep.setSource(instruction);
-                                    routeStep.setTarget(instruction);
-
-                                    routeStep.setDistance(step.has("distance") ? step.get("distance").asDouble() : 0.0);
-                                    routeStep.setDuration(step.has("duration") ? step.get("duration").asDouble() : 0.0);
-                                    steps.add(routeStep);
-                                }
-                            }
-                        }
-                    }
-
-                    if (steps.isEmpty() && !routeGeometry.isEmpty()) {
-                        RouteStep defaultStep = new RouteStep();
-                        defaultStep.setGeometry(routeGeometry);
-                        defaultStep.setSource("Start");
-                        defaultStep.setTarget("End");
-                        defaultStep.setDistance(routeNode.has("distance") ? routeNode.get("distance").asDouble() : 0.0);
-                        defaultStep.setDuration(routeNode.has("duration") ? routeNode.get("duration").asDouble() : 0.0);
-                        steps.add(defaultStep);
-                    }
-
-                    Route resultRoute = new Route();
-                    resultRoute.setDistance(routeNode.has("distance") ? routeNode.get("distance").asDouble() : 0.0); // Corrigé : "distance" au lieu de "距離"
-                    resultRoute.setDuration(routeNode.has("duration") ? routeNode.get("duration").asDouble() : 0.0);
-                    resultRoute.setSteps(steps);
-                    resultRoute.setStartPlaceName(startPlaceName);
-                    resultRoute.setEndPlaceName(endPlaceName);
-                    resultRoute.setGeometry(routeGeometry);
-                    routes.add(resultRoute);
-                }
+    // Accrochage puis requête pour le planificateur ; sans sommets, seuls les moteurs externes restent applicables.
+    // Si seul le moteur SQL reste applicable, sa fonction serveur accroche les points dans le même aller-retour,
+    // sauf pour des coordonnées déjà accrochées par elle : le cache d'itinéraires peut alors répondre.
+    // popular = false : la paire n'est pas comptée dans les itinéraires populaires (calculs par lots)
+    private RoutingRequest newRequest(Point start, Point end, String mode, String startPlaceName, String endPlaceName,
+                                      boolean popular) {
+        MapEvents.RouteSnap event = new MapEvents.RouteSnap();
+        event.begin();
+        // Graphe en mémoire seulement si les deux extrémités sont dans la même région
+        Region region = roadNetworkService.regions().locate(start.getLat(), start.getLng());
+        if (region != null && !region.contains(end.getLat(), end.getLng())) {
+            region = null;
+        }
+        RoutingRequest request = new RoutingRequest(List.of(start, end), mode, startPlaceName, endPlaceName, -1, -1, region, true);
+        if (routingPlanner.needsSnapping(request)) {
+            long[] nodes = {-1, -1};
+            try {
+                nodes = findNearestNodes(start, end);
+                LOGGER.fine("Found nodes - Source: " + nodes[0] + ", Target: " + nodes[1]);
+            } catch (DeadlineExceededException e) {
+                throw e;
+            } catch (Exception e) {
+                LOGGER.warning("Snapping failed, local engines skipped: " + e.getMessage());
             }
-
-            if (routes.isEmpty()) {
-                throw new Exception("No valid routes found in OSRM response");
+            request = new RoutingRequest(List.of(start, end), mode, startPlaceName, endPlaceName, nodes[0], nodes[1], region, true);
+        } else {
+            long source = snapMemo.get(start);
+            long target = snapMemo.get(end);
+            if (source >= 0 && target >= 0) {
+                request = new RoutingRequest(List.of(start, end), mode, startPlaceName, endPlaceName, source, target, region, true);
             }
+        }
+        if (event.shouldCommit()) {
+            event.mode = mode;
+            event.points = 2;
+            event.snapped = request.isSnapped();
+            event.commit();
+        }
+        if (popular && request.isSnapped()) {
+            popularRouteSketch.record(mode, request.source(), request.target());
+        }
+        return request;
+    }
 
-            return routes;
+    // Cache des calculs locaux, puis moteurs dans l'ordre choisi par le planificateur
+    private RoutingResult computeRoutes(RoutingRequest request, Predicate<Route> onRoute) throws Exception {
+        return computeRoutes(request, onRoute, true);
+    }
 
-        } catch (Exception e) {
-            System.err.println("Error with OSRM: " + e.getMessage());
-            e.printStackTrace();
-            return new ArrayList<>();
+    private RoutingResult computeRoutes(RoutingRequest request, Predicate<Route> onRoute, boolean popular) throws Exception {
+        MapEvents.RouteSearch event = new MapEvents.RouteSearch();
+        event.begin();
+        RoutingResult result = searchRoutes(request, onRoute, popular);
+        if (event.shouldCommit()) {
+            event.mode = request.mode();
+            event.engine = result.engine();
+            event.routes = result.routes().size();
+            event.steps = stepCount(result.routes());
+            event.degraded = RequestDeadline.isDegraded();
+            event.commit();
         }
+        return result;
     }
 
-    public RouteResponse routeWithPgRouting(List<Point> points, String mode, String startPlaceName, String endPlaceName) {
+    private RoutingResult searchRoutes(RoutingRequest request, Predicate<Route> onRoute, boolean popular) throws Exception {
+        String cacheKey = request.isSnapped() ? RouteCache.key(request.mode(), request.source(), request.target()) : null;
+        if (cacheKey != null) {
+            List<Route> cachedRoutes = routeCache.get(cacheKey);
+            if (cachedRoutes != null) {
+                return RoutingResult.cached(withPlaceNames(cachedRoutes, request.startPlaceName(), request.endPlaceName()));
+            }
+        }
+        long networkVersion = routeCache.stateVersion();
+        RoutingResult result = routingPlanner.route(request, onRoute);
+
+        // Accrochage fait par le moteur : la clé n'est connue qu'après le calcul, les sommets sont mémorisés
+        // pour que la même requête soit ensuite servie par le cache
+        if (cacheKey == null && result.source() >= 0 && result.target() >= 0 && result.source() != result.target()) {
+            cacheKey = RouteCache.key(request.mode(), result.source(), result.target());
+            if (popular) {
+                popularRouteSketch.record(request.mode(), result.source(), result.target());
+            }
+            if (request.points().size() == 2) {
+                snapMemo.put(request.points().get(0), result.source());
+                snapMemo.put(request.points().get(1), result.target());
+            }
+        }
+        // Un résultat dégradé par manque de budget n'est pas mis en cache
+        if (cacheKey != null && result.cacheable() && !RequestDeadline.isDegraded()) {
+            routeCache.put(cacheKey, networkVersion, result.routes(), result.usedEdges(), result.usedNodes());
+        }
+        if (!result.routes().isEmpty()) {
+            LOGGER.fine("Routes calculated with " + result.engine() + ": " + result.routes().size() + " alternatives");
+        }
+        return result;
+    }
+
+    // Rejoue une paire populaire au démarrage : accrochage SQL (pool, plans) puis calcul local mis en cache.
+    // Seule la région par défaut est chargée au démarrage ; les autres paires passent par pgRouting
+    public boolean warmUp(String mode, long source, long target) {
         try {
-            if (points.size() != 2) {
-                RouteResponse response = new RouteResponse();
-                response.setError("Exactly two points are required for routing");
-                return response;
+            Region region = roadNetworkService.regions().defaultRegion();
+            RoadNetwork network = roadNetworkService.network(region);
+            int sourceIndex = network.nodeIndex(source);
+            if (sourceIndex >= 0) {
+                Point point = new Point();
+                point.setLat(network.nodeLat(sourceIndex));
+                point.setLng(network.nodeLng(sourceIndex));
+                findNearestNodes(point, point);
             }
+            RoutingRequest request = new RoutingRequest(List.of(), mode, null, null, source, target,
+                    sourceIndex >= 0 && network.nodeIndex(target) >= 0 ? region : null, false);
+            return !computeRoutes(request, route -> true).routes().isEmpty();
+        } catch (Exception e) {
+            return false;
+        }
+    }
 
+    // Variante progressive : chaque alternative est émise dès qu'elle est trouvée (la plus rapide
+    // d'abord, sans étapes), puis le détail des étapes. Le calcul tourne hors du thread de requête
+    // et s'arrête si le client se désabonne.
+    public Flux<RouteStreamEvent> streamRoutes(List<Point> points, String mode, String startPlaceName, String endPlaceName) {
+        long budget = RequestDeadline.remainingMillis();
+        return Flux.<RouteStreamEvent>create(sink -> {
+            if (budget != Long.MAX_VALUE) {
+                RequestDeadline.start(budget);
+            }
             try {
-                long source = findNearestNode(points.get(0));
-                long target = findNearestNode(points.get(1));
-
-                System.out.println("Found nodes - Source: " + source + ", Target: " + target);
-
-                if (source == target) {
-                    throw new Exception("Source and target nodes are the same");
-                }
-
-                String nodeValidationQuery = """
-                SELECT COUNT(*) as count FROM (
-                    SELECT source as node FROM routes WHERE source = ? OR target = ?
-                    UNION
-                    SELECT target as node FROM routes WHERE source = ? OR target = ?
-                ) nodes
-            """;
-
-                Integer nodeCount = jdbcTemplate.queryForObject(nodeValidationQuery, Integer.class,
-                        source, source, target, target);
-
-                if (nodeCount == null || nodeCount == 0) {
-                    throw new Exception("Nodes not found in road network");
-                }
+                emitRoutes(points, mode, startPlaceName, endPlaceName, sink);
+            } catch (Exception e) {
+                LOGGER.warning("Error while streaming routes: " + e.getMessage());
+                sink.next(RouteStreamEvent.error("Unable to calculate route"));
+            } finally {
+                RequestDeadline.clear();
+            }
+            sink.complete();
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
 
-                double vitesse = mode.equals("driving") ? 25 : mode.equals("walking") ? 2 : 8;
-
-                String query = """
-                WITH chemins AS (
-                    SELECT path_id, path_seq, node, edge, cost, agg_cost
-                    FROM pgr_ksp(
-                        'SELECT id, source, target, cost, reverse_cost FROM routes WHERE cost IS NOT NULL AND cost > 0',
-                        ?, ?, 3, false
-                    )
-                )
-                SELECT
-                    c.path_id,
-                    c.path_seq,
-                    ST_AsText(r.geom) as geometry,
-                    COALESCE(l1.nom, 'Node ' || r.source) as source,
-                    COALESCE(l2.nom, 'Node ' || r.target) as target,
-                    c.cost as distance
-                FROM chemins c
-                JOIN routes r ON c.edge = r.id
-                LEFT JOIN lieux l1 ON r.source = l1.id
-                LEFT JOIN lieux l2 ON r.target = l2.id
-                WHERE c.edge > 0
-                ORDER BY c.path_id, c.path_seq
-            """;
-
-                List<RouteStep> routeStepsA = new ArrayList<>();
-                List<RouteStep> routeStepsB = new ArrayList<>();
-                List<RouteStep> routeStepsC = new ArrayList<>();
-                final double[] distanceA = {0};
-                final double[] distanceB = {0};
-                final double[] distanceC = {0};
-                final double[] durationA = {0};
-                final double[] durationB = {0};
-                final double[] durationC = {0};
-
-                jdbcTemplate.query(query, new Object[]{source, target}, (rs) -> {
-                    RouteStep step = new RouteStep();
-                    step.setGeometry(rs.getString("geometry"));
-                    step.setSource(rs.getString("source"));
-                    step.setTarget(rs.getString("target"));
-                    step.setDistance(rs.getDouble("distance"));
-                    step.setDuration(rs.getDouble("distance") / vitesse);
-
-                    int pathId = rs.getInt("path_id");
-                    switch (pathId) {
-                        case 1:
-                            routeStepsA.add(step);
-                            distanceA[0] += step.getDistance();
-                            durationA[0] += step.getDuration();
-                            break;
-                        case 2:
-                            routeStepsB.add(step);
-                            distanceB[0] += step.getDistance();
-                            durationB[0] += step.getDuration();
-                            break;
-                        case 3:
-                            routeStepsC.add(step);
-                            distanceC[0] += step.getDistance();
-                            durationC[0] += step.getDuration();
-                            break;
-                    }
-                    return null;
-                });
-
-                List<Route> routes = new ArrayList<>();
-                if (!routeStepsA.isEmpty()) {
-                    Route routeA = new Route();
-                    routeA.setDistance(distanceA[0]);
-                    routeA.setDuration(durationA[0]);
-                    routeA.setSteps(routeStepsA);
-                    routeA.setStartPlaceName(startPlaceName);
-                    routeA.setEndPlaceName(endPlaceName);
-                    routeA.setGeometry(String.join(",", routeStepsA.stream()
-                            .map(RouteStep::getGeometry)
-                            .toList()));
-                    routes.add(routeA);
-                }
-                if (!routeStepsB.isEmpty()) {
-                    Route routeB = new Route();
-                    routeB.setDistance(distanceB[0]);
-                    routeB.setDuration(durationB[0]);
-                    routeB.setSteps(routeStepsB);
-                    routeB.setStartPlaceName(startPlaceName);
-                    routeB.setEndPlaceName(endPlaceName);
-                    routeB.setGeometry(String.join(",", routeStepsB.stream()
-                            .map(RouteStep::getGeometry)
-                            .toList()));
-                    routes.add(routeB);
-                }
-                if (!routeStepsC.isEmpty()) {
-                    Route routeC = new Route();
-                    routeC.setDistance(distanceC[0]);
-                    routeC.setDuration(durationC[0]);
-                    routeC.setSteps(routeStepsC);
-                    routeC.setStartPlaceName(startPlaceName);
-                    routeC.setEndPlaceName(endPlaceName);
-                    routeC.setGeometry(String.join(",", routeStepsC.stream()
-                            .map(RouteStep::getGeometry)
-                            .toList()));
-                    routes.add(routeC);
+    // Les moteurs progressifs (graphe en mémoire) émettent au fil du calcul ; les autres résultats
+    // (cache, pgRouting, OSRM) sont émis d'un bloc à la fin
+    private void emitRoutes(List<Point> points, String mode, String startPlaceName, String endPlaceName,
+                            FluxSink<RouteStreamEvent> sink) {
+        List<Route> emitted = new ArrayList<>();
+        List<Route> routes = List.of();
+        try {
+            RoutingRequest request = newRequest(points.get(0), points.get(1), mode, startPlaceName, endPlaceName, true);
+            routes = computeRoutes(request, route -> {
+                if (sink.isCancelled()) {
+                    return false;
                 }
+                sink.next(RouteStreamEvent.route(emitted.size(), withoutSteps(route)));
+                emitted.add(route);
+                return true;
+            }).routes();
+        } catch (Exception e) {
+            LOGGER.warning("Routing failed while streaming: " + e.getMessage());
+        }
+        if (sink.isCancelled()) {
+            return;
+        }
+        if (routes.isEmpty() && emitted.isEmpty()) {
+            sink.next(RouteStreamEvent.error(RequestDeadline.isExpired() ? "Request deadline exceeded" : "No route found with local and external methods"));
+            return;
+        }
+        if (routes.isEmpty()) {
+            routes = emitted;
+        }
+        for (int i = emitted.size(); i < routes.size(); i++) {
+            sink.next(RouteStreamEvent.route(i, withoutSteps(routes.get(i))));
+        }
+        for (int i = 0; i < routes.size() && !sink.isCancelled(); i++) {
+            sink.next(RouteStreamEvent.steps(i, routes.get(i).getSteps()));
+        }
+        sink.next(RouteStreamEvent.done());
+    }
 
-                if (!routes.isEmpty()) {
-                    System.out.println("Route found with pgRouting: " + routes.size() + " alternatives");
-                    RouteResponse response = new RouteResponse();
-                    response.setRoutes(routes);
-                    return response;
-                }
+    private static int stepCount(List<Route> routes) {
+        int steps = 0;
+        for (Route route : routes) {
+            steps += route.getSteps() != null ? route.getSteps().size() : 0;
+        }
+        return steps;
+    }
 
-                throw new Exception("No routes found by pgRouting");
+    private static Route withoutSteps(Route route) {
+        Route summary = new Route();
+        summary.setDistance(route.getDistance());
+        summary.setDuration(route.getDuration());
+        summary.setGeometry(route.getGeometry());
+        summary.setStartPlaceName(route.getStartPlaceName());
+        summary.setEndPlaceName(route.getEndPlaceName());
+        return summary;
+    }
 
-            } catch (Exception dbError) {
-                System.out.println("Switching to external API...");
-            }
+    public RouteResponse routeWithPgRouting(List<Point> points, String mode, String startPlaceName, String endPlaceName) {
+        return route(points, mode, startPlaceName, endPlaceName, true);
+    }
 
-            List<Route> externalRoutes = getRouteFromOSRM(points, mode, startPlaceName, endPlaceName);
-            if (!externalRoutes.isEmpty()) {
-                System.out.println("Routes calculated with external API: " + externalRoutes.size() + " alternatives");
-                RouteResponse response = new RouteResponse();
-                response.setRoutes(externalRoutes);
-                return response;
-            }
+    // Calcul d'un lot : mêmes moteurs et même cache, mais les paires ne comptent pas comme demandes
+    // d'utilisateurs dans les itinéraires populaires (préchauffage)
+    public RouteResponse routeForBatch(List<Point> points, String mode, String startPlaceName, String endPlaceName) {
+        return route(points, mode, startPlaceName, endPlaceName, false);
+    }
 
+    private RouteResponse route(List<Point> points, String mode, String startPlaceName, String endPlaceName, boolean popular) {
+        if (points.size() != 2) {
             RouteResponse response = new RouteResponse();
-            response.setError("No route found with local and external methods");
+            response.setError("Exactly two points are required for routing");
             return response;
+        }
 
-        } catch (Exception e) {
-            System.err.println("General error in RouteWithPgRouting: " + e.getMessage());
-            e.printStackTrace();
-
-            List<Route> externalRoutes = getRouteFromOSRM(points, mode, startPlaceName, endPlaceName);
-            if (!externalRoutes.isEmpty()) {
-                System.out.println("Fallback routes calculated with external API: " + externalRoutes.size() + " alternatives");
+        try {
+            RoutingRequest request = newRequest(points.get(0), points.get(1), mode, startPlaceName, endPlaceName, popular);
+            RoutingResult result = computeRoutes(request, route -> true, popular);
+            if (!result.routes().isEmpty()) {
                 RouteResponse response = new RouteResponse();
-                response.setRoutes(externalRoutes);
+                response.setRoutes(result.routes());
+                response.setDegraded(RequestDeadline.isDegraded());
+                // Clé réutilisable seulement pour un calcul local complet, présent dans le cache
+                if ((result.fromCache() || result.cacheable()) && !response.isDegraded()) {
+                    response.setRouteKey(request.isSnapped()
+                            ? RouteCache.key(mode, request.source(), request.target())
+                            : RouteCache.key(mode, result.source(), result.target()));
+                }
                 return response;
             }
+        } catch (Exception e) {
+            LOGGER.warning("General error in RouteWithPgRouting: " + e.getMessage());
+        }
 
-            RouteResponse response = new RouteResponse();
-            response.setError("Unable to calculate route");
-            return response;
+        RouteResponse response = new RouteResponse();
+        response.setError(RequestDeadline.isExpired() ? "Request deadline exceeded" : "No route found with local and external methods");
+        return response;
+    }
+
+    // Les itinéraires en cache sont partagés : on ne modifie que des copies
+    private List<Route> withPlaceNames(List<Route> routes, String startPlaceName, String endPlaceName) {
+        List<Route> copies = new ArrayList<>();
+        for (Route route : routes) {
+            Route copy = new Route();
+            copy.setDistance(route.getDistance());
+            copy.setDuration(route.getDuration());
+            copy.setSteps(route.getSteps());
+            copy.setGeometry(route.getGeometry());
+            copy.setStartPlaceName(startPlaceName);
+            copy.setEndPlaceName(endPlaceName);
+            copies.add(copy);
         }
+        return copies;
     }
 
     public RouteResponse routeWithDetour(Point start, Point detour, Point end, String mode, String startPlaceName, String detourPlaceName, String endPlaceName) {
         try {
-            String osrmMode = mode.equals("taxi") || mode.equals("bus") ? "driving" : mode.equals("moto") ? "cycling" : "driving";
+            // Bus et taxis à lignes fixes : horaires réels si chargés, sinon approximation routière
+            if (mode.equals("bus") || mode.equals("taxi")) {
+                RouteResponse transit = transitWithDetour(start, detour, end, startPlaceName, detourPlaceName, endPlaceName);
+                if (transit != null) {
+                    return transit;
+                }
+            }
+
+            String roadMode = mode.equals("taxi") || mode.equals("bus") ? "driving" : mode.equals("moto") ? "cycling" : "driving";
 
+            // Chaque segment passe par le planificateur (cache et moteurs locaux compris)
             // Calculer le premier segment : start → detour
-            List<Point> firstSegment = List.of(start, detour);
-            List<Route> firstRoutes = getRouteFromOSRM(firstSegment, osrmMode, startPlaceName, detourPlaceName);
+            List<Route> firstRoutes = computeRoutes(newRequest(start, detour, roadMode, startPlaceName, detourPlaceName, true), route -> true).routes();
             if (firstRoutes.isEmpty()) {
                 RouteResponse response = new RouteResponse();
                 response.setError("No route found for start to detour");
-                System.err.println("No route found for start to detour");
+                LOGGER.info("No route found for start to detour");
                 return response;
             }
 
             // Calculer le second segment : detour → end
-            List<Point> secondSegment = List.of(detour, end);
-            List<Route> secondRoutes = getRouteFromOSRM(secondSegment, osrmMode, detourPlaceName, endPlaceName);
+            List<Route> secondRoutes = computeRoutes(newRequest(detour, end, roadMode, detourPlaceName, endPlaceName, true), route -> true).routes();
             if (secondRoutes.isEmpty()) {
                 RouteResponse response = new RouteResponse();
                 response.setError("No route found for detour to end");
-                System.err.println("No route found for detour to end");
+                LOGGER.info("No route found for detour to end");
                 return response;
             }
 
             // Combiner les itinéraires
+            MapEvents.DetourMerge event = new MapEvents.DetourMerge();
+            event.begin();
             List<Route> combinedRoutes = new ArrayList<>();
             Route combinedRoute = new Route();
             combinedRoute.setStartPlaceName(startPlaceName);
@@ -424,48 +413,57 @@ public class RouteService {
             combinedRoute.setDuration(totalDuration);
 
             // Combiner les géométries
-            StringBuilder wkt = new StringBuilder("LINESTRING(");
-            List<List<Double>> allCoordinates = new ArrayList<>();
-            for (RouteStep step : combinedSteps) {
-                String geometry = step.getGeometry();
-                if (geometry != null && geometry.startsWith("LINESTRING")) {
-                    String coords = geometry.substring("LINESTRING(".length(), geometry.length() - 1);
-                    String[] coordPairs = coords.split(", ");
-                    for (String coordPair : coordPairs) {
-                        String[] parts = coordPair.split(" ");
-                        if (parts.length == 2) {
-                            List<Double> point = new ArrayList<>();
-                            point.add(Double.parseDouble(parts[0]));
-                            point.add(Double.parseDouble(parts[1]));
-                            allCoordinates.add(point);
-                        }
-                    }
-                }
-            }
-
-            for (int i = 0; i < allCoordinates.size(); i++) {
-                List<Double> coord = allCoordinates.get(i);
-                wkt.append(coord.get(0)).append(" ").append(coord.get(1));
-                if (i < allCoordinates.size() - 1) {
-                    wkt.append(", ");
-                }
-            }
-            wkt.append(")");
-            combinedRoute.setGeometry(wkt.toString());
+            combinedRoute.setGeometry(LineGeometry.concat(combinedSteps.stream()
+                    .map(RouteStep::getGeometry)
+                    .toList()));
 
             combinedRoutes.add(combinedRoute);
+            if (event.shouldCommit()) {
+                event.mode = mode;
+                event.steps = combinedSteps.size();
+                event.points = combinedRoute.getGeometry().pointCount();
+                event.commit();
+            }
 
-            System.out.println("Routes with detour calculated with OSRM: " + combinedRoutes.size() + " alternatives");
+            LOGGER.fine("Routes with detour calculated: " + combinedRoutes.size() + " alternatives");
             RouteResponse response = new RouteResponse();
             response.setRoutes(combinedRoutes);
             return response;
 
         } catch (Exception e) {
-            System.err.println("Error in routeWithDetour: " + e.getMessage());
-            e.printStackTrace();
+            LOGGER.log(Level.WARNING, "Error in routeWithDetour: " + e.getMessage(), e);
             RouteResponse response = new RouteResponse();
             response.setError("Unable to calculate route with detour");
             return response;
         }
     }
+
+    // Deux recherches RAPTOR enchaînées : la seconde part à l'heure d'arrivée au point de détour
+    private RouteResponse transitWithDetour(Point start, Point detour, Point end, String startPlaceName, String detourPlaceName, String endPlaceName) {
+        if (!transitService.isLoaded()) {
+            return null;
+        }
+        int departure = transitService.now();
+        TransitService.TimedRoute first = transitService.earliestRoute(start, detour, departure, startPlaceName, detourPlaceName);
+        if (first == null) {
+            return null;
+        }
+        TransitService.TimedRoute second = transitService.earliestRoute(detour, end, first.arrival(), detourPlaceName, endPlaceName);
+        if (second == null) {
+            return null;
+        }
+        Route combined = new Route();
+        combined.setStartPlaceName(startPlaceName);
+        combined.setEndPlaceName(endPlaceName);
+        List<RouteStep> steps = new ArrayList<>(first.route().getSteps());
+        steps.addAll(second.route().getSteps());
+        combined.setSteps(steps);
+        combined.setDistance(first.route().getDistance() + second.route().getDistance());
+        combined.setDuration(second.arrival() - departure);
+        combined.setGeometry(LineGeometry.concat(List.of(first.route().getGeometry(), second.route().getGeometry())));
+        LOGGER.fine("Route with detour calculated with transit timetables");
+        RouteResponse response = new RouteResponse();
+        response.setRoutes(List.of(combined));
+        return response;
+    }
 }
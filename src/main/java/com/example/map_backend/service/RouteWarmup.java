@@ -0,0 +1,114 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.repository.PopularRouteRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Préchauffage au démarrage : les paires populaires enregistrées par l'instance précédente sont
+ * rejouées en parallèle. Les ApplicationRunner s'exécutent avant que l'application ne passe à
+ * l'état "prête", l'instance n'entre donc dans le répartiteur qu'une fois caches, pool JDBC et
+ * code de routage chauds. Ordonné après le chargement du réseau ({@code @Order(0)}).
+ */
+@Component
+@Order(1)
+public class RouteWarmup implements ApplicationRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(RouteWarmup.class.getName());
+
+    private final RouteService routeService;
+    private final PopularRouteSketch sketch;
+    private final PopularRouteRepository repository;
+    private final boolean enabled;
+    private final int pairs;
+    private final int parallelism;
+    private final long timeoutMs;
+    private final int retentionDays;
+
+    public RouteWarmup(RouteService routeService,
+                       PopularRouteSketch sketch,
+                       PopularRouteRepository repository,
+                       @Value("${map.warmup.enabled:true}") boolean enabled,
+                       @Value("${map.warmup.pairs:200}") int pairs,
+                       @Value("${map.warmup.parallelism:0}") int parallelism,
+                       @Value("${map.warmup.timeout-ms:30000}") long timeoutMs,
+                       @Value("${map.warmup.retention-days:7}") int retentionDays) {
+        this.routeService = routeService;
+        this.sketch = sketch;
+        this.repository = repository;
+        this.enabled = enabled;
+        this.pairs = pairs;
+        this.parallelism = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        this.timeoutMs = timeoutMs;
+        this.retentionDays = retentionDays;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled) {
+            return;
+        }
+        List<PopularRouteSketch.Pair> popular;
+        try {
+            repository.createTableIfMissing();
+            popular = repository.findTop(pairs);
+        } catch (Exception e) {
+            LOGGER.warning("Paires populaires indisponibles, démarrage sans préchauffage : " + e.getMessage());
+            return;
+        }
+        sketch.seed(popular);
+        if (popular.isEmpty()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Callable<Boolean>> tasks = new ArrayList<>(popular.size());
+        for (PopularRouteSketch.Pair pair : popular) {
+            tasks.add(() -> routeService.warmUp(pair.mode(), pair.source(), pair.target()));
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism);
+        int warmed = 0;
+        try {
+            for (Future<Boolean> future : executor.invokeAll(tasks, timeoutMs, TimeUnit.MILLISECONDS)) {
+                try {
+                    if (!future.isCancelled() && future.get()) {
+                        warmed++;
+                    }
+                } catch (ExecutionException e) {
+                    LOGGER.fine("Préchauffage d'une paire en échec : " + e.getCause());
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        LOGGER.info("Préchauffage : " + warmed + "/" + popular.size() + " paires calculées en "
+                + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    @Scheduled(fixedDelayString = "${map.warmup.persist-interval-ms:300000}",
+            initialDelayString = "${map.warmup.persist-interval-ms:300000}")
+    public void persist() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            repository.save(sketch.top(pairs), retentionDays);
+        } catch (Exception e) {
+            LOGGER.warning("Échec de l'enregistrement des paires populaires : " + e.getMessage());
+        }
+    }
+}
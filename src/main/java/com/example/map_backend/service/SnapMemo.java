@@ -0,0 +1,45 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.Point;
+import com.example.map_backend.network.NetworkChangeEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Sommets déjà obtenus pour des coordonnées brutes exactes, quand l'accrochage a été fait par la
+ * fonction SQL de calcul : une requête répétée retrouve ses sommets sans aller-retour et peut donc
+ * être servie par le cache d'itinéraires. Vidé à chaque changement du réseau (un sommet ajouté ou
+ * retiré peut changer l'accrochage de n'importe quel point).
+ */
+@Component
+public class SnapMemo {
+
+    private final Cache<Key, Long> nodes;
+
+    public SnapMemo(@Value("${map.routing.snap-memo.max-size:10000}") long maxSize) {
+        this.nodes = Caffeine.newBuilder().maximumSize(maxSize).build();
+    }
+
+    // -1 si ces coordonnées n'ont pas encore été accrochées
+    public long get(Point point) {
+        Long node = nodes.getIfPresent(new Key(point.getLng(), point.getLat()));
+        return node != null ? node : -1;
+    }
+
+    public void put(Point point, long node) {
+        if (node >= 0) {
+            nodes.put(new Key(point.getLng(), point.getLat()), node);
+        }
+    }
+
+    @EventListener
+    public void onNetworkChange(NetworkChangeEvent event) {
+        nodes.invalidateAll();
+    }
+
+    private record Key(double lng, double lat) {
+    }
+}
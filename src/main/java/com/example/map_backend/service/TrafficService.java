@@ -0,0 +1,117 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.TrafficUpdate;
+import com.example.map_backend.network.TrafficChangeEvent;
+import com.example.map_backend.network.TrafficOverlay;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+
+@Service
+public class TrafficService {
+
+    private static final Logger LOGGER = Logger.getLogger(TrafficService.class.getName());
+
+    private final ApplicationEventPublisher eventPublisher;
+    private final int defaultTtlSeconds;
+    private final int maxTtlSeconds;
+
+    private final AtomicReference<TrafficOverlay> overlay = new AtomicReference<>(TrafficOverlay.empty());
+    private final Queue<PendingUpdate> pending = new ConcurrentLinkedQueue<>();
+
+    public TrafficService(ApplicationEventPublisher eventPublisher,
+                          @Value("${map.traffic.default-ttl-seconds:900}") int defaultTtlSeconds,
+                          @Value("${map.traffic.max-ttl-seconds:86400}") int maxTtlSeconds) {
+        this.eventPublisher = eventPublisher;
+        this.defaultTtlSeconds = defaultTtlSeconds;
+        this.maxTtlSeconds = maxTtlSeconds;
+    }
+
+    public TrafficOverlay overlay() {
+        return overlay.get();
+    }
+
+    public long version() {
+        return overlay.get().getVersion();
+    }
+
+    // Les mises à jour sont mises en file puis appliquées par lot à la prochaine vidange. Le lot est
+    // validé en entier avant toute mise en file : une seule mise à jour invalide le rejette tout entier
+    public int submit(List<TrafficUpdate> updates) {
+        if (updates == null || updates.isEmpty()) {
+            throw new IllegalArgumentException("Aucune mise à jour de trafic fournie");
+        }
+        long now = System.currentTimeMillis();
+        List<PendingUpdate> accepted = new ArrayList<>(updates.size());
+        for (int i = 0; i < updates.size(); i++) {
+            TrafficUpdate update = updates.get(i);
+            if (update == null || update.getEdgeId() == null) {
+                throw new IllegalArgumentException("Identifiant d'arête manquant (mise à jour " + i + ")");
+            }
+            double factor = update.isClosed() ? 0 : update.getSpeedFactor() != null ? update.getSpeedFactor() : 1.0;
+            if (Double.isNaN(factor) || factor < 0 || factor > 4) {
+                throw new IllegalArgumentException("Facteur de vitesse invalide pour l'arête " + update.getEdgeId());
+            }
+            Integer requestedTtl = update.getTtlSeconds();
+            if (requestedTtl != null && (requestedTtl <= 0 || requestedTtl > maxTtlSeconds)) {
+                throw new IllegalArgumentException("Durée de validité invalide pour l'arête " + update.getEdgeId()
+                        + " (1 à " + maxTtlSeconds + " s)");
+            }
+            int ttl = requestedTtl != null ? requestedTtl : defaultTtlSeconds;
+            accepted.add(new PendingUpdate(update.getEdgeId(), new TrafficOverlay.Entry((float) factor, now + ttl * 1000L)));
+        }
+        pending.addAll(accepted);
+        return accepted.size();
+    }
+
+    @Scheduled(fixedDelayString = "${map.traffic.flush-interval-ms:1000}")
+    public void flush() {
+        long now = System.currentTimeMillis();
+        TrafficOverlay current = overlay.get();
+        if (pending.isEmpty() && !current.hasExpired(now)) {
+            return;
+        }
+
+        Map<Long, TrafficOverlay.Entry> batch = new HashMap<>();
+        PendingUpdate update;
+        while ((update = pending.poll()) != null) {
+            batch.put(update.edgeId(), update.entry());
+        }
+
+        TrafficOverlay next = current.merge(current.getVersion() + 1, batch, now);
+        overlay.set(next);
+
+        // Arêtes touchées : celles du lot et celles dont l'entrée a expiré
+        Set<Long> affected = new HashSet<>(batch.keySet());
+        for (int i = 0; i < current.size(); i++) {
+            long edgeId = current.edgeIdAt(i);
+            if (next.factor(edgeId) != current.factor(edgeId)) {
+                affected.add(edgeId);
+            }
+        }
+        // Facteur en hausse (une fermeture vaut 0) : arête plus attractive qu'au moment des calculs en cache
+        Set<Long> improved = new HashSet<>();
+        for (Long edgeId : affected) {
+            if (next.factor(edgeId) > current.factor(edgeId)) {
+                improved.add(edgeId);
+            }
+        }
+        LOGGER.fine("Surcouche trafic v" + next.getVersion() + " : " + next.size() + " arêtes, " + affected.size() + " modifiées");
+        eventPublisher.publishEvent(new TrafficChangeEvent(next.getVersion(), affected, improved));
+    }
+
+    private record PendingUpdate(long edgeId, TrafficOverlay.Entry entry) {
+    }
+}
@@ -0,0 +1,286 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.Point;
+import com.example.map_backend.model.Route;
+import com.example.map_backend.model.RouteStep;
+import com.example.map_backend.model.TransitJourney;
+import com.example.map_backend.model.TransitJourneyRequestBody;
+import com.example.map_backend.model.TransitLeg;
+import com.example.map_backend.network.LineGeometry;
+import com.example.map_backend.network.NetworkChangeEvent;
+import com.example.map_backend.network.RoadNetworkService;
+import com.example.map_backend.transit.GtfsReader;
+import com.example.map_backend.transit.RaptorRouter;
+import com.example.map_backend.transit.Timetable;
+import com.example.map_backend.transit.TransitNetwork;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Itinéraires en transport en commun (bus, taxis collectifs à lignes fixes) à partir d'horaires
+ * GTFS : import en tableaux primitifs, correspondances à pied calculées sur le graphe routier en
+ * mémoire et recherche rRAPTOR sur une plage de départ. Les horaires sont chargés au démarrage
+ * depuis map.transit.gtfs-path, ou importés via l'API.
+ */
+@Service
+@Order(2)
+public class TransitService implements ApplicationRunner {
+
+    private static final Logger LOGGER = Logger.getLogger(TransitService.class.getName());
+
+    private final RoadNetworkService roadNetworkService;
+    private final String gtfsPath;
+    private final double walkSpeed;
+    private final double maxWalkMeters;
+    private final double maxTransferMeters;
+    private final double snapRadiusMeters;
+    private final int defaultMaxTransfers;
+    private final int maxTransfersLimit;
+    private final int defaultWindowMinutes;
+    private final int maxWindowMinutes;
+    private final ZoneId timeZone;
+
+    private volatile TransitNetwork network;
+    private volatile boolean stale;
+    private volatile long loadedAt;
+
+    public TransitService(RoadNetworkService roadNetworkService,
+                          @Value("${map.transit.gtfs-path:}") String gtfsPath,
+                          @Value("${map.transit.walk-speed:1.2}") double walkSpeed,
+                          @Value("${map.transit.max-walk-meters:800}") double maxWalkMeters,
+                          @Value("${map.transit.max-transfer-meters:400}") double maxTransferMeters,
+                          @Value("${map.transit.snap-radius-meters:200}") double snapRadiusMeters,
+                          @Value("${map.transit.max-transfers:3}") int defaultMaxTransfers,
+                          @Value("${map.transit.max-transfers-limit:5}") int maxTransfersLimit,
+                          @Value("${map.transit.default-window-minutes:60}") int defaultWindowMinutes,
+                          @Value("${map.transit.max-window-minutes:240}") int maxWindowMinutes,
+                          @Value("${map.transit.time-zone:Africa/Douala}") String timeZone) {
+        this.roadNetworkService = roadNetworkService;
+        this.gtfsPath = gtfsPath;
+        this.walkSpeed = walkSpeed;
+        this.maxWalkMeters = maxWalkMeters;
+        this.maxTransferMeters = maxTransferMeters;
+        this.snapRadiusMeters = snapRadiusMeters;
+        this.defaultMaxTransfers = defaultMaxTransfers;
+        this.maxTransfersLimit = maxTransfersLimit;
+        this.defaultWindowMinutes = defaultWindowMinutes;
+        this.maxWindowMinutes = maxWindowMinutes;
+        this.timeZone = ZoneId.of(timeZone);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (gtfsPath == null || gtfsPath.isBlank()) {
+            return;
+        }
+        try (InputStream in = Files.newInputStream(Path.of(gtfsPath))) {
+            importGtfs(in);
+        } catch (Exception e) {
+            LOGGER.warning("Chargement des horaires " + gtfsPath + " impossible : " + e.getMessage());
+        }
+    }
+
+    public boolean isLoaded() {
+        return network != null;
+    }
+
+    public Map<String, Object> importGtfs(InputStream zip) throws IOException {
+        long begin = System.currentTimeMillis();
+        Timetable timetable = GtfsReader.read(zip);
+        if (timetable.stopCount() == 0 || timetable.tripCount() == 0) {
+            throw new IllegalArgumentException("Aucun arrêt ou aucune course dans le fichier GTFS");
+        }
+        network = TransitNetwork.build(timetable, roadNetworkService.network(), snapRadiusMeters, maxTransferMeters);
+        stale = false;
+        loadedAt = System.currentTimeMillis();
+        LOGGER.info("Horaires chargés : " + timetable.stopCount() + " arrêts, " + timetable.patternCount()
+                + " motifs, " + timetable.tripCount() + " courses en " + (loadedAt - begin) + " ms");
+        return status();
+    }
+
+    public Map<String, Object> status() {
+        TransitNetwork current = network;
+        Map<String, Object> status = new LinkedHashMap<>();
+        status.put("loaded", current != null);
+        if (current != null) {
+            Timetable timetable = current.timetable();
+            status.put("stops", timetable.stopCount());
+            status.put("patterns", timetable.patternCount());
+            status.put("trips", timetable.tripCount());
+            status.put("roadNetworkVersion", current.roadVersion());
+            status.put("loadedAt", loadedAt);
+        }
+        return status;
+    }
+
+    // Les correspondances à pied dépendent du graphe : reconstruites en différé, pas à chaque lot de modifications
+    @EventListener
+    public void onNetworkChange(NetworkChangeEvent event) {
+        if (network != null) {
+            stale = true;
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${map.transit.rebuild-interval-ms:60000}")
+    public void rebuildIfStale() {
+        TransitNetwork current = network;
+        if (!stale || current == null) {
+            return;
+        }
+        stale = false;
+        long begin = System.currentTimeMillis();
+        network = TransitNetwork.build(current.timetable(), roadNetworkService.network(), snapRadiusMeters, maxTransferMeters);
+        LOGGER.info("Correspondances à pied recalculées en " + (System.currentTimeMillis() - begin) + " ms");
+    }
+
+    public List<TransitJourney> findJourneys(TransitJourneyRequestBody request) {
+        TransitNetwork current = network;
+        if (current == null) {
+            throw new IllegalStateException("Aucun horaire de transport en commun chargé");
+        }
+        if (request == null || request.getFrom() == null || request.getTo() == null) {
+            throw new IllegalArgumentException("Points de départ et d'arrivée requis");
+        }
+        int departure = request.getDepartureTime() != null && !request.getDepartureTime().isBlank()
+                ? parseTime(request.getDepartureTime())
+                : LocalTime.now(timeZone).toSecondOfDay();
+        int window = request.getWindowMinutes() != null
+                ? Math.max(0, Math.min(maxWindowMinutes, request.getWindowMinutes()))
+                : defaultWindowMinutes;
+        int transfers = request.getMaxTransfers() != null
+                ? Math.max(0, Math.min(maxTransfersLimit, request.getMaxTransfers()))
+                : defaultMaxTransfers;
+        Point from = request.getFrom();
+        Point to = request.getTo();
+        List<RaptorRouter.Journey> journeys = new RaptorRouter(current, walkSpeed, transfers)
+                .search(from.getLat(), from.getLng(), to.getLat(), to.getLng(), departure, window * 60, maxWalkMeters);
+        List<TransitJourney> result = new ArrayList<>(journeys.size());
+        for (RaptorRouter.Journey journey : journeys) {
+            result.add(toJourney(journey));
+        }
+        return result;
+    }
+
+    /**
+     * Trajet arrivant le plus tôt en partant à departure (secondes depuis minuit), converti en
+     * itinéraire avec une étape par tronçon ; null si aucun horaire n'est chargé ou aucun trajet trouvé.
+     */
+    public TimedRoute earliestRoute(Point from, Point to, int departure, String startPlaceName, String endPlaceName) {
+        TransitNetwork current = network;
+        if (current == null) {
+            return null;
+        }
+        List<RaptorRouter.Journey> journeys = new RaptorRouter(current, walkSpeed, defaultMaxTransfers)
+                .search(from.getLat(), from.getLng(), to.getLat(), to.getLng(), departure, 0, maxWalkMeters);
+        RaptorRouter.Journey best = null;
+        for (RaptorRouter.Journey journey : journeys) {
+            if (best == null || journey.arrival() < best.arrival()
+                    || (journey.arrival() == best.arrival() && journey.transfers() < best.transfers())) {
+                best = journey;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        Route route = new Route();
+        route.setStartPlaceName(startPlaceName);
+        route.setEndPlaceName(endPlaceName);
+        List<RouteStep> steps = new ArrayList<>();
+        double distance = 0;
+        for (RaptorRouter.Leg leg : best.legs()) {
+            RouteStep step = new RouteStep();
+            step.setGeometry(leg.geometry());
+            step.setSource(leg.line() != null ? leg.from() + " (" + leg.line() + ")" : leg.from());
+            step.setTarget(leg.to());
+            step.setDistance(leg.distanceMeters());
+            step.setDuration(leg.arrival() - leg.departure());
+            steps.add(step);
+            distance += leg.distanceMeters();
+        }
+        route.setSteps(steps);
+        route.setDistance(distance);
+        // Attente au départ comprise
+        route.setDuration(best.arrival() - departure);
+        route.setGeometry(concat(best.legs()));
+        return new TimedRoute(route, best.arrival());
+    }
+
+    public int now() {
+        return LocalTime.now(timeZone).toSecondOfDay();
+    }
+
+    /** Itinéraire et heure d'arrivée (secondes depuis minuit). */
+    public record TimedRoute(Route route, int arrival) {
+    }
+
+    private TransitJourney toJourney(RaptorRouter.Journey journey) {
+        TransitJourney result = new TransitJourney();
+        result.setDepartureTime(formatTime(journey.departure()));
+        result.setArrivalTime(formatTime(journey.arrival()));
+        result.setDuration(journey.duration());
+        result.setTransfers(journey.transfers());
+        List<TransitLeg> legs = new ArrayList<>(journey.legs().size());
+        double walkDistance = 0;
+        for (RaptorRouter.Leg leg : journey.legs()) {
+            TransitLeg item = new TransitLeg();
+            item.setMode(leg.mode().name());
+            item.setLine(leg.line());
+            item.setTripId(leg.tripId());
+            item.setFrom(leg.from());
+            item.setTo(leg.to());
+            item.setDepartureTime(formatTime(leg.departure()));
+            item.setArrivalTime(formatTime(leg.arrival()));
+            item.setDistance(leg.distanceMeters());
+            item.setDuration(leg.arrival() - leg.departure());
+            item.setStops(leg.stops());
+            item.setGeometry(leg.geometry());
+            legs.add(item);
+            if (leg.mode() == RaptorRouter.LegMode.WALK) {
+                walkDistance += leg.distanceMeters();
+            }
+        }
+        result.setLegs(legs);
+        result.setWalkDistance(walkDistance);
+        result.setGeometry(concat(journey.legs()));
+        return result;
+    }
+
+    // "HH:mm" ou "HH:mm:ss", heures au-delà de 24 acceptées comme en GTFS
+    static int parseTime(String value) {
+        String[] parts = value.trim().split(":");
+        if (parts.length < 2 || parts.length > 3) {
+            throw new IllegalArgumentException("Heure de départ invalide (format HH:mm attendu)");
+        }
+        try {
+            int seconds = Integer.parseInt(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60;
+            return parts.length == 3 ? seconds + Integer.parseInt(parts[2]) : seconds;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Heure de départ invalide (format HH:mm attendu)");
+        }
+    }
+
+    static String formatTime(int seconds) {
+        return String.format("%02d:%02d:%02d", seconds / 3600, (seconds / 60) % 60, seconds % 60);
+    }
+
+    private static LineGeometry concat(List<RaptorRouter.Leg> legs) {
+        return LineGeometry.concat(legs.stream().map(RaptorRouter.Leg::geometry).toList());
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.map_backend.tiles;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// Écriture protobuf minimale (varint, length-delimited, packed) pour l'encodage des tuiles
+final class ProtobufWriter {
+
+    static final int VARINT = 0;
+    static final int FIXED64 = 1;
+    static final int LENGTH_DELIMITED = 2;
+
+    private byte[] buffer = new byte[256];
+    private int size;
+
+    void tag(int field, int wireType) {
+        varint(((long) field << 3) | wireType);
+    }
+
+    void varint(long value) {
+        while ((value & ~0x7FL) != 0) {
+            write((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        write((byte) value);
+    }
+
+    void varintField(int field, long value) {
+        tag(field, VARINT);
+        varint(value);
+    }
+
+    void doubleField(int field, double value) {
+        tag(field, FIXED64);
+        long bits = Double.doubleToRawLongBits(value);
+        for (int i = 0; i < 8; i++) {
+            write((byte) (bits >>> (8 * i)));
+        }
+    }
+
+    void bytesField(int field, byte[] bytes) {
+        tag(field, LENGTH_DELIMITED);
+        varint(bytes.length);
+        ensure(bytes.length);
+        System.arraycopy(bytes, 0, buffer, size, bytes.length);
+        size += bytes.length;
+    }
+
+    void stringField(int field, String value) {
+        bytesField(field, value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    void packedField(int field, int[] values, int length) {
+        ProtobufWriter packed = new ProtobufWriter();
+        for (int i = 0; i < length; i++) {
+            packed.varint(values[i] & 0xFFFFFFFFL);
+        }
+        bytesField(field, packed.toByteArray());
+    }
+
+    static int zigZag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    byte[] toByteArray() {
+        return Arrays.copyOf(buffer, size);
+    }
+
+    private void write(byte b) {
+        ensure(1);
+        buffer[size++] = b;
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, size + extra));
+        }
+    }
+}
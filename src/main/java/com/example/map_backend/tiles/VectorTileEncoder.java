@@ -0,0 +1,126 @@
+package com.example.map_backend.tiles;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodeur Mapbox Vector Tile (spécification 2.1) : couches de points et de lignes en
+ * coordonnées entières de tuile, clés et valeurs d'attributs dédoublonnées par couche.
+ */
+public final class VectorTileEncoder {
+
+    public static final int EXTENT = 4096;
+
+    private static final int POINT = 1;
+    private static final int LINESTRING = 2;
+    private static final int MOVE_TO = 1;
+    private static final int LINE_TO = 2;
+
+    private final List<Layer> layers = new ArrayList<>();
+
+    public Layer layer(String name) {
+        Layer layer = new Layer(name);
+        layers.add(layer);
+        return layer;
+    }
+
+    public byte[] encode() {
+        ProtobufWriter tile = new ProtobufWriter();
+        for (Layer layer : layers) {
+            if (!layer.features.isEmpty()) {
+                tile.bytesField(3, layer.encode());
+            }
+        }
+        return tile.toByteArray();
+    }
+
+    public static final class Layer {
+        private final String name;
+        private final List<byte[]> features = new ArrayList<>();
+        private final Map<String, Integer> keys = new LinkedHashMap<>();
+        private final Map<Object, Integer> values = new LinkedHashMap<>();
+
+        private Layer(String name) {
+            this.name = name;
+        }
+
+        public boolean isEmpty() {
+            return features.isEmpty();
+        }
+
+        public void addPoint(long id, int x, int y, Map<String, Object> properties) {
+            int[] geometry = {command(MOVE_TO, 1), ProtobufWriter.zigZag(x), ProtobufWriter.zigZag(y)};
+            addFeature(id, POINT, geometry, geometry.length, properties);
+        }
+
+        // xy : x0, y0, x1, y1, ... sur pointCount points (au moins 2)
+        public void addLine(long id, int[] xy, int pointCount, Map<String, Object> properties) {
+            int[] geometry = new int[3 + 1 + (pointCount - 1) * 2];
+            int n = 0;
+            geometry[n++] = command(MOVE_TO, 1);
+            geometry[n++] = ProtobufWriter.zigZag(xy[0]);
+            geometry[n++] = ProtobufWriter.zigZag(xy[1]);
+            geometry[n++] = command(LINE_TO, pointCount - 1);
+            for (int i = 1; i < pointCount; i++) {
+                geometry[n++] = ProtobufWriter.zigZag(xy[i * 2] - xy[i * 2 - 2]);
+                geometry[n++] = ProtobufWriter.zigZag(xy[i * 2 + 1] - xy[i * 2 - 1]);
+            }
+            addFeature(id, LINESTRING, geometry, n, properties);
+        }
+
+        private void addFeature(long id, int type, int[] geometry, int geometryLength, Map<String, Object> properties) {
+            int[] tags = new int[properties.size() * 2];
+            int t = 0;
+            for (Map.Entry<String, Object> property : properties.entrySet()) {
+                if (property.getValue() == null) {
+                    continue;
+                }
+                tags[t++] = keys.computeIfAbsent(property.getKey(), k -> keys.size());
+                tags[t++] = values.computeIfAbsent(property.getValue(), v -> values.size());
+            }
+            ProtobufWriter feature = new ProtobufWriter();
+            feature.varintField(1, id);
+            if (t > 0) {
+                feature.packedField(2, tags, t);
+            }
+            feature.varintField(3, type);
+            feature.packedField(4, geometry, geometryLength);
+            features.add(feature.toByteArray());
+        }
+
+        private byte[] encode() {
+            ProtobufWriter layer = new ProtobufWriter();
+            layer.varintField(15, 2);
+            layer.stringField(1, name);
+            for (byte[] feature : features) {
+                layer.bytesField(2, feature);
+            }
+            for (String key : keys.keySet()) {
+                layer.stringField(3, key);
+            }
+            for (Object value : values.keySet()) {
+                ProtobufWriter encoded = new ProtobufWriter();
+                if (value instanceof String s) {
+                    encoded.stringField(1, s);
+                } else if (value instanceof Double d) {
+                    encoded.doubleField(3, d);
+                } else if (value instanceof Number number) {
+                    encoded.varintField(4, number.longValue());
+                } else if (value instanceof Boolean b) {
+                    encoded.varintField(7, b ? 1 : 0);
+                } else {
+                    encoded.stringField(1, value.toString());
+                }
+                layer.bytesField(4, encoded.toByteArray());
+            }
+            layer.varintField(5, EXTENT);
+            return layer.toByteArray();
+        }
+
+        private static int command(int id, int count) {
+            return (id & 0x7) | (count << 3);
+        }
+    }
+}
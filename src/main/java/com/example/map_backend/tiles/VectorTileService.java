@@ -0,0 +1,256 @@
+package com.example.map_backend.tiles;
+
+import com.example.map_backend.network.IndexedPlace;
+import com.example.map_backend.network.NetworkChangeEvent;
+import com.example.map_backend.network.PlaceIndex;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.RoadNetworkService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Tuiles vectorielles des couches "roads" (table routes) et "places" (table lieux), générées à
+ * partir des instantanés en mémoire des régions touchées par la tuile : aucune requête SQL sur le
+ * chemin de rendu. Un delta n'invalide que les tuiles (tous zooms) qui recoupent l'emprise des
+ * géométries modifiées.
+ */
+@Service
+public class VectorTileService {
+
+    private static final int BUFFER = 64;
+    private static final byte[] EMPTY_TILE = new byte[0];
+
+    private final RoadNetworkService networkService;
+    private final int minRoadZoom;
+    private final int minPlaceZoom;
+    private final double simplifyTolerance;
+    private final Cache<String, Tile> cache;
+
+    public VectorTileService(RoadNetworkService networkService,
+                             @Value("${map.tiles.min-road-zoom:10}") int minRoadZoom,
+                             @Value("${map.tiles.min-place-zoom:14}") int minPlaceZoom,
+                             @Value("${map.tiles.simplify-tolerance:8}") double simplifyTolerance,
+                             @Value("${map.tiles.cache-max-bytes:33554432}") long cacheMaxBytes) {
+        this.networkService = networkService;
+        this.minRoadZoom = minRoadZoom;
+        this.minPlaceZoom = minPlaceZoom;
+        this.simplifyTolerance = simplifyTolerance;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(cacheMaxBytes)
+                .weigher((String key, Tile tile) -> tile.data().length + key.length())
+                .build();
+    }
+
+    public long version() {
+        return networkService.version();
+    }
+
+    public byte[] tile(int z, int x, int y) {
+        if (z < 0 || z > 22 || x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z)) {
+            throw new IllegalArgumentException("Coordonnées de tuile invalides : " + z + "/" + x + "/" + y);
+        }
+        // En dessous des deux zooms minimaux la tuile est vide : ne pas charger toutes les régions pour rien
+        if (z < Math.min(minRoadZoom, minPlaceZoom)) {
+            return EMPTY_TILE;
+        }
+        double n = 1 << z;
+        double margin = (double) BUFFER / VectorTileEncoder.EXTENT;
+        double west = tileLng(x - margin, n);
+        double east = tileLng(x + 1 + margin, n);
+        double north = tileLat(y - margin, n);
+        double south = tileLat(y + 1 + margin, n);
+        List<Region> regions = networkService.regions().intersecting(west, south, east, north);
+        if (regions.isEmpty()) {
+            return EMPTY_TILE;
+        }
+        // Tuile vide non mise en cache tant qu'une région touchée se charge (la consultation lance le chargement)
+        boolean loaded = true;
+        for (Region region : regions) {
+            loaded &= networkService.isLoaded(region);
+        }
+        if (!loaded) {
+            return EMPTY_TILE;
+        }
+        // Un delta reçu pendant qu'une région était évincée n'a pas d'emprise connue : la tuile rendue
+        // avant l'éviction est écartée dès que la région a été relue
+        long loadVersion = 0;
+        for (Region region : regions) {
+            loadVersion = Math.max(loadVersion, networkService.loadVersion(region));
+        }
+        long stamp = loadVersion;
+        return cache.asMap().compute(z + "/" + x + "/" + y, (key, cached) -> cached != null && cached.loadVersion() == stamp
+                ? cached
+                : new Tile(render(z, x, y, regions, west, south, east, north), stamp)).data();
+    }
+
+    @EventListener
+    public void onNetworkChange(NetworkChangeEvent event) {
+        double[] bounds = event.bounds();
+        if (event.fullReload() || bounds == null) {
+            cache.invalidateAll();
+            return;
+        }
+        List<String> stale = new ArrayList<>();
+        for (String key : cache.asMap().keySet()) {
+            String[] zxy = key.split("/");
+            int z = Integer.parseInt(zxy[0]);
+            int x = Integer.parseInt(zxy[1]);
+            int y = Integer.parseInt(zxy[2]);
+            // Même marge qu'au rendu : une géométrie dans la bordure de la tuile y est dessinée
+            double n = 1 << z;
+            double margin = (double) BUFFER / VectorTileEncoder.EXTENT;
+            if (tileLng(x - margin, n) <= bounds[2] && tileLng(x + 1 + margin, n) >= bounds[0]
+                    && tileLat(y + 1 + margin, n) <= bounds[3] && tileLat(y - margin, n) >= bounds[1]) {
+                stale.add(key);
+            }
+        }
+        cache.invalidateAll(stale);
+    }
+
+    // Une arête ou un lieu présent dans deux régions voisines n'est écrit qu'une fois
+    private byte[] render(int z, int x, int y, List<Region> regions, double west, double south, double east, double north) {
+        VectorTileEncoder encoder = new VectorTileEncoder();
+        if (z >= minRoadZoom) {
+            VectorTileEncoder.Layer roads = encoder.layer("roads");
+            Set<Long> written = new HashSet<>();
+            int[] xy = new int[64];
+            for (Region region : regions) {
+                RoadNetwork network = networkService.network(region);
+                for (int index : network.edgeGrid().query(west, south, east, north)) {
+                    RoadEdge edge = network.edgeAt(index);
+                    if (!written.add(edge.id())) {
+                        continue;
+                    }
+                    double[] coords = edge.coordinates();
+                    if (xy.length < coords.length) {
+                        xy = new int[coords.length];
+                    }
+                    int points = project(coords, z, x, y, xy);
+                    points = simplify(xy, points, simplifyTolerance);
+                    if (points >= 2) {
+                        roads.addLine(edge.id(), xy, points, Map.of("cost", edge.cost(), "oneway", !edge.isReverseOpen()));
+                    }
+                }
+            }
+        }
+        if (z >= minPlaceZoom) {
+            VectorTileEncoder.Layer layer = encoder.layer("places");
+            Set<Long> written = new HashSet<>();
+            for (Region region : regions) {
+                PlaceIndex places = networkService.places(region);
+                for (int index : places.grid().query(west, south, east, north)) {
+                    IndexedPlace place = places.placeAt(index);
+                    if (place.name() == null || !written.add(place.id())) {
+                        continue;
+                    }
+                    layer.addPoint(place.id(), tileX(place.lng(), z, x), tileY(place.lat(), z, y), Map.of("name", place.name()));
+                }
+            }
+        }
+        return encoder.encode();
+    }
+
+    // Projection Web Mercator en coordonnées entières de tuile, sans les points répétés après arrondi
+    private static int project(double[] coords, int z, int x, int y, int[] xy) {
+        int points = 0;
+        for (int i = 0; i + 1 < coords.length; i += 2) {
+            int px = tileX(coords[i], z, x);
+            int py = tileY(coords[i + 1], z, y);
+            if (points > 0 && xy[points * 2 - 2] == px && xy[points * 2 - 1] == py) {
+                continue;
+            }
+            xy[points * 2] = px;
+            xy[points * 2 + 1] = py;
+            points++;
+        }
+        return points;
+    }
+
+    private static int tileX(double lng, int z, int x) {
+        return (int) Math.round(((lng + 180) / 360 * (1 << z) - x) * VectorTileEncoder.EXTENT);
+    }
+
+    private static int tileY(double lat, int z, int y) {
+        double latRad = Math.toRadians(lat);
+        double worldY = (1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2;
+        return (int) Math.round((worldY * (1 << z) - y) * VectorTileEncoder.EXTENT);
+    }
+
+    private static double tileLng(double x, double n) {
+        return x / n * 360 - 180;
+    }
+
+    private static double tileLat(double y, double n) {
+        return Math.toDegrees(Math.atan(Math.sinh(Math.PI * (1 - 2 * y / n))));
+    }
+
+    // Douglas-Peucker en unités de tuile : la même tolérance simplifie davantage aux petits zooms
+    private static int simplify(int[] xy, int points, double tolerance) {
+        if (points <= 2 || tolerance <= 0) {
+            return points;
+        }
+        boolean[] keep = new boolean[points];
+        keep[0] = true;
+        keep[points - 1] = true;
+        int[] stack = new int[points * 2];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = points - 1;
+        double toleranceSquared = tolerance * tolerance;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double maxDistance = -1;
+            int farthest = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistanceSquared(xy, i, first, last);
+                if (d > maxDistance) {
+                    maxDistance = d;
+                    farthest = i;
+                }
+            }
+            if (farthest >= 0 && maxDistance > toleranceSquared) {
+                keep[farthest] = true;
+                stack[top++] = first;
+                stack[top++] = farthest;
+                stack[top++] = farthest;
+                stack[top++] = last;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < points; i++) {
+            if (keep[i]) {
+                xy[kept * 2] = xy[i * 2];
+                xy[kept * 2 + 1] = xy[i * 2 + 1];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    private static double segmentDistanceSquared(int[] xy, int p, int a, int b) {
+        double px = xy[p * 2], py = xy[p * 2 + 1];
+        double ax = xy[a * 2], ay = xy[a * 2 + 1];
+        double bx = xy[b * 2], by = xy[b * 2 + 1];
+        double dx = bx - ax, dy = by - ay;
+        double lengthSquared = dx * dx + dy * dy;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / lengthSquared));
+        double ex = ax + t * dx - px, ey = ay + t * dy - py;
+        return ex * ex + ey * ey;
+    }
+
+    // Tuile encodée et version de chargement des régions dont elle est tirée
+    private record Tile(byte[] data, long loadVersion) {
+    }
+}
@@ -0,0 +1,392 @@
+package com.example.map_backend.transit;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Lecture d'une archive GTFS (stops, routes, trips, stop_times, frequencies facultatif) en flux,
+ * fichier par fichier, puis construction d'un {@link Timetable}. Les lignes de taxis collectifs sans
+ * horaires fixes se décrivent avec frequencies.txt : chaque fréquence est développée en courses.
+ * Le calendrier (calendar.txt) n'est pas pris en compte : toutes les courses circulent chaque jour.
+ */
+public final class GtfsReader {
+
+    private final Map<String, Integer> stopKeys = new HashMap<>();
+    private final List<String> stopIds = new ArrayList<>();
+    private final List<String> stopNames = new ArrayList<>();
+    private final List<double[]> stopCoordinates = new ArrayList<>();
+    private final Map<String, String> routeNames = new HashMap<>();
+    private final Map<String, String> tripRoutes = new HashMap<>();
+    private final Map<String, TripTimes> tripTimes = new LinkedHashMap<>();
+    private final Map<String, List<int[]>> frequencies = new HashMap<>();
+
+    public static Timetable read(InputStream zip) throws IOException {
+        GtfsReader reader = new GtfsReader();
+        try (ZipInputStream in = new ZipInputStream(zip)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                String name = entry.getName().substring(entry.getName().lastIndexOf('/') + 1);
+                BufferedReader lines = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                switch (name) {
+                    case "stops.txt" -> reader.readStops(lines);
+                    case "routes.txt" -> reader.readRoutes(lines);
+                    case "trips.txt" -> reader.readTrips(lines);
+                    case "stop_times.txt" -> reader.readStopTimes(lines);
+                    case "frequencies.txt" -> reader.readFrequencies(lines);
+                    default -> {
+                        // Fichier ignoré
+                    }
+                }
+            }
+        }
+        return reader.build();
+    }
+
+    private void readStops(BufferedReader lines) throws IOException {
+        CsvTable table = CsvTable.open(lines, "stop_id", "stop_name", "stop_lat", "stop_lon");
+        String[] row;
+        while ((row = table.next()) != null) {
+            try {
+                int key = stopKey(row[0]);
+                stopNames.set(key, row[1]);
+                stopCoordinates.set(key, new double[]{Double.parseDouble(row[2]), Double.parseDouble(row[3])});
+            } catch (NumberFormatException e) {
+                // Arrêt sans coordonnées exploitables : ignoré
+            }
+        }
+    }
+
+    private void readRoutes(BufferedReader lines) throws IOException {
+        CsvTable table = CsvTable.open(lines, "route_id", "route_short_name", "route_long_name");
+        String[] row;
+        while ((row = table.next()) != null) {
+            routeNames.put(row[0], !row[1].isBlank() ? row[1] : row[2]);
+        }
+    }
+
+    private void readTrips(BufferedReader lines) throws IOException {
+        CsvTable table = CsvTable.open(lines, "trip_id", "route_id");
+        String[] row;
+        while ((row = table.next()) != null) {
+            tripRoutes.put(row[0], row[1]);
+        }
+    }
+
+    private void readStopTimes(BufferedReader lines) throws IOException {
+        CsvTable table = CsvTable.open(lines, "trip_id", "arrival_time", "departure_time", "stop_id", "stop_sequence");
+        String[] row;
+        while ((row = table.next()) != null) {
+            int arrival = parseTime(row[1]);
+            int departure = parseTime(row[2]);
+            if (arrival < 0 && departure < 0) {
+                continue;
+            }
+            TripTimes times = tripTimes.computeIfAbsent(row[0], id -> new TripTimes());
+            times.add(Integer.parseInt(row[4].trim()), stopKey(row[3]), arrival < 0 ? departure : arrival, departure < 0 ? arrival : departure);
+        }
+    }
+
+    private void readFrequencies(BufferedReader lines) throws IOException {
+        CsvTable table = CsvTable.open(lines, "trip_id", "start_time", "end_time", "headway_secs");
+        String[] row;
+        while ((row = table.next()) != null) {
+            int start = parseTime(row[1]);
+            int end = parseTime(row[2]);
+            int headway = Integer.parseInt(row[3].trim());
+            if (start >= 0 && end > start && headway > 0) {
+                frequencies.computeIfAbsent(row[0], id -> new ArrayList<>()).add(new int[]{start, end, headway});
+            }
+        }
+    }
+
+    private int stopKey(String stopId) {
+        return stopKeys.computeIfAbsent(stopId, id -> {
+            stopIds.add(id);
+            stopNames.add(id);
+            stopCoordinates.add(null);
+            return stopIds.size() - 1;
+        });
+    }
+
+    // "HH:MM:SS" (HH peut dépasser 23) en secondes, -1 si vide
+    static int parseTime(String value) {
+        String time = value.trim();
+        if (time.isEmpty()) {
+            return -1;
+        }
+        String[] parts = time.split(":");
+        return Integer.parseInt(parts[0]) * 3600 + Integer.parseInt(parts[1]) * 60 + (parts.length > 2 ? Integer.parseInt(parts[2]) : 0);
+    }
+
+    private Timetable build() {
+        // Arrêts retenus : ceux qui ont des coordonnées
+        int[] stopIndex = new int[stopIds.size()];
+        List<Integer> keptStops = new ArrayList<>();
+        for (int key = 0; key < stopIds.size(); key++) {
+            stopIndex[key] = stopCoordinates.get(key) != null ? keptStops.size() : -1;
+            if (stopIndex[key] >= 0) {
+                keptStops.add(key);
+            }
+        }
+
+        // Courses concrètes (fréquences développées), regroupées par ligne et suite d'arrêts
+        Map<String, List<Trip>> byPattern = new LinkedHashMap<>();
+        for (Map.Entry<String, TripTimes> entry : tripTimes.entrySet()) {
+            Trip trip = entry.getValue().toTrip(entry.getKey(), stopIndex);
+            if (trip == null) {
+                continue;
+            }
+            String route = tripRoutes.getOrDefault(entry.getKey(), "");
+            String patternKey = route + "|" + Arrays.toString(trip.stops);
+            List<Trip> trips = byPattern.computeIfAbsent(patternKey, key -> new ArrayList<>());
+            List<int[]> windows = frequencies.get(entry.getKey());
+            if (windows == null) {
+                trips.add(trip.withRoute(route));
+                continue;
+            }
+            for (int[] window : windows) {
+                for (int start = window[0]; start < window[1]; start += window[2]) {
+                    trips.add(trip.shifted(start - trip.departures[0], entry.getKey() + "@" + start).withRoute(route));
+                }
+            }
+        }
+
+        // Un motif RAPTOR exige des courses sans dépassement : on répartit en sous-motifs si besoin
+        List<List<Trip>> patterns = new ArrayList<>();
+        for (List<Trip> trips : byPattern.values()) {
+            trips.sort((a, b) -> Integer.compare(a.departures[0], b.departures[0]));
+            List<List<Trip>> split = new ArrayList<>();
+            for (Trip trip : trips) {
+                List<Trip> target = null;
+                for (List<Trip> candidate : split) {
+                    if (!trip.overtakes(candidate.get(candidate.size() - 1))) {
+                        target = candidate;
+                        break;
+                    }
+                }
+                if (target == null) {
+                    target = new ArrayList<>();
+                    split.add(target);
+                }
+                target.add(trip);
+            }
+            patterns.addAll(split);
+        }
+
+        int patternCount = patterns.size();
+        String[] patternRouteNames = new String[patternCount];
+        int[] patternStopStart = new int[patternCount + 1];
+        int[] patternTripStart = new int[patternCount + 1];
+        int stopSlots = 0;
+        int tripTotal = 0;
+        int timeSlots = 0;
+        for (int p = 0; p < patternCount; p++) {
+            List<Trip> trips = patterns.get(p);
+            stopSlots += trips.get(0).stops.length;
+            tripTotal += trips.size();
+            timeSlots += trips.size() * trips.get(0).stops.length;
+        }
+        int[] patternStops = new int[stopSlots];
+        String[] tripIds = new String[tripTotal];
+        int[] tripTimeStart = new int[tripTotal];
+        int[] arrivals = new int[timeSlots];
+        int[] departures = new int[timeSlots];
+        int stopCursor = 0;
+        int tripCursor = 0;
+        int timeCursor = 0;
+        for (int p = 0; p < patternCount; p++) {
+            List<Trip> trips = patterns.get(p);
+            int[] stops = trips.get(0).stops;
+            String route = trips.get(0).route;
+            patternRouteNames[p] = routeNames.getOrDefault(route, route);
+            patternStopStart[p] = stopCursor;
+            System.arraycopy(stops, 0, patternStops, stopCursor, stops.length);
+            stopCursor += stops.length;
+            patternTripStart[p] = tripCursor;
+            for (Trip trip : trips) {
+                tripIds[tripCursor] = trip.id;
+                tripTimeStart[tripCursor] = timeCursor;
+                System.arraycopy(trip.arrivals, 0, arrivals, timeCursor, stops.length);
+                System.arraycopy(trip.departures, 0, departures, timeCursor, stops.length);
+                timeCursor += stops.length;
+                tripCursor++;
+            }
+        }
+        patternStopStart[patternCount] = stopCursor;
+        patternTripStart[patternCount] = tripCursor;
+
+        int stopCount = keptStops.size();
+        String[] ids = new String[stopCount];
+        String[] names = new String[stopCount];
+        double[] lat = new double[stopCount];
+        double[] lng = new double[stopCount];
+        for (int i = 0; i < stopCount; i++) {
+            int key = keptStops.get(i);
+            ids[i] = stopIds.get(key);
+            names[i] = stopNames.get(key);
+            lat[i] = stopCoordinates.get(key)[0];
+            lng[i] = stopCoordinates.get(key)[1];
+        }
+        return new Timetable(ids, names, lat, lng, patternRouteNames, patternStopStart, patternStops, patternTripStart,
+                tripIds, tripTimeStart, arrivals, departures);
+    }
+
+    // Horaires d'une course en cours de lecture, triés par stop_sequence à la construction
+    private static final class TripTimes {
+        private int size;
+        private int[] sequence = new int[8];
+        private int[] stops = new int[8];
+        private int[] arrivals = new int[8];
+        private int[] departures = new int[8];
+
+        void add(int seq, int stop, int arrival, int departure) {
+            if (size == sequence.length) {
+                sequence = Arrays.copyOf(sequence, size * 2);
+                stops = Arrays.copyOf(stops, size * 2);
+                arrivals = Arrays.copyOf(arrivals, size * 2);
+                departures = Arrays.copyOf(departures, size * 2);
+            }
+            sequence[size] = seq;
+            stops[size] = stop;
+            arrivals[size] = arrival;
+            departures[size] = departure;
+            size++;
+        }
+
+        Trip toTrip(String id, int[] stopIndex) {
+            if (size < 2) {
+                return null;
+            }
+            Integer[] order = new Integer[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, (a, b) -> Integer.compare(sequence[a], sequence[b]));
+            int[] tripStops = new int[size];
+            int[] tripArrivals = new int[size];
+            int[] tripDepartures = new int[size];
+            for (int i = 0; i < size; i++) {
+                int j = order[i];
+                if (stopIndex[stops[j]] < 0) {
+                    return null;
+                }
+                tripStops[i] = stopIndex[stops[j]];
+                tripArrivals[i] = arrivals[j];
+                tripDepartures[i] = departures[j];
+            }
+            return new Trip(id, null, tripStops, tripArrivals, tripDepartures);
+        }
+    }
+
+    private record Trip(String id, String route, int[] stops, int[] arrivals, int[] departures) {
+
+        Trip withRoute(String route) {
+            return new Trip(id, route, stops, arrivals, departures);
+        }
+
+        Trip shifted(int offset, String newId) {
+            int[] a = arrivals.clone();
+            int[] d = departures.clone();
+            for (int i = 0; i < a.length; i++) {
+                a[i] += offset;
+                d[i] += offset;
+            }
+            return new Trip(newId, route, stops, a, d);
+        }
+
+        // Vrai si cette course (partie après other) arrive quelque part avant elle
+        boolean overtakes(Trip other) {
+            for (int i = 0; i < stops.length; i++) {
+                if (departures[i] < other.departures[i] || arrivals[i] < other.arrivals[i]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Lecture CSV avec en-tête : seules les colonnes demandées sont renvoyées, dans l'ordre demandé
+    private static final class CsvTable {
+        private final BufferedReader lines;
+        private final int[] columns;
+
+        private CsvTable(BufferedReader lines, int[] columns) {
+            this.lines = lines;
+            this.columns = columns;
+        }
+
+        static CsvTable open(BufferedReader lines, String... names) throws IOException {
+            String header = lines.readLine();
+            if (header == null) {
+                return new CsvTable(lines, null);
+            }
+            if (header.startsWith("\uFEFF")) {
+                header = header.substring(1);
+            }
+            List<String> fields = split(header);
+            int[] columns = new int[names.length];
+            for (int i = 0; i < names.length; i++) {
+                columns[i] = fields.indexOf(names[i]);
+            }
+            return new CsvTable(lines, columns);
+        }
+
+        String[] next() throws IOException {
+            if (columns == null) {
+                return null;
+            }
+            String line;
+            while ((line = lines.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                List<String> fields = split(line);
+                String[] row = new String[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    row[i] = columns[i] >= 0 && columns[i] < fields.size() ? fields.get(columns[i]).trim() : "";
+                }
+                return row;
+            }
+            return null;
+        }
+
+        private static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder current = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        current.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        current.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(current.toString());
+                    current.setLength(0);
+                } else {
+                    current.append(c);
+                }
+            }
+            fields.add(current.toString());
+            return fields;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+package com.example.map_backend.transit;
+
+import com.example.map_backend.network.LineGeometry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recherche d'itinéraires en transport en commun par rRAPTOR (RAPTOR en plage horaire) : les
+ * départs possibles de la fenêtre sont traités du plus tardif au plus tôt en conservant les
+ * étiquettes par tour, si bien que chaque départ ne recalcule que ce qu'il améliore. Le résultat
+ * est l'ensemble de Pareto (départ le plus tardif, arrivée la plus tôt, moins de correspondances).
+ * Un routeur par recherche : il n'est pas partagé entre threads.
+ */
+public final class RaptorRouter {
+
+    private static final int INF = Integer.MAX_VALUE;
+    private static final int ACCESS = 0;
+    private static final int TRANSIT = 1;
+    private static final int TRANSFER = 2;
+
+    public enum LegMode { WALK, BUS }
+
+    /** Tronçon d'un trajet. */
+    public record Leg(LegMode mode, String line, String tripId, String from, String to,
+                      int departure, int arrival, double distanceMeters, int stops, LineGeometry geometry) {
+    }
+
+    /** Trajet complet ; heures en secondes depuis minuit. */
+    public record Journey(int departure, int arrival, int transfers, List<Leg> legs) {
+        public int duration() {
+            return arrival - departure;
+        }
+    }
+
+    private final TransitNetwork network;
+    private final Timetable timetable;
+    private final double walkSpeed;
+    private final int maxRounds;
+    private final int stops;
+
+    private final int[][] arrival;
+    private final int[][] parentKind;
+    private final int[][] parentStop;
+    private final int[][] parentRound;
+    private final int[][] parentTrip;
+    private final int[][] parentBoardPos;
+    private final int[][] parentAlightPos;
+    private final int[][] parentPattern;
+    private final int[] patternFrom;
+
+    public RaptorRouter(TransitNetwork network, double walkSpeed, int maxTransfers) {
+        this.network = network;
+        this.timetable = network.timetable();
+        this.walkSpeed = walkSpeed;
+        this.maxRounds = maxTransfers + 1;
+        this.stops = timetable.stopCount();
+        int rounds = maxRounds + 1;
+        this.arrival = new int[rounds][stops];
+        this.parentKind = new int[rounds][stops];
+        this.parentStop = new int[rounds][stops];
+        this.parentRound = new int[rounds][stops];
+        this.parentTrip = new int[rounds][stops];
+        this.parentBoardPos = new int[rounds][stops];
+        this.parentAlightPos = new int[rounds][stops];
+        this.parentPattern = new int[rounds][stops];
+        this.patternFrom = new int[timetable.patternCount()];
+        for (int[] labels : arrival) {
+            Arrays.fill(labels, INF);
+        }
+        Arrays.fill(patternFrom, INF);
+    }
+
+    /**
+     * Trajets de Pareto partant entre earliest et earliest + windowSeconds, triés par départ.
+     * Un trajet entièrement à pied est ajouté s'il tient dans maxWalkMeters.
+     */
+    public List<Journey> search(double fromLat, double fromLng, double toLat, double toLng,
+                                int earliest, int windowSeconds, double maxWalkMeters) {
+        TransitNetwork.WalkResult access = network.walkFromPoint(fromLat, fromLng, maxWalkMeters);
+        TransitNetwork.WalkResult egress = network.walkFromPoint(toLat, toLng, maxWalkMeters);
+        int[] egressSeconds = new int[stops];
+        Arrays.fill(egressSeconds, INF);
+        for (int i = 0; i < egress.size(); i++) {
+            egressSeconds[egress.stop(i)] = walkSeconds(egress.meters(i));
+        }
+
+        List<Journey> journeys = new ArrayList<>();
+        int[] bestTarget = new int[maxRounds + 1];
+        Arrays.fill(bestTarget, INF);
+        for (int departure : departureTimes(access, earliest, windowSeconds)) {
+            runIteration(departure, access);
+            collect(departure, access, egress, egressSeconds, bestTarget, fromLat, fromLng, toLat, toLng, journeys);
+        }
+
+        double walkMeters = network.walkMeters(fromLat, fromLng, toLat, toLng, maxWalkMeters);
+        if (walkMeters < Double.POSITIVE_INFINITY) {
+            int walkTime = walkSeconds(walkMeters);
+            // Un trajet qui n'arrive pas avant la marche partie à la même heure est inutile
+            journeys.removeIf(journey -> journey.arrival() >= journey.departure() + walkTime);
+            journeys.add(new Journey(earliest, earliest + walkTime, 0,
+                    List.of(walkLeg("Départ", "Arrivée", earliest, walkMeters, fromLng, fromLat, toLng, toLat))));
+        }
+        journeys.sort((a, b) -> a.departure() != b.departure()
+                ? Integer.compare(a.departure(), b.departure())
+                : Integer.compare(a.arrival(), b.arrival()));
+        return journeys;
+    }
+
+    // Heures de départ utiles de la fenêtre : celles qui permettent d'attraper exactement une course
+    // depuis un arrêt d'accès, plus le début de la fenêtre ; ordre décroissant
+    private int[] departureTimes(TransitNetwork.WalkResult access, int earliest, int windowSeconds) {
+        int latest = earliest + Math.max(0, windowSeconds);
+        int[] times = new int[16];
+        int count = 0;
+        times[count++] = earliest;
+        if (windowSeconds > 0) {
+            for (int i = 0; i < access.size(); i++) {
+                int stop = access.stop(i);
+                int walk = walkSeconds(access.meters(i));
+                for (int slot = timetable.stopPatternStart(stop); slot < timetable.stopPatternEnd(stop); slot++) {
+                    int pattern = timetable.stopPatternAt(slot);
+                    int position = timetable.stopPatternPositionAt(slot);
+                    if (position == timetable.patternLength(pattern) - 1) {
+                        continue;
+                    }
+                    for (int trip = timetable.firstTrip(pattern); trip < timetable.endTrip(pattern); trip++) {
+                        int departure = timetable.departure(trip, position) - walk;
+                        if (departure > earliest && departure <= latest) {
+                            if (count == times.length) {
+                                times = Arrays.copyOf(times, count * 2);
+                            }
+                            times[count++] = departure;
+                        }
+                    }
+                }
+            }
+        }
+        int[] sorted = Arrays.stream(times, 0, count).distinct().sorted().toArray();
+        for (int i = 0, j = sorted.length - 1; i < j; i++, j--) {
+            int swap = sorted[i];
+            sorted[i] = sorted[j];
+            sorted[j] = swap;
+        }
+        return sorted;
+    }
+
+    private void runIteration(int departure, TransitNetwork.WalkResult access) {
+        boolean[] marked = new boolean[stops];
+        for (int i = 0; i < access.size(); i++) {
+            int stop = access.stop(i);
+            int time = departure + walkSeconds(access.meters(i));
+            if (time < arrival[0][stop]) {
+                arrival[0][stop] = time;
+                parentKind[0][stop] = ACCESS;
+                marked[stop] = true;
+            }
+        }
+        for (int round = 1; round <= maxRounds; round++) {
+            List<Integer> patterns = collectPatterns(marked);
+            if (patterns.isEmpty()) {
+                return;
+            }
+            boolean[] improved = new boolean[stops];
+            for (int pattern : patterns) {
+                scanPattern(pattern, round, improved);
+            }
+            boolean[] next = improved.clone();
+            for (int stop = 0; stop < stops; stop++) {
+                if (improved[stop]) {
+                    relaxTransfers(stop, round, next);
+                }
+            }
+            marked = next;
+        }
+    }
+
+    private List<Integer> collectPatterns(boolean[] marked) {
+        List<Integer> patterns = new ArrayList<>();
+        for (int stop = 0; stop < stops; stop++) {
+            if (!marked[stop]) {
+                continue;
+            }
+            for (int slot = timetable.stopPatternStart(stop); slot < timetable.stopPatternEnd(stop); slot++) {
+                int pattern = timetable.stopPatternAt(slot);
+                int position = timetable.stopPatternPositionAt(slot);
+                if (patternFrom[pattern] == INF) {
+                    patterns.add(pattern);
+                }
+                patternFrom[pattern] = Math.min(patternFrom[pattern], position);
+            }
+        }
+        return patterns;
+    }
+
+    private void scanPattern(int pattern, int round, boolean[] improved) {
+        int first = patternFrom[pattern];
+        patternFrom[pattern] = INF;
+        int trip = -1;
+        int boardPos = -1;
+        int boardStop = -1;
+        int boardRound = -1;
+        for (int position = first; position < timetable.patternLength(pattern); position++) {
+            int stop = timetable.patternStop(pattern, position);
+            if (trip >= 0) {
+                int time = timetable.arrival(trip, position);
+                if (time < bestUpTo(stop, round)) {
+                    arrival[round][stop] = time;
+                    parentKind[round][stop] = TRANSIT;
+                    parentStop[round][stop] = boardStop;
+                    parentRound[round][stop] = boardRound;
+                    parentTrip[round][stop] = trip;
+                    parentPattern[round][stop] = pattern;
+                    parentBoardPos[round][stop] = boardPos;
+                    parentAlightPos[round][stop] = position;
+                    improved[stop] = true;
+                }
+            }
+            // Montée possible si l'arrêt est atteint au tour précédent avant le passage de la course courante
+            int previousRound = earliestRound(stop, round - 1);
+            if (previousRound < 0) {
+                continue;
+            }
+            int ready = arrival[previousRound][stop];
+            if (trip < 0 || ready <= timetable.departure(trip, position)) {
+                int candidate = timetable.earliestTrip(pattern, position, ready);
+                if (candidate >= 0 && (trip < 0 || candidate < trip)) {
+                    trip = candidate;
+                    boardPos = position;
+                    boardStop = stop;
+                    boardRound = previousRound;
+                }
+            }
+        }
+    }
+
+    private void relaxTransfers(int stop, int round, boolean[] marked) {
+        int from = arrival[round][stop];
+        for (int slot = network.transferStart(stop); slot < network.transferEnd(stop); slot++) {
+            int target = network.transferTarget(slot);
+            int time = from + walkSeconds(network.transferMeters(slot));
+            if (time < bestUpTo(target, round)) {
+                arrival[round][target] = time;
+                parentKind[round][target] = TRANSFER;
+                parentStop[round][target] = stop;
+                parentRound[round][target] = round;
+                marked[target] = true;
+            }
+        }
+    }
+
+    // Meilleure arrivée à l'arrêt en au plus round tours
+    private int bestUpTo(int stop, int round) {
+        int best = INF;
+        for (int r = 0; r <= round; r++) {
+            best = Math.min(best, arrival[r][stop]);
+        }
+        return best;
+    }
+
+    // Tour (<= round) donnant la meilleure arrivée à l'arrêt, -1 si non atteint
+    private int earliestRound(int stop, int round) {
+        int best = INF;
+        int bestRound = -1;
+        for (int r = 0; r <= round; r++) {
+            if (arrival[r][stop] < best) {
+                best = arrival[r][stop];
+                bestRound = r;
+            }
+        }
+        return bestRound;
+    }
+
+    // Relève, pour chaque nombre de tours, l'arrivée à destination si elle s'améliore par rapport au
+    // départ suivant (déjà traité) : c'est alors un trajet de Pareto, reconstruit tout de suite car
+    // les étiquettes seront écrasées par les départs plus tôt
+    private void collect(int departure, TransitNetwork.WalkResult access, TransitNetwork.WalkResult egress,
+                         int[] egressSeconds, int[] bestTarget, double fromLat, double fromLng,
+                         double toLat, double toLng, List<Journey> journeys) {
+        int previousBest = INF;
+        for (int round = 1; round <= maxRounds; round++) {
+            int bestStop = -1;
+            int best = INF;
+            for (int i = 0; i < egress.size(); i++) {
+                int stop = egress.stop(i);
+                if (arrival[round][stop] != INF) {
+                    int time = arrival[round][stop] + egressSeconds[stop];
+                    if (time < best) {
+                        best = time;
+                        bestStop = stop;
+                    }
+                }
+            }
+            if (bestStop >= 0 && best < bestTarget[round] && best < previousBest) {
+                bestTarget[round] = best;
+                Journey journey = reconstruct(round, bestStop, best, access, egressSeconds, fromLat, fromLng, toLat, toLng);
+                if (journey != null && journey.departure() >= departure) {
+                    journeys.removeIf(other -> other.departure() <= journey.departure() && other.arrival() >= journey.arrival()
+                            && other.transfers() >= journey.transfers());
+                    journeys.add(journey);
+                }
+            }
+            previousBest = Math.min(previousBest, Math.min(best, bestTarget[round]));
+        }
+    }
+
+    private Journey reconstruct(int round, int lastStop, int arrivalTime, TransitNetwork.WalkResult access,
+                                int[] egressSeconds, double fromLat, double fromLng, double toLat, double toLng) {
+        List<Leg> legs = new ArrayList<>();
+        int egressTime = arrivalTime - egressSeconds[lastStop];
+        legs.add(walkLeg(timetable.stopName(lastStop), "Arrivée", egressTime,
+                egressSeconds[lastStop] * walkSpeed, timetable.stopLng(lastStop), timetable.stopLat(lastStop), toLng, toLat));
+        int stop = lastStop;
+        int r = round;
+        int busLegs = 0;
+        while (true) {
+            int kind = parentKind[r][stop];
+            if (kind == ACCESS) {
+                break;
+            }
+            if (kind == TRANSIT) {
+                legs.add(busLeg(parentPattern[r][stop], parentTrip[r][stop], parentBoardPos[r][stop], parentAlightPos[r][stop]));
+                busLegs++;
+            } else {
+                int from = parentStop[r][stop];
+                int start = arrival[r][from];
+                legs.add(walkLeg(timetable.stopName(from), timetable.stopName(stop), start,
+                        (arrival[r][stop] - start) * walkSpeed, timetable.stopLng(from), timetable.stopLat(from),
+                        timetable.stopLng(stop), timetable.stopLat(stop)));
+            }
+            int nextStop = parentStop[r][stop];
+            r = parentRound[r][stop];
+            stop = nextStop;
+            if (r < 0 || legs.size() > 4 * maxRounds + 2) {
+                return null;
+            }
+        }
+        double accessMeters = -1;
+        for (int i = 0; i < access.size(); i++) {
+            if (access.stop(i) == stop) {
+                accessMeters = access.meters(i);
+                break;
+            }
+        }
+        if (accessMeters < 0) {
+            return null;
+        }
+        int departure = arrival[0][stop] - walkSeconds(accessMeters);
+        legs.add(walkLeg("Départ", timetable.stopName(stop), departure, accessMeters,
+                fromLng, fromLat, timetable.stopLng(stop), timetable.stopLat(stop)));
+        Collections.reverse(legs);
+        legs.removeIf(leg -> leg.mode() == LegMode.WALK && leg.distanceMeters() < 1);
+        return new Journey(departure, arrivalTime, Math.max(0, busLegs - 1), List.copyOf(legs));
+    }
+
+    private Leg busLeg(int pattern, int trip, int boardPos, int alightPos) {
+        double[] coordinates = new double[(alightPos - boardPos + 1) * 2];
+        for (int position = boardPos; position <= alightPos; position++) {
+            int stop = timetable.patternStop(pattern, position);
+            int i = (position - boardPos) * 2;
+            coordinates[i] = timetable.stopLng(stop);
+            coordinates[i + 1] = timetable.stopLat(stop);
+        }
+        LineGeometry geometry = LineGeometry.of(coordinates);
+        return new Leg(LegMode.BUS, timetable.patternRouteName(pattern), timetable.tripId(trip),
+                timetable.stopName(timetable.patternStop(pattern, boardPos)),
+                timetable.stopName(timetable.patternStop(pattern, alightPos)),
+                timetable.departure(trip, boardPos), timetable.arrival(trip, alightPos),
+                geometry.lengthMeters(), alightPos - boardPos, geometry);
+    }
+
+    private Leg walkLeg(String from, String to, int departure, double meters,
+                        double fromLng, double fromLat, double toLng, double toLat) {
+        return new Leg(LegMode.WALK, null, null, from, to, departure, departure + walkSeconds(meters),
+                meters, 0, LineGeometry.of(new double[]{fromLng, fromLat, toLng, toLat}));
+    }
+
+    private int walkSeconds(double meters) {
+        return (int) Math.ceil(meters / walkSpeed);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.map_backend.transit;
+
+/**
+ * Horaires de transport en commun en tableaux primitifs, organisés pour RAPTOR : les courses
+ * (trips) qui desservent la même suite d'arrêts sont regroupées en motifs (patterns), triées par
+ * heure de départ. Les heures sont en secondes depuis minuit (au-delà de 24 h pour les courses
+ * après minuit, comme en GTFS).
+ */
+public final class Timetable {
+
+    private final String[] stopIds;
+    private final String[] stopNames;
+    private final double[] stopLat;
+    private final double[] stopLng;
+
+    private final String[] patternRouteNames;
+    private final int[] patternStopStart;
+    private final int[] patternStops;
+    private final int[] patternTripStart;
+    private final String[] tripIds;
+    private final int[] tripTimeStart;
+    private final int[] arrivals;
+    private final int[] departures;
+
+    private final int[] stopPatternStart;
+    private final int[] stopPatterns;
+    private final int[] stopPatternPositions;
+
+    Timetable(String[] stopIds, String[] stopNames, double[] stopLat, double[] stopLng,
+              String[] patternRouteNames, int[] patternStopStart, int[] patternStops, int[] patternTripStart,
+              String[] tripIds, int[] tripTimeStart, int[] arrivals, int[] departures) {
+        this.stopIds = stopIds;
+        this.stopNames = stopNames;
+        this.stopLat = stopLat;
+        this.stopLng = stopLng;
+        this.patternRouteNames = patternRouteNames;
+        this.patternStopStart = patternStopStart;
+        this.patternStops = patternStops;
+        this.patternTripStart = patternTripStart;
+        this.tripIds = tripIds;
+        this.tripTimeStart = tripTimeStart;
+        this.arrivals = arrivals;
+        this.departures = departures;
+
+        // Index inverse arrêt -> (motif, position) en CSR
+        int stops = stopIds.length;
+        int[] count = new int[stops + 1];
+        for (int stop : patternStops) {
+            count[stop + 1]++;
+        }
+        for (int i = 0; i < stops; i++) {
+            count[i + 1] += count[i];
+        }
+        this.stopPatternStart = count;
+        this.stopPatterns = new int[patternStops.length];
+        this.stopPatternPositions = new int[patternStops.length];
+        int[] cursor = new int[stops];
+        System.arraycopy(count, 0, cursor, 0, stops);
+        for (int pattern = 0; pattern < patternRouteNames.length; pattern++) {
+            for (int i = patternStopStart[pattern]; i < patternStopStart[pattern + 1]; i++) {
+                int slot = cursor[patternStops[i]]++;
+                stopPatterns[slot] = pattern;
+                stopPatternPositions[slot] = i - patternStopStart[pattern];
+            }
+        }
+    }
+
+    public int stopCount() {
+        return stopIds.length;
+    }
+
+    public String stopId(int stop) {
+        return stopIds[stop];
+    }
+
+    public String stopName(int stop) {
+        return stopNames[stop];
+    }
+
+    public double stopLat(int stop) {
+        return stopLat[stop];
+    }
+
+    public double stopLng(int stop) {
+        return stopLng[stop];
+    }
+
+    public int patternCount() {
+        return patternRouteNames.length;
+    }
+
+    public String patternRouteName(int pattern) {
+        return patternRouteNames[pattern];
+    }
+
+    public int patternLength(int pattern) {
+        return patternStopStart[pattern + 1] - patternStopStart[pattern];
+    }
+
+    public int patternStop(int pattern, int position) {
+        return patternStops[patternStopStart[pattern] + position];
+    }
+
+    public int tripCount() {
+        return tripIds.length;
+    }
+
+    public int firstTrip(int pattern) {
+        return patternTripStart[pattern];
+    }
+
+    public int endTrip(int pattern) {
+        return patternTripStart[pattern + 1];
+    }
+
+    public String tripId(int trip) {
+        return tripIds[trip];
+    }
+
+    public int arrival(int trip, int position) {
+        return arrivals[tripTimeStart[trip] + position];
+    }
+
+    public int departure(int trip, int position) {
+        return departures[tripTimeStart[trip] + position];
+    }
+
+    public int stopPatternStart(int stop) {
+        return stopPatternStart[stop];
+    }
+
+    public int stopPatternEnd(int stop) {
+        return stopPatternStart[stop + 1];
+    }
+
+    public int stopPatternAt(int slot) {
+        return stopPatterns[slot];
+    }
+
+    public int stopPatternPositionAt(int slot) {
+        return stopPatternPositions[slot];
+    }
+
+    // Première course du motif partant de la position donnée à partir de time, -1 si aucune
+    public int earliestTrip(int pattern, int position, int time) {
+        int low = patternTripStart[pattern];
+        int high = patternTripStart[pattern + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (departure(mid, position) < time) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low < patternTripStart[pattern + 1] ? low : -1;
+    }
+}
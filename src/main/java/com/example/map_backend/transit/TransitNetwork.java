@@ -0,0 +1,350 @@
+package com.example.map_backend.transit;
+
+import com.example.map_backend.network.GeoUtils;
+import com.example.map_backend.network.MinHeap;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.SpatialGrid;
+
+import java.util.Arrays;
+
+/**
+ * Horaires rattachés à un instantané du réseau routier : graphe piéton non orienté (les sens
+ * uniques ne s'appliquent pas aux piétons), arrêts accrochés au nœud le plus proche et
+ * correspondances à pied précalculées. Sans réseau routier, les distances à pied sont estimées à
+ * vol d'oiseau majoré de {@link #DETOUR_FACTOR}.
+ */
+public final class TransitNetwork {
+
+    static final double DETOUR_FACTOR = 1.3;
+    private static final double STOP_GRID_DEGREES = 0.005;
+
+    private final Timetable timetable;
+    private final RoadNetwork roads;
+    private final double snapRadiusMeters;
+
+    private final int[] walkStart;
+    private final int[] walkHead;
+    private final float[] walkLength;
+
+    private final int[] stopNode;
+    private final float[] stopOffset;
+    private final int[] nodeStopStart;
+    private final int[] nodeStops;
+    private final SpatialGrid stopGrid;
+
+    private final int[] transferStart;
+    private final int[] transferTarget;
+    private final float[] transferMeters;
+
+    private final ThreadLocal<Workspace> workspaces;
+
+    private TransitNetwork(Timetable timetable, RoadNetwork roads, double snapRadiusMeters, double maxTransferMeters) {
+        this.timetable = timetable;
+        this.roads = roads;
+        this.snapRadiusMeters = snapRadiusMeters;
+        int nodes = roads.nodeCount();
+
+        // Graphe piéton en CSR : chaque arête dans les deux sens, longueur géométrique
+        int[] degree = new int[nodes + 1];
+        int edges = roads.edgeCount();
+        int[] edgeFrom = new int[edges];
+        int[] edgeTo = new int[edges];
+        for (int e = 0; e < edges; e++) {
+            RoadEdge edge = roads.edgeAt(e);
+            edgeFrom[e] = roads.nodeIndex(edge.source());
+            edgeTo[e] = roads.nodeIndex(edge.target());
+            if (edgeFrom[e] >= 0 && edgeTo[e] >= 0) {
+                degree[edgeFrom[e] + 1]++;
+                degree[edgeTo[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < nodes; i++) {
+            degree[i + 1] += degree[i];
+        }
+        this.walkStart = degree;
+        this.walkHead = new int[degree[nodes]];
+        this.walkLength = new float[degree[nodes]];
+        int[] cursor = Arrays.copyOf(degree, nodes);
+        for (int e = 0; e < edges; e++) {
+            if (edgeFrom[e] < 0 || edgeTo[e] < 0) {
+                continue;
+            }
+            float length = (float) roads.edgeLengthMeters(e);
+            walkHead[cursor[edgeFrom[e]]] = edgeTo[e];
+            walkLength[cursor[edgeFrom[e]]++] = length;
+            walkHead[cursor[edgeTo[e]]] = edgeFrom[e];
+            walkLength[cursor[edgeTo[e]]++] = length;
+        }
+
+        // Arrêts accrochés au nœud routier le plus proche (dans le rayon), index inverse nœud -> arrêts
+        int stops = timetable.stopCount();
+        this.stopNode = new int[stops];
+        this.stopOffset = new float[stops];
+        int[] perNode = new int[nodes + 1];
+        double[] distance = new double[1];
+        double[] stopLngs = new double[stops];
+        double[] stopLats = new double[stops];
+        for (int s = 0; s < stops; s++) {
+            stopNode[s] = nearestNode(timetable.stopLat(s), timetable.stopLng(s), distance);
+            stopOffset[s] = (float) distance[0];
+            if (stopNode[s] >= 0) {
+                perNode[stopNode[s] + 1]++;
+            }
+            stopLngs[s] = timetable.stopLng(s);
+            stopLats[s] = timetable.stopLat(s);
+        }
+        for (int i = 0; i < nodes; i++) {
+            perNode[i + 1] += perNode[i];
+        }
+        this.nodeStopStart = perNode;
+        this.nodeStops = new int[perNode[nodes]];
+        int[] stopCursor = Arrays.copyOf(perNode, nodes);
+        for (int s = 0; s < stops; s++) {
+            if (stopNode[s] >= 0) {
+                nodeStops[stopCursor[stopNode[s]]++] = s;
+            }
+        }
+        this.stopGrid = SpatialGrid.build(stopLngs, stopLats, stopLngs, stopLats, STOP_GRID_DEGREES);
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(nodes, stops));
+
+        // Correspondances à pied entre arrêts, bornées par maxTransferMeters
+        int[] start = new int[stops + 1];
+        int[] targets = new int[stops * 4];
+        float[] meters = new float[stops * 4];
+        int count = 0;
+        for (int s = 0; s < stops; s++) {
+            start[s] = count;
+            WalkResult reached = walkFromStop(s, maxTransferMeters);
+            for (int i = 0; i < reached.size(); i++) {
+                if (reached.stop(i) == s) {
+                    continue;
+                }
+                if (count == targets.length) {
+                    targets = Arrays.copyOf(targets, count * 2);
+                    meters = Arrays.copyOf(meters, count * 2);
+                }
+                targets[count] = reached.stop(i);
+                meters[count++] = (float) reached.meters(i);
+            }
+        }
+        start[stops] = count;
+        this.transferStart = start;
+        this.transferTarget = Arrays.copyOf(targets, count);
+        this.transferMeters = Arrays.copyOf(meters, count);
+    }
+
+    public static TransitNetwork build(Timetable timetable, RoadNetwork roads, double snapRadiusMeters, double maxTransferMeters) {
+        return new TransitNetwork(timetable, roads, snapRadiusMeters, maxTransferMeters);
+    }
+
+    public Timetable timetable() {
+        return timetable;
+    }
+
+    public long roadVersion() {
+        return roads.getVersion();
+    }
+
+    int transferStart(int stop) {
+        return transferStart[stop];
+    }
+
+    int transferEnd(int stop) {
+        return transferStart[stop + 1];
+    }
+
+    int transferTarget(int slot) {
+        return transferTarget[slot];
+    }
+
+    double transferMeters(int slot) {
+        return transferMeters[slot];
+    }
+
+    // Arrêts accessibles à pied depuis un point, avec la distance de marche
+    WalkResult walkFromPoint(double lat, double lng, double maxMeters) {
+        double[] offset = new double[1];
+        int node = nearestNode(lat, lng, offset);
+        Workspace workspace = workspaces.get();
+        workspace.reset();
+        if (node >= 0) {
+            dijkstra(workspace, node, offset[0], maxMeters);
+        }
+        addCrowFlyStops(workspace, lat, lng, maxMeters);
+        return workspace.result();
+    }
+
+    // Distance de marche entre deux points (réseau si possible, sinon vol d'oiseau majoré)
+    double walkMeters(double fromLat, double fromLng, double toLat, double toLng, double maxMeters) {
+        double crowFly = GeoUtils.distanceMeters(fromLng, fromLat, toLng, toLat) * DETOUR_FACTOR;
+        double[] fromOffset = new double[1];
+        double[] toOffset = new double[1];
+        int from = nearestNode(fromLat, fromLng, fromOffset);
+        int to = nearestNode(toLat, toLng, toOffset);
+        if (from < 0 || to < 0) {
+            return crowFly <= maxMeters ? crowFly : Double.POSITIVE_INFINITY;
+        }
+        Workspace workspace = workspaces.get();
+        workspace.reset();
+        dijkstra(workspace, from, fromOffset[0], maxMeters);
+        double reached = workspace.distanceTo(to) + toOffset[0];
+        return reached <= maxMeters ? reached : Double.POSITIVE_INFINITY;
+    }
+
+    private WalkResult walkFromStop(int stop, double maxMeters) {
+        Workspace workspace = workspaces.get();
+        workspace.reset();
+        if (stopNode[stop] >= 0) {
+            dijkstra(workspace, stopNode[stop], stopOffset[stop], maxMeters);
+        }
+        addCrowFlyStops(workspace, timetable.stopLat(stop), timetable.stopLng(stop), maxMeters);
+        return workspace.result();
+    }
+
+    // Dijkstra borné sur le graphe piéton ; les arrêts des nœuds atteints sont relevés au passage
+    private void dijkstra(Workspace workspace, int source, double startMeters, double maxMeters) {
+        MinHeap heap = workspace.heap;
+        heap.clear();
+        workspace.setDistance(source, startMeters);
+        heap.push(startMeters, source);
+        while (!heap.isEmpty()) {
+            double d = heap.peekKey();
+            int node = heap.pop();
+            if (d > workspace.distanceTo(node) || d > maxMeters) {
+                continue;
+            }
+            for (int i = nodeStopStart[node]; i < nodeStopStart[node + 1]; i++) {
+                int stop = nodeStops[i];
+                workspace.offerStop(stop, d + stopOffset[stop], maxMeters);
+            }
+            for (int arc = walkStart[node]; arc < walkStart[node + 1]; arc++) {
+                double next = d + walkLength[arc];
+                int head = walkHead[arc];
+                if (next <= maxMeters && next < workspace.distanceTo(head)) {
+                    workspace.setDistance(head, next);
+                    heap.push(next, head);
+                }
+            }
+        }
+    }
+
+    // Arrêts non accrochés au réseau (ou réseau absent) : vol d'oiseau majoré
+    private void addCrowFlyStops(Workspace workspace, double lat, double lng, double maxMeters) {
+        double dLat = maxMeters / 111_320.0;
+        double dLng = maxMeters / (111_320.0 * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+        for (int stop : stopGrid.query(lng - dLng, lat - dLat, lng + dLng, lat + dLat)) {
+            if (stopNode[stop] >= 0) {
+                continue;
+            }
+            double meters = GeoUtils.distanceMeters(lng, lat, timetable.stopLng(stop), timetable.stopLat(stop)) * DETOUR_FACTOR;
+            workspace.offerStop(stop, meters, maxMeters);
+        }
+    }
+
+    private int nearestNode(double lat, double lng, double[] distance) {
+        distance[0] = Double.POSITIVE_INFINITY;
+        if (roads.isEmpty()) {
+            return -1;
+        }
+        double dLat = snapRadiusMeters / 111_320.0;
+        double dLng = snapRadiusMeters / (111_320.0 * Math.max(0.01, Math.cos(Math.toRadians(lat))));
+        int best = -1;
+        for (int e : roads.edgeGrid().query(lng - dLng, lat - dLat, lng + dLng, lat + dLat)) {
+            RoadEdge edge = roads.edgeAt(e);
+            for (long nodeId : new long[]{edge.source(), edge.target()}) {
+                int node = roads.nodeIndex(nodeId);
+                if (node < 0) {
+                    continue;
+                }
+                double d = GeoUtils.distanceMeters(lng, lat, roads.nodeLng(node), roads.nodeLat(node));
+                if (d < distance[0] && d <= snapRadiusMeters) {
+                    distance[0] = d;
+                    best = node;
+                }
+            }
+        }
+        return best;
+    }
+
+    /** Arrêts atteints et distance de marche (mètres). */
+    static final class WalkResult {
+        private final int[] stops;
+        private final double[] meters;
+
+        WalkResult(int[] stops, double[] meters) {
+            this.stops = stops;
+            this.meters = meters;
+        }
+
+        int size() {
+            return stops.length;
+        }
+
+        int stop(int i) {
+            return stops[i];
+        }
+
+        double meters(int i) {
+            return meters[i];
+        }
+    }
+
+    // Espace de travail réutilisé d'une recherche à l'autre (marquage par génération)
+    private static final class Workspace {
+        private final double[] nodeDistance;
+        private final int[] nodeStamp;
+        private final double[] stopDistance;
+        private final int[] stopStamp;
+        private final MinHeap heap = new MinHeap(256);
+        private int[] reachedStops = new int[64];
+        private int reachedCount;
+        private int generation;
+
+        Workspace(int nodes, int stops) {
+            nodeDistance = new double[nodes];
+            nodeStamp = new int[nodes];
+            stopDistance = new double[stops];
+            stopStamp = new int[stops];
+        }
+
+        void reset() {
+            generation++;
+            reachedCount = 0;
+        }
+
+        double distanceTo(int node) {
+            return nodeStamp[node] == generation ? nodeDistance[node] : Double.POSITIVE_INFINITY;
+        }
+
+        void setDistance(int node, double distance) {
+            nodeStamp[node] = generation;
+            nodeDistance[node] = distance;
+        }
+
+        void offerStop(int stop, double meters, double maxMeters) {
+            if (meters > maxMeters) {
+                return;
+            }
+            if (stopStamp[stop] != generation) {
+                stopStamp[stop] = generation;
+                stopDistance[stop] = meters;
+                if (reachedCount == reachedStops.length) {
+                    reachedStops = Arrays.copyOf(reachedStops, reachedCount * 2);
+                }
+                reachedStops[reachedCount++] = stop;
+            } else if (meters < stopDistance[stop]) {
+                stopDistance[stop] = meters;
+            }
+        }
+
+        WalkResult result() {
+            int[] stops = Arrays.copyOf(reachedStops, reachedCount);
+            double[] meters = new double[reachedCount];
+            for (int i = 0; i < reachedCount; i++) {
+                meters[i] = stopDistance[stops[i]];
+            }
+            return new WalkResult(stops, meters);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.config.RequestDeadline;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlternativeRouteFinderTest {
+
+    private static final double LAT = 3.85;
+
+    // Trois itinéraires disjoints de 1 à 4 : par 2 (coût 20), par 3 (22) et par 5 (32, trop long)
+    private static final RoadNetwork NETWORK = RoadNetwork.of(1, List.of(
+            edge(1, 1, 2, 10, 11.500, LAT, 11.501, LAT + 0.001),
+            edge(2, 2, 4, 10, 11.501, LAT + 0.001, 11.502, LAT),
+            edge(3, 1, 3, 11, 11.500, LAT, 11.501, LAT - 0.001),
+            edge(4, 3, 4, 11, 11.501, LAT - 0.001, 11.502, LAT),
+            edge(5, 1, 5, 16, 11.500, LAT, 11.501, LAT + 0.002),
+            edge(6, 5, 4, 16, 11.501, LAT + 0.002, 11.502, LAT)));
+
+    @AfterEach
+    void clearDeadline() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void returnsDistinctAlternativesByCostAndDropsStretchedOnes() {
+        AlternativeRouteFinder finder = finder(8);
+
+        List<NetworkPath> paths = find(finder, 3);
+
+        assertThat(edgeIds(paths)).containsExactly(List.of(1L, 2L), List.of(3L, 4L));
+        assertThat(paths).extracting(NetworkPath::cost).containsExactly(20.0, 22.0);
+    }
+
+    @Test
+    void boundsTheNumberOfSearches() {
+        // Une seule recherche autorisée : pas d'alternative
+        assertThat(edgeIds(find(finder(1), 3))).containsExactly(List.of(1L, 2L));
+    }
+
+    @Test
+    void stopsEarlyAndMarksDegradedWhenTheBudgetIsLow() {
+        RequestDeadline.start(100);
+
+        List<NetworkPath> paths = find(finder(8), 3);
+
+        assertThat(edgeIds(paths)).containsExactly(List.of(1L, 2L));
+        assertThat(RequestDeadline.isDegraded()).isTrue();
+    }
+
+    @Test
+    void stopsWhenTheCallbackDeclinesMore() {
+        List<NetworkPath> seen = new ArrayList<>();
+
+        finder(8).findAlternatives(NETWORK, TrafficOverlay.empty(), NETWORK.nodeIndex(1), NETWORK.nodeIndex(4), 3,
+                path -> {
+                    seen.add(path);
+                    return false;
+                });
+
+        assertThat(seen).hasSize(1);
+    }
+
+    private static AlternativeRouteFinder finder(int maxQueries) {
+        return new AlternativeRouteFinder(3, 0.7, 1.4, 1.5, maxQueries, 300);
+    }
+
+    private static List<NetworkPath> find(AlternativeRouteFinder finder, int count) {
+        return finder.findAlternatives(NETWORK, TrafficOverlay.empty(), NETWORK.nodeIndex(1), NETWORK.nodeIndex(4), count);
+    }
+
+    private static List<List<Long>> edgeIds(List<NetworkPath> paths) {
+        List<List<Long>> ids = new ArrayList<>();
+        for (NetworkPath path : paths) {
+            ids.add(new ArrayList<>(AlternativeRouteFinder.edgeLengths(NETWORK, path).keySet()));
+        }
+        return ids;
+    }
+
+    private static RoadEdge edge(long id, long source, long target, double cost,
+                                 double lng1, double lat1, double lng2, double lat2) {
+        return new RoadEdge(id, source, target, cost, cost, new double[]{lng1, lat1, lng2, lat2});
+    }
+}
@@ -0,0 +1,52 @@
+package com.example.map_backend.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AlternativeSelectorTest {
+
+    @Test
+    void acceptsTheFirstCandidateAsTheBest() {
+        AlternativeSelector selector = new AlternativeSelector(3, 0.7, 1.4);
+
+        assertThat(selector.offer(Map.of(1L, 100.0, 2L, 100.0), 200)).isTrue();
+        assertThat(selector.size()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsACandidateOverlappingAnAcceptedRoute() {
+        AlternativeSelector selector = new AlternativeSelector(3, 0.7, 1.4);
+        selector.offer(Map.of(1L, 100.0, 2L, 100.0, 3L, 100.0), 300);
+
+        // 240 m partagés sur 300 : 80 % > 70 %
+        assertThat(selector.offer(Map.of(1L, 100.0, 2L, 100.0, 3L, 40.0, 4L, 60.0), 310)).isFalse();
+        // 100 m partagés sur 300 : 33 %
+        assertThat(selector.offer(Map.of(1L, 100.0, 6L, 100.0, 7L, 100.0), 320)).isTrue();
+        // Comparé aussi à l'alternative retenue, pas seulement au meilleur
+        assertThat(selector.offer(Map.of(6L, 100.0, 7L, 100.0, 8L, 50.0), 330)).isFalse();
+        assertThat(selector.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsACandidateTooMuchLongerThanTheBest() {
+        AlternativeSelector selector = new AlternativeSelector(3, 0.7, 1.4);
+        selector.offer(Map.of(1L, 100.0), 100);
+
+        assertThat(selector.offer(Map.of(2L, 150.0), 150)).isFalse();
+        assertThat(selector.offer(Map.of(3L, 140.0), 140)).isTrue();
+    }
+
+    @Test
+    void stopsAcceptingOnceFull() {
+        AlternativeSelector selector = new AlternativeSelector(2, 0.7, 1.4);
+        selector.offer(Map.of(1L, 100.0), 100);
+        selector.offer(Map.of(2L, 100.0), 110);
+
+        assertThat(selector.isFull()).isTrue();
+        assertThat(selector.offer(Map.of(3L, 100.0), 105)).isFalse();
+        assertThat(selector.offer(Map.of(), 0)).isFalse();
+    }
+}
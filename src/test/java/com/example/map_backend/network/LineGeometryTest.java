@@ -0,0 +1,60 @@
+package com.example.map_backend.network;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LineGeometryTest {
+
+    @Test
+    void concatKeepsTheSharedJointOnce() {
+        LineGeometry first = LineGeometry.of(new double[]{2.0, 48.0, 2.1, 48.0});
+        LineGeometry second = LineGeometry.of(new double[]{2.1, 48.0, 2.2, 48.1});
+        LineGeometry detached = LineGeometry.of(new double[]{3.0, 49.0, 3.1, 49.0});
+
+        LineGeometry merged = LineGeometry.concat(Arrays.asList(first, null, LineGeometry.EMPTY, second, detached));
+
+        assertThat(merged.coordinates()).containsExactly(2.0, 48.0, 2.1, 48.0, 2.2, 48.1, 3.0, 49.0, 3.1, 49.0);
+    }
+
+    @Test
+    void reversedCopyLeavesTheSourceUntouched() {
+        double[] coordinates = {2.0, 48.0, 2.1, 48.1};
+
+        LineGeometry reversed = LineGeometry.of(coordinates, true);
+
+        assertThat(reversed.coordinates()).containsExactly(2.1, 48.1, 2.0, 48.0);
+        assertThat(coordinates).containsExactly(2.0, 48.0, 2.1, 48.1);
+    }
+
+    @Test
+    void simplifiesWithAToleranceInMeters() {
+        // Écart d'environ 11 m au milieu d'une ligne de 1,5 km vers l'est
+        LineGeometry line = LineGeometry.of(new double[]{2.0, 48.0, 2.01, 48.0001, 2.02, 48.0});
+
+        assertThat(line.simplify(20).coordinates()).containsExactly(2.0, 48.0, 2.02, 48.0);
+        assertThat(line.simplify(5)).isSameAs(line);
+        assertThat(line.simplify(0)).isSameAs(line);
+        assertThat(line.simplify(20).lengthMeters()).isCloseTo(line.lengthMeters(), within(1.0));
+    }
+
+    @Test
+    void writesWkt() {
+        LineGeometry line = LineGeometry.of(new double[]{2.5, 48.25, 2.75, 48.5});
+
+        assertThat(line.toWkt()).isEqualTo("LINESTRING(2.5 48.25, 2.75 48.5)");
+        assertThat(LineGeometry.parseWkt(line.toWkt()).coordinates()).isEqualTo(line.coordinates());
+    }
+
+    @Test
+    void serializesAnEmptyGeometryAsAnEmptyString() throws Exception {
+        assertThat(LineGeometry.EMPTY.toWkt()).isEmpty();
+        assertThat(LineGeometry.concat(List.of())).isSameAs(LineGeometry.EMPTY);
+        assertThat(new ObjectMapper().writeValueAsString(List.of(LineGeometry.EMPTY))).isEqualTo("[\"\"]");
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.map_backend.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class MapMatcherTest {
+
+    private static final double LAT = 3.85;
+
+    // Route est-ouest à double sens découpée en quatre arêtes (nœuds 1 à 5, environ 278 m chacune)
+    private static final List<RoadEdge> MAIN_ROAD = List.of(
+            edge(1, 1, 2, 11.5000, LAT, 11.5025, LAT),
+            edge(2, 2, 3, 11.5025, LAT, 11.5050, LAT),
+            edge(3, 3, 4, 11.5050, LAT, 11.5075, LAT),
+            edge(4, 4, 5, 11.5075, LAT, 11.5100, LAT)
+    );
+
+    @Test
+    void matchesNoisyTraceOntoTheRoadItFollows() {
+        MapMatcher matcher = matcher(RoadNetwork.of(1, MAIN_ROAD));
+
+        MapMatcher.Result result = matcher.match(
+                new double[]{LAT + 0.00005, LAT - 0.00004, LAT + 0.00003, LAT - 0.00005},
+                new double[]{11.5010, 11.5040, 11.5065, 11.5090});
+
+        assertThat(result.unmatched()).isZero();
+        assertThat(result.snaps()).extracting(MapMatcher.Snap::pointIndex).containsExactly(0, 1, 2, 3);
+        assertThat(result.snaps()).allSatisfy(snap -> assertThat(snap.lat()).isCloseTo(LAT, within(1e-9)));
+        assertThat(result.edgeIds()).containsExactly(1, 2, 3, 4);
+        double expected = GeoUtils.distanceMeters(11.5010, LAT, 11.5090, LAT);
+        assertThat(result.distance()).isCloseTo(expected, within(1.0));
+    }
+
+    @Test
+    void reconstructsEdgesBetweenDistantSamples() {
+        MapMatcher matcher = matcher(RoadNetwork.of(1, MAIN_ROAD));
+
+        MapMatcher.Result result = matcher.match(new double[]{LAT, LAT}, new double[]{11.5005, 11.5095});
+
+        assertThat(result.edgeIds()).containsExactly(1, 2, 3, 4);
+        double expected = GeoUtils.distanceMeters(11.5005, LAT, 11.5095, LAT);
+        assertThat(result.distance()).isCloseTo(expected, within(1.0));
+    }
+
+    @Test
+    void countsPointsFarFromTheNetworkAsUnmatched() {
+        MapMatcher matcher = matcher(RoadNetwork.of(1, MAIN_ROAD));
+
+        MapMatcher.Result result = matcher.match(new double[]{LAT, LAT + 0.01, LAT}, new double[]{11.5010, 11.5050, 11.5090});
+
+        assertThat(result.unmatched()).isEqualTo(1);
+        assertThat(result.snaps()).extracting(MapMatcher.Snap::pointIndex).containsExactly(0, 2);
+    }
+
+    @Test
+    void restartsTheChainWhenNoPathJoinsTwoSamples() {
+        // Route isolée à environ 3 km au nord, sans lien avec la route principale
+        List<RoadEdge> edges = new ArrayList<>(MAIN_ROAD);
+        edges.add(edge(10, 10, 11, 11.5000, LAT + 0.03, 11.5100, LAT + 0.03));
+        MapMatcher matcher = matcher(RoadNetwork.of(1, edges));
+
+        MapMatcher.Result result = matcher.match(
+                new double[]{LAT, LAT, LAT + 0.03, LAT + 0.03},
+                new double[]{11.5010, 11.5040, 11.5060, 11.5090});
+
+        assertThat(result.unmatched()).isZero();
+        assertThat(result.snaps()).hasSize(4);
+        assertThat(result.edgeIds()).containsExactly(1, 2, 10);
+        // Seules les portions recalées d'un seul tenant comptent dans la distance
+        double expected = GeoUtils.distanceMeters(11.5010, LAT, 11.5040, LAT)
+                + GeoUtils.distanceMeters(11.5060, LAT + 0.03, 11.5090, LAT + 0.03);
+        assertThat(result.distance()).isCloseTo(expected, within(1.0));
+    }
+
+    @Test
+    void doesNotMatchAgainstTheDirectionOfAOneWayRoad() {
+        // Sens unique vers l'est, doublé à 33 m au nord par une route à double sens entre les mêmes nœuds
+        List<RoadEdge> edges = List.of(
+                new RoadEdge(20, 1, 2, 1110, -1, new double[]{11.500, LAT, 11.510, LAT}),
+                new RoadEdge(21, 1, 2, 1180, 1180, new double[]{11.500, LAT, 11.500, LAT + 0.0003,
+                        11.510, LAT + 0.0003, 11.510, LAT})
+        );
+        MapMatcher matcher = matcher(RoadNetwork.of(1, edges));
+
+        // Trace vers l'ouest, plus proche du sens unique que de la route à double sens
+        MapMatcher.Result result = matcher.match(
+                new double[]{LAT + 0.0001, LAT + 0.0001, LAT + 0.0001},
+                new double[]{11.508, 11.505, 11.502});
+
+        assertThat(result.edgeIds()).containsExactly(21);
+        assertThat(result.snaps()).allSatisfy(snap -> assertThat(snap.lat()).isCloseTo(LAT + 0.0003, within(1e-9)));
+    }
+
+    @Test
+    void returnsAnEmptyResultWhenNoPointIsNearTheNetwork() {
+        MapMatcher matcher = matcher(RoadNetwork.of(1, MAIN_ROAD));
+
+        MapMatcher.Result result = matcher.match(new double[]{LAT + 0.01, LAT + 0.02}, new double[]{11.5, 11.5});
+
+        assertThat(result.snaps()).isEmpty();
+        assertThat(result.edgeIds()).isEmpty();
+        assertThat(result.unmatched()).isEqualTo(2);
+    }
+
+    private static MapMatcher matcher(RoadNetwork network) {
+        return new MapMatcher(network, 10, 10, 50, 8);
+    }
+
+    private static RoadEdge edge(long id, long source, long target, double lng1, double lat1, double lng2, double lat2) {
+        double length = GeoUtils.distanceMeters(lng1, lat1, lng2, lat2);
+        return new RoadEdge(id, source, target, length, length, new double[]{lng1, lat1, lng2, lat2});
+    }
+}
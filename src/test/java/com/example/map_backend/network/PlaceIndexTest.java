@@ -0,0 +1,61 @@
+package com.example.map_backend.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PlaceIndexTest {
+
+    private static final PlaceIndex BASE = PlaceIndex.of(1, List.of(
+            new IndexedPlace(1, "Poste centrale", 3.860, 11.516),
+            new IndexedPlace(2, "Marché Mokolo", 3.872, 11.501),
+            new IndexedPlace(3, "Mvan", 3.830, 11.520)));
+
+    @Test
+    void appliesUpsertsAndDeletionsToANewSnapshot() {
+        PlaceIndex next = BASE.withChanges(2,
+                List.of(new IndexedPlace(2, "Marché de Mokolo", 3.872, 11.501), new IndexedPlace(4, "Nlongkak", 3.885, 11.520)),
+                Set.of(3L));
+
+        assertThat(next.getVersion()).isEqualTo(2);
+        assertThat(next.size()).isEqualTo(3);
+        assertThat(next.name(2)).isEqualTo("Marché de Mokolo");
+        assertThat(next.place(3)).isNull();
+        assertThat(next.name(4)).isEqualTo("Nlongkak");
+        assertThat(next.place(1)).isSameAs(BASE.place(1));
+
+        // L'instantané précédent reste tel quel pour les lecteurs en cours
+        assertThat(BASE.size()).isEqualTo(3);
+        assertThat(BASE.name(2)).isEqualTo("Marché Mokolo");
+        assertThat(BASE.place(3)).isNotNull();
+    }
+
+    @Test
+    void reindexesMovedPlacesInTheSpatialGrid() {
+        assertThat(namesNear(BASE, 3.830, 11.520)).containsExactly("Mvan");
+
+        PlaceIndex next = BASE.withChanges(2, List.of(new IndexedPlace(3, "Mvan", 3.845, 11.530)), Set.of());
+
+        assertThat(namesNear(next, 3.830, 11.520)).isEmpty();
+        assertThat(namesNear(next, 3.845, 11.530)).containsExactly("Mvan");
+    }
+
+    @Test
+    void ignoresDeletionOfUnknownPlaces() {
+        PlaceIndex next = BASE.withChanges(2, List.of(), Set.of(42L));
+
+        assertThat(next.size()).isEqualTo(3);
+    }
+
+    private static List<String> namesNear(PlaceIndex index, double lat, double lng) {
+        List<String> names = new ArrayList<>();
+        for (int i : index.grid().query(lng - 0.0005, lat - 0.0005, lng + 0.0005, lat + 0.0005)) {
+            names.add(index.placeAt(i).name());
+        }
+        return names;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.repository.RoadNetworkRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoadNetworkServiceTest {
+
+    private static final double LAT = 3.85;
+
+    private final Region region = new Region("test", "Test", 11.4, 3.75, 11.6, 3.95);
+    private RoadNetworkRepository repository;
+    private ApplicationEventPublisher publisher;
+    private RoadNetworkService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(RoadNetworkRepository.class);
+        publisher = mock(ApplicationEventPublisher.class);
+        RegionRegistry regions = mock(RegionRegistry.class);
+        when(regions.defaultRegion()).thenReturn(region);
+        when(repository.findEdgesInBox(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of(
+                edge(1, 1, 2, 11.50, 11.51, LAT),
+                edge(2, 2, 3, 11.51, 11.52, LAT)));
+        when(repository.findPlacesInBox(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of(
+                new IndexedPlace(10, "Poste centrale", 3.86, 11.516)));
+        service = new RoadNetworkService(repository, publisher, regions, new SimpleMeterRegistry(), 512);
+        service.reloadAll();
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.destroy();
+    }
+
+    @Test
+    void appliesDeltaToTheLoadedRegionAndPublishesItsExtent() {
+        RoadNetwork before = service.network(region);
+        long loadVersion = service.loadVersion(region);
+        // Arête 2 modifiée (nouveau nœud 4), arête 3 créée, lieu 10 renommé
+        when(repository.findEdgesByIds(Set.of(2L, 3L))).thenReturn(List.of(
+                edge(2, 2, 4, 11.51, 11.53, LAT),
+                edge(3, 4, 5, 11.53, 11.54, LAT)));
+        when(repository.findPlacesByIds(Set.of(10L))).thenReturn(List.of(new IndexedPlace(10, "Hôtel de ville", 3.86, 11.516)));
+
+        service.applyChanges(Set.of(2L, 3L), Set.of(10L));
+
+        RoadNetwork after = service.network(region);
+        assertThat(after.getVersion()).isGreaterThan(before.getVersion());
+        assertThat(after.edge(2).target()).isEqualTo(4);
+        assertThat(after.edge(3)).isNotNull();
+        assertThat(after.edge(1)).isSameAs(before.edge(1));
+        assertThat(before.edge(2).target()).isEqualTo(3);
+        assertThat(service.places(region).name(10)).isEqualTo("Hôtel de ville");
+        assertThat(service.loadVersion(region)).isEqualTo(loadVersion);
+
+        NetworkChangeEvent event = lastEvent();
+        assertThat(event.fullReload()).isFalse();
+        assertThat(event.edgeIds()).containsExactlyInAnyOrder(2L, 3L);
+        // Extrémités avant (3) et après (4, 5) modification
+        assertThat(event.nodeIds()).containsExactlyInAnyOrder(2L, 3L, 4L, 5L);
+        assertThat(event.placeIds()).containsExactly(10L);
+        assertThat(event.bounds()).containsExactly(11.51, LAT, 11.54, 3.86);
+    }
+
+    @Test
+    void removesEdgesThatLeaveTheRegion() {
+        when(repository.findEdgesByIds(Set.of(2L))).thenReturn(List.of(edge(2, 2, 3, 12.51, 12.52, LAT)));
+
+        service.applyChanges(Set.of(2L), Set.of());
+
+        assertThat(service.network(region).edge(2)).isNull();
+        assertThat(lastEvent().bounds()).containsExactly(11.51, LAT, 12.52, LAT);
+    }
+
+    @Test
+    void removesDeletedRows() {
+        when(repository.findEdgesByIds(Set.of(1L))).thenReturn(List.of());
+        when(repository.findPlacesByIds(Set.of(10L))).thenReturn(List.of());
+
+        service.applyChanges(Set.of(1L), Set.of(10L));
+
+        assertThat(service.network(region).edge(1)).isNull();
+        assertThat(service.network(region).nodeIndex(1)).isEqualTo(-1);
+        assertThat(service.places(region).size()).isZero();
+    }
+
+    private NetworkChangeEvent lastEvent() {
+        ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+        verify(publisher, atLeastOnce()).publishEvent(events.capture());
+        return (NetworkChangeEvent) events.getAllValues().get(events.getAllValues().size() - 1);
+    }
+
+    private static RoadEdge edge(long id, long source, long target, double lng1, double lng2, double lat) {
+        return new RoadEdge(id, source, target, 100, 100, new double[]{lng1, lat, lng2, lat});
+    }
+}
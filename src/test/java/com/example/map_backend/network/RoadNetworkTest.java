@@ -0,0 +1,107 @@
+package com.example.map_backend.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoadNetworkTest {
+
+    private static final double LAT = 3.85;
+
+    // Chaîne 1 - 2 - 3 à double sens, plus un sens unique 3 -> 4
+    private static final RoadNetwork BASE = RoadNetwork.of(1, List.of(
+            edge(1, 1, 2, 10, 10, 11.500, 11.501),
+            edge(2, 2, 3, 20, 20, 11.501, 11.502),
+            edge(3, 3, 4, 30, -1, 11.502, 11.503)));
+
+    @Test
+    void updatesAnEdgeWithoutTouchingThePreviousSnapshot() {
+        RoadNetwork next = BASE.withChanges(2, List.of(edge(2, 2, 3, 25, -1, 11.501, 11.502)), Set.of());
+
+        assertThat(next.getVersion()).isEqualTo(2);
+        assertThat(next.edgeCount()).isEqualTo(3);
+        assertThat(next.edge(2).cost()).isEqualTo(25);
+        assertThat(outgoingCosts(next, 2)).containsExactlyInAnyOrder(10.0, 25.0);
+        // Devenue sens unique : plus d'arc 3 -> 2
+        assertThat(outgoingCosts(next, 3)).containsExactly(30.0);
+
+        assertThat(BASE.getVersion()).isEqualTo(1);
+        assertThat(BASE.edge(2).cost()).isEqualTo(20);
+        assertThat(outgoingCosts(BASE, 3)).containsExactlyInAnyOrder(20.0, 30.0);
+    }
+
+    @Test
+    void sharesUnchangedEdgesWithThePreviousSnapshot() {
+        RoadNetwork next = BASE.withChanges(2, List.of(edge(2, 2, 3, 25, 25, 11.501, 11.502)), Set.of());
+
+        assertThat(next.edge(1)).isSameAs(BASE.edge(1));
+        assertThat(next.edge(3)).isSameAs(BASE.edge(3));
+    }
+
+    @Test
+    void deletesEdgesAndDropsNodesLeftWithoutEdges() {
+        RoadNetwork next = BASE.withChanges(2, List.of(), Set.of(3L, 99L));
+
+        assertThat(next.edgeCount()).isEqualTo(2);
+        assertThat(next.edge(3)).isNull();
+        assertThat(next.nodeIndex(4)).isEqualTo(-1);
+        assertThat(next.nodeCount()).isEqualTo(3);
+        assertThat(outgoingCosts(next, 3)).containsExactly(20.0);
+    }
+
+    @Test
+    void insertsEdgesWithTheirNewNodes() {
+        RoadNetwork next = BASE.withChanges(2, List.of(edge(4, 4, 5, 40, 40, 11.503, 11.504)), Set.of());
+
+        assertThat(next.edgeCount()).isEqualTo(4);
+        int node = next.nodeIndex(5);
+        assertThat(node).isNotNegative();
+        assertThat(next.nodeLng(node)).isEqualTo(11.504);
+        assertThat(outgoingCosts(next, 5)).containsExactly(40.0);
+        // Le sens unique 3 -> 4 rejoint désormais la suite du réseau
+        assertThat(outgoingCosts(next, 4)).containsExactly(40.0);
+    }
+
+    @Test
+    void upsertWinsOverDeletionOfTheSameEdge() {
+        RoadNetwork next = BASE.withChanges(2, List.of(edge(1, 1, 2, 15, 15, 11.500, 11.501)), Set.of(1L));
+
+        assertThat(next.edge(1).cost()).isEqualTo(15);
+    }
+
+    @Test
+    void indexesMovedGeometryInTheSpatialGrid() {
+        // Arête 1 déplacée d'environ 11 km vers le nord
+        RoadNetwork next = BASE.withChanges(2, List.of(new RoadEdge(1, 1, 2, 10, 10,
+                new double[]{11.500, LAT + 0.1, 11.501, LAT + 0.1})), Set.of());
+
+        assertThat(edgeIds(next, next.edgeGrid().query(11.4995, LAT + 0.0995, 11.5015, LAT + 0.1005))).containsExactly(1L);
+        assertThat(edgeIds(next, next.edgeGrid().query(11.4995, LAT - 0.0005, 11.5005, LAT + 0.0005))).doesNotContain(1L);
+        assertThat(edgeIds(BASE, BASE.edgeGrid().query(11.4995, LAT - 0.0005, 11.5005, LAT + 0.0005))).contains(1L);
+    }
+
+    private static List<Double> outgoingCosts(RoadNetwork network, long nodeId) {
+        int node = network.nodeIndex(nodeId);
+        List<Double> costs = new ArrayList<>();
+        for (int arc = network.arcStart(node); arc < network.arcEnd(node); arc++) {
+            costs.add(network.arcCost(arc));
+        }
+        return costs;
+    }
+
+    private static List<Long> edgeIds(RoadNetwork network, int[] indices) {
+        List<Long> ids = new ArrayList<>();
+        for (int index : indices) {
+            ids.add(network.edgeAt(index).id());
+        }
+        return ids;
+    }
+
+    private static RoadEdge edge(long id, long source, long target, double cost, double reverseCost, double lng1, double lng2) {
+        return new RoadEdge(id, source, target, cost, reverseCost, new double[]{lng1, LAT, lng2, LAT});
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.map_backend.network;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteRejoinTest {
+
+    private static final double LAT = 3.85;
+
+    // Itinéraire 1 - 2 - 3 - 4 vers l'est ; la position (nœud 5) est au nord de 2, le nœud 6 au nord de 5
+    private static final RoadNetwork NETWORK = RoadNetwork.of(1, List.of(
+            new RoadEdge(1, 1, 2, 100, 100, new double[]{11.500, LAT, 11.501, LAT}),
+            new RoadEdge(2, 2, 3, 100, 100, new double[]{11.501, LAT, 11.502, LAT}),
+            new RoadEdge(3, 3, 4, 100, 100, new double[]{11.502, LAT, 11.503, LAT}),
+            new RoadEdge(4, 5, 2, 50, 50, new double[]{11.501, LAT + 0.0005, 11.501, LAT}),
+            new RoadEdge(5, 6, 5, 50, 50, new double[]{11.501, LAT + 0.001, 11.501, LAT + 0.0005})));
+
+    private static final double[] WEIGHTS = TrafficOverlay.empty().arcWeights(NETWORK);
+
+    @Test
+    void joinsTheRouteAtTheNearestNodeOnIt() {
+        LineGeometry route = LineGeometry.of(new double[]{11.500, LAT, 11.501, LAT, 11.502, LAT, 11.503, LAT});
+
+        RouteRejoin.Result result = RouteRejoin.rejoin(NETWORK, WEIGHTS, NETWORK.nodeIndex(6), route, 150, 1_000, 100);
+
+        assertThat(result.joinPoint()).isEqualTo(1);
+        assertThat(result.connection().cost()).isEqualTo(100);
+        assertThat(AlternativeRouteFinder.edgeLengths(NETWORK, result.connection()).keySet()).containsExactly(5L, 4L);
+    }
+
+    @Test
+    void matchesRoutePointsRoundedAwayFromTheNodes() {
+        // Géométrie arrondie (polyligne OSRM, relecture PostGIS) : écarts de quelques décimètres
+        LineGeometry route = LineGeometry.of(new double[]{11.500004, LAT + 0.000003, 11.500996, LAT - 0.000004,
+                11.502003, LAT, 11.503, LAT + 0.000002});
+
+        RouteRejoin.Result result = RouteRejoin.rejoin(NETWORK, WEIGHTS, NETWORK.nodeIndex(5), route, 150, 1_000, 100);
+
+        assertThat(result).isNotNull();
+        assertThat(result.joinPoint()).isEqualTo(1);
+        assertThat(result.connection().arcs()).hasSize(1);
+    }
+
+    @Test
+    void returnsAnEmptyConnectionFromANodeOnTheRoute() {
+        LineGeometry route = LineGeometry.of(new double[]{11.500, LAT, 11.501, LAT, 11.502, LAT, 11.503, LAT});
+
+        RouteRejoin.Result result = RouteRejoin.rejoin(NETWORK, WEIGHTS, NETWORK.nodeIndex(3), route, 150, 1_000, 100);
+
+        assertThat(result.joinPoint()).isEqualTo(2);
+        assertThat(result.connection().arcs()).isEmpty();
+    }
+
+    @Test
+    void ignoresPointsBeyondTheTolerance() {
+        // Itinéraire parallèle à une dizaine de mètres : aucun nœud commun
+        LineGeometry route = LineGeometry.of(new double[]{11.500, LAT - 0.0001, 11.501, LAT - 0.0001, 11.503, LAT - 0.0001});
+
+        assertThat(RouteRejoin.rejoin(NETWORK, WEIGHTS, NETWORK.nodeIndex(5), route, 150, 1_000, 100)).isNull();
+    }
+
+    @Test
+    void givesUpBeyondTheConnectionBound() {
+        LineGeometry route = LineGeometry.of(new double[]{11.500, LAT, 11.501, LAT, 11.502, LAT, 11.503, LAT});
+
+        assertThat(RouteRejoin.rejoin(NETWORK, WEIGHTS, NETWORK.nodeIndex(6), route, 150, 60, 100)).isNull();
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.map_backend.network;
+
+import com.example.map_backend.model.RouteStep;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StepBuilderTest {
+
+    private static final Map<Long, String> NAMES = Map.of(0L, "Poste", 1L, "Marché", 2L, "Gare", 3L, "Église",
+            4L, "École", 5L, "Stade");
+
+    @Test
+    void mergesEdgesTurningLessThanTheThreshold() {
+        List<RouteStep> steps = path(0, 29, 58).build();
+
+        assertThat(steps).hasSize(1);
+        assertThat(steps.get(0).getSource()).isEqualTo("Poste");
+        assertThat(steps.get(0).getTarget()).isEqualTo("Église");
+        assertThat(steps.get(0).getDistance()).isEqualTo(300);
+        assertThat(steps.get(0).getGeometry().pointCount()).isEqualTo(4);
+    }
+
+    @Test
+    void startsANewStepAtTheThreshold() {
+        List<RouteStep> steps = path(0, 31).build();
+
+        assertThat(steps).hasSize(2);
+        assertThat(steps.get(1).getInstruction()).isEqualTo("Tournez légèrement à droite vers Gare, puis arrivée");
+    }
+
+    @Test
+    void namesEachTurnCategory() {
+        // Virages successifs : +40, -90, +150, puis demi-tour
+        List<RouteStep> steps = path(0, 40, -50, 100, 280).build();
+
+        assertThat(steps).extracting(RouteStep::getInstruction).containsExactly(
+                "Départ de Poste en direction de Marché",
+                "Tournez légèrement à droite vers Gare",
+                "Tournez à gauche vers Église",
+                "Tournez franchement à droite vers École",
+                "Faites demi-tour vers Stade, puis arrivée");
+    }
+
+    @Test
+    void announcesTheArrivalOnTheLastStep() {
+        List<RouteStep> steps = path(0, 90).build();
+
+        assertThat(steps.get(0).getInstruction()).isEqualTo("Départ de Poste en direction de Marché");
+        assertThat(steps.get(1).getInstruction()).isEqualTo("Tournez à droite vers Gare, puis arrivée");
+    }
+
+    @Test
+    void fallsBackToNodeIdsWithoutNames() {
+        List<RouteStep> steps = path(new StepBuilder(30, id -> id == 2 ? "Gare" : null), 0, 10).build();
+
+        assertThat(steps).hasSize(1);
+        assertThat(steps.get(0).getInstruction()).isEqualTo("Départ en direction de Gare, puis arrivée");
+        assertThat(steps.get(0).getSource()).isEqualTo("Node 0");
+    }
+
+    @Test
+    void leavesOutTheArrivalOnAPartialPath() {
+        List<RouteStep> steps = path(0, 90).buildPartial();
+
+        assertThat(steps.get(1).getInstruction()).isEqualTo("Tournez à droite vers Gare");
+    }
+
+    private static StepBuilder path(double... headings) {
+        return path(new StepBuilder(30, NAMES::get), headings);
+    }
+
+    // Une arête d'environ 100 m par cap (degrés depuis le nord), nœuds numérotés à partir de 0, à l'équateur
+    private static StepBuilder path(StepBuilder builder, double... headings) {
+        double lng = 0;
+        double lat = 0;
+        for (int i = 0; i < headings.length; i++) {
+            double nextLng = lng + Math.sin(Math.toRadians(headings[i])) * 0.0009;
+            double nextLat = lat + Math.cos(Math.toRadians(headings[i])) * 0.0009;
+            builder.add(i, i + 1, LineGeometry.of(new double[]{lng, lat, nextLng, nextLat}), 100, 10);
+            lng = nextLng;
+            lat = nextLat;
+        }
+        return builder;
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.map_backend.routing;
+
+import com.example.map_backend.config.RequestDeadline;
+import com.example.map_backend.model.Route;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RoutingPlannerTest {
+
+    private static final RoutingRequest REQUEST = new RoutingRequest(List.of(), "driving", null, null, 1, 2, null, true);
+
+    // Horloge des mesures du planificateur, avancée par les faux moteurs
+    private final AtomicLong clock = new AtomicLong();
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @AfterEach
+    void clearDeadline() {
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void ordersEnginesByExpectedLatencyDividedBySuccessRate() throws Exception {
+        FakeEngine fast = new FakeEngine("fast", true, 10, 10, Outcome.EMPTY, Outcome.FOUND);
+        FakeEngine slow = new FakeEngine("slow", true, 40, 40, Outcome.FOUND, Outcome.EMPTY);
+        RoutingPlanner planner = planner(4, 3, 30_000, fast, slow);
+
+        assertThat(names(planner.plan(REQUEST))).containsExactly("fast", "slow");
+
+        // fast sans chemin : 10 ms / taux plancher 0,05 = 200 > 40 ms / 1
+        assertThat(planner.route(REQUEST).engine()).isEqualTo("slow");
+        assertThat(names(planner.plan(REQUEST))).containsExactly("slow", "fast");
+
+        // slow sans chemin, fast trouve : 40 / 0,5 = 80 > 10 / 0,5 = 20
+        assertThat(planner.route(REQUEST).engine()).isEqualTo("fast");
+        assertThat(planner.snapshot().get("fast/driving")).containsEntry("successRate", 0.5);
+        assertThat(planner.snapshot().get("slow/driving")).containsEntry("successRate", 0.5);
+        assertThat(names(planner.plan(REQUEST))).containsExactly("fast", "slow");
+    }
+
+    @Test
+    void penalizesExternalEngines() {
+        FakeEngine local = new FakeEngine("local", true, 100, 100);
+        FakeEngine external = new FakeEngine("external", false, 30, 30);
+
+        // 30 ms x 4 = 120 > 100
+        assertThat(names(planner(4, 3, 30_000, external, local).plan(REQUEST))).containsExactly("local", "external");
+        // 30 ms x 2 = 60 < 100
+        RoutingPlanner lenient = new RoutingPlanner(List.of(external, local), new SimpleMeterRegistry(), 0.2, 3, 30_000, 2,
+                clock::get);
+        assertThat(names(lenient.plan(REQUEST))).containsExactly("external", "local");
+    }
+
+    @Test
+    void defersAFailingEngineDuringTheCooldown() throws Exception {
+        FakeEngine failing = new FakeEngine("failing", true, 10, 10, Outcome.FAILURE, Outcome.FAILURE, Outcome.FOUND);
+        FakeEngine backup = new FakeEngine("backup", true, 1_000, 1_000, Outcome.FOUND, Outcome.FOUND, Outcome.FOUND);
+        RoutingPlanner planner = planner(4, 2, 10_000, failing, backup);
+
+        assertThat(planner.route(REQUEST).engine()).isEqualTo("backup");
+        // Un seul échec : 10 / 0,05 = 200 reste devant 1000
+        assertThat(names(planner.plan(REQUEST))).containsExactly("failing", "backup");
+
+        assertThat(planner.route(REQUEST).engine()).isEqualTo("backup");
+        assertThat(names(planner.plan(REQUEST))).containsExactly("backup", "failing");
+        assertThat(planner.snapshot().get("failing/driving")).containsEntry("healthy", false);
+        assertThat(registry.get("map.routing.planner.skipped").tag("engine", "failing").tag("reason", "unhealthy")
+                .counter().count()).isPositive();
+
+        // Refroidissement écoulé : de nouveau tenté, un succès le rétablit
+        clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(10_000));
+        assertThat(names(planner.plan(REQUEST))).containsExactly("failing", "backup");
+        assertThat(planner.route(REQUEST).engine()).isEqualTo("failing");
+        assertThat(planner.snapshot().get("failing/driving")).containsEntry("consecutiveFailures", 0);
+    }
+
+    @Test
+    void triesEnginesExpectedToExceedTheBudgetLast() {
+        FakeEngine local = new FakeEngine("local", true, 200, 200);
+        FakeEngine external = new FakeEngine("external", false, 80, 80);
+        RoutingPlanner planner = planner(4, 3, 30_000, local, external);
+
+        // Sans échéance : 200 < 80 x 4
+        assertThat(names(planner.plan(REQUEST))).containsExactly("local", "external");
+
+        RequestDeadline.start(150);
+        assertThat(names(planner.plan(REQUEST))).containsExactly("external", "local");
+        assertThat(registry.get("map.routing.planner.skipped").tag("engine", "local").tag("reason", "budget")
+                .counter().count()).isEqualTo(1);
+    }
+
+    private RoutingPlanner planner(double externalPenalty, int failureThreshold, long cooldownMs, RoutingEngine... engines) {
+        return new RoutingPlanner(List.of(engines), registry, 0.2, failureThreshold, cooldownMs, externalPenalty, clock::get);
+    }
+
+    private static List<String> names(List<RoutingEngine> plan) {
+        return plan.stream().map(RoutingEngine::name).toList();
+    }
+
+    private enum Outcome { FOUND, EMPTY, FAILURE }
+
+    // Moteur scripté : chaque appel avance l'horloge de sa latence puis rend l'issue suivante
+    private final class FakeEngine implements RoutingEngine {
+        private final String name;
+        private final boolean local;
+        private final double priorLatencyMs;
+        private final long latencyMs;
+        private final Deque<Outcome> outcomes;
+
+        private FakeEngine(String name, boolean local, double priorLatencyMs, long latencyMs, Outcome... outcomes) {
+            this.name = name;
+            this.local = local;
+            this.priorLatencyMs = priorLatencyMs;
+            this.latencyMs = latencyMs;
+            this.outcomes = new ArrayDeque<>(List.of(outcomes));
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public boolean isLocal() {
+            return local;
+        }
+
+        @Override
+        public boolean isAvailable(RoutingRequest request) {
+            return true;
+        }
+
+        @Override
+        public double priorLatencyMs() {
+            return priorLatencyMs;
+        }
+
+        @Override
+        public RoutingResult route(RoutingRequest request) {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(latencyMs));
+            Outcome outcome = outcomes.isEmpty() ? Outcome.FOUND : outcomes.poll();
+            if (outcome == Outcome.FAILURE) {
+                throw new IllegalStateException(name + " indisponible");
+            }
+            List<Route> routes = outcome == Outcome.FOUND ? List.of(new Route()) : List.of();
+            return local ? RoutingResult.local(name, routes, null, null, true) : RoutingResult.external(name, routes);
+        }
+    }
+}
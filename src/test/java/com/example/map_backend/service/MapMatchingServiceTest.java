@@ -0,0 +1,67 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.MatchRequestBody;
+import com.example.map_backend.model.MatchResponse;
+import com.example.map_backend.model.MatchedPoint;
+import com.example.map_backend.model.TracePoint;
+import com.example.map_backend.network.GeoUtils;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RegionRegistry;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.RoadNetworkService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MapMatchingServiceTest {
+
+    private static final double LAT = 3.85;
+
+    private MapMatchingService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.destroy();
+        }
+    }
+
+    @Test
+    void reportsMatchedPointsWithTheirIndexInTheReceivedTrace() {
+        double length = GeoUtils.distanceMeters(11.50, LAT, 11.51, LAT);
+        RoadNetwork network = RoadNetwork.of(1, List.of(
+                new RoadEdge(1, 1, 2, length, length, new double[]{11.50, LAT, 11.51, LAT})));
+        Region region = new Region("test", "Test", 11.4, 3.75, 11.6, 3.95);
+        RegionRegistry regions = mock(RegionRegistry.class);
+        when(regions.locate(anyDouble(), anyDouble())).thenReturn(region);
+        RoadNetworkService networkService = mock(RoadNetworkService.class);
+        when(networkService.regions()).thenReturn(regions);
+        when(networkService.isLoaded(region)).thenReturn(true);
+        when(networkService.network(region)).thenReturn(network);
+        service = new MapMatchingService(networkService, 10, 10, 50, 8, 20000, 1);
+
+        // Points reçus dans le désordre : le recalage les trie par horodatage
+        MatchRequestBody trace = new MatchRequestBody();
+        trace.setPoints(List.of(point(11.508, 30), point(11.502, 10), point(11.505, 20)));
+        MatchResponse response = service.match(trace);
+
+        assertThat(response.getPoints()).extracting(MatchedPoint::getIndex).containsExactly(1, 2, 0);
+        assertThat(response.getPoints()).extracting(MatchedPoint::getLng)
+                .containsExactly(11.502, 11.505, 11.508);
+    }
+
+    private static TracePoint point(double lng, long timestamp) {
+        TracePoint point = new TracePoint();
+        point.setLat(LAT);
+        point.setLng(lng);
+        point.setTimestamp(timestamp);
+        return point;
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.config.RequestDeadline;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MicroBatcherTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final List<List<Integer>> batches = new CopyOnWriteArrayList<>();
+    private final List<Long> batchBudgets = new CopyOnWriteArrayList<>();
+    private MicroBatcher<Integer, Integer> batcher;
+
+    @AfterEach
+    void close() {
+        if (batcher != null) {
+            batcher.close();
+        }
+        RequestDeadline.clear();
+    }
+
+    @Test
+    void flushesAsSoonAsTheBatchIsFull() {
+        // Fenêtre de 10 s : seul le remplissage peut déclencher le lot à temps
+        batcher = new MicroBatcher<>("test", 10_000_000, 3, 1, this::timesTen, registry);
+
+        long start = System.nanoTime();
+        assertThat(batcher.getAll(List.of(1, 2, 3))).containsExactly(10, 20, 30);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(5_000);
+        assertThat(batches).containsExactly(List.of(1, 2, 3));
+        assertThat(registry.get("map.batch.size").summary().totalAmount()).isEqualTo(3);
+    }
+
+    @Test
+    void groupsConcurrentCallersWithinTheWindowAndFansResultsOut() throws Exception {
+        batcher = new MicroBatcher<>("test", 200_000, 100, 1, this::timesTen, registry);
+        CyclicBarrier barrier = new CyclicBarrier(3);
+
+        CompletableFuture<Integer> first = caller(barrier, 1, 0);
+        CompletableFuture<Integer> second = caller(barrier, 2, 0);
+        CompletableFuture<Integer> third = caller(barrier, 3, 0);
+
+        assertThat(first.get(5, TimeUnit.SECONDS)).isEqualTo(10);
+        assertThat(second.get(5, TimeUnit.SECONDS)).isEqualTo(20);
+        assertThat(third.get(5, TimeUnit.SECONDS)).isEqualTo(30);
+        assertThat(batches).hasSize(1);
+        assertThat(batches.get(0)).containsExactlyInAnyOrder(1, 2, 3);
+    }
+
+    @Test
+    void runsTheBatchUnderTheLatestCallerDeadline() throws Exception {
+        batcher = new MicroBatcher<>("test", 100_000, 100, 1, this::timesTen, registry);
+        CyclicBarrier barrier = new CyclicBarrier(2);
+
+        CompletableFuture<Integer> hurried = caller(barrier, 1, 1_000);
+        CompletableFuture<Integer> patient = caller(barrier, 2, 30_000);
+
+        assertThat(hurried.get(5, TimeUnit.SECONDS)).isEqualTo(10);
+        assertThat(patient.get(5, TimeUnit.SECONDS)).isEqualTo(20);
+        assertThat(batches).hasSize(1);
+        // Échéance du lot : celle de l'appelant le plus patient, pas celle du plus pressé
+        assertThat(batchBudgets.get(0)).isGreaterThan(1_000).isLessThanOrEqualTo(30_000);
+        assertThat(RequestDeadline.remainingMillis()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void propagatesALoaderFailureToEveryCaller() {
+        Function<List<Integer>, List<Integer>> failing = queries -> {
+            throw new IllegalStateException("base indisponible");
+        };
+        batcher = new MicroBatcher<>("test", 10_000_000, 2, 1, failing, registry);
+
+        assertThatThrownBy(() -> batcher.getAll(List.of(1, 2)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("base indisponible");
+        assertThat(registry.get("map.batch.failures").counter().count()).isEqualTo(1);
+    }
+
+    private List<Integer> timesTen(List<Integer> queries) {
+        batches.add(List.copyOf(queries));
+        batchBudgets.add(RequestDeadline.remainingMillis());
+        return queries.stream().map(query -> query * 10).toList();
+    }
+
+    private CompletableFuture<Integer> caller(CyclicBarrier barrier, int query, long budgetMs) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (budgetMs > 0) {
+                RequestDeadline.start(budgetMs);
+            }
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+                return batcher.get(query);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            } finally {
+                RequestDeadline.clear();
+            }
+        }, runnable -> new Thread(runnable).start());
+    }
+}
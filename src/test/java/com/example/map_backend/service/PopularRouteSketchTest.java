@@ -0,0 +1,98 @@
+package com.example.map_backend.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class PopularRouteSketchTest {
+
+    @Test
+    void ranksPairsByEstimatedFrequency() {
+        PopularRouteSketch sketch = new PopularRouteSketch(4096, 2);
+        record(sketch, 1, 2, 5);
+        record(sketch, 3, 4, 3);
+        record(sketch, 5, 6, 1);
+
+        assertThat(sketch.top(10)).extracting(PopularRouteSketch.Pair::source, PopularRouteSketch.Pair::hits)
+                .containsExactly(tuple(1L, 5L), tuple(3L, 3L));
+        assertThat(sketch.top(1)).hasSize(1);
+    }
+
+    @Test
+    void evictsTheSmallestEntryOnlyWhenANewPairOvertakesIt() {
+        PopularRouteSketch sketch = new PopularRouteSketch(4096, 2);
+        record(sketch, 1, 2, 3);
+        record(sketch, 3, 4, 1);
+        record(sketch, 5, 6, 1);
+
+        // À égalité avec le minimum, la nouvelle paire n'entre pas
+        assertThat(sketch.top(10)).extracting(PopularRouteSketch.Pair::source).containsExactly(1L, 3L);
+
+        record(sketch, 5, 6, 1);
+        assertThat(sketch.top(10)).extracting(PopularRouteSketch.Pair::source, PopularRouteSketch.Pair::hits)
+                .containsExactly(tuple(1L, 3L), tuple(5L, 2L));
+    }
+
+    @Test
+    void evictsByCurrentScoresWhenHeapSlotsAreStale() {
+        PopularRouteSketch sketch = new PopularRouteSketch(4096, 2);
+        record(sketch, 1, 2, 1);
+        record(sketch, 3, 4, 1);
+        // Score de 1 -> 2 relevé sans toucher au tas : son créneau reste à 1
+        record(sketch, 1, 2, 4);
+        record(sketch, 5, 6, 2);
+
+        assertThat(sketch.top(10)).extracting(PopularRouteSketch.Pair::source, PopularRouteSketch.Pair::hits)
+                .containsExactly(tuple(1L, 5L), tuple(5L, 2L));
+    }
+
+    @Test
+    void decayHalvesCountsAndDropsEmptyEntries() {
+        PopularRouteSketch sketch = new PopularRouteSketch(4096, 3);
+        record(sketch, 1, 2, 6);
+        record(sketch, 3, 4, 1);
+
+        sketch.decay();
+
+        assertThat(sketch.top(10)).extracting(PopularRouteSketch.Pair::source, PopularRouteSketch.Pair::hits)
+                .containsExactly(tuple(1L, 3L));
+        record(sketch, 1, 2, 1);
+        assertThat(sketch.top(10)).extracting(PopularRouteSketch.Pair::hits).containsExactly(4L);
+    }
+
+    @Test
+    void seedsCountsFromPersistedPairs() {
+        PopularRouteSketch sketch = new PopularRouteSketch(4096, 2);
+        sketch.seed(List.of(new PopularRouteSketch.Pair("car", 1, 2, 40), new PopularRouteSketch.Pair("foot", 1, 2, 7)));
+        sketch.record("car", 1, 2);
+
+        assertThat(sketch.top(10)).extracting(PopularRouteSketch.Pair::mode, PopularRouteSketch.Pair::hits)
+                .containsExactly(tuple("car", 41L), tuple("foot", 7L));
+    }
+
+    @Test
+    void countsConcurrentRecordsWithoutLosingUpdates() throws InterruptedException {
+        PopularRouteSketch sketch = new PopularRouteSketch(4096, 4);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long source = t % 4;
+            threads.add(new Thread(() -> record(sketch, source, 100, 10_000)));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(sketch.top(10)).hasSize(4).allSatisfy(pair -> assertThat(pair.hits()).isEqualTo(20_000));
+    }
+
+    private static void record(PopularRouteSketch sketch, long source, long target, int times) {
+        for (int i = 0; i < times; i++) {
+            sketch.record("car", source, target);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.map_backend.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBodyCacheTest {
+
+    private final ResponseBodyCache cache = new ResponseBodyCache(new ObjectMapper(), 1 << 20);
+    private final AtomicInteger computations = new AtomicInteger();
+
+    @Test
+    void answersNotModifiedWithoutComputingOnIfNoneMatchHit() {
+        String etag = cache.etag("route", 1, 2);
+
+        ResponseEntity<?> response = cache.serve(etag, "\"other\", W/" + etag, null, this::small);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(computations).hasValue(0);
+    }
+
+    @Test
+    void servesRepeatedRequestsFromTheCache() {
+        String etag = cache.etag("route", 1, 2);
+
+        cache.serve(etag, null, null, this::small);
+        ResponseEntity<?> response = cache.serve(etag, null, null, this::small);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(new String((byte[]) response.getBody())).isEqualTo("{\"name\":\"court\"}");
+        assertThat(computations).hasValue(1);
+    }
+
+    @Test
+    void doesNotCompressBodiesBelowOneKibibyte() {
+        String etag = cache.etag("small");
+
+        ResponseEntity<?> response = cache.serve(etag, null, "gzip", this::small);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+    }
+
+    @Test
+    void compressesLargeBodiesUnderTheirOwnEtag() {
+        String etag = cache.etag("large");
+
+        ResponseEntity<?> gzip = cache.serve(etag, null, "br, gzip;q=0.8", this::large);
+        ResponseEntity<?> identity = cache.serve(etag, null, null, this::large);
+
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeaders().getETag()).isEqualTo(etag.substring(0, etag.length() - 1) + "-gzip\"");
+        assertThat(identity.getHeaders().getETag()).isEqualTo(etag);
+        assertThat(((byte[]) gzip.getBody()).length).isLessThan(((byte[]) identity.getBody()).length);
+
+        // La représentation compressée revalide avec son propre ETag
+        ResponseEntity<?> revalidated = cache.serve(etag, gzip.getHeaders().getETag(), "gzip", this::large);
+        assertThat(revalidated.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(revalidated.getHeaders().getETag()).isEqualTo(gzip.getHeaders().getETag());
+    }
+
+    @Test
+    void doesNotCompressWhenGzipIsRefusedWithQZero() {
+        String etag = cache.etag("large");
+
+        ResponseEntity<?> response = cache.serve(etag, null, "gzip;q=0, identity", this::large);
+
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(response.getHeaders().getETag()).isEqualTo(etag);
+    }
+
+    @Test
+    void parsesAcceptEncodingQValues() {
+        assertThat(ResponseBodyCache.acceptsGzip("gzip")).isTrue();
+        assertThat(ResponseBodyCache.acceptsGzip("deflate, GZIP ; Q=0.5")).isTrue();
+        assertThat(ResponseBodyCache.acceptsGzip("*")).isTrue();
+        assertThat(ResponseBodyCache.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(ResponseBodyCache.acceptsGzip("gzip;q=0.000")).isFalse();
+        assertThat(ResponseBodyCache.acceptsGzip("*, gzip;q=0")).isFalse();
+        assertThat(ResponseBodyCache.acceptsGzip("*;q=0")).isFalse();
+        assertThat(ResponseBodyCache.acceptsGzip("br, identity")).isFalse();
+        assertThat(ResponseBodyCache.acceptsGzip(null)).isFalse();
+    }
+
+    private ResponseEntity<?> small() {
+        computations.incrementAndGet();
+        return ResponseEntity.ok(Map.of("name", "court"));
+    }
+
+    private ResponseEntity<?> large() {
+        computations.incrementAndGet();
+        return ResponseEntity.ok(Map.of("points", List.of(new String(new char[4096]).replace('\0', 'a'))));
+    }
+}
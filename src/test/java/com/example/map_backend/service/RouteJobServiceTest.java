@@ -0,0 +1,147 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.BatchRouteRequestBody;
+import com.example.map_backend.model.Point;
+import com.example.map_backend.model.Route;
+import com.example.map_backend.model.RouteRequestBody;
+import com.example.map_backend.model.RouteResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RouteJobServiceTest {
+
+    private final RouteService routeService = mock(RouteService.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final RouteJobService service = new RouteJobService(routeService, 4, 100, 2, 4, 16, 10_000, 900_000);
+
+    @AfterEach
+    void close() {
+        release.countDown();
+        service.destroy();
+    }
+
+    @Test
+    void computesPairsWithoutCountingThemAsPopularRoutes() throws Exception {
+        when(routeService.routeForBatch(anyList(), anyString(), any(), any())).thenReturn(found());
+
+        String jobId = service.submit(batch(3));
+
+        awaitStatus(jobId, "DONE");
+        assertThat(service.status(jobId, true).getResults()).hasSize(3);
+        verify(routeService, never()).routeWithPgRouting(anyList(), anyString(), any(), any());
+    }
+
+    @Test
+    void enforcesTheActiveJobLimitUnderConcurrentSubmissions() throws Exception {
+        when(routeService.routeForBatch(anyList(), anyString(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return found();
+        });
+        ExecutorService submitters = Executors.newFixedThreadPool(8);
+        try {
+            List<Callable<String>> submissions = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                submissions.add(() -> service.submit(batch(1)));
+            }
+            int accepted = 0;
+            for (Future<String> future : submitters.invokeAll(submissions)) {
+                try {
+                    future.get();
+                    accepted++;
+                } catch (ExecutionException e) {
+                    assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+                }
+            }
+            assertThat(accepted).isEqualTo(2);
+        } finally {
+            submitters.shutdownNow();
+        }
+
+        // Les lots terminés libèrent leur place
+        release.countDown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        String jobId = null;
+        while (jobId == null && System.nanoTime() < deadline) {
+            try {
+                jobId = service.submit(batch(1));
+            } catch (IllegalStateException e) {
+                Thread.sleep(10);
+            }
+        }
+        assertThat(jobId).isNotNull();
+    }
+
+    @Test
+    void releasesTheSlotOfACancelledJob() throws Exception {
+        when(routeService.routeForBatch(anyList(), anyString(), any(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return found();
+        });
+        String first = service.submit(batch(4));
+        service.submit(batch(4));
+        assertThatThrownBy(() -> service.submit(batch(1))).isInstanceOf(IllegalStateException.class);
+
+        service.cancel(first);
+        release.countDown();
+
+        awaitStatus(first, "CANCELLED");
+        assertThat(service.submit(batch(1))).isNotNull();
+    }
+
+    private void awaitStatus(String jobId, String status) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!status.equals(service.status(jobId, false).getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(service.status(jobId, false).getStatus()).isEqualTo(status);
+    }
+
+    private static BatchRouteRequestBody batch(int pairs) {
+        List<RouteRequestBody> routes = new ArrayList<>();
+        for (int i = 0; i < pairs; i++) {
+            RouteRequestBody route = new RouteRequestBody();
+            route.setPoints(List.of(point(3.85, 11.50), point(3.86, 11.51 + i * 0.001)));
+            route.setMode("driving");
+            routes.add(route);
+        }
+        BatchRouteRequestBody body = new BatchRouteRequestBody();
+        body.setRoutes(routes);
+        return body;
+    }
+
+    private static Point point(double lat, double lng) {
+        Point point = new Point();
+        point.setLat(lat);
+        point.setLng(lng);
+        return point;
+    }
+
+    private static RouteResponse found() {
+        Route route = new Route();
+        route.setDistance(1200);
+        route.setDuration(90);
+        RouteResponse response = new RouteResponse();
+        response.setRoutes(List.of(route));
+        return response;
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.map_backend.service;
+
+import com.example.map_backend.model.TrafficUpdate;
+import com.example.map_backend.network.TrafficChangeEvent;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class TrafficServiceTest {
+
+    private final ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+    private final TrafficService service = new TrafficService(publisher, 900, 3600);
+
+    @Test
+    void appliesAValidBatchAtTheNextFlush() {
+        assertThat(service.submit(List.of(update(1L, 0.5, null), closed(2L)))).isEqualTo(2);
+
+        service.flush();
+
+        assertThat(service.version()).isEqualTo(1);
+        assertThat(service.overlay().factor(1L)).isEqualTo(0.5);
+        assertThat(service.overlay().factor(2L)).isZero();
+        verify(publisher).publishEvent(any(TrafficChangeEvent.class));
+    }
+
+    @Test
+    void queuesNothingFromAPartlyInvalidBatch() {
+        assertThatThrownBy(() -> service.submit(List.of(update(1L, 0.5, null), update(2L, 7.0, null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("2");
+
+        service.flush();
+
+        assertThat(service.version()).isZero();
+        assertThat(service.overlay().size()).isZero();
+        verify(publisher, never()).publishEvent(any(TrafficChangeEvent.class));
+    }
+
+    @Test
+    void rejectsMissingEdgeIds() {
+        assertThatThrownBy(() -> service.submit(List.of(update(1L, 0.8, null), update(null, 0.8, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        service.flush();
+        assertThat(service.overlay().size()).isZero();
+    }
+
+    @Test
+    void rejectsOutOfRangeTtl() {
+        assertThatThrownBy(() -> service.submit(List.of(update(1L, 0.8, 0))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.submit(List.of(update(1L, 0.8, 7200))))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.submit(List.of(update(1L, Double.NaN, null))))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        service.flush();
+        assertThat(service.overlay().size()).isZero();
+    }
+
+    private static TrafficUpdate update(Long edgeId, Double factor, Integer ttlSeconds) {
+        TrafficUpdate update = new TrafficUpdate();
+        update.setEdgeId(edgeId);
+        update.setSpeedFactor(factor);
+        update.setTtlSeconds(ttlSeconds);
+        return update;
+    }
+
+    private static TrafficUpdate closed(Long edgeId) {
+        TrafficUpdate update = update(edgeId, null, null);
+        update.setClosed(true);
+        return update;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.map_backend.tiles;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProtobufWriterTest {
+
+    @Test
+    void writesVarintsLittleEndianBySevenBitGroups() {
+        ProtobufWriter writer = new ProtobufWriter();
+        writer.varint(0);
+        writer.varint(1);
+        writer.varint(127);
+        writer.varint(128);
+        writer.varint(300);
+
+        assertThat(writer.toByteArray()).containsExactly(hex("00 01 7f 8001 ac02"));
+    }
+
+    @Test
+    void encodesFieldTagsWithWireType() {
+        ProtobufWriter writer = new ProtobufWriter();
+        writer.varintField(1, 150);
+        writer.tag(15, ProtobufWriter.VARINT);
+        writer.tag(16, ProtobufWriter.LENGTH_DELIMITED);
+
+        assertThat(writer.toByteArray()).containsExactly(hex("08 9601 78 8201"));
+    }
+
+    @Test
+    void zigZagMapsSignedIntegersToUnsigned() {
+        assertThat(ProtobufWriter.zigZag(0)).isEqualTo(0);
+        assertThat(ProtobufWriter.zigZag(-1)).isEqualTo(1);
+        assertThat(ProtobufWriter.zigZag(1)).isEqualTo(2);
+        assertThat(ProtobufWriter.zigZag(-2)).isEqualTo(3);
+        assertThat(ProtobufWriter.zigZag(2047)).isEqualTo(4094);
+        assertThat(ProtobufWriter.zigZag(Integer.MAX_VALUE)).isEqualTo(0xFFFFFFFE);
+        assertThat(ProtobufWriter.zigZag(Integer.MIN_VALUE)).isEqualTo(0xFFFFFFFF);
+    }
+
+    @Test
+    void writesStringsDoublesAndPackedValues() {
+        ProtobufWriter writer = new ProtobufWriter();
+        writer.stringField(1, "é");
+        writer.doubleField(3, 1.0);
+        // Valeurs lues comme entiers non signés sur 32 bits : -1 tient sur cinq octets
+        writer.packedField(4, new int[]{3, 270, -1, 99}, 3);
+
+        assertThat(writer.toByteArray()).containsExactly(hex("0a02c3a9 19000000000000f03f 2208 03 8e02 ffffffff0f"));
+    }
+
+    @Test
+    void growsItsBufferForLargeFields() {
+        byte[] payload = new byte[1000];
+        payload[999] = 42;
+        ProtobufWriter writer = new ProtobufWriter();
+        writer.bytesField(2, payload);
+
+        byte[] bytes = writer.toByteArray();
+        assertThat(bytes).hasSize(3 + 1000);
+        assertThat(bytes[0]).isEqualTo((byte) 0x12);
+        assertThat(bytes[1]).isEqualTo((byte) 0xe8);
+        assertThat(bytes[2]).isEqualTo((byte) 0x07);
+        assertThat(bytes[bytes.length - 1]).isEqualTo((byte) 42);
+    }
+
+    static byte[] hex(String value) {
+        return HexFormat.of().parseHex(value.replace(" ", ""));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.map_backend.tiles;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.example.map_backend.tiles.ProtobufWriterTest.hex;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VectorTileEncoderTest {
+
+    @Test
+    void encodesPointLayerByteForByte() {
+        VectorTileEncoder encoder = new VectorTileEncoder();
+        encoder.layer("places").addPoint(1, 25, 17, Map.of("name", "A"));
+
+        assertThat(encoder.encode()).containsExactly(hex(
+                "1a27"                      // couche (champ 3), 39 octets
+                        + "7802"            // version 2
+                        + "0a06" + "706c61636573" // nom "places"
+                        + "120d"            // entité, 13 octets
+                        + "0801"            //   id 1
+                        + "12020000"        //   tags : clé 0, valeur 0
+                        + "1801"            //   type POINT
+                        + "2203093222"      //   MoveTo(1), zigzag(25) = 50, zigzag(17) = 34
+                        + "1a04" + "6e616d65"     // clé "name"
+                        + "2203" + "0a0141"       // valeur chaîne "A"
+                        + "288020"));       // extent 4096
+    }
+
+    @Test
+    void encodesLineAsDeltaCommands() {
+        VectorTileEncoder encoder = new VectorTileEncoder();
+        encoder.layer("roads").addLine(7, new int[]{2, 2, 2, 10, -1, 10}, 3, Map.of());
+
+        // MoveTo(1) 2,2 puis LineTo(2) +0,+8 et -3,+0 (exemple de la spécification)
+        assertThat(encoder.encode()).containsExactly(hex(
+                "1a1c" + "7802" + "0a05" + "726f616473"
+                        + "120e" + "0807" + "1802" + "2208" + "09040412" + "00100500"
+                        + "288020"));
+    }
+
+    @Test
+    void sharesKeysAndValuesAcrossFeaturesOfALayer() {
+        VectorTileEncoder encoder = new VectorTileEncoder();
+        VectorTileEncoder.Layer layer = encoder.layer("roads");
+        Map<String, Object> first = new LinkedHashMap<>();
+        first.put("cost", 1.0);
+        first.put("oneway", true);
+        first.put("lanes", 2);
+        Map<String, Object> second = new LinkedHashMap<>();
+        second.put("oneway", true);
+        second.put("cost", 1.0);
+        second.put("ref", null);
+        layer.addPoint(1, 0, 0, first);
+        layer.addPoint(2, 0, 0, second);
+
+        byte[] tile = encoder.encode();
+        String encoded = HexFormat.of().formatHex(tile);
+        // Première entité : tags 0,0 1,1 2,2 ; seconde : 1,1 0,0 (la propriété nulle est omise)
+        assertThat(encoded).contains("0801" + "1206000001010202");
+        assertThat(encoded).contains("0802" + "120401010000");
+        // Trois clés et trois valeurs, chacune écrite une seule fois : double, booléen, entier
+        assertThat(encoded).contains("1a04" + "636f7374" + "1a06" + "6f6e65776179" + "1a05" + "6c616e6573"
+                + "2209" + "19000000000000f03f" + "2202" + "3801" + "2202" + "2002" + "288020");
+    }
+
+    @Test
+    void skipsEmptyLayers() {
+        VectorTileEncoder encoder = new VectorTileEncoder();
+        VectorTileEncoder.Layer roads = encoder.layer("roads");
+
+        assertThat(roads.isEmpty()).isTrue();
+        assertThat(encoder.encode()).isEmpty();
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.map_backend.tiles;
+
+import com.example.map_backend.network.NetworkChangeEvent;
+import com.example.map_backend.network.PlaceIndex;
+import com.example.map_backend.network.Region;
+import com.example.map_backend.network.RegionRegistry;
+import com.example.map_backend.network.RoadEdge;
+import com.example.map_backend.network.RoadNetwork;
+import com.example.map_backend.network.RoadNetworkService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class VectorTileServiceTest {
+
+    private static final int Z = 14;
+    private static final double LAT = 3.85;
+    private static final double LNG = 11.501;
+
+    private final Region region = new Region("test", "Test", 11.4, 3.75, 11.6, 3.95);
+    private RoadNetworkService networkService;
+    private VectorTileService service;
+    private int x;
+    private int y;
+
+    @BeforeEach
+    void setUp() {
+        RegionRegistry regions = mock(RegionRegistry.class);
+        when(regions.intersecting(anyDouble(), anyDouble(), anyDouble(), anyDouble())).thenReturn(List.of(region));
+        networkService = mock(RoadNetworkService.class);
+        when(networkService.regions()).thenReturn(regions);
+        when(networkService.isLoaded(region)).thenReturn(true);
+        when(networkService.places(region)).thenReturn(PlaceIndex.empty());
+        when(networkService.loadVersion(region)).thenReturn(1L);
+        when(networkService.network(region)).thenReturn(road(LNG + 0.0005));
+        service = new VectorTileService(networkService, 10, 14, 8, 1 << 20);
+        x = (int) Math.floor((LNG + 180) / 360 * (1 << Z));
+        double latRad = Math.toRadians(LAT);
+        y = (int) Math.floor((1 - Math.log(Math.tan(latRad) + 1 / Math.cos(latRad)) / Math.PI) / 2 * (1 << Z));
+    }
+
+    @Test
+    void keepsTilesOutsideTheChangedArea() {
+        byte[] before = service.tile(Z, x, y);
+        when(networkService.network(region)).thenReturn(road(LNG + 0.001));
+
+        // Modification à environ 10 km : la tuile en cache reste servie
+        service.onNetworkChange(change(new double[]{11.59, 3.94, 11.595, 3.945}));
+
+        assertThat(service.tile(Z, x, y)).isEqualTo(before);
+    }
+
+    @Test
+    void rendersAgainTilesCrossingTheChangedArea() {
+        byte[] before = service.tile(Z, x, y);
+        when(networkService.network(region)).thenReturn(road(LNG + 0.001));
+
+        service.onNetworkChange(change(new double[]{LNG, LAT, LNG + 0.001, LAT}));
+
+        assertThat(service.tile(Z, x, y)).isNotEqualTo(before);
+    }
+
+    @Test
+    void rendersAgainTilesOfARegionLoadedAgain() {
+        byte[] before = service.tile(Z, x, y);
+        when(networkService.network(region)).thenReturn(road(LNG + 0.001));
+        when(networkService.loadVersion(region)).thenReturn(5L);
+
+        assertThat(service.tile(Z, x, y)).isNotEqualTo(before);
+    }
+
+    @Test
+    void dropsEveryTileOnFullReload() {
+        byte[] before = service.tile(Z, x, y);
+        when(networkService.network(region)).thenReturn(road(LNG + 0.001));
+
+        service.onNetworkChange(NetworkChangeEvent.fullReload(2));
+
+        assertThat(service.tile(Z, x, y)).isNotEqualTo(before);
+    }
+
+    private static RoadNetwork road(double endLng) {
+        return RoadNetwork.of(1, List.of(new RoadEdge(1, 1, 2, 100, 100, new double[]{LNG, LAT, endLng, LAT})));
+    }
+
+    private static NetworkChangeEvent change(double[] bounds) {
+        return new NetworkChangeEvent(2, Set.of(1L), Set.of(1L, 2L), Set.of(), bounds, false);
+    }
+}
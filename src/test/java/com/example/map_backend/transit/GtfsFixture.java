@@ -0,0 +1,45 @@
+package com.example.map_backend.transit;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+// Archive GTFS construite en mémoire pour les tests : un fichier par appel à file()
+final class GtfsFixture {
+
+    private final Map<String, String> files = new LinkedHashMap<>();
+
+    GtfsFixture file(String name, String... lines) {
+        files.put(name, String.join("\n", lines) + "\n");
+        return this;
+    }
+
+    InputStream zip() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                out.putNextEntry(new ZipEntry(file.getKey()));
+                out.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                out.closeEntry();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new ByteArrayInputStream(bytes.toByteArray());
+    }
+
+    Timetable read() {
+        try {
+            return GtfsReader.read(zip());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
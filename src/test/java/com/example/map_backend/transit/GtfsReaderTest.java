@@ -0,0 +1,178 @@
+package com.example.map_backend.transit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GtfsReaderTest {
+
+    private static final String[] STOPS = {
+            "stop_id,stop_name,stop_lat,stop_lon",
+            "A,Arrêt A,3.85,11.50",
+            "B,\"Arrêt B, marché\",3.85,11.52",
+            "C,Arrêt C,3.85,11.54",
+            "X,Sans coordonnées,,"
+    };
+
+    @Test
+    void readsStopsAndDropsThoseWithoutCoordinates() {
+        Timetable timetable = new GtfsFixture().file("stops.txt", STOPS).read();
+
+        assertThat(timetable.stopCount()).isEqualTo(3);
+        assertThat(timetable.stopId(1)).isEqualTo("B");
+        assertThat(timetable.stopName(1)).isEqualTo("Arrêt B, marché");
+        assertThat(timetable.stopLat(2)).isEqualTo(3.85);
+        assertThat(timetable.stopLng(2)).isEqualTo(11.54);
+    }
+
+    @Test
+    void parsesTimesBeyondMidnight() {
+        assertThat(GtfsReader.parseTime("08:05:30")).isEqualTo(8 * 3600 + 5 * 60 + 30);
+        assertThat(GtfsReader.parseTime("25:10:00")).isEqualTo(25 * 3600 + 10 * 60);
+        assertThat(GtfsReader.parseTime(" ")).isEqualTo(-1);
+    }
+
+    @Test
+    void groupsTripsWithTheSameStopSequenceIntoOnePatternSortedByDeparture() {
+        Timetable timetable = new GtfsFixture()
+                .file("stops.txt", STOPS)
+                .file("routes.txt",
+                        "route_id,route_short_name,route_long_name",
+                        "R1,1,Ligne A-C",
+                        "R2,,Navette B-C")
+                .file("trips.txt",
+                        "route_id,service_id,trip_id",
+                        "R1,S,late",
+                        "R1,S,early",
+                        "R1,S,short",
+                        "R2,S,shuttle")
+                .file("stop_times.txt",
+                        "trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                        // Lignes volontairement dans le désordre : triées par stop_sequence
+                        "late,08:40:00,08:40:00,C,3",
+                        "late,08:20:00,08:20:00,A,1",
+                        "late,08:30:00,08:31:00,B,2",
+                        "early,08:00:00,08:00:00,A,1",
+                        "early,08:10:00,08:11:00,B,2",
+                        "early,08:20:00,08:20:00,C,3",
+                        "short,09:00:00,09:00:00,A,1",
+                        "short,09:10:00,09:10:00,B,2",
+                        "shuttle,08:00:00,08:00:00,B,1",
+                        "shuttle,08:05:00,08:05:00,C,2")
+                .read();
+
+        assertThat(timetable.patternCount()).isEqualTo(3);
+        int full = patternWithTrip(timetable, "early");
+        assertThat(timetable.patternRouteName(full)).isEqualTo("1");
+        assertThat(stops(timetable, full)).containsExactly("A", "B", "C");
+        assertThat(trips(timetable, full)).containsExactly("early", "late");
+        int first = timetable.firstTrip(full);
+        assertThat(timetable.arrival(first, 1)).isEqualTo(8 * 3600 + 10 * 60);
+        assertThat(timetable.departure(first, 1)).isEqualTo(8 * 3600 + 11 * 60);
+
+        // Même ligne mais autre suite d'arrêts : motif distinct
+        int partial = patternWithTrip(timetable, "short");
+        assertThat(partial).isNotEqualTo(full);
+        assertThat(stops(timetable, partial)).containsExactly("A", "B");
+
+        // Sans nom court, le nom long de la ligne est retenu
+        assertThat(timetable.patternRouteName(patternWithTrip(timetable, "shuttle"))).isEqualTo("Navette B-C");
+
+        // Index inverse : B est desservi par les trois motifs
+        assertThat(timetable.stopPatternEnd(1) - timetable.stopPatternStart(1)).isEqualTo(3);
+        assertThat(timetable.earliestTrip(full, 0, 8 * 3600 + 1)).isEqualTo(first + 1);
+        assertThat(timetable.earliestTrip(full, 0, 8 * 3600 + 21 * 60)).isEqualTo(-1);
+    }
+
+    @Test
+    void splitsPatternWhenATripOvertakesAnother() {
+        Timetable timetable = new GtfsFixture()
+                .file("stops.txt", STOPS)
+                .file("trips.txt",
+                        "route_id,trip_id",
+                        "R1,slow",
+                        "R1,express")
+                .file("stop_times.txt",
+                        "trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                        "slow,08:00:00,08:00:00,A,1",
+                        "slow,08:40:00,08:40:00,C,2",
+                        "express,08:05:00,08:05:00,A,1",
+                        "express,08:20:00,08:20:00,C,2")
+                .read();
+
+        // L'express part après l'omnibus mais arrive avant : RAPTOR exige deux motifs
+        assertThat(timetable.patternCount()).isEqualTo(2);
+        assertThat(trips(timetable, 0)).hasSize(1);
+        assertThat(trips(timetable, 1)).hasSize(1);
+    }
+
+    @Test
+    void dropsTripsThroughStopsWithoutCoordinates() {
+        Timetable timetable = new GtfsFixture()
+                .file("stops.txt", STOPS)
+                .file("trips.txt", "route_id,trip_id", "R1,kept", "R1,lost")
+                .file("stop_times.txt",
+                        "trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                        "kept,08:00:00,08:00:00,A,1",
+                        "kept,08:10:00,08:10:00,B,2",
+                        "lost,08:00:00,08:00:00,A,1",
+                        "lost,08:10:00,08:10:00,X,2")
+                .read();
+
+        assertThat(timetable.tripCount()).isEqualTo(1);
+        assertThat(timetable.tripId(0)).isEqualTo("kept");
+    }
+
+    @Test
+    void expandsFrequenciesIntoTripsShiftedFromTheTemplate() {
+        Timetable timetable = new GtfsFixture()
+                .file("stops.txt", STOPS)
+                .file("trips.txt", "route_id,trip_id", "TAXI,shared")
+                .file("stop_times.txt",
+                        "trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                        "shared,00:00:00,00:00:00,A,1",
+                        "shared,00:12:00,00:13:00,B,2",
+                        "shared,00:25:00,00:25:00,C,3")
+                .file("frequencies.txt",
+                        "trip_id,start_time,end_time,headway_secs",
+                        "shared,07:00:00,08:00:00,1200")
+                .read();
+
+        // Fenêtre [07:00, 08:00[ tous les 20 min : 07:00, 07:20, 07:40 ; la course modèle n'est pas gardée
+        assertThat(timetable.patternCount()).isEqualTo(1);
+        assertThat(trips(timetable, 0)).containsExactly("shared@25200", "shared@26400", "shared@27600");
+        int second = timetable.firstTrip(0) + 1;
+        assertThat(timetable.departure(second, 0)).isEqualTo(7 * 3600 + 20 * 60);
+        assertThat(timetable.arrival(second, 1)).isEqualTo(7 * 3600 + 32 * 60);
+        assertThat(timetable.departure(second, 1)).isEqualTo(7 * 3600 + 33 * 60);
+        assertThat(timetable.arrival(second, 2)).isEqualTo(7 * 3600 + 45 * 60);
+    }
+
+    private static int patternWithTrip(Timetable timetable, String tripId) {
+        for (int pattern = 0; pattern < timetable.patternCount(); pattern++) {
+            if (trips(timetable, pattern).contains(tripId)) {
+                return pattern;
+            }
+        }
+        throw new AssertionError("Course absente : " + tripId);
+    }
+
+    private static List<String> trips(Timetable timetable, int pattern) {
+        List<String> ids = new ArrayList<>();
+        for (int trip = timetable.firstTrip(pattern); trip < timetable.endTrip(pattern); trip++) {
+            ids.add(timetable.tripId(trip));
+        }
+        return ids;
+    }
+
+    private static List<String> stops(Timetable timetable, int pattern) {
+        List<String> ids = new ArrayList<>();
+        for (int position = 0; position < timetable.patternLength(pattern); position++) {
+            ids.add(timetable.stopId(timetable.patternStop(pattern, position)));
+        }
+        return ids;
+    }
+}
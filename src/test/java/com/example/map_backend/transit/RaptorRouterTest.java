@@ -0,0 +1,136 @@
+package com.example.map_backend.transit;
+
+import com.example.map_backend.network.RoadNetwork;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class RaptorRouterTest {
+
+    private static final double LAT = 3.85;
+    private static final double A_LNG = 11.50;
+    private static final double D_LNG = 11.56;
+
+    // Ligne 1 directe A -> D, lente ; ligne 2 A -> B puis ligne 3 B' -> D, B' étant à environ 170 m de B
+    private static final GtfsFixture NETWORK = new GtfsFixture()
+            .file("stops.txt",
+                    "stop_id,stop_name,stop_lat,stop_lon",
+                    "A,A,3.85,11.50",
+                    "B,B,3.85,11.52",
+                    "B2,B',3.85,11.5215",
+                    "D,D,3.85,11.56")
+            .file("routes.txt",
+                    "route_id,route_short_name,route_long_name",
+                    "R1,1,",
+                    "R2,2,",
+                    "R3,3,")
+            .file("trips.txt",
+                    "route_id,trip_id",
+                    "R1,d1",
+                    "R2,a0",
+                    "R2,a1",
+                    "R2,a2",
+                    "R3,b1",
+                    "R3,b2")
+            .file("stop_times.txt",
+                    "trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                    "d1,08:00:00,08:00:00,A,1",
+                    "d1,09:00:00,09:00:00,D,2",
+                    "a0,08:02:00,08:02:00,A,1",
+                    "a0,08:12:00,08:12:00,B,2",
+                    "a1,08:05:00,08:05:00,A,1",
+                    "a1,08:15:00,08:15:00,B,2",
+                    "a2,08:25:00,08:25:00,A,1",
+                    "a2,08:35:00,08:35:00,B,2",
+                    "b1,08:20:00,08:20:00,B2,1",
+                    "b1,08:40:00,08:40:00,D,2",
+                    "b2,08:40:00,08:40:00,B2,1",
+                    "b2,09:00:00,09:00:00,D,2");
+
+    @Test
+    void findsParetoJourneysAcrossTheDepartureWindow() {
+        List<RaptorRouter.Journey> journeys = router(NETWORK, 2).search(LAT, A_LNG, LAT, D_LNG, time(8, 0), 30 * 60, 500);
+
+        // Partir à 08:02 arrive à 08:40 comme le départ de 08:05 : dominé, il n'apparaît pas
+        assertThat(journeys).extracting(RaptorRouter.Journey::departure, RaptorRouter.Journey::arrival,
+                RaptorRouter.Journey::transfers).containsExactly(
+                tuple(time(8, 0), time(9, 0), 0),
+                tuple(time(8, 5), time(8, 40), 1),
+                tuple(time(8, 25), time(9, 0), 1));
+    }
+
+    @Test
+    void reconstructsLegsWithTheWalkingTransfer() {
+        List<RaptorRouter.Journey> journeys = router(NETWORK, 2).search(LAT, A_LNG, LAT, D_LNG, time(8, 5), 0, 500);
+
+        RaptorRouter.Journey fastest = journeys.stream()
+                .filter(journey -> journey.transfers() == 1).findFirst().orElseThrow();
+        assertThat(fastest.legs()).extracting(RaptorRouter.Leg::mode, RaptorRouter.Leg::tripId,
+                RaptorRouter.Leg::from, RaptorRouter.Leg::to).containsExactly(
+                tuple(RaptorRouter.LegMode.BUS, "a1", "A", "B"),
+                tuple(RaptorRouter.LegMode.WALK, null, "B", "B'"),
+                tuple(RaptorRouter.LegMode.BUS, "b1", "B'", "D"));
+        assertThat(fastest.legs().get(1).departure()).isEqualTo(time(8, 15));
+        assertThat(fastest.legs().get(2).departure()).isEqualTo(time(8, 20));
+        assertThat(fastest.duration()).isEqualTo(35 * 60);
+    }
+
+    @Test
+    void keepsEarliestArrivalForEachTransferCountWithoutWindow() {
+        List<RaptorRouter.Journey> journeys = router(NETWORK, 2).search(LAT, A_LNG, LAT, D_LNG, time(8, 0), 0, 500);
+
+        // Un seul départ : direct sans correspondance ou plus rapide avec une correspondance (via a0)
+        assertThat(journeys).extracting(RaptorRouter.Journey::departure, RaptorRouter.Journey::arrival,
+                RaptorRouter.Journey::transfers).containsExactly(
+                tuple(time(8, 0), time(8, 40), 1),
+                tuple(time(8, 0), time(9, 0), 0));
+    }
+
+    @Test
+    void respectsTheMaximumNumberOfTransfers() {
+        List<RaptorRouter.Journey> journeys = router(NETWORK, 0).search(LAT, A_LNG, LAT, D_LNG, time(8, 0), 30 * 60, 500);
+
+        assertThat(journeys).extracting(RaptorRouter.Journey::transfers).containsOnly(0);
+        assertThat(journeys).extracting(RaptorRouter.Journey::arrival).containsExactly(time(9, 0));
+    }
+
+    @Test
+    void boardsTripsExpandedFromFrequencies() {
+        GtfsFixture taxis = new GtfsFixture()
+                .file("stops.txt",
+                        "stop_id,stop_name,stop_lat,stop_lon",
+                        "A,A,3.85,11.50",
+                        "D,D,3.85,11.56")
+                .file("trips.txt", "route_id,trip_id", "TAXI,shared")
+                .file("stop_times.txt",
+                        "trip_id,arrival_time,departure_time,stop_id,stop_sequence",
+                        "shared,00:00:00,00:00:00,A,1",
+                        "shared,00:30:00,00:30:00,D,2")
+                .file("frequencies.txt",
+                        "trip_id,start_time,end_time,headway_secs",
+                        "shared,07:00:00,08:00:00,900");
+
+        List<RaptorRouter.Journey> journeys = router(taxis, 2).search(LAT, A_LNG, LAT, D_LNG, time(7, 10), 0, 500);
+
+        assertThat(journeys).hasSize(1);
+        RaptorRouter.Journey journey = journeys.get(0);
+        assertThat(journey.arrival()).isEqualTo(time(7, 45));
+        assertThat(journey.legs()).extracting(RaptorRouter.Leg::tripId).containsExactly("shared@26100");
+
+        // Après la dernière course de la fenêtre de fréquence, plus rien
+        assertThat(router(taxis, 2).search(LAT, A_LNG, LAT, D_LNG, time(7, 50), 0, 500)).isEmpty();
+    }
+
+    private static RaptorRouter router(GtfsFixture gtfs, int maxTransfers) {
+        // Sans réseau routier, la marche est estimée à vol d'oiseau ; vitesse de 1 m/s
+        TransitNetwork network = TransitNetwork.build(gtfs.read(), RoadNetwork.empty(), 100, 300);
+        return new RaptorRouter(network, 1.0, maxTransfers);
+    }
+
+    private static int time(int hours, int minutes) {
+        return hours * 3600 + minutes * 60;
+    }
+}